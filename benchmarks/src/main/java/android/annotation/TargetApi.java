@@ -0,0 +1,11 @@
+package android.annotation;
+
+import java.lang.annotation.*;
+
+// Compile-time stand-in for the Android annotation referenced from the shared
+// sources; the benchmarks run on a plain JVM (see org.vimgadgets.linebreak.LineBreaker)
+@Target({ ElementType.TYPE, ElementType.METHOD, ElementType.CONSTRUCTOR })
+@Retention(RetentionPolicy.CLASS)
+public @interface TargetApi {
+	int value();
+}
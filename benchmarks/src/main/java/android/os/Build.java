@@ -0,0 +1,24 @@
+package android.os;
+
+// Compile-time stand-in for the Android class referenced from the shared
+// sources; the benchmarks run on a plain JVM (see org.vimgadgets.linebreak.LineBreaker)
+public class Build {
+	public static final String BRAND = "jvm";
+	public static final String DEVICE = "jvm";
+	public static final String DISPLAY = "jvm";
+	public static final String MANUFACTURER = "jvm";
+	public static final String MODEL = "jvm";
+
+	public static class VERSION {
+		public static final String INCREMENTAL = "";
+		public static final int SDK_INT = VERSION_CODES.KITKAT;
+	}
+
+	public static class VERSION_CODES {
+		public static final int GINGERBREAD = 9;
+		public static final int HONEYCOMB = 11;
+		public static final int ICE_CREAM_SANDWICH = 14;
+		public static final int JELLY_BEAN = 16;
+		public static final int KITKAT = 19;
+	}
+}
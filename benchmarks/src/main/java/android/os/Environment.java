@@ -0,0 +1,17 @@
+package android.os;
+
+import java.io.File;
+
+// Compile-time stand-in for the Android class referenced from the shared
+// sources; the benchmarks run on a plain JVM (see org.vimgadgets.linebreak.LineBreaker)
+public class Environment {
+	public static final String MEDIA_MOUNTED = "mounted";
+
+	public static String getExternalStorageState() {
+		return MEDIA_MOUNTED;
+	}
+
+	public static File getExternalStorageDirectory() {
+		return new File(System.getProperty("java.io.tmpdir"));
+	}
+}
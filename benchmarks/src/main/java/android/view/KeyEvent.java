@@ -0,0 +1,6 @@
+package android.view;
+
+// Compile-time stand-in for the Android class referenced from the shared
+// sources; the benchmarks run on a plain JVM (see org.vimgadgets.linebreak.LineBreaker)
+public class KeyEvent {
+}
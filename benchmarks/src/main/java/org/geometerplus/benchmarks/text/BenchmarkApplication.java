@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.benchmarks.text;
+
+import org.geometerplus.zlibrary.core.application.*;
+import org.geometerplus.zlibrary.core.view.ZLView;
+import org.geometerplus.zlibrary.core.view.ZLViewWidget;
+
+// application with a window that ignores everything; the text view
+// resets the view widget on every position change
+final class BenchmarkApplication extends ZLApplication {
+	private static final class Widget implements ZLViewWidget {
+		public void reset() {
+		}
+
+		public void repaint() {
+		}
+
+		public void startManualScrolling(int x, int y, ZLView.Direction direction) {
+		}
+
+		public void scrollManuallyTo(int x, int y) {
+		}
+
+		public void startAnimatedScrolling(ZLView.PageIndex pageIndex, int x, int y, ZLView.Direction direction, int speed) {
+		}
+
+		public void startAnimatedScrolling(ZLView.PageIndex pageIndex, ZLView.Direction direction, int speed) {
+		}
+
+		public void startAnimatedScrolling(int x, int y, int speed) {
+		}
+	}
+
+	private static final class Window implements ZLApplicationWindow {
+		private final ZLViewWidget myWidget = new Widget();
+
+		public void setWindowTitle(String title) {
+		}
+
+		public void showErrorMessage(String resourceKey) {
+		}
+
+		public void showErrorMessage(String resourceKey, String parameter) {
+		}
+
+		public ZLApplication.SynchronousExecutor createExecutor(String key) {
+			return new ZLApplication.SynchronousExecutor() {
+				public void execute(Runnable action, Runnable uiPostAction) {
+					action.run();
+				}
+
+				public void executeAux(String key, Runnable action) {
+					action.run();
+				}
+			};
+		}
+
+		public void processException(Exception e) {
+			throw new RuntimeException(e);
+		}
+
+		public void runOnUiThread(Runnable action) {
+			action.run();
+		}
+
+		public void refresh() {
+		}
+
+		public ZLViewWidget getViewWidget() {
+			return myWidget;
+		}
+
+		public void close() {
+		}
+
+		public int getBatteryLevel() {
+			return 100;
+		}
+	}
+
+	BenchmarkApplication() {
+		setWindow(new Window());
+	}
+
+	@Override
+	public ZLKeyBindings keyBindings() {
+		return null;
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.benchmarks.text;
+
+import java.io.*;
+import java.util.*;
+
+import org.geometerplus.zlibrary.core.filesystem.ZLFile;
+import org.geometerplus.zlibrary.core.filesystem.ZLResourceFile;
+import org.geometerplus.zlibrary.core.library.ZLibrary;
+
+// ZLibrary for a plain JVM; resources are the files from ../assets
+// packed into the benchmarks jar under /assets (see pom.xml)
+final class BenchmarkLibrary extends ZLibrary {
+	static final int DPI = 240;
+
+	private static BenchmarkLibrary ourInstance;
+
+	static synchronized void init() {
+		if (ourInstance == null) {
+			ourInstance = new BenchmarkLibrary();
+		}
+	}
+
+	static InputStream openAsset(String path) throws IOException {
+		final InputStream stream = BenchmarkLibrary.class.getResourceAsStream("/assets/" + path);
+		if (stream == null) {
+			throw new FileNotFoundException("assets/" + path);
+		}
+		return stream;
+	}
+
+	private final class ResourceFile extends ZLResourceFile {
+		ResourceFile(String path) {
+			super(path);
+		}
+
+		@Override
+		public boolean exists() {
+			return BenchmarkLibrary.class.getResource("/assets/" + getPath()) != null;
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return false;
+		}
+
+		@Override
+		public long size() {
+			return 0;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return openAsset(getPath());
+		}
+
+		@Override
+		public ZLFile getParent() {
+			final String path = getPath();
+			final int index = path.lastIndexOf('/');
+			return index != -1 ? createResourceFile(path.substring(0, index)) : null;
+		}
+	}
+
+	private BenchmarkLibrary() {
+	}
+
+	@Override
+	public ZLResourceFile createResourceFile(String path) {
+		return new ResourceFile(path);
+	}
+
+	@Override
+	public ZLResourceFile createResourceFile(ZLResourceFile parent, String name) {
+		return new ResourceFile(parent.getPath() + "/" + name);
+	}
+
+	@Override
+	public String getVersionName() {
+		return "benchmark";
+	}
+
+	@Override
+	public String getFullVersionName() {
+		return "benchmark";
+	}
+
+	@Override
+	public String getCurrentTimeString() {
+		return "12:00";
+	}
+
+	@Override
+	public void setScreenBrightness(int percent) {
+	}
+
+	@Override
+	public int getScreenBrightness() {
+		return 50;
+	}
+
+	@Override
+	public int getDisplayDPI() {
+		return DPI;
+	}
+
+	@Override
+	public int getWidthInPixels() {
+		return BenchmarkPaintContext.WIDTH;
+	}
+
+	@Override
+	public int getHeightInPixels() {
+		return BenchmarkPaintContext.HEIGHT;
+	}
+
+	@Override
+	public List<String> defaultLanguageCodes() {
+		return Collections.singletonList("en");
+	}
+
+	@Override
+	public boolean supportsAllOrientations() {
+		return false;
+	}
+}
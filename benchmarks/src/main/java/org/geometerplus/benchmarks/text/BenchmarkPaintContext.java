@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.benchmarks.text;
+
+import java.util.List;
+
+import org.geometerplus.zlibrary.core.filesystem.ZLFile;
+import org.geometerplus.zlibrary.core.fonts.FontEntry;
+import org.geometerplus.zlibrary.core.image.ZLImageData;
+import org.geometerplus.zlibrary.core.util.ZLColor;
+import org.geometerplus.zlibrary.core.view.ZLPaintContext;
+
+// Deterministic paint context: glyph advances come from a fixed table
+// scaled by the font size, drawing is a no-op. Results do not depend
+// on fonts installed on the machine the benchmarks run on.
+final class BenchmarkPaintContext extends ZLPaintContext {
+	static final int WIDTH = 720;
+	static final int HEIGHT = 1280;
+
+	private static final ZLColor ourBackgroundColor = new ZLColor(255, 255, 255);
+
+	private int myFontSize = 16;
+	private boolean myFontIsBold;
+	// accumulated so that drawing calls cannot be eliminated as dead code
+	int Checksum;
+
+	@Override
+	public void clear(ZLFile wallpaperFile, WallpaperMode mode) {
+	}
+
+	@Override
+	public void clear(ZLColor color) {
+	}
+
+	@Override
+	public ZLColor getBackgroundColor() {
+		return ourBackgroundColor;
+	}
+
+	@Override
+	protected void setFontInternal(List<FontEntry> entries, int size, boolean bold, boolean italic, boolean underline, boolean strikeThrough) {
+		myFontSize = size;
+		myFontIsBold = bold;
+	}
+
+	@Override
+	public void setTextColor(ZLColor color) {
+	}
+
+	@Override
+	public void setLineColor(ZLColor color) {
+	}
+
+	@Override
+	public void setLineWidth(int width) {
+	}
+
+	@Override
+	public void setFillColor(ZLColor color, int alpha) {
+	}
+
+	@Override
+	public int getWidth() {
+		return WIDTH;
+	}
+
+	@Override
+	public int getHeight() {
+		return HEIGHT;
+	}
+
+	// advance of a character in tenths of the font size
+	private static int advance(char ch) {
+		switch (ch) {
+			case 'i':
+			case 'j':
+			case 'l':
+			case '.':
+			case ',':
+			case ':':
+			case ';':
+			case '\'':
+			case '!':
+			case '|':
+				return 3;
+			case ' ':
+			case 'f':
+			case 't':
+			case 'r':
+			case '(':
+			case ')':
+			case '-':
+				return 4;
+			case 'm':
+			case 'w':
+				return 8;
+			case 'M':
+			case 'W':
+				return 9;
+			default:
+				if (ch >= 0x2E80) {
+					return 10;
+				}
+				return Character.isUpperCase(ch) ? 7 : 5;
+		}
+	}
+
+	@Override
+	public int getStringWidth(char[] string, int offset, int length) {
+		int width = 0;
+		for (int i = offset; i < offset + length; ++i) {
+			width += advance(string[i]);
+		}
+		if (myFontIsBold) {
+			width += width / 10;
+		}
+		return (width * myFontSize + 5) / 10;
+	}
+
+	@Override
+	protected int getSpaceWidthInternal() {
+		return (advance(' ') * myFontSize + 5) / 10;
+	}
+
+	@Override
+	protected int getStringHeightInternal() {
+		return myFontSize * 6 / 5;
+	}
+
+	@Override
+	protected int getDescentInternal() {
+		return myFontSize / 5;
+	}
+
+	@Override
+	public void drawString(int x, int y, char[] string, int offset, int length) {
+		Checksum += x + y + length;
+	}
+
+	@Override
+	public Size imageSize(ZLImageData image, Size maxSize, ScalingType scaling) {
+		return maxSize;
+	}
+
+	@Override
+	public void drawImage(int x, int y, ZLImageData image, Size maxSize, ScalingType scaling, ColorAdjustingMode adjustingMode) {
+		Checksum += x + y;
+	}
+
+	@Override
+	public void drawLine(int x0, int y0, int x1, int y1) {
+		Checksum += x0 + y1;
+	}
+
+	@Override
+	public void fillRectangle(int x0, int y0, int x1, int y1) {
+		Checksum += x0 + y1;
+	}
+
+	@Override
+	public void drawPolygonalLine(int[] xs, int ys[]) {
+	}
+
+	@Override
+	public void fillPolygon(int[] xs, int[] ys) {
+	}
+
+	@Override
+	public void drawOutline(int[] xs, int ys[]) {
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.benchmarks.text;
+
+import org.geometerplus.zlibrary.core.filesystem.ZLFile;
+import org.geometerplus.zlibrary.core.util.ZLColor;
+import org.geometerplus.zlibrary.core.view.ZLPaintContext;
+
+import org.geometerplus.zlibrary.text.view.*;
+import org.geometerplus.zlibrary.text.view.style.ZLTextStyleCollection;
+
+// single column text view with the default FBReader styles and fixed margins
+final class BenchmarkTextView extends ZLTextView {
+	private static final ZLColor ourBackgroundColor = new ZLColor(255, 255, 255);
+	private static final ZLColor ourSelectionColor = new ZLColor(82, 131, 194);
+	private static final ZLColor ourTextColor = new ZLColor(0, 0, 0);
+	private static final ZLColor ourHyperlinkColor = new ZLColor(60, 139, 255);
+
+	private final ZLTextStyleCollection myStyleCollection;
+
+	BenchmarkTextView(BenchmarkApplication application, ZLTextStyleCollection styleCollection) {
+		super(application);
+		myStyleCollection = styleCollection;
+	}
+
+	@Override
+	public ZLTextStyleCollection getTextStyleCollection() {
+		return myStyleCollection;
+	}
+
+	@Override
+	public ImageFitting getImageFitting() {
+		return ImageFitting.covers;
+	}
+
+	@Override
+	public int getLeftMargin() {
+		return 24;
+	}
+
+	@Override
+	public int getRightMargin() {
+		return 24;
+	}
+
+	@Override
+	public int getTopMargin() {
+		return 16;
+	}
+
+	@Override
+	public int getBottomMargin() {
+		return 24;
+	}
+
+	@Override
+	public int getSpaceBetweenColumns() {
+		return 48;
+	}
+
+	@Override
+	public boolean twoColumnView() {
+		return false;
+	}
+
+	@Override
+	public ZLFile getWallpaperFile() {
+		return null;
+	}
+
+	@Override
+	public ZLPaintContext.WallpaperMode getWallpaperMode() {
+		return ZLPaintContext.WallpaperMode.TILE;
+	}
+
+	@Override
+	public ZLColor getBackgroundColor() {
+		return ourBackgroundColor;
+	}
+
+	@Override
+	public ZLColor getSelectionBackgroundColor() {
+		return ourSelectionColor;
+	}
+
+	@Override
+	public ZLColor getSelectionForegroundColor() {
+		return ourBackgroundColor;
+	}
+
+	@Override
+	public ZLColor getHighlightingBackgroundColor() {
+		return ourSelectionColor;
+	}
+
+	@Override
+	public ZLColor getTextColor(ZLTextHyperlink hyperlink) {
+		return hyperlink.Type != 0 ? ourHyperlinkColor : ourTextColor;
+	}
+
+	@Override
+	public FooterArea getFooterArea() {
+		return null;
+	}
+
+	@Override
+	public Animation getAnimationType() {
+		return Animation.none;
+	}
+
+	@Override
+	public int scrollbarType() {
+		return SCROLLBAR_HIDE;
+	}
+
+	@Override
+	protected ZLPaintContext.ColorAdjustingMode getAdjustingModeForImages() {
+		return ZLPaintContext.ColorAdjustingMode.NONE;
+	}
+
+	// opens protected method for the page benchmarks
+	void rebuild() {
+		rebuildPaintInfo();
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.benchmarks.text;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.geometerplus.zlibrary.text.hyphenation.ZLTextHyphenator;
+import org.geometerplus.zlibrary.text.model.ZLTextWritablePlainModel;
+
+// book-sized text model shared by the text benchmarks
+@State(Scope.Benchmark)
+public class BookState {
+	@Param({ "en", "ru" })
+	public String Language;
+
+	@Param({ "300" })
+	public int Copies;
+
+	ZLTextWritablePlainModel Model;
+	private File myCacheDirectory;
+
+	@Setup
+	public void createModel() throws IOException {
+		BenchmarkLibrary.init();
+		myCacheDirectory = File.createTempFile("fbreader-benchmark", "");
+		myCacheDirectory.delete();
+		Model = Books.fb2Model(Language, Copies, myCacheDirectory);
+		ZLTextHyphenator.Instance().load(Language);
+	}
+
+	@TearDown
+	public void deleteCache() {
+		Books.deleteDirectory(myCacheDirectory);
+	}
+}
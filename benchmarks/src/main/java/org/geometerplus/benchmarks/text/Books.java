@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.benchmarks.text;
+
+import java.io.*;
+import java.util.*;
+
+import org.geometerplus.zlibrary.core.fonts.FontManager;
+import org.geometerplus.zlibrary.core.image.ZLImage;
+import org.geometerplus.zlibrary.core.xml.*;
+
+import org.geometerplus.zlibrary.text.model.*;
+
+import org.geometerplus.fbreader.bookmodel.FBHyperlinkType;
+import org.geometerplus.fbreader.bookmodel.FBTextKind;
+
+// Text models built from the FBReader help books (assets/data/help/MiniHelp.*.fb2,
+// distributed with the application under the same license). A help book is
+// a couple of pages long, so it is repeated, one section per copy, until
+// the model has the size of an ordinary book.
+abstract class Books {
+	static ZLTextWritablePlainModel fb2Model(String language, int copies, File cacheDirectory) throws IOException {
+		final ZLTextWritablePlainModel model = new ZLTextWritablePlainModel(
+			"benchmark-" + language, language, 1024, 65536,
+			cacheDirectory.getPath(), "cache",
+			Collections.<String,ZLImage>emptyMap(), new FontManager()
+		);
+		final char[] text = readAsset("data/help/MiniHelp." + language + ".fb2");
+		for (int i = 0; i < copies; ++i) {
+			ZLXMLProcessor.read(new FB2Reader(model), new CharArrayReader(text), 65536);
+			model.createParagraph(ZLTextParagraph.Kind.END_OF_SECTION_PARAGRAPH);
+		}
+		model.stopReading();
+		return model;
+	}
+
+	static void deleteDirectory(File directory) {
+		final File[] files = directory.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	private static char[] readAsset(String path) throws IOException {
+		final Reader reader = new InputStreamReader(BenchmarkLibrary.openAsset(path), "utf-8");
+		try {
+			final CharArrayWriter writer = new CharArrayWriter();
+			final char[] buffer = new char[8192];
+			for (int len = reader.read(buffer); len != -1; len = reader.read(buffer)) {
+				writer.write(buffer, 0, len);
+			}
+			return writer.toCharArray();
+		} finally {
+			reader.close();
+		}
+	}
+
+	// a subset of FB2 used by the help books, written to the model
+	// the same way BookReader does it: controls are repeated at
+	// the start of every paragraph they are open in
+	private static final class FB2Reader extends ZLXMLReaderAdapter {
+		private final ZLTextWritableModel myModel;
+		private final ArrayList<Byte> myKindStack = new ArrayList<Byte>();
+		private final StringBuilder myBuffer = new StringBuilder();
+		private boolean myInsideBody;
+		private boolean myParagraphIsOpen;
+
+		FB2Reader(ZLTextWritableModel model) {
+			myModel = model;
+		}
+
+		@Override
+		public boolean dontCacheAttributeValues() {
+			return true;
+		}
+
+		@Override
+		public void collectExternalEntities(HashMap<String,char[]> entityMap) {
+			entityMap.put("FBReaderVersion", "2.0".toCharArray());
+		}
+
+		private void flushText() {
+			if (myBuffer.length() > 0) {
+				if (myParagraphIsOpen) {
+					final char[] data = new char[myBuffer.length()];
+					myBuffer.getChars(0, data.length, data, 0);
+					myModel.addText(data);
+				}
+				myBuffer.setLength(0);
+			}
+		}
+
+		private void beginParagraph() {
+			myModel.createParagraph(ZLTextParagraph.Kind.TEXT_PARAGRAPH);
+			myParagraphIsOpen = true;
+			for (byte kind : myKindStack) {
+				myModel.addControl(kind, true);
+			}
+		}
+
+		private void endParagraph() {
+			flushText();
+			myParagraphIsOpen = false;
+		}
+
+		private void pushKind(byte kind) {
+			myKindStack.add(kind);
+			if (myParagraphIsOpen) {
+				flushText();
+				myModel.addControl(kind, true);
+			}
+		}
+
+		private void popKind() {
+			final byte kind = myKindStack.remove(myKindStack.size() - 1);
+			if (myParagraphIsOpen) {
+				flushText();
+				myModel.addControl(kind, false);
+			}
+		}
+
+		@Override
+		public boolean startElementHandler(String tag, ZLStringMap attributes) {
+			if ("body".equals(tag)) {
+				myInsideBody = true;
+			} else if (!myInsideBody) {
+				return false;
+			} else if ("p".equals(tag)) {
+				beginParagraph();
+			} else if ("empty-line".equals(tag)) {
+				myModel.createParagraph(ZLTextParagraph.Kind.EMPTY_LINE_PARAGRAPH);
+			} else if ("title".equals(tag)) {
+				myKindStack.add(FBTextKind.TITLE);
+			} else if ("subtitle".equals(tag)) {
+				myKindStack.add(FBTextKind.SUBTITLE);
+			} else if ("emphasis".equals(tag)) {
+				pushKind(FBTextKind.EMPHASIS);
+			} else if ("strong".equals(tag)) {
+				pushKind(FBTextKind.STRONG);
+			} else if ("code".equals(tag)) {
+				pushKind(FBTextKind.CODE);
+			} else if ("a".equals(tag)) {
+				final String href = attributes.getValue("l:href");
+				flushText();
+				if (href != null && href.startsWith("#")) {
+					myKindStack.add(FBTextKind.INTERNAL_HYPERLINK);
+					myModel.addHyperlinkControl(FBTextKind.INTERNAL_HYPERLINK, FBHyperlinkType.INTERNAL, href.substring(1));
+				} else {
+					myKindStack.add(FBTextKind.EXTERNAL_HYPERLINK);
+					myModel.addHyperlinkControl(FBTextKind.EXTERNAL_HYPERLINK, FBHyperlinkType.EXTERNAL, href != null ? href : "");
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public boolean endElementHandler(String tag) {
+			if (!myInsideBody) {
+				return false;
+			} else if ("body".equals(tag)) {
+				myInsideBody = false;
+			} else if ("p".equals(tag)) {
+				endParagraph();
+			} else if ("title".equals(tag) || "subtitle".equals(tag)) {
+				myKindStack.remove(myKindStack.size() - 1);
+			} else if ("emphasis".equals(tag) || "strong".equals(tag) || "code".equals(tag) || "a".equals(tag)) {
+				popKind();
+			}
+			return false;
+		}
+
+		@Override
+		public void characterDataHandler(char[] ch, int start, int length) {
+			if (myParagraphIsOpen) {
+				myBuffer.append(ch, start, length);
+			}
+		}
+
+		@Override
+		public void characterDataHandlerFinal(char[] ch, int start, int length) {
+			characterDataHandler(ch, start, length);
+		}
+	}
+}
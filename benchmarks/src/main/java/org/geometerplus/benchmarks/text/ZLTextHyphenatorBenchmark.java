@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.benchmarks.text;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.geometerplus.zlibrary.text.hyphenation.ZLTextHyphenationInfo;
+import org.geometerplus.zlibrary.text.hyphenation.ZLTextHyphenator;
+import org.geometerplus.zlibrary.text.view.ZLTextBenchmarkHooks;
+import org.geometerplus.zlibrary.text.view.ZLTextWord;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZLTextHyphenatorBenchmark {
+	private ZLTextWord[] myWords;
+	private int myIndex;
+
+	@Setup
+	public void collectWords(BookState book) {
+		// one copy of the help book is enough, the words repeat after it
+		final int paragraphs = book.Model.getParagraphsNumber() / book.Copies;
+		final List<ZLTextWord> words = ZLTextBenchmarkHooks.words(book.Model, 0, paragraphs);
+		myWords = words.toArray(new ZLTextWord[words.size()]);
+	}
+
+	// hyphenation info for the next word of the book
+	@Benchmark
+	public ZLTextHyphenationInfo getInfo() {
+		myIndex = (myIndex + 1) % myWords.length;
+		return ZLTextHyphenator.Instance().getInfo(myWords[myIndex]);
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.benchmarks.text;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.geometerplus.zlibrary.text.model.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZLTextModelBenchmark {
+	// walks all entries of the book, as paragraph cursors and search do
+	@Benchmark
+	public int iterateEntries(BookState book) {
+		final ZLTextModel model = book.Model;
+		int counter = 0;
+		for (int i = 0; i < model.getParagraphsNumber(); ++i) {
+			for (ZLTextParagraph.EntryIterator it = model.getParagraph(i).iterator(); it.next(); ) {
+				if (it.getType() == ZLTextParagraph.Entry.TEXT) {
+					counter += it.getTextLength();
+				} else {
+					++counter;
+				}
+			}
+		}
+		return counter;
+	}
+
+	@Benchmark
+	public int search(BookState book) {
+		final ZLTextModel model = book.Model;
+		return model.search("fbreader", 0, model.getParagraphsNumber(), true);
+	}
+}
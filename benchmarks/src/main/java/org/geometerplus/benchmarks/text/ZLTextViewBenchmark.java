@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.benchmarks.text;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.geometerplus.zlibrary.core.view.ZLView;
+
+import org.geometerplus.zlibrary.text.view.style.ZLTextStyleCollection;
+
+// Page layout with cold caches: every operation drops paragraph cursors and
+// cached line infos first, so buildInfos/processTextLine run for every line
+// of the page, like after opening a book or changing the font.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZLTextViewBenchmark {
+	private BenchmarkTextView myView;
+	private BenchmarkPaintContext myContext;
+	private int myParagraphsNumber;
+	private int myPagesNumber;
+	private int myParagraph;
+	private int myPage;
+
+	@Setup
+	public void createView(BookState book) {
+		myView = new BenchmarkTextView(new BenchmarkApplication(), new ZLTextStyleCollection("Base"));
+		myContext = new BenchmarkPaintContext();
+		myView.setModel(book.Model);
+		myView.preparePage(myContext, ZLView.PageIndex.current);
+		myParagraphsNumber = book.Model.getParagraphsNumber();
+		myPagesNumber = myView.pagePosition().Total;
+	}
+
+	private void nextParagraph() {
+		// a prime step, so pages start at different paragraphs of the help book
+		myParagraph = (myParagraph + 37) % myParagraphsNumber;
+	}
+
+	@Benchmark
+	public int layoutPage() {
+		nextParagraph();
+		myView.rebuild();
+		myView.gotoPosition(myParagraph, 0, 0);
+		return myView.getEndCursor().getElementIndex();
+	}
+
+	@Benchmark
+	public int paintPage() {
+		nextParagraph();
+		myView.rebuild();
+		myView.gotoPosition(myParagraph, 0, 0);
+		myView.paint(myContext, ZLView.PageIndex.current);
+		return myContext.Checksum;
+	}
+
+	@Benchmark
+	public int gotoPage() {
+		myPage = myPage % myPagesNumber + 1;
+		myView.rebuild();
+		myView.gotoPage(myPage);
+		return myView.getStartCursor().getParagraphIndex();
+	}
+}
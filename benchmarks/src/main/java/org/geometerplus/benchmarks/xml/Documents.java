@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.benchmarks.xml;
+
+// deterministic synthetic documents shaped like real OPDS catalogs,
+// ePub NCX files and library service book entries
+
+abstract class Documents {
+	static String opdsFeed(int entriesNumber) {
+		final StringBuilder buffer = new StringBuilder();
+		buffer.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+		buffer.append("<feed xmlns=\"http://www.w3.org/2005/Atom\" xmlns:dc=\"http://purl.org/dc/terms/\"");
+		buffer.append(" xmlns:opds=\"http://opds-spec.org/2010/catalog\">\n");
+		buffer.append("<id>tag:catalog:root</id><title>Catalog</title><updated>2014-01-01T00:00:00Z</updated>\n");
+		buffer.append("<link rel=\"next\" type=\"application/atom+xml;profile=opds-catalog;kind=acquisition\" href=\"/catalog?page=2\"/>\n");
+		for (int i = 0; i < entriesNumber; ++i) {
+			buffer.append("<entry>\n");
+			buffer.append("<title>Book title number ").append(i).append("</title>\n");
+			buffer.append("<id>urn:uuid:00000000-0000-0000-0000-").append(100000000000L + i).append("</id>\n");
+			buffer.append("<updated>2014-01-01T00:00:00Z</updated>\n");
+			buffer.append("<author><name>Author ").append(i % 37).append("</name><uri>/author/").append(i % 37).append("</uri></author>\n");
+			buffer.append("<dc:language>en</dc:language><dc:issued>1900</dc:issued>\n");
+			buffer.append("<category term=\"fiction\" label=\"Fiction &amp; Literature\"/>\n");
+			buffer.append("<summary type=\"text\">A short summary of the book number ").append(i).append(" &lt;with markup&gt;.</summary>\n");
+			buffer.append("<link rel=\"http://opds-spec.org/acquisition\" type=\"application/epub+zip\" href=\"/books/").append(i).append(".epub\"/>\n");
+			buffer.append("<link rel=\"http://opds-spec.org/image\" type=\"image/jpeg\" href=\"/covers/").append(i).append(".jpg\"/>\n");
+			buffer.append("<link rel=\"http://opds-spec.org/image/thumbnail\" type=\"image/jpeg\" href=\"/thumbnails/").append(i).append(".jpg\"/>\n");
+			buffer.append("</entry>\n");
+		}
+		buffer.append("</feed>\n");
+		return buffer.toString();
+	}
+
+	static String ncx(int pointsNumber) {
+		final StringBuilder buffer = new StringBuilder();
+		buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		buffer.append("<ncx xmlns=\"http://www.daisy.org/z3986/2005/ncx/\" version=\"2005-1\">\n");
+		buffer.append("<head><meta name=\"dtb:uid\" content=\"book-id\"/><meta name=\"dtb:depth\" content=\"2\"/></head>\n");
+		buffer.append("<docTitle><text>Book</text></docTitle>\n<navMap>\n");
+		for (int i = 0; i < pointsNumber; ++i) {
+			final boolean nested = i % 10 != 0;
+			buffer.append("<navPoint id=\"navPoint-").append(i).append("\" playOrder=\"").append(i + 1).append("\">");
+			buffer.append("<navLabel><text>Chapter ").append(i).append("</text></navLabel>");
+			buffer.append("<content src=\"text/part").append(i / 10).append(".xhtml#section").append(i).append("\"/>");
+			if (!nested || i % 10 == 9) {
+				buffer.append("</navPoint>");
+			}
+			if (i % 10 == 9) {
+				buffer.append("</navPoint>");
+			}
+			buffer.append("\n");
+		}
+		buffer.append("</navMap>\n</ncx>\n");
+		return buffer.toString();
+	}
+
+	static String libraryEntries(int entriesNumber) {
+		final StringBuilder buffer = new StringBuilder();
+		buffer.append("<list>\n");
+		for (int i = 0; i < entriesNumber; ++i) {
+			buffer.append("<entry xmlns:dc=\"http://purl.org/dc/terms/\" xmlns:calibre=\"http://calibre.kovidgoyal.net/2009/metadata\">");
+			buffer.append("<id>").append(i).append("</id>");
+			buffer.append("<title>Book title number ").append(i).append("</title>");
+			buffer.append("<dc:language>en</dc:language><dc:encoding>utf-8</dc:encoding>");
+			buffer.append("<dc:identifier scheme=\"SHA-256\">").append(Integer.toHexString(i * 7919)).append("</dc:identifier>");
+			buffer.append("<author><uri>author ").append(i % 37).append("</uri><name>Author ").append(i % 37).append("</name></author>");
+			buffer.append("<category term=\"fiction/classic\" label=\"classic\"/>");
+			buffer.append("<label name=\"favorite\"/>");
+			buffer.append("<link href=\"file:///sdcard/Books/book").append(i).append(".epub\" type=\"application/epub+zip\" rel=\"http://opds-spec.org/acquisition\"/>");
+			buffer.append("<progress numerator=\"").append(i).append("\" denominator=\"1000\"/>");
+			buffer.append("</entry>\n");
+		}
+		buffer.append("</list>\n");
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.benchmarks.xml;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.geometerplus.zlibrary.core.xml.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZLXMLParserBenchmark {
+	@Param({ "opds", "ncx", "library" })
+	public String Document;
+
+	private String myText;
+
+	@Setup
+	public void generateDocument() {
+		if ("opds".equals(Document)) {
+			myText = Documents.opdsFeed(500);
+		} else if ("ncx".equals(Document)) {
+			myText = Documents.ncx(2000);
+		} else {
+			myText = Documents.libraryEntries(500);
+		}
+	}
+
+	// reads a couple of attributes per tag, like real readers do
+	private static final class Reader extends ZLXMLReaderAdapter {
+		int Counter;
+
+		@Override
+		public boolean startElementHandler(String tag, ZLStringMap attributes) {
+			Counter += attributes.getSize();
+			final String href = attributes.getValue("href");
+			if (href != null) {
+				Counter += href.length();
+			}
+			final String src = attributes.getValue("src");
+			if (src != null) {
+				Counter += src.length();
+			}
+			return false;
+		}
+
+		@Override
+		public void characterDataHandler(char[] ch, int start, int length) {
+			Counter += length;
+		}
+
+		@Override
+		public void characterDataHandlerFinal(char[] ch, int start, int length) {
+			Counter += length;
+		}
+	}
+
+	@Benchmark
+	public int parse() throws IOException {
+		final Reader reader = new Reader();
+		ZLXMLProcessor.read(reader, new StringReader(myText), 65536);
+		return reader.Counter;
+	}
+}
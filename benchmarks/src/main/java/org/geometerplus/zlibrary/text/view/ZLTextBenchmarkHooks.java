@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.geometerplus.zlibrary.text.model.ZLTextModel;
+
+// package-private entry points of the text view, opened for the benchmarks;
+// this class lives in benchmarks/src only and is not a part of the library
+public abstract class ZLTextBenchmarkHooks {
+	// creates cursor of the given paragraph from the model, like it is done for
+	// every paragraph that gets into a page after the cursor cache was cleared;
+	// a new cursor is used so nothing is reused from the previous fill
+	public static int fillParagraph(ZLTextModel model, int index) {
+		ZLTextParagraphCursorCache.clear();
+		return ZLTextParagraphCursor.cursor(model, index).getParagraphLength();
+	}
+
+	public static List<ZLTextWord> words(ZLTextModel model, int from, int to) {
+		final List<ZLTextWord> words = new ArrayList<ZLTextWord>();
+		for (int index = from; index < to; ++index) {
+			final ZLTextParagraphCursor cursor = ZLTextParagraphCursor.cursor(model, index);
+			for (int i = 0; i < cursor.getParagraphLength(); ++i) {
+				final ZLTextElement element = cursor.getElement(i);
+				if (element instanceof ZLTextWord) {
+					words.add((ZLTextWord)element);
+				}
+			}
+		}
+		ZLTextParagraphCursorCache.clear();
+		return words;
+	}
+}
@@ -0,0 +1,66 @@
+package org.vimgadgets.linebreak;
+
+// Pure Java stand-in for the native liblinebreak binding, used by the
+// benchmarks only: the JMH module runs on a plain JVM where libLineBreak-v2
+// is not available. Classes from benchmarks/src shadow the ones from ../src.
+// Rules are a deterministic subset of UAX #14 that is close enough for
+// Latin, Cyrillic and CJK text: break after spaces, after hyphens followed
+// by a letter and between ideographs; never inside a surrogate pair.
+public final class LineBreaker {
+	public static final char MUSTBREAK = 0;
+	public static final char ALLOWBREAK = 1;
+	public static final char NOBREAK = 2;
+	public static final char INSIDEACHAR = 3;
+
+	public LineBreaker(String lang) {
+	}
+
+	public void setLineBreaks(char[] data, int offset, int length, byte[] breaks) {
+		for (int i = 0; i < length - 1; ++i) {
+			breaks[i] = breakAfter(data[offset + i], data[offset + i + 1]);
+		}
+		if (length > 0) {
+			breaks[length - 1] = MUSTBREAK;
+		}
+	}
+
+	public void setLineBreaks(String data, byte[] breaks) {
+		setLineBreaks(data.toCharArray(), 0, data.length(), breaks);
+	}
+
+	private static byte breakAfter(char ch, char next) {
+		if (Character.isHighSurrogate(ch)) {
+			return INSIDEACHAR;
+		}
+		if (ch == '\n') {
+			return MUSTBREAK;
+		}
+		if (Character.isWhitespace(next) || next == 0xA0) {
+			return NOBREAK;
+		}
+		if (ch == 0xA0) {
+			return NOBREAK;
+		}
+		if (Character.isWhitespace(ch)) {
+			return ALLOWBREAK;
+		}
+		if (ch == '-' && Character.isLetter(next)) {
+			return ALLOWBREAK;
+		}
+		if (isIdeographic(ch) || isIdeographic(next)) {
+			if (Character.isLetterOrDigit(next)) {
+				return ALLOWBREAK;
+			}
+			return NOBREAK;
+		}
+		return NOBREAK;
+	}
+
+	private static boolean isIdeographic(char ch) {
+		return
+			(ch >= 0x3040 && ch <= 0x30FF) ||
+			(ch >= 0x3400 && ch <= 0x4DBF) ||
+			(ch >= 0x4E00 && ch <= 0x9FFF) ||
+			(ch >= 0xF900 && ch <= 0xFAFF);
+	}
+}
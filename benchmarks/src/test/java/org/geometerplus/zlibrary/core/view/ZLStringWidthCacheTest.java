@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.core.view;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ZLStringWidthCacheTest {
+	// advance of a character is its code mod 10 + size,
+	// pairs "AV", "To" and "Ty" are kerned
+	private static final class KerningMeasurer implements ZLStringWidthCache.Measurer {
+		private final int mySize;
+		int Count;
+
+		KerningMeasurer(int size) {
+			mySize = size;
+		}
+
+		public float measure(char[] data, int offset, int length) {
+			++Count;
+			float width = 0;
+			for (int i = offset; i < offset + length; ++i) {
+				width += data[i] % 10 + mySize;
+				if (i > offset) {
+					width -= kerning(data[i - 1], data[i]);
+				}
+			}
+			return width;
+		}
+
+		private float kerning(char first, char second) {
+			if (first == 'A' && second == 'V') {
+				return 3.2f;
+			}
+			if (first == 'T' && (second == 'o' || second == 'y')) {
+				return 2.6f;
+			}
+			return 0;
+		}
+
+		int expected(String string) {
+			final char[] data = string.toCharArray();
+			return (int)(measure(data, 0, data.length) + 0.5f);
+		}
+	}
+
+	private static int width(ZLStringWidthCache.Font font, String string, ZLStringWidthCache.Measurer measurer) {
+		final char[] data = ("[" + string + "]").toCharArray();
+		return font.width(data, 1, string.length(), measurer);
+	}
+
+	@Test
+	public void kernedPairsAreExactAfterManyPlainStrings() {
+		final KerningMeasurer measurer = new KerningMeasurer(7);
+		final ZLStringWidthCache.Font font = new ZLStringWidthCache(4).font(this, 7, 0);
+		for (int i = 0; i < 1000; ++i) {
+			final String word = "word" + i;
+			assertEquals(word, measurer.expected(word), width(font, word, measurer));
+		}
+		for (String word : new String[] { "AV", "To", "WAVE", "Today", "Typography", "AVAV" }) {
+			assertEquals(word, measurer.expected(word), width(font, word, measurer));
+		}
+	}
+
+	@Test
+	public void widthsAreMeasuredOnce() {
+		final KerningMeasurer measurer = new KerningMeasurer(5);
+		final ZLStringWidthCache.Font font = new ZLStringWidthCache(4).font(this, 5, 0);
+		final int width = width(font, "Token", measurer);
+		final int count = measurer.Count;
+		assertEquals(width, width(font, "Token", measurer));
+		assertEquals(count, measurer.Count);
+		assertEquals(0, font.width(new char[0], 0, 0, measurer));
+	}
+
+	@Test
+	public void fontsAreKeptSeparately() {
+		final ZLStringWidthCache cache = new ZLStringWidthCache(2);
+		final KerningMeasurer small = new KerningMeasurer(5);
+		final KerningMeasurer large = new KerningMeasurer(9);
+		assertEquals(small.expected("AV"), width(cache.font(this, 5, 0), "AV", small));
+		assertEquals(large.expected("AV"), width(cache.font(this, 9, 0), "AV", large));
+		assertEquals(large.expected("AV"), width(cache.font(this, 9, 1), "AV", large));
+		// the least recently used font (size 5) has been dropped
+		final ZLStringWidthCache.Font font = cache.font(this, 5, 0);
+		final int count = small.Count;
+		assertEquals(small.expected("AV"), width(font, "AV", small));
+		assertEquals(count + 2, small.Count);
+		assertSame(font, cache.font(this, 5, 0));
+	}
+
+	@Test
+	public void widthsSurviveTableOverflow() {
+		final KerningMeasurer measurer = new KerningMeasurer(3);
+		final ZLStringWidthCache.Font font = new ZLStringWidthCache(1).font(this, 3, 0);
+		for (int round = 0; round < 2; ++round) {
+			for (int i = 0; i < 20000; ++i) {
+				final String word = (i % 2 == 0 ? "AV" : "To") + i;
+				assertEquals(word, measurer.expected(word), width(font, word, measurer));
+			}
+		}
+	}
+}
@@ -51,6 +51,7 @@ LOCAL_SRC_FILES               := \
 	NativeFormats/zlibrary/core/src/filesystem/ZLDir.cpp \
 	NativeFormats/zlibrary/core/src/filesystem/ZLFSManager.cpp \
 	NativeFormats/zlibrary/core/src/filesystem/ZLFile.cpp \
+	NativeFormats/zlibrary/core/src/filesystem/ZLFilePrefetcher.cpp \
 	NativeFormats/zlibrary/core/src/filesystem/ZLInputStreamDecorator.cpp \
 	NativeFormats/zlibrary/core/src/filesystem/zip/ZLGzipInputStream.cpp \
 	NativeFormats/zlibrary/core/src/filesystem/zip/ZLZDecompressor.cpp \
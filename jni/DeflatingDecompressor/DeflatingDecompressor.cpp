@@ -51,9 +51,32 @@ void Java_org_amse_ys_zip_DeflatingDecompressor_endInflating(JNIEnv *env, jobjec
 	}
 }
 
-// returns (endFlag << 32) + ((used inLength) << 16) + outLength
+// starts inflating from a checkpoint: bits is the number of bits of value
+// that belong to the stream, window is the data preceding the checkpoint
 extern "C"
-jlong Java_org_amse_ys_zip_DeflatingDecompressor_inflate(JNIEnv *env, jobject thiz, jint inflatorId, jbyteArray in, jint inOffset, jint inLength, jbyteArray out) {
+jint Java_org_amse_ys_zip_DeflatingDecompressor_startInflatingAt(JNIEnv *env, jobject thiz, jint bits, jint value, jbyteArray window, jint windowLength) {
+	const jint id = Java_org_amse_ys_zip_DeflatingDecompressor_startInflating(env, thiz);
+	if (id == -1) {
+		return -1;
+	}
+	z_stream *stream = ourStreams[id];
+	if (bits > 0 && inflatePrime(stream, bits, value >> (8 - bits)) != Z_OK) {
+		Java_org_amse_ys_zip_DeflatingDecompressor_endInflating(env, thiz, id);
+		return -1;
+	}
+	if (windowLength > 0) {
+		jbyte* windowStart = env->GetByteArrayElements(window, 0);
+		const int code = inflateSetDictionary(stream, (const Bytef*)windowStart, windowLength);
+		env->ReleaseByteArrayElements(window, windowStart, JNI_ABORT);
+		if (code != Z_OK) {
+			Java_org_amse_ys_zip_DeflatingDecompressor_endInflating(env, thiz, id);
+			return -1;
+		}
+	}
+	return id;
+}
+
+static jlong doInflate(JNIEnv *env, jint inflatorId, jbyteArray in, jint inOffset, jint inLength, jbyteArray out, int flush) {
 	if (inflatorId < 0 || inflatorId >= SIZE) {
 		return -1;
 	}
@@ -69,7 +92,7 @@ jlong Java_org_amse_ys_zip_DeflatingDecompressor_inflate(JNIEnv *env, jobject th
 	stream->next_out = (Bytef*)outStart;
 	const int outLength = env->GetArrayLength(out);
 	stream->avail_out = outLength;
-	const int code = inflate(stream, Z_SYNC_FLUSH);
+	const int code = inflate(stream, flush);
 	env->ReleaseByteArrayElements(in, inStart, 0);
 	env->ReleaseByteArrayElements(out, outStart, 0);
 	if (code == Z_OK || code == Z_STREAM_END) {
@@ -77,7 +100,24 @@ jlong Java_org_amse_ys_zip_DeflatingDecompressor_inflate(JNIEnv *env, jobject th
 		if (code == Z_STREAM_END) {
 			result |= ((jlong)1) << 32;
 		}
+		if (flush == Z_BLOCK && (stream->data_type & 128) != 0 && (stream->data_type & 64) == 0) {
+			result |= ((jlong)1) << 33;
+			result |= ((jlong)(stream->data_type & 7)) << 40;
+		}
 		return result;
 	}
 	return -1024 + code;
 }
+
+// returns (endFlag << 32) + ((used inLength) << 16) + outLength
+extern "C"
+jlong Java_org_amse_ys_zip_DeflatingDecompressor_inflate(JNIEnv *env, jobject thiz, jint inflatorId, jbyteArray in, jint inOffset, jint inLength, jbyteArray out) {
+	return doInflate(env, inflatorId, in, inOffset, inLength, out, Z_SYNC_FLUSH);
+}
+
+// same as inflate, but stops at the end of every deflate block; at a block
+// boundary the result also contains (1 << 33) + ((unused bits in the last used byte) << 40)
+extern "C"
+jlong Java_org_amse_ys_zip_DeflatingDecompressor_inflateBlock(JNIEnv *env, jobject thiz, jint inflatorId, jbyteArray in, jint inOffset, jint inLength, jbyteArray out) {
+	return doInflate(env, inflatorId, in, inOffset, inLength, out, Z_BLOCK);
+}
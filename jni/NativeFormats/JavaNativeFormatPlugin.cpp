@@ -201,33 +201,33 @@ static bool initInternalHyperlinks(JNIEnv *env, jobject javaModel, BookModel &mo
 	return !env->ExceptionCheck();
 }
 
-static jobject createTextModel(JNIEnv *env, jobject javaModel, ZLTextModel &model) {
+static jobject createTextModel(JNIEnv *env, jobject javaModel, ZLTextModel &model, std::size_t paragraphsNumber, std::size_t blocksCount) {
 	env->PushLocalFrame(16);
 
 	jstring id = AndroidUtil::createJavaString(env, model.id());
 	jstring language = AndroidUtil::createJavaString(env, model.language());
-	jint paragraphsNumber = model.paragraphsNumber();
-
-	const std::size_t arraysSize = model.startEntryIndices().size();
-	jintArray entryIndices = env->NewIntArray(arraysSize);
-	jintArray entryOffsets = env->NewIntArray(arraysSize);
-	jintArray paragraphLenghts = env->NewIntArray(arraysSize);
-	jintArray textSizes = env->NewIntArray(arraysSize);
-	jbyteArray paragraphKinds = env->NewByteArray(arraysSize);
-	env->SetIntArrayRegion(entryIndices, 0, arraysSize, &model.startEntryIndices().front());
-	env->SetIntArrayRegion(entryOffsets, 0, arraysSize, &model.startEntryOffsets().front());
-	env->SetIntArrayRegion(paragraphLenghts, 0, arraysSize, &model.paragraphLengths().front());
-	env->SetIntArrayRegion(textSizes, 0, arraysSize, &model.textSizes().front());
-	env->SetByteArrayRegion(paragraphKinds, 0, arraysSize, &model.paragraphKinds().front());
+
+	jintArray entryIndices = env->NewIntArray(paragraphsNumber);
+	jintArray entryOffsets = env->NewIntArray(paragraphsNumber);
+	jintArray paragraphLenghts = env->NewIntArray(paragraphsNumber);
+	jintArray textSizes = env->NewIntArray(paragraphsNumber);
+	jbyteArray paragraphKinds = env->NewByteArray(paragraphsNumber);
+	if (paragraphsNumber > 0) {
+		env->SetIntArrayRegion(entryIndices, 0, paragraphsNumber, &model.startEntryIndices().front());
+		env->SetIntArrayRegion(entryOffsets, 0, paragraphsNumber, &model.startEntryOffsets().front());
+		env->SetIntArrayRegion(paragraphLenghts, 0, paragraphsNumber, &model.paragraphLengths().front());
+		env->SetIntArrayRegion(textSizes, 0, paragraphsNumber, &model.textSizes().front());
+		env->SetByteArrayRegion(paragraphKinds, 0, paragraphsNumber, &model.paragraphKinds().front());
+	}
 
 	jstring directoryName = env->NewStringUTF(model.allocator().directoryName().c_str());
 	jstring fileExtension = env->NewStringUTF(model.allocator().fileExtension().c_str());
-	jint blocksNumber = (jint) model.allocator().blocksNumber();
+	jint blocksNumber = (jint)blocksCount;
 
 	jobject textModel = AndroidUtil::Method_NativeBookModel_createTextModel->call(
 		javaModel,
 		id, language,
-		paragraphsNumber, entryIndices, entryOffsets,
+		(jint)paragraphsNumber, entryIndices, entryOffsets,
 		paragraphLenghts, textSizes, paragraphKinds,
 		directoryName, fileExtension, blocksNumber
 	);
@@ -238,6 +238,39 @@ static jobject createTextModel(JNIEnv *env, jobject javaModel, ZLTextModel &mode
 	return env->PopLocalFrame(textModel);
 }
 
+static jobject createTextModel(JNIEnv *env, jobject javaModel, ZLTextModel &model) {
+	return createTextModel(env, javaModel, model, model.paragraphsNumber(), model.allocator().blocksNumber());
+}
+
+// appends paragraphs [from, to) of model to javaTextModel;
+// returns false if the Java side does not need more paragraphs
+static bool extendTextModel(JNIEnv *env, jobject javaModel, jobject javaTextModel, ZLTextModel &model, std::size_t from, std::size_t to, std::size_t blocksNumber) {
+	env->PushLocalFrame(8);
+
+	const std::size_t count = to - from;
+	jintArray entryIndices = env->NewIntArray(count);
+	jintArray entryOffsets = env->NewIntArray(count);
+	jintArray paragraphLenghts = env->NewIntArray(count);
+	jintArray textSizes = env->NewIntArray(count);
+	jbyteArray paragraphKinds = env->NewByteArray(count);
+	if (count > 0) {
+		env->SetIntArrayRegion(entryIndices, 0, count, &model.startEntryIndices()[from]);
+		env->SetIntArrayRegion(entryOffsets, 0, count, &model.startEntryOffsets()[from]);
+		env->SetIntArrayRegion(paragraphLenghts, 0, count, &model.paragraphLengths()[from]);
+		env->SetIntArrayRegion(textSizes, 0, count, &model.textSizes()[from]);
+		env->SetByteArrayRegion(paragraphKinds, 0, count, &model.paragraphKinds()[from]);
+	}
+
+	const jboolean result = AndroidUtil::Method_NativeBookModel_extendTextModel->call(
+		javaModel, javaTextModel, (jint)to,
+		entryIndices, entryOffsets, paragraphLenghts, textSizes, paragraphKinds,
+		(jint)blocksNumber
+	);
+
+	env->PopLocalFrame(0);
+	return result && !env->ExceptionCheck();
+}
+
 static void initTOC(JNIEnv *env, jobject javaModel, const ContentsTree &tree) {
 	const std::vector<shared_ptr<ContentsTree> > &children = tree.children();
 	for (std::vector<shared_ptr<ContentsTree> >::const_iterator it = children.begin(); it != children.end(); ++it) {
@@ -268,6 +301,132 @@ static jobject createJavaFileInfo(JNIEnv *env, shared_ptr<FileInfo> info) {
 	return fileInfo;
 }
 
+static void initFonts(JNIEnv *env, jobject javaModel, const FontManager &fontManager) {
+	const std::vector<std::vector<std::string> > familyLists = fontManager.familyLists();
+	for (std::vector<std::vector<std::string> >::const_iterator it = familyLists.begin(); it != familyLists.end(); ++it) {
+		const std::vector<std::string> &lst = *it;
+		jobjectArray jList = env->NewObjectArray(lst.size(), AndroidUtil::Class_java_lang_String.j(), 0);
+		for (std::size_t i = 0; i < lst.size(); ++i) {
+			JString jString(env, lst[i]);
+			env->SetObjectArrayElement(jList, i, jString.j());
+		}
+		AndroidUtil::Method_NativeBookModel_registerFontFamilyList->call(javaModel, jList);
+		env->DeleteLocalRef(jList);
+	}
+
+	const std::map<std::string,shared_ptr<FontEntry> > entries = fontManager.entries();
+	for (std::map<std::string,shared_ptr<FontEntry> >::const_iterator it = entries.begin(); it != entries.end(); ++it) {
+		if (it->second.isNull()) {
+			continue;
+		}
+		JString family(env, it->first);
+		jobject normal = createJavaFileInfo(env, it->second->Normal);
+		jobject bold = createJavaFileInfo(env, it->second->Bold);
+		jobject italic = createJavaFileInfo(env, it->second->Italic);
+		jobject boldItalic = createJavaFileInfo(env, it->second->BoldItalic);
+
+		AndroidUtil::Method_NativeBookModel_registerFontEntry->call(
+			javaModel, family.j(), normal, bold, italic, boldItalic
+		);
+
+		if (boldItalic != 0) env->DeleteLocalRef(boldItalic);
+		if (italic != 0) env->DeleteLocalRef(italic);
+		if (bold != 0) env->DeleteLocalRef(bold);
+		if (normal != 0) env->DeleteLocalRef(normal);
+	}
+}
+
+class JavaSegmentListener : public BookModel::SegmentListener {
+
+public:
+	JavaSegmentListener(JNIEnv *env, jobject javaModel);
+	~JavaSegmentListener();
+
+	bool segmentReady(BookModel &model);
+	bool publish(BookModel &model);
+
+private:
+	bool publish(BookModel &model, std::size_t paragraphsNumber, std::size_t blocksNumber);
+
+private:
+	JNIEnv *myEnv;
+	const jobject myJavaModel;
+	jobject myJavaTextModel;
+	std::size_t myParagraphsNumber;
+	std::size_t myBlocksNumber;
+};
+
+JavaSegmentListener::JavaSegmentListener(JNIEnv *env, jobject javaModel) : myEnv(env), myJavaModel(javaModel), myJavaTextModel(0), myParagraphsNumber(0), myBlocksNumber(0) {
+}
+
+JavaSegmentListener::~JavaSegmentListener() {
+	if (myJavaTextModel != 0) {
+		myEnv->DeleteLocalRef(myJavaTextModel);
+	}
+}
+
+bool JavaSegmentListener::segmentReady(BookModel &model) {
+	if (AndroidUtil::Method_NativeBookModel_isCancelled->call(myJavaModel) || myEnv->ExceptionCheck()) {
+		return false;
+	}
+
+	// only blocks preceding the current one are finished: their files are
+	// written once and never change, so Java can read them while we go on
+	const ZLTextModel &textModel = *model.bookTextModel();
+	const std::size_t blocksNumber = textModel.allocator().blocksNumber();
+	if (blocksNumber < 2 || blocksNumber - 1 <= myBlocksNumber) {
+		return true;
+	}
+	const std::size_t finishedBlocks = blocksNumber - 1;
+
+	// a paragraph is finished and stored in finished blocks
+	// if the next paragraph starts before the current block
+	const std::vector<jint> &startIndices = textModel.startEntryIndices();
+	std::size_t paragraphsNumber = textModel.paragraphsNumber();
+	if (paragraphsNumber > 0) {
+		--paragraphsNumber;
+	}
+	while (paragraphsNumber > myParagraphsNumber && (std::size_t)startIndices[paragraphsNumber] >= finishedBlocks) {
+		--paragraphsNumber;
+	}
+	if (paragraphsNumber <= myParagraphsNumber) {
+		return true;
+	}
+	return publish(model, paragraphsNumber, finishedBlocks);
+}
+
+bool JavaSegmentListener::publish(BookModel &model) {
+	ZLTextModel &textModel = *model.bookTextModel();
+	textModel.flush();
+	return publish(model, textModel.paragraphsNumber(), textModel.allocator().blocksNumber());
+}
+
+bool JavaSegmentListener::publish(BookModel &model, std::size_t paragraphsNumber, std::size_t blocksNumber) {
+	ZLTextModel &textModel = *model.bookTextModel();
+	if (textModel.allocator().failed()) {
+		return false;
+	}
+
+	initFonts(myEnv, myJavaModel, model.fontManager());
+
+	if (myJavaTextModel == 0) {
+		myJavaTextModel = createTextModel(myEnv, myJavaModel, textModel, paragraphsNumber, blocksNumber);
+		if (myJavaTextModel == 0) {
+			return false;
+		}
+		AndroidUtil::Method_NativeBookModel_setBookTextModel->call(myJavaModel, myJavaTextModel);
+		if (myEnv->ExceptionCheck()) {
+			return false;
+		}
+	} else if (!extendTextModel(myEnv, myJavaModel, myJavaTextModel, textModel, myParagraphsNumber, paragraphsNumber, blocksNumber)) {
+		return false;
+	}
+
+	myParagraphsNumber = paragraphsNumber;
+	myBlocksNumber = blocksNumber;
+	return true;
+}
+
 extern "C"
 JNIEXPORT jint JNICALL Java_org_geometerplus_fbreader_formats_NativeFormatPlugin_readModelNative(JNIEnv* env, jobject thiz, jobject javaModel) {
 	shared_ptr<FormatPlugin> plugin = findCppPlugin(thiz);
@@ -279,6 +438,8 @@ JNIEXPORT jint JNICALL Java_org_geometerplus_fbreader_formats_NativeFormatPlugin
 
 	shared_ptr<Book> book = Book::loadFromJavaBook(env, javaBook);
 	shared_ptr<BookModel> model = new BookModel(book, javaModel);
+	JavaSegmentListener *listener = new JavaSegmentListener(env, javaModel);
+	model->setSegmentListener(listener);
 	if (!plugin->readModel(*model)) {
 		return 2;
 	}
@@ -286,23 +447,17 @@ JNIEXPORT jint JNICALL Java_org_geometerplus_fbreader_formats_NativeFormatPlugin
 		return 3;
 	}
 
+	// the text model goes first: the TOC references it
+	if (!listener->publish(*model)) {
+		return env->ExceptionCheck() ? 6 : 5;
+	}
+
 	if (!initInternalHyperlinks(env, javaModel, *model)) {
 		return 4;
 	}
 
 	initTOC(env, javaModel, *model->contentsTree());
 
-	shared_ptr<ZLTextModel> textModel = model->bookTextModel();
-	jobject javaTextModel = createTextModel(env, javaModel, *textModel);
-	if (javaTextModel == 0) {
-		return 5;
-	}
-	AndroidUtil::Method_NativeBookModel_setBookTextModel->call(javaModel, javaTextModel);
-	if (env->ExceptionCheck()) {
-		return 6;
-	}
-	env->DeleteLocalRef(javaTextModel);
-
 	const std::map<std::string,shared_ptr<ZLTextModel> > &footnotes = model->footnotes();
 	std::map<std::string,shared_ptr<ZLTextModel> >::const_iterator it = footnotes.begin();
 	for (; it != footnotes.end(); ++it) {
@@ -317,39 +472,6 @@ JNIEXPORT jint JNICALL Java_org_geometerplus_fbreader_formats_NativeFormatPlugin
 		env->DeleteLocalRef(javaFootnoteModel);
 	}
 
-	const std::vector<std::vector<std::string> > familyLists = model->fontManager().familyLists();
-	for (std::vector<std::vector<std::string> >::const_iterator it = familyLists.begin(); it != familyLists.end(); ++it) {
-		const std::vector<std::string> &lst = *it;
-		jobjectArray jList = env->NewObjectArray(lst.size(), AndroidUtil::Class_java_lang_String.j(), 0);
-		for (std::size_t i = 0; i < lst.size(); ++i) {
-			JString jString(env, lst[i]);
-			env->SetObjectArrayElement(jList, i, jString.j());
-		}
-		AndroidUtil::Method_NativeBookModel_registerFontFamilyList->call(javaModel, jList);
-		env->DeleteLocalRef(jList);
-	}
-
-	const std::map<std::string,shared_ptr<FontEntry> > entries = model->fontManager().entries();
-	for (std::map<std::string,shared_ptr<FontEntry> >::const_iterator it = entries.begin(); it != entries.end(); ++it) {
-		if (it->second.isNull()) {
-			continue;
-		}
-		JString family(env, it->first);
-		jobject normal = createJavaFileInfo(env, it->second->Normal);
-		jobject bold = createJavaFileInfo(env, it->second->Bold);
-		jobject italic = createJavaFileInfo(env, it->second->Italic);
-		jobject boldItalic = createJavaFileInfo(env, it->second->BoldItalic);
-
-		AndroidUtil::Method_NativeBookModel_registerFontEntry->call(
-			javaModel, family.j(), normal, bold, italic, boldItalic
-		);
-
-		if (boldItalic != 0) env->DeleteLocalRef(boldItalic);
-		if (italic != 0) env->DeleteLocalRef(italic);
-		if (bold != 0) env->DeleteLocalRef(bold);
-		if (normal != 0) env->DeleteLocalRef(normal);
-	}
-
 	return 0;
 }
 
@@ -49,6 +49,13 @@ void BookModel::setHyperlinkMatcher(shared_ptr<HyperlinkMatcher> matcher) {
 	myHyperlinkMatcher = matcher;
 }
 
+BookModel::SegmentListener::~SegmentListener() {
+}
+
+void BookModel::setSegmentListener(shared_ptr<SegmentListener> listener) {
+	mySegmentListener = listener;
+}
+
 BookModel::Label BookModel::label(const std::string &id) const {
 	if (!myHyperlinkMatcher.isNull()) {
 		return myHyperlinkMatcher->match(myInternalHyperlinks, id);
@@ -77,3 +84,7 @@ bool BookModel::flush() {
 	}
 	return true;
 }
+
+bool BookModel::flushSegment() {
+	return mySegmentListener.isNull() || mySegmentListener->segmentReady(*this);
+}
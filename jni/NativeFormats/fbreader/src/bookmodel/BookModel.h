@@ -67,11 +67,21 @@ public:
 		virtual Label match(const std::map<std::string,Label> &lMap, const std::string &id) const = 0;
 	};
 
+	class SegmentListener {
+
+	public:
+		virtual ~SegmentListener();
+		// called between top-level documents of a book;
+		// returns false if reading should be stopped
+		virtual bool segmentReady(BookModel &model) = 0;
+	};
+
 public:
 	BookModel(const shared_ptr<Book> book, jobject javaModel);
 	~BookModel();
 
 	void setHyperlinkMatcher(shared_ptr<HyperlinkMatcher> matcher);
+	void setSegmentListener(shared_ptr<SegmentListener> listener);
 
 	shared_ptr<ZLTextModel> bookTextModel() const;
 	shared_ptr<ContentsTree> contentsTree() const;
@@ -85,6 +95,7 @@ public:
 	const FontManager &fontManager() const;
 
 	bool flush();
+	bool flushSegment();
 
 private:
 	const shared_ptr<Book> myBook;
@@ -94,6 +105,7 @@ private:
 	std::map<std::string,shared_ptr<ZLTextModel> > myFootnotes;
 	std::map<std::string,Label> myInternalHyperlinks;
 	shared_ptr<HyperlinkMatcher> myHyperlinkMatcher;
+	shared_ptr<SegmentListener> mySegmentListener;
 	FontManager myFontManager;
 
 friend class BookReader;
@@ -273,6 +273,10 @@ void BookReader::insertEncryptedSectionParagraph() {
 	endParagraph();
 }
 
+bool BookReader::flushSegment() {
+	return myModel.flushSegment();
+}
+
 void BookReader::addImageReference(const std::string &id, short vOffset, bool isCover) {
 	if (myCurrentTextModel != 0) {
 		mySectionContainsRegularContents = true;
@@ -88,6 +88,7 @@ public:
 	std::string putFontEntry(const std::string &family, shared_ptr<FontEntry> fontEntry);
 
 	const BookModel &model() const { return myModel; }
+	bool flushSegment();
 
 	void reset();
 
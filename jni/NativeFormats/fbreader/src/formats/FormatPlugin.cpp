@@ -46,9 +46,9 @@ bool FormatPlugin::detectEncodingAndLanguage(Book &book, ZLInputStream &stream,
 		char *buffer = new char[BUFSIZE];
 		const std::size_t size = stream.read(buffer, BUFSIZE);
 		stream.close();
-		shared_ptr<ZLLanguageDetector::LanguageInfo> info = ZLLanguageDetector().findInfo(buffer, size);
+		const ZLLanguageDetector::LanguageInfo *info = ZLLanguageDetector::Instance().findInfo(buffer, size);
 		delete[] buffer;
-		if (!info.isNull()) {
+		if (info != 0) {
 			detected = true;
 			if (!info->Language.empty()) {
 				language = info->Language;
@@ -79,10 +79,10 @@ bool FormatPlugin::detectLanguage(Book &book, ZLInputStream &stream, const std::
 		char *buffer = new char[BUFSIZE];
 		const std::size_t size = stream.read(buffer, BUFSIZE);
 		stream.close();
-		shared_ptr<ZLLanguageDetector::LanguageInfo> info =
-			ZLLanguageDetector().findInfoForEncoding(encoding, buffer, size, -20000);
+		const ZLLanguageDetector::LanguageInfo *info =
+			ZLLanguageDetector::Instance().findInfoForEncoding(encoding, buffer, size, -20000);
 		delete[] buffer;
-		if (!info.isNull()) {
+		if (info != 0) {
 			detected = true;
 			if (!info->Language.empty()) {
 				language = info->Language;
@@ -27,6 +27,7 @@
 #include <FileEncryptionInfo.h>
 #include <ZLFile.h>
 #include <ZLFileImage.h>
+#include <ZLFilePrefetcher.h>
 #include <ZLXMLNamespace.h>
 
 #include "OEBBookReader.h"
@@ -218,8 +219,15 @@ bool OEBBookReader::readBook(const ZLFile &opfFile) {
 
 	//ZLLogger::Instance().registerClass("oeb");
 	XHTMLReader xhtmlReader(myModelReader, myEncryptionMap);
+	std::vector<ZLFile> xhtmlFiles;
 	for (std::vector<std::string>::const_iterator it = myHtmlFileNames.begin(); it != myHtmlFileNames.end(); ++it) {
-		const ZLFile xhtmlFile(myFilePrefix + *it);
+		xhtmlFiles.push_back(ZLFile(myFilePrefix + *it));
+	}
+	// inflates the next spine items while the current one is being parsed
+	ZLFilePrefetcher prefetcher(xhtmlFiles, myEncryptionMap);
+	for (std::vector<std::string>::const_iterator it = myHtmlFileNames.begin(); it != myHtmlFileNames.end(); ++it) {
+		const std::size_t index = it - myHtmlFileNames.begin();
+		const ZLFile &xhtmlFile = xhtmlFiles[index];
 		if (it == myHtmlFileNames.begin()) {
 			if (myCoverFileName == xhtmlFile.path()) {
 				if (coverIsSingleImage()) {
@@ -234,11 +242,14 @@ bool OEBBookReader::readBook(const ZLFile &opfFile) {
 			myModelReader.insertEndOfSectionParagraph();
 		}
 		//ZLLogger::Instance().println("oeb", "start " + xhtmlFile.path());
-		if (!xhtmlReader.readFile(xhtmlFile, *it)) {
+		if (!xhtmlReader.readFile(xhtmlFile, *it, prefetcher.inputStream(index))) {
 			if (opfFile.exists() && !myEncryptionMap.isNull()) {
 				myModelReader.insertEncryptedSectionParagraph();
 			}
 		}
+		if (!myModelReader.flushSegment()) {
+			return false;
+		}
 		//ZLLogger::Instance().println("oeb", "end " + xhtmlFile.path());
 		//std::string debug = "para count = ";
 		//ZLStringUtil::appendNumber(debug, myModelReader.model().bookTextModel()->paragraphsNumber());
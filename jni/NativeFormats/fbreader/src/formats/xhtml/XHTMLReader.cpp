@@ -613,6 +613,10 @@ void XHTMLReader::setMarkFirstImageAsCover() {
 }
 
 bool XHTMLReader::readFile(const ZLFile &file, const std::string &referenceName) {
+	return readFile(file, referenceName, file.inputStream(myEncryptionMap));
+}
+
+bool XHTMLReader::readFile(const ZLFile &file, const std::string &referenceName, shared_ptr<ZLInputStream> stream) {
 	fillTagTable();
 
 	myPathPrefix = MiscUtil::htmlDirectoryPrefix(file.path());
@@ -635,7 +639,7 @@ bool XHTMLReader::readFile(const ZLFile &file, const std::string &referenceName)
 	myStyleParser = new StyleSheetSingleStyleParser(myPathPrefix);
 	myTableParser.reset();
 
-	return readDocument(file.inputStream(myEncryptionMap));
+	return readDocument(stream);
 }
 
 bool XHTMLReader::addTextStyleEntry(const std::string tag, const std::string aClass) {
@@ -83,6 +83,7 @@ public:
 	XHTMLReader(BookReader &modelReader, shared_ptr<EncryptionMap> map);
 
 	bool readFile(const ZLFile &file, const std::string &referenceName);
+	bool readFile(const ZLFile &file, const std::string &referenceName, shared_ptr<ZLInputStream> stream);
 	const std::string &fileAlias(const std::string &fileName) const;
 	const std::string normalizedReference(const std::string &reference) const;
 	void setMarkFirstImageAsCover();
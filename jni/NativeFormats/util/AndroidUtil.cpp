@@ -123,6 +123,8 @@ shared_ptr<VoidMethod> AndroidUtil::Method_NativeBookModel_initInternalHyperlink
 shared_ptr<VoidMethod> AndroidUtil::Method_NativeBookModel_addTOCItem;
 shared_ptr<VoidMethod> AndroidUtil::Method_NativeBookModel_leaveTOCItem;
 shared_ptr<ObjectMethod> AndroidUtil::Method_NativeBookModel_createTextModel;
+shared_ptr<BooleanMethod> AndroidUtil::Method_NativeBookModel_extendTextModel;
+shared_ptr<BooleanMethod> AndroidUtil::Method_NativeBookModel_isCancelled;
 shared_ptr<VoidMethod> AndroidUtil::Method_NativeBookModel_setBookTextModel;
 shared_ptr<VoidMethod> AndroidUtil::Method_NativeBookModel_setFootnoteModel;
 shared_ptr<VoidMethod> AndroidUtil::Method_NativeBookModel_addImage;
@@ -206,6 +208,8 @@ bool AndroidUtil::init(JavaVM* jvm) {
 	Method_NativeBookModel_addTOCItem = new VoidMethod(Class_NativeBookModel, "addTOCItem", "(Ljava/lang/String;I)");
 	Method_NativeBookModel_leaveTOCItem = new VoidMethod(Class_NativeBookModel, "leaveTOCItem", "()");
 	Method_NativeBookModel_createTextModel = new ObjectMethod(Class_NativeBookModel, "createTextModel", Class_ZLTextModel, "(Ljava/lang/String;Ljava/lang/String;I[I[I[I[I[BLjava/lang/String;Ljava/lang/String;I)");
+	Method_NativeBookModel_extendTextModel = new BooleanMethod(Class_NativeBookModel, "extendTextModel", "(Lorg/geometerplus/zlibrary/text/model/ZLTextModel;I[I[I[I[I[BI)");
+	Method_NativeBookModel_isCancelled = new BooleanMethod(Class_NativeBookModel, "isCancelled", "()");
 	Method_NativeBookModel_setBookTextModel = new VoidMethod(Class_NativeBookModel, "setBookTextModel", "(Lorg/geometerplus/zlibrary/text/model/ZLTextModel;)");
 	Method_NativeBookModel_setFootnoteModel = new VoidMethod(Class_NativeBookModel, "setFootnoteModel", "(Lorg/geometerplus/zlibrary/text/model/ZLTextModel;)");
 	Method_NativeBookModel_addImage = new VoidMethod(Class_NativeBookModel, "addImage", "(Ljava/lang/String;Lorg/geometerplus/zlibrary/core/image/ZLImage;)");
@@ -161,6 +161,8 @@ public:
 	static shared_ptr<VoidMethod> Method_NativeBookModel_addTOCItem;
 	static shared_ptr<VoidMethod> Method_NativeBookModel_leaveTOCItem;
 	static shared_ptr<ObjectMethod> Method_NativeBookModel_createTextModel;
+	static shared_ptr<BooleanMethod> Method_NativeBookModel_extendTextModel;
+	static shared_ptr<BooleanMethod> Method_NativeBookModel_isCancelled;
 	static shared_ptr<VoidMethod> Method_NativeBookModel_setBookTextModel;
 	static shared_ptr<VoidMethod> Method_NativeBookModel_setFootnoteModel;
 	static shared_ptr<VoidMethod> Method_NativeBookModel_addImage;
@@ -72,6 +72,7 @@ private:
 
 friend class ZLFile;
 friend class ZLDir;
+friend class ZLFilePrefetcher;
 };
 
 inline ZLFSManager &ZLFSManager::Instance() { return *ourInstance; }
@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2011-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+#include <unistd.h>
+#include <zlib.h>
+
+#include <cstdio>
+#include <cstring>
+#include <algorithm>
+
+#include "ZLFilePrefetcher.h"
+#include "ZLInputStream.h"
+#include "ZLFSManager.h"
+#include "zip/ZLZip.h"
+
+// workers stay at most this far ahead of the consumer
+static const std::size_t MAX_ENTRIES_AHEAD = 16;
+static const std::size_t MAX_BYTES_AHEAD = 8 * 1024 * 1024;
+static const std::size_t MAX_THREADS = 3;
+
+class ZLPrefetchedInputStream : public ZLInputStream {
+
+public:
+	ZLPrefetchedInputStream(std::string &data);
+
+private:
+	bool open();
+	std::size_t read(char *buffer, std::size_t maxSize);
+	void close();
+
+	void seek(int offset, bool absoluteOffset);
+	std::size_t offset() const;
+	std::size_t sizeOfOpened();
+
+private:
+	std::string myData;
+	std::size_t myOffset;
+};
+
+ZLPrefetchedInputStream::ZLPrefetchedInputStream(std::string &data) : myOffset(0) {
+	myData.swap(data);
+}
+
+bool ZLPrefetchedInputStream::open() {
+	myOffset = 0;
+	return true;
+}
+
+std::size_t ZLPrefetchedInputStream::read(char *buffer, std::size_t maxSize) {
+	const std::size_t len = std::min(maxSize, myData.size() - myOffset);
+	if (buffer != 0) {
+		std::memcpy(buffer, myData.data() + myOffset, len);
+	}
+	myOffset += len;
+	return len;
+}
+
+void ZLPrefetchedInputStream::close() {
+}
+
+void ZLPrefetchedInputStream::seek(int offset, bool absoluteOffset) {
+	if (!absoluteOffset) {
+		offset += myOffset;
+	}
+	myOffset = std::max(0, std::min(offset, (int)myData.size()));
+}
+
+std::size_t ZLPrefetchedInputStream::offset() const {
+	return myOffset;
+}
+
+std::size_t ZLPrefetchedInputStream::sizeOfOpened() {
+	return myData.size();
+}
+
+ZLFilePrefetcher::Entry::Entry() : EntryState(SKIPPED), Offset(-1), HeaderOffset(-1), CompressionMethod(-1), CompressedSize(0), UncompressedSize(0) {
+}
+
+ZLFilePrefetcher::ZLFilePrefetcher(const std::vector<ZLFile> &files, shared_ptr<EncryptionMap> encryptionMap) : myFiles(files), myEncryptionMap(encryptionMap), myEntries(files.size()), myNextIndex(0), myRequestedIndex(0), myBytesAhead(0), myIsStopped(false) {
+	pthread_mutex_init(&myMutex, 0);
+	pthread_cond_init(&myCondition, 0);
+
+	const long cpus = sysconf(_SC_NPROCESSORS_ONLN);
+	if (cpus < 2) {
+		return;
+	}
+
+	const ZLFSManager &manager = ZLFSManager::Instance();
+	std::size_t pendingCount = 0;
+	for (std::size_t i = 0; i < myFiles.size(); ++i) {
+		const ZLFile &file = myFiles[i];
+		if (file.isCompressed() ||
+				(!encryptionMap.isNull() && !encryptionMap->info(file.path()).isNull())) {
+			continue;
+		}
+		const std::string &path = file.path();
+		const int index = manager.findArchiveFileNameDelimiter(path);
+		if (index == -1) {
+			continue;
+		}
+		const std::string containerPath = path.substr(0, index);
+		const ZLFile container(containerPath);
+		if (manager.findArchiveFileNameDelimiter(containerPath) != -1 ||
+				container.isCompressed() || !container.isArchive()) {
+			continue;
+		}
+		shared_ptr<ZLInputStream> containerStream = container.inputStream();
+		if (containerStream.isNull()) {
+			continue;
+		}
+		const ZLZipEntryCache::Info info =
+			ZLZipEntryCache::info(containerPath, *containerStream, path.substr(index + 1));
+		if ((info.Offset == -1 && info.HeaderOffset == -1) ||
+				(info.CompressionMethod != 0 && info.CompressionMethod != 8) ||
+				info.CompressedSize <= 0) {
+			continue;
+		}
+
+		Entry &entry = myEntries[i];
+		entry.EntryState = PENDING;
+		entry.ContainerPath = containerPath;
+		entry.Offset = info.Offset;
+		entry.HeaderOffset = info.HeaderOffset;
+		entry.CompressionMethod = info.CompressionMethod;
+		entry.CompressedSize = info.CompressedSize;
+		entry.UncompressedSize = std::max(info.UncompressedSize, 0);
+		++pendingCount;
+	}
+
+	const std::size_t threadsNumber =
+		std::min(std::min(MAX_THREADS, (std::size_t)cpus - 1), pendingCount);
+	for (std::size_t i = 0; i < threadsNumber; ++i) {
+		pthread_t thread;
+		if (pthread_create(&thread, 0, run, this) == 0) {
+			myThreads.push_back(thread);
+		}
+	}
+}
+
+ZLFilePrefetcher::~ZLFilePrefetcher() {
+	pthread_mutex_lock(&myMutex);
+	myIsStopped = true;
+	pthread_cond_broadcast(&myCondition);
+	pthread_mutex_unlock(&myMutex);
+	for (std::vector<pthread_t>::const_iterator it = myThreads.begin(); it != myThreads.end(); ++it) {
+		pthread_join(*it, 0);
+	}
+	pthread_cond_destroy(&myCondition);
+	pthread_mutex_destroy(&myMutex);
+}
+
+void *ZLFilePrefetcher::run(void *prefetcher) {
+	((ZLFilePrefetcher*)prefetcher)->work();
+	return 0;
+}
+
+void ZLFilePrefetcher::work() {
+	std::string data;
+	pthread_mutex_lock(&myMutex);
+	while (!myIsStopped) {
+		while (myNextIndex < myEntries.size() && myEntries[myNextIndex].EntryState != PENDING) {
+			++myNextIndex;
+		}
+		if (myNextIndex == myEntries.size()) {
+			break;
+		}
+		if (myNextIndex >= myRequestedIndex + MAX_ENTRIES_AHEAD || myBytesAhead >= MAX_BYTES_AHEAD) {
+			pthread_cond_wait(&myCondition, &myMutex);
+			continue;
+		}
+
+		Entry &entry = myEntries[myNextIndex++];
+		entry.EntryState = RUNNING;
+		myBytesAhead += entry.UncompressedSize;
+		pthread_mutex_unlock(&myMutex);
+
+		// entry fields are not changed while it is running
+		const bool success = readEntry(entry, data);
+
+		pthread_mutex_lock(&myMutex);
+		entry.Data.swap(data);
+		entry.EntryState = success ? READY : FAILED;
+		data.erase();
+		pthread_cond_broadcast(&myCondition);
+	}
+	pthread_mutex_unlock(&myMutex);
+}
+
+static std::size_t readUInt16(const unsigned char *ptr) {
+	return ptr[0] + (ptr[1] << 8);
+}
+
+bool ZLFilePrefetcher::readEntry(const Entry &entry, std::string &data) {
+	std::FILE *file = std::fopen(entry.ContainerPath.c_str(), "rb");
+	if (file == 0) {
+		return false;
+	}
+
+	long offset = entry.Offset;
+	if (offset == -1) {
+		unsigned char header[30];
+		if (std::fseek(file, entry.HeaderOffset, SEEK_SET) != 0 ||
+				std::fread(header, 1, 30, file) != 30 ||
+				header[0] != 'P' || header[1] != 'K' || header[2] != 3 || header[3] != 4) {
+			std::fclose(file);
+			return false;
+		}
+		offset = entry.HeaderOffset + 30 + readUInt16(header + 26) + readUInt16(header + 28);
+	}
+	if (std::fseek(file, offset, SEEK_SET) != 0) {
+		std::fclose(file);
+		return false;
+	}
+
+	std::string compressed(entry.CompressedSize, '\0');
+	const bool read = std::fread(&compressed[0], 1, compressed.size(), file) == compressed.size();
+	std::fclose(file);
+	if (!read) {
+		return false;
+	}
+
+	if (entry.CompressionMethod == 0) {
+		data.swap(compressed);
+		return true;
+	}
+
+	z_stream stream;
+	std::memset(&stream, 0, sizeof(z_stream));
+	if (inflateInit2(&stream, -MAX_WBITS) != Z_OK) {
+		return false;
+	}
+	data.reserve(entry.UncompressedSize);
+	char buffer[32768];
+	stream.next_in = (Bytef*)compressed.data();
+	stream.avail_in = compressed.size();
+	int code = Z_OK;
+	while (code == Z_OK) {
+		stream.next_out = (Bytef*)buffer;
+		stream.avail_out = sizeof(buffer);
+		code = inflate(&stream, Z_NO_FLUSH);
+		data.append(buffer, sizeof(buffer) - stream.avail_out);
+	}
+	inflateEnd(&stream);
+	return code == Z_STREAM_END;
+}
+
+shared_ptr<ZLInputStream> ZLFilePrefetcher::inputStream(std::size_t index) {
+	std::string data;
+	bool ready = false;
+
+	pthread_mutex_lock(&myMutex);
+	myRequestedIndex = index + 1;
+	Entry &entry = myEntries[index];
+	if (entry.EntryState == PENDING) {
+		// it is faster to read it right here
+		entry.EntryState = SKIPPED;
+	}
+	while (entry.EntryState == RUNNING) {
+		pthread_cond_wait(&myCondition, &myMutex);
+	}
+	if (entry.EntryState == READY || entry.EntryState == FAILED) {
+		ready = entry.EntryState == READY;
+		data.swap(entry.Data);
+		myBytesAhead -= entry.UncompressedSize;
+		entry.EntryState = SKIPPED;
+	}
+	pthread_cond_broadcast(&myCondition);
+	pthread_mutex_unlock(&myMutex);
+
+	if (ready) {
+		return new ZLPrefetchedInputStream(data);
+	}
+	return myFiles[index].inputStream(myEncryptionMap);
+}
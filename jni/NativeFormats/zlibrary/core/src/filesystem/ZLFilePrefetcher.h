@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2011-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+#ifndef __ZLFILEPREFETCHER_H__
+#define __ZLFILEPREFETCHER_H__
+
+#include <pthread.h>
+
+#include <string>
+#include <vector>
+
+#include <shared_ptr.h>
+#include <FileEncryptionInfo.h>
+
+#include "ZLFile.h"
+
+class ZLInputStream;
+
+// Reads zip entries of a file list ahead of their consumer in a few
+// background threads. Only unencrypted entries of plain zip files are
+// prefetched; workers use stdio and zlib directly, and do not touch
+// shared zlibrary objects. Files must be requested in list order.
+class ZLFilePrefetcher {
+
+public:
+	ZLFilePrefetcher(const std::vector<ZLFile> &files, shared_ptr<EncryptionMap> encryptionMap);
+	~ZLFilePrefetcher();
+
+	// returns an in-memory stream for a prefetched entry
+	// and a regular ZLFile stream otherwise
+	shared_ptr<ZLInputStream> inputStream(std::size_t index);
+
+private:
+	enum State {
+		SKIPPED,
+		PENDING,
+		RUNNING,
+		READY,
+		FAILED
+	};
+
+	struct Entry {
+		Entry();
+
+		State EntryState;
+		std::string ContainerPath;
+		int Offset;
+		int HeaderOffset;
+		int CompressionMethod;
+		std::size_t CompressedSize;
+		std::size_t UncompressedSize;
+		std::string Data;
+	};
+
+	static void *run(void *prefetcher);
+	static bool readEntry(const Entry &entry, std::string &data);
+	void work();
+
+private:
+	const std::vector<ZLFile> myFiles;
+	const shared_ptr<EncryptionMap> myEncryptionMap;
+	std::vector<Entry> myEntries;
+
+	pthread_mutex_t myMutex;
+	pthread_cond_t myCondition;
+	std::vector<pthread_t> myThreads;
+
+	// guarded by myMutex
+	std::size_t myNextIndex;
+	std::size_t myRequestedIndex;
+	std::size_t myBytesAhead;
+	bool myIsStopped;
+
+private:
+	// disable copying
+	ZLFilePrefetcher(const ZLFilePrefetcher&);
+	const ZLFilePrefetcher &operator = (const ZLFilePrefetcher&);
+};
+
+#endif /* __ZLFILEPREFETCHER_H__ */
@@ -20,6 +20,7 @@
 #ifndef __ZLZIP_H__
 #define __ZLZIP_H__
 
+#include <list>
 #include <map>
 
 #include <shared_ptr.h>
@@ -33,18 +34,34 @@ class ZLFile;
 class ZLZipEntryCache {
 
 public:
+	struct Info;
+
+	// stored caches are guarded by a mutex; cache objects never leave it,
+	// since shared_ptr reference counters are not atomic
+	static Info info(const std::string &containerName, ZLInputStream &containerStream, const std::string &entryName);
+	// keeps data offset found in the local header, so the header is read once
+	static void setDataOffset(const std::string &containerName, const std::string &entryName, int offset);
+	static void collectFileNames(const std::string &containerName, ZLInputStream &containerStream, std::vector<std::string> &names);
+
+private:
+	// the mutex must be held
 	static shared_ptr<ZLZipEntryCache> cache(const std::string &containerName, ZLInputStream &containerStream);
 
 private:
-	static const std::size_t ourStorageSize;
-	static shared_ptr<ZLZipEntryCache> *ourStoredCaches;
-	static std::size_t ourIndex;
+	// total (estimated) size of stored caches, in bytes
+	static const std::size_t ourMemoryLimit;
+	// most recently used caches go first
+	static std::list<shared_ptr<ZLZipEntryCache> > ourStoredCaches;
+	static std::size_t ourMemoryUsed;
 
 public:
 	struct Info {
 		Info();
 
+		// offset of entry data; -1 if it is not known yet
 		int Offset;
+		// offset of entry local header; -1 if it is not known
+		int HeaderOffset;
 		int CompressionMethod;
 		int CompressedSize;
 		int UncompressedSize;
@@ -53,16 +70,16 @@ public:
 private:
 	ZLZipEntryCache(const std::string &containerName, ZLInputStream &containerStream);
 
-public:
-	Info info(const std::string &entryName) const;
-	void collectFileNames(std::vector<std::string> &names) const;
-
 private:
 	bool isValid() const;
+	bool readCentralDirectory(ZLInputStream &containerStream);
+	void readLocalHeaders(ZLInputStream &containerStream);
 
 private:
 	const std::string myContainerName;
+	std::size_t myContainerSize;
 	std::size_t myLastModifiedTime;
+	std::size_t myMemorySize;
 	std::map<std::string,Info> myInfoMap;
 };
 
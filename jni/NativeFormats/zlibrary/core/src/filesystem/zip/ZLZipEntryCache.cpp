@@ -17,6 +17,11 @@
  * 02110-1301, USA.
  */
 
+#include <algorithm>
+#include <vector>
+
+#include <pthread.h>
+
 #include <AndroidUtil.h>
 #include <ZLLogger.h>
 #include <ZLFile.h>
@@ -24,42 +29,193 @@
 #include "ZLZip.h"
 #include "ZLZipHeader.h"
 
-const std::size_t ZLZipEntryCache::ourStorageSize = 5;
-shared_ptr<ZLZipEntryCache> *ZLZipEntryCache::ourStoredCaches =
-	 new shared_ptr<ZLZipEntryCache>[ourStorageSize];
-std::size_t ZLZipEntryCache::ourIndex = 0;
+const std::size_t ZLZipEntryCache::ourMemoryLimit = 2 * 1024 * 1024;
+std::list<shared_ptr<ZLZipEntryCache> > ZLZipEntryCache::ourStoredCaches;
+std::size_t ZLZipEntryCache::ourMemoryUsed = 0;
+
+static pthread_mutex_t ourMutex = PTHREAD_MUTEX_INITIALIZER;
+
+class ZLZipEntryCacheLock {
+
+public:
+	ZLZipEntryCacheLock() {
+		pthread_mutex_lock(&ourMutex);
+	}
+	~ZLZipEntryCacheLock() {
+		pthread_mutex_unlock(&ourMutex);
+	}
+};
+
+ZLZipEntryCache::Info ZLZipEntryCache::info(const std::string &containerName, ZLInputStream &containerStream, const std::string &entryName) {
+	const ZLZipEntryCacheLock lock;
+	const shared_ptr<ZLZipEntryCache> cache = ZLZipEntryCache::cache(containerName, containerStream);
+	std::map<std::string,Info>::const_iterator it = cache->myInfoMap.find(entryName);
+	return (it != cache->myInfoMap.end()) ? it->second : Info();
+}
+
+void ZLZipEntryCache::setDataOffset(const std::string &containerName, const std::string &entryName, int offset) {
+	const ZLZipEntryCacheLock lock;
+	for (std::list<shared_ptr<ZLZipEntryCache> >::const_iterator it = ourStoredCaches.begin(); it != ourStoredCaches.end(); ++it) {
+		if ((*it)->myContainerName == containerName) {
+			std::map<std::string,Info>::iterator jt = (*it)->myInfoMap.find(entryName);
+			if (jt != (*it)->myInfoMap.end()) {
+				jt->second.Offset = offset;
+			}
+			break;
+		}
+	}
+}
+
+void ZLZipEntryCache::collectFileNames(const std::string &containerName, ZLInputStream &containerStream, std::vector<std::string> &names) {
+	const ZLZipEntryCacheLock lock;
+	const shared_ptr<ZLZipEntryCache> cache = ZLZipEntryCache::cache(containerName, containerStream);
+	for (std::map<std::string,Info>::const_iterator it = cache->myInfoMap.begin(); it != cache->myInfoMap.end(); ++it) {
+		names.push_back(it->first);
+	}
+}
 
 shared_ptr<ZLZipEntryCache> ZLZipEntryCache::cache(const std::string &containerName, ZLInputStream &containerStream) {
 	//ZLLogger::Instance().registerClass("ZipEntryCache");
 	//ZLLogger::Instance().println("ZipEntryCache", "requesting cache for " + containerName);
-	for (std::size_t i = 0; i < ourStorageSize; ++i) {
-		shared_ptr<ZLZipEntryCache> cache = ourStoredCaches[i];
-		if (!cache.isNull() && cache->myContainerName == containerName) {
-			//ZLLogger::Instance().println("ZipEntryCache", "cache found for " + containerName);
-			if (!cache->isValid()) {
-				//ZLLogger::Instance().println("ZipEntryCache", "cache is not valid for " + containerName);
-				cache = new ZLZipEntryCache(containerName, containerStream);
-				ourStoredCaches[i] = cache;
+	for (std::list<shared_ptr<ZLZipEntryCache> >::iterator it = ourStoredCaches.begin(); it != ourStoredCaches.end(); ++it) {
+		shared_ptr<ZLZipEntryCache> cache = *it;
+		if (cache->myContainerName == containerName) {
+			ourStoredCaches.erase(it);
+			if (cache->isValid()) {
+				//ZLLogger::Instance().println("ZipEntryCache", "cache found for " + containerName);
+				ourStoredCaches.push_front(cache);
+				return cache;
 			}
-			return cache;
+			//ZLLogger::Instance().println("ZipEntryCache", "cache is not valid for " + containerName);
+			ourMemoryUsed -= cache->myMemorySize;
+			break;
 		}
 	}
+
 	shared_ptr<ZLZipEntryCache> cache = new ZLZipEntryCache(containerName, containerStream);
-	ourStoredCaches[ourIndex] = cache;
-	ourIndex = (ourIndex + 1) % ourStorageSize;
+	ourStoredCaches.push_front(cache);
+	ourMemoryUsed += cache->myMemorySize;
+	while (ourMemoryUsed > ourMemoryLimit && ourStoredCaches.size() > 1) {
+		ourMemoryUsed -= ourStoredCaches.back()->myMemorySize;
+		ourStoredCaches.pop_back();
+	}
 	return cache;
 }
 
-ZLZipEntryCache::Info::Info() : Offset(-1) {
+ZLZipEntryCache::Info::Info() : Offset(-1), HeaderOffset(-1) {
 }
 
 ZLZipEntryCache::ZLZipEntryCache(const std::string &containerName, ZLInputStream &containerStream) : myContainerName(containerName) {
 	//ZLLogger::Instance().println("ZipEntryCache", "creating cache for " + containerName);
-	myLastModifiedTime = ZLFile(containerName).lastModified();
-	if (!containerStream.open()) {
-		return;
+	const ZLFile containerFile(containerName);
+	myContainerSize = containerFile.size();
+	myLastModifiedTime = containerFile.lastModified();
+	if (containerStream.open()) {
+		if (!readCentralDirectory(containerStream)) {
+			myInfoMap.clear();
+			containerStream.seek(0, true);
+			readLocalHeaders(containerStream);
+		}
+		containerStream.close();
 	}
 
+	myMemorySize = sizeof(ZLZipEntryCache) + myContainerName.size();
+	for (std::map<std::string,Info>::const_iterator it = myInfoMap.begin(); it != myInfoMap.end(); ++it) {
+		// a rough estimate of map node size
+		myMemorySize += it->first.size() + sizeof(Info) + sizeof(std::string) + 4 * sizeof(void*);
+	}
+}
+
+static unsigned short readShort(const char *ptr) {
+	return
+		((((unsigned short)ptr[1]) & 0xFF) << 8) +
+		((unsigned short)ptr[0] & 0xFF);
+}
+
+static unsigned long readLong(const char *ptr) {
+	return
+		((((unsigned long)ptr[3]) & 0xFF) << 24) +
+		((((unsigned long)ptr[2]) & 0xFF) << 16) +
+		((((unsigned long)ptr[1]) & 0xFF) << 8) +
+		((unsigned long)ptr[0] & 0xFF);
+}
+
+bool ZLZipEntryCache::readCentralDirectory(ZLInputStream &containerStream) {
+	static const std::size_t EndOfCentralDirectorySize = 22;
+	static const std::size_t CentralDirectoryHeaderSize = 46;
+
+	const std::size_t size = containerStream.sizeOfOpened();
+	if (size < EndOfCentralDirectorySize) {
+		return false;
+	}
+
+	// end of central directory record is followed by a comment up to 65535 bytes long
+	const std::size_t tailSize = std::min(size, EndOfCentralDirectorySize + 0xFFFF);
+	std::vector<char> tail(tailSize);
+	containerStream.seek(size - tailSize, true);
+	if (containerStream.read(&tail.front(), tailSize) != tailSize) {
+		return false;
+	}
+	const char *end = 0;
+	for (const char *ptr = &tail.front() + tailSize - EndOfCentralDirectorySize; ptr >= &tail.front(); --ptr) {
+		if (readLong(ptr) == (unsigned long)ZLZipHeader::SignatureEndOfCentralDirectory) {
+			end = ptr;
+			break;
+		}
+	}
+	if (end == 0) {
+		return false;
+	}
+
+	const std::size_t endOffset = size - tailSize + (end - &tail.front());
+	const unsigned short entriesNumber = readShort(end + 10);
+	const unsigned long directorySize = readLong(end + 12);
+	const unsigned long directoryOffset = readLong(end + 16);
+	// 0xFFFFFFFF means zip64 archive; these are processed by local headers
+	if (directoryOffset == 0xFFFFFFFF || directoryOffset + directorySize > endOffset) {
+		return false;
+	}
+
+	std::vector<char> directory(directorySize + 1);
+	containerStream.seek(directoryOffset, true);
+	if (containerStream.read(&directory.front(), directorySize) != directorySize) {
+		return false;
+	}
+
+	const char *ptr = &directory.front();
+	const char *directoryEnd = ptr + directorySize;
+	for (unsigned short i = 0; i < entriesNumber; ++i) {
+		if (ptr + CentralDirectoryHeaderSize > directoryEnd ||
+				readLong(ptr) != (unsigned long)ZLZipHeader::SignatureCentralDirectory) {
+			return false;
+		}
+		const unsigned short nameLength = readShort(ptr + 28);
+		const unsigned short extraLength = readShort(ptr + 30);
+		const unsigned short commentLength = readShort(ptr + 32);
+		const char *next = ptr + CentralDirectoryHeaderSize + nameLength + extraLength + commentLength;
+		if (next > directoryEnd) {
+			return false;
+		}
+		if (nameLength > 0) {
+			const std::string entryName = AndroidUtil::convertNonUtfString(
+				std::string(ptr + CentralDirectoryHeaderSize, nameLength)
+			);
+			Info &info = myInfoMap[entryName];
+			info.HeaderOffset = readLong(ptr + 42);
+			info.CompressionMethod = readShort(ptr + 10);
+			info.CompressedSize = readLong(ptr + 20);
+			info.UncompressedSize = readLong(ptr + 24);
+			if (info.CompressionMethod == 0 && info.CompressedSize != info.UncompressedSize) {
+				ZLLogger::Instance().println("zip", "Different compressed & uncompressed size for stored entry; the uncompressed one will be used.");
+				info.CompressedSize = info.UncompressedSize;
+			}
+		}
+		ptr = next;
+	}
+	return true;
+}
+
+void ZLZipEntryCache::readLocalHeaders(ZLInputStream &containerStream) {
 	ZLZipHeader header;
 	while (header.readFrom(containerStream)) {
 		Info *infoPtr = 0;
@@ -80,20 +236,11 @@ ZLZipEntryCache::ZLZipEntryCache(const std::string &containerName, ZLInputStream
 			infoPtr->UncompressedSize = header.UncompressedSize;
 		}
 	}
-	containerStream.close();
 }
 
 bool ZLZipEntryCache::isValid() const {
-	return myLastModifiedTime == ZLFile(myContainerName).lastModified();
-}
-
-ZLZipEntryCache::Info ZLZipEntryCache::info(const std::string &entryName) const {
-	std::map<std::string,Info>::const_iterator it = myInfoMap.find(entryName);
-	return (it != myInfoMap.end()) ? it->second : Info();
-}
-
-void ZLZipEntryCache::collectFileNames(std::vector<std::string> &names) const {
-	for (std::map<std::string,Info>::const_iterator it = myInfoMap.begin(); it != myInfoMap.end(); ++it) {
-		names.push_back(it->first);
-	}
+	const ZLFile containerFile(myContainerName);
+	return
+		myLastModifiedTime == containerFile.lastModified() &&
+		myContainerSize == containerFile.size();
 }
@@ -34,12 +34,21 @@ ZLZipInputStream::~ZLZipInputStream() {
 bool ZLZipInputStream::open() {
 	close();
 
-	ZLZipEntryCache::Info info = ZLZipEntryCache::cache(myBaseName, *myBaseStream)->info(myEntryName);
+	ZLZipEntryCache::Info info = ZLZipEntryCache::info(myBaseName, *myBaseStream, myEntryName);
 
 	if (!myBaseStream->open()) {
 		return false;
 	}
 
+	if (info.Offset == -1 && info.HeaderOffset != -1) {
+		myBaseStream->seek(info.HeaderOffset, true);
+		ZLZipHeader header;
+		if (header.readFrom(*myBaseStream) &&
+				header.Signature == (unsigned long)ZLZipHeader::SignatureLocalFile) {
+			info.Offset = info.HeaderOffset + 30 + header.NameLength + header.ExtraLength;
+			ZLZipEntryCache::setDataOffset(myBaseName, myEntryName, info.Offset);
+		}
+	}
 	if (info.Offset == -1) {
 		close();
 		return false;
@@ -33,7 +33,16 @@
 ZLLanguageDetector::LanguageInfo::LanguageInfo(const std::string &language, const std::string &encoding) : Language(language), Encoding(encoding) {
 }
 
-ZLLanguageDetector::ZLLanguageDetector() {
+ZLLanguageDetector &ZLLanguageDetector::Instance() {
+	static ZLLanguageDetector ourInstance;
+	return ourInstance;
+}
+
+ZLLanguageDetector::ZLLanguageDetector() : myMatchers(loadMatchers()) {
+}
+
+ZLLanguageDetector::SBVector ZLLanguageDetector::loadMatchers() {
+	SBVector matchers;
 	const ZLFile patternsArchive(ZLLanguageList::patternsDirectoryPath());
 	shared_ptr<ZLInputStream> lock = patternsArchive.inputStream();
 	shared_ptr<ZLDir> dir = patternsArchive.directory(false);
@@ -46,10 +55,11 @@ ZLLanguageDetector::ZLLanguageDetector() {
 				const std::string language = it->substr(0, index);
 				const std::string encoding = it->substr(index + 1);
 				shared_ptr<ZLStatisticsBasedMatcher> matcher = new ZLStatisticsBasedMatcher(dir->itemPath(*it), new LanguageInfo(language, encoding));
-				myMatchers.push_back(matcher);
+				matchers.push_back(matcher);
 			}
 		}
 	}
+	return matchers;
 }
 
 ZLLanguageDetector::~ZLLanguageDetector() {
@@ -89,7 +99,7 @@ static std::string naiveEncodingDetection(const unsigned char *buffer, std::size
 	return ascii ? ZLEncodingConverter::ASCII : ZLEncodingConverter::UTF8;
 }
 
-shared_ptr<ZLLanguageDetector::LanguageInfo> ZLLanguageDetector::findInfo(const char *buffer, std::size_t length, int matchingCriterion) {
+const ZLLanguageDetector::LanguageInfo *ZLLanguageDetector::findInfo(const char *buffer, std::size_t length, int matchingCriterion) const {
 	std::string naive;
 	if ((unsigned char)buffer[0] == 0xFE &&
 			(unsigned char)buffer[1] == 0xFF) {
@@ -103,26 +113,25 @@ shared_ptr<ZLLanguageDetector::LanguageInfo> ZLLanguageDetector::findInfo(const
 	return findInfoForEncoding(naive, buffer, length, matchingCriterion);
 }
 
-shared_ptr<ZLLanguageDetector::LanguageInfo> ZLLanguageDetector::findInfoForEncoding(const std::string &encoding, const char *buffer, std::size_t length, int matchingCriterion) {
-	shared_ptr<LanguageInfo> info;
-	std::map<int,shared_ptr<ZLMapBasedStatistics> > statisticsMap;
+const ZLLanguageDetector::LanguageInfo *ZLLanguageDetector::findInfoForEncoding(const std::string &encoding, const char *buffer, std::size_t length, int matchingCriterion) const {
+	const LanguageInfo *info = 0;
+	std::map<int,shared_ptr<ZLPackedStatistics> > statisticsMap;
 	for (SBVector::const_iterator it = myMatchers.begin(); it != myMatchers.end(); ++it) {
-		if (!encoding.empty() && (*it)->info()->Encoding != encoding) {
+		if (!encoding.empty() && (*it)->info().Encoding != encoding) {
 			continue;
 		}
 
 		const int charSequenceLength = (*it)->charSequenceLength();
-		shared_ptr<ZLMapBasedStatistics> stat = statisticsMap[charSequenceLength];
+		shared_ptr<ZLPackedStatistics> stat = statisticsMap[charSequenceLength];
 		if (stat.isNull()) {
-			stat = new ZLMapBasedStatistics();
-			ZLStatisticsGenerator("\r\n ").generate(
-				buffer, length, charSequenceLength, *stat
+			stat = ZLStatisticsGenerator("\r\n ").generate(
+				buffer, length, charSequenceLength
 			);
 			statisticsMap[charSequenceLength] = stat;
 		}
 		const int criterion = (*it)->criterion(*stat);
 		if (criterion > matchingCriterion) {
-			info = (*it)->info();
+			info = &(*it)->info();
 			matchingCriterion = criterion;
 		}
 	}
@@ -37,15 +37,24 @@ public:
 	};
 
 public:
+	// statistics are loaded once and the matcher list is never changed after
+	// that; detection copies no shared_ptr (their counters are not atomic),
+	// so the detector can be used from several threads
+	static ZLLanguageDetector &Instance();
+
 	ZLLanguageDetector();
 	~ZLLanguageDetector();
 
-	shared_ptr<LanguageInfo> findInfo(const char *buffer, std::size_t length, int matchingCriterion = 0);
-	shared_ptr<LanguageInfo> findInfoForEncoding(const std::string &encoding, const char *buffer, std::size_t length, int matchingCriterion = 0);
+	// returned info is owned by the detector; 0 if nothing matches
+	const LanguageInfo *findInfo(const char *buffer, std::size_t length, int matchingCriterion = 0) const;
+	const LanguageInfo *findInfoForEncoding(const std::string &encoding, const char *buffer, std::size_t length, int matchingCriterion = 0) const;
 
 private:
 	typedef std::vector<shared_ptr<ZLStatisticsBasedMatcher> > SBVector;
-	SBVector myMatchers;
+	const SBVector myMatchers;
+
+private:
+	static SBVector loadMatchers();
 };
 
 #endif /* __ZLLANGUAGEDETECTOR_H__ */
@@ -30,15 +30,15 @@ ZLLanguageMatcher::ZLLanguageMatcher(shared_ptr<ZLLanguageDetector::LanguageInfo
 ZLLanguageMatcher::~ZLLanguageMatcher() {
 }
 
-shared_ptr<ZLLanguageDetector::LanguageInfo> ZLLanguageMatcher::info() const {
-	return myInfo;
+const ZLLanguageDetector::LanguageInfo &ZLLanguageMatcher::info() const {
+	return *myInfo;
 }
 
 ZLStatisticsBasedMatcher::ZLStatisticsBasedMatcher(const std::string &fileName, shared_ptr<ZLLanguageDetector::LanguageInfo> info) : ZLLanguageMatcher(info) {
-	myStatisticsPtr = ZLStatisticsXMLReader().readStatistics(fileName);
-	//if (myStatisticsPtr == 0) {
-		//std::cerr << "pattern reading failed\n";
-	//}
+	shared_ptr<ZLArrayBasedStatistics> statistics = ZLStatisticsXMLReader().readStatistics(fileName);
+	myStatisticsPtr = statistics.isNull()
+		? new ZLPackedStatistics(ZLArrayBasedStatistics())
+		: new ZLPackedStatistics(*statistics);
 }
 
 ZLStatisticsBasedMatcher::~ZLStatisticsBasedMatcher() {
@@ -48,6 +48,6 @@ int ZLStatisticsBasedMatcher::charSequenceLength() const {
 	return myStatisticsPtr->getCharSequenceSize();
 }
 
-int ZLStatisticsBasedMatcher::criterion(const ZLStatistics &otherStatistics) const {
-	return ZLStatistics::correlation(otherStatistics, *myStatisticsPtr);
+int ZLStatisticsBasedMatcher::criterion(const ZLPackedStatistics &otherStatistics) const {
+	return ZLPackedStatistics::correlation(otherStatistics, *myStatisticsPtr);
 }
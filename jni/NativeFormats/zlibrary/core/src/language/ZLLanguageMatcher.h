@@ -30,10 +30,10 @@ public:
 	ZLLanguageMatcher(shared_ptr<ZLLanguageDetector::LanguageInfo> info);
 	virtual ~ZLLanguageMatcher();
 
-	shared_ptr<ZLLanguageDetector::LanguageInfo> info() const;
+	const ZLLanguageDetector::LanguageInfo &info() const;
 
 private:
-	shared_ptr<ZLLanguageDetector::LanguageInfo> myInfo;
+	const shared_ptr<ZLLanguageDetector::LanguageInfo> myInfo;
 };
 
 class ZLStatisticsBasedMatcher : public ZLLanguageMatcher {
@@ -43,10 +43,10 @@ public:
 	~ZLStatisticsBasedMatcher(); // надо ли его объявлять, если он ничего не делает??
 
 	int charSequenceLength() const;
-	int criterion(const ZLStatistics &otherStatistics) const;
+	int criterion(const ZLPackedStatistics &otherStatistics) const;
 
 private:
-	shared_ptr<ZLArrayBasedStatistics> myStatisticsPtr;
+	shared_ptr<ZLPackedStatistics> myStatisticsPtr;
 };
 
 #endif /* __ZLLANGUAGEMATCHER_H__ */
@@ -110,6 +110,14 @@ int ZLStatistics::correlation(const ZLStatistics& candidate, const ZLStatistics&
 		ptrB->next();
 	}
 
+	return correlation(count, correlationSum, candidateSum, patternSum, candidateSum2, patternSum2);
+}
+
+int ZLStatistics::correlation(
+	std::size_t count, long long correlationSum,
+	unsigned long long candidateSum, unsigned long long patternSum,
+	unsigned long long candidateSum2, unsigned long long patternSum2
+) {
 	const long long patternDispersion = patternSum2 * count - patternSum * patternSum;
 	const long long candidateDispersion = candidateSum2 * count - candidateSum * candidateSum;
 	const long long numerator = correlationSum * count - candidateSum * patternSum ;
@@ -337,3 +345,69 @@ ZLArrayBasedStatistics& ZLArrayBasedStatistics::operator= (const ZLArrayBasedSta
 	}
 	return *this;
 }
+
+ZLPackedStatistics::ZLPackedStatistics(const ZLStatistics &statistics) :
+		myCharSequenceSize(statistics.getCharSequenceSize()),
+		myVolume(statistics.getVolume()),
+		mySquaresVolume(statistics.getSquaresVolume()) {
+	const shared_ptr<ZLStatisticsItem> end = statistics.end();
+	for (shared_ptr<ZLStatisticsItem> it = statistics.begin(); *it != *end; it->next()) {
+		const ZLCharSequence sequence = it->sequence();
+		mySequences.push_back(pack(&sequence[0], sequence.getSize()));
+		myFrequencies.push_back(it->frequency());
+	}
+}
+
+ZLPackedStatistics::ZLPackedStatistics(std::size_t charSequenceSize, std::vector<unsigned long long> &sequences) :
+		myCharSequenceSize(charSequenceSize), myVolume(0), mySquaresVolume(0) {
+	std::sort(sequences.begin(), sequences.end());
+	for (std::vector<unsigned long long>::const_iterator it = sequences.begin(); it != sequences.end(); ) {
+		const unsigned long long key = *it;
+		std::size_t frequency = 0;
+		for (; it != sequences.end() && *it == key; ++it) {
+			++frequency;
+		}
+		mySequences.push_back(key);
+		myFrequencies.push_back(frequency);
+		myVolume += frequency;
+		mySquaresVolume += frequency * frequency;
+	}
+	sequences.clear();
+}
+
+int ZLPackedStatistics::correlation(const ZLPackedStatistics &candidate, const ZLPackedStatistics &pattern) {
+	if (&candidate == &pattern) {
+		return 1000000;
+	}
+	const std::size_t sizeA = candidate.mySequences.size();
+	const std::size_t sizeB = pattern.mySequences.size();
+	std::size_t indexA = 0;
+	std::size_t indexB = 0;
+
+	std::size_t count = 0;
+	long long correlationSum = 0;
+	if (candidate.myCharSequenceSize == pattern.myCharSequenceSize) {
+		while (indexA < sizeA && indexB < sizeB) {
+			++count;
+			const unsigned long long a = candidate.mySequences[indexA];
+			const unsigned long long b = pattern.mySequences[indexB];
+			if (a < b) {
+				++indexA;
+			} else if (a > b) {
+				++indexB;
+			} else {
+				correlationSum += candidate.myFrequencies[indexA] * pattern.myFrequencies[indexB];
+				++indexA;
+				++indexB;
+			}
+		}
+	}
+	// sequences of different sizes never match
+	count += sizeA - indexA + sizeB - indexB;
+
+	return ZLStatistics::correlation(
+		count, correlationSum,
+		candidate.myVolume, pattern.myVolume,
+		candidate.mySquaresVolume, pattern.mySquaresVolume
+	);
+}
@@ -50,6 +50,15 @@ protected:
 public:
 	static int correlation(const ZLStatistics &candidate, const ZLStatistics &pattern);
 
+protected:
+	static int correlation(
+		std::size_t count, long long correlationSum,
+		unsigned long long candidateSum, unsigned long long patternSum,
+		unsigned long long candidateSum2, unsigned long long patternSum2
+	);
+
+friend class ZLPackedStatistics;
+
 protected:
 	std::size_t myCharSequenceSize;
 	mutable bool myVolumesAreUpToDate;
@@ -118,6 +127,42 @@ private:
 	unsigned short* myFrequencies;
 };
 
+// Sequences (up to 8 chars) packed into integers in ZLCharSequence order;
+// correlation() gives the same result as for the unpacked statistics,
+// but does not allocate anything.
+class ZLPackedStatistics {
+
+public:
+	ZLPackedStatistics(const ZLStatistics &statistics);
+	// packed sequences are sorted and counted; the vector is cleared
+	ZLPackedStatistics(std::size_t charSequenceSize, std::vector<unsigned long long> &sequences);
+
+	std::size_t getCharSequenceSize() const;
+
+	static int correlation(const ZLPackedStatistics &candidate, const ZLPackedStatistics &pattern);
+
+	static unsigned long long pack(const char *sequence, std::size_t size);
+
+private:
+	std::size_t myCharSequenceSize;
+	std::vector<unsigned long long> mySequences;
+	std::vector<std::size_t> myFrequencies;
+	unsigned long long myVolume;
+	unsigned long long mySquaresVolume;
+};
+
+inline std::size_t ZLPackedStatistics::getCharSequenceSize() const {
+	return myCharSequenceSize;
+}
+
+inline unsigned long long ZLPackedStatistics::pack(const char *sequence, std::size_t size) {
+	unsigned long long key = 0;
+	for (std::size_t i = 0; i < size; ++i) {
+		key = (key << 8) | (unsigned char)sequence[i];
+	}
+	return key;
+}
+
 inline std::size_t ZLStatistics::getCharSequenceSize() const {
 	return myCharSequenceSize;
 }
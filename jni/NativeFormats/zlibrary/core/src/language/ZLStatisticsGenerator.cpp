@@ -20,6 +20,7 @@
 #include <cstring>
 #include <string>
 #include <map>
+#include <vector>
 
 #include <ZLFile.h>
 #include <ZLInputStream.h>
@@ -85,3 +86,20 @@ void ZLStatisticsGenerator::generate(const char* buffer, std::size_t length, std
 	}
 	statistics = ZLMapBasedStatistics(dictionary);
 }
+
+shared_ptr<ZLPackedStatistics> ZLStatisticsGenerator::generate(const char* buffer, std::size_t length, std::size_t charSequenceSize) {
+	std::vector<unsigned long long> sequences;
+	sequences.reserve(length);
+	std::size_t locker = charSequenceSize;
+	for (const char *ptr = buffer; ptr < buffer + length; ++ptr) {
+		if (myBreakSymbolsTable[(unsigned char)*(ptr)] == 1) {
+			locker = charSequenceSize;
+		} else if (locker != 0) {
+			--locker;
+		}
+		if (locker == 0) {
+			sequences.push_back(ZLPackedStatistics::pack(ptr - charSequenceSize + 1, charSequenceSize));
+		}
+	}
+	return new ZLPackedStatistics(charSequenceSize, sequences);
+}
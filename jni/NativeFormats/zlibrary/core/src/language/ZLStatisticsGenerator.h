@@ -22,7 +22,10 @@
 
 #include <string>
 
+#include <shared_ptr.h>
+
 class ZLMapBasedStatistics;
+class ZLPackedStatistics;
 
 class ZLStatisticsGenerator {
 
@@ -32,6 +35,7 @@ public:
 
 	void generate(const std::string &inputFileName, std::size_t charSequenceSizpe, ZLMapBasedStatistics &statistics);
 	void generate(const char* buffer, std::size_t length, std::size_t charSequenceSize, ZLMapBasedStatistics &statistics);
+	shared_ptr<ZLPackedStatistics> generate(const char* buffer, std::size_t length, std::size_t charSequenceSize);
 
 private:
 	int read(const std::string &inputFileName);
@@ -48,4 +48,12 @@ public abstract class Decompressor {
 	public int available() throws IOException {
 		return -1;
 	}
+
+	/**
+	 * @return number of skipped bytes
+	 */
+	public int skip(int n) throws IOException {
+		final int skipped = read(null, 0, n);
+		return skipped > 0 ? skipped : 0;
+	}
 }
@@ -24,6 +24,18 @@ class DeflatingDecompressor extends Decompressor {
 
 	private volatile int myInflatorId = -1;
 
+	// entry data offset in the base stream and sizes from the entry header
+	private int myDataStart;
+	private int myCompressedSize;
+	private int myUncompressedSize;
+	// number of bytes produced by the inflator
+	private int myInflated;
+
+	// not null if the entry is large enough to record/use checkpoints
+	private InflateCheckpoints myCheckpoints;
+	// last WINDOW_SIZE inflated bytes (cyclic), used for checkpoint recording
+	private byte[] myWindow;
+
 	public DeflatingDecompressor(MyBufferedInputStream inputStream, LocalFileHeader header) throws IOException {
 		super();
 		reset(inputStream, header);
@@ -36,6 +48,11 @@ class DeflatingDecompressor extends Decompressor {
 		}
 
 		myStream = inputStream;
+		myDataStart = header.DataOffset;
+		myCompressedSize = header.CompressedSize;
+		myUncompressedSize = header.UncompressedSize;
+		myInflated = 0;
+		myCheckpoints = null;
 		myCompressedAvailable = header.CompressedSize;
 		if (myCompressedAvailable <= 0) {
 			myCompressedAvailable = Integer.MAX_VALUE;
@@ -56,11 +73,90 @@ class DeflatingDecompressor extends Decompressor {
 		}
 	}
 
+	/**
+	 * Enables checkpoint recording and using; must be called before the first read
+	 */
+	void setCheckpoints(InflateCheckpoints checkpoints) {
+		myCheckpoints = checkpoints;
+		if (checkpoints != null && myWindow == null) {
+			myWindow = new byte[InflateCheckpoints.WINDOW_SIZE];
+		}
+	}
+
 	@Override
 	public int available() {
 		return myAvailable;
 	}
 
+	// position of the next byte to be returned by read()
+	private int position() {
+		return myInflated - myOutBufferLength;
+	}
+
+	@Override
+	public int skip(int n) throws IOException {
+		if (myCheckpoints != null && n > myOutBufferLength && myAvailable > 0) {
+			final int start = position();
+			final int target = start + Math.min(n, myAvailable);
+			final InflateCheckpoints.Checkpoint checkpoint = myCheckpoints.find(target);
+			if (checkpoint != null && checkpoint.Out > myInflated) {
+				restart(checkpoint);
+				final int rest = target - checkpoint.Out;
+				final int skipped = rest > 0 ? read(null, 0, rest) : 0;
+				return checkpoint.Out - start + Math.max(skipped, 0);
+			}
+		}
+		return super.skip(n);
+	}
+
+	private void restart(InflateCheckpoints.Checkpoint checkpoint) throws IOException {
+		if (myInflatorId != -1) {
+			endInflating(myInflatorId);
+			myInflatorId = -1;
+		}
+		int value = 0;
+		if (checkpoint.Bits != 0) {
+			myStream.setPosition(myDataStart + checkpoint.In - 1);
+			value = myStream.read();
+		} else {
+			myStream.setPosition(myDataStart + checkpoint.In);
+		}
+		myInflatorId = startInflatingAt(checkpoint.Bits, value, checkpoint.Window, checkpoint.Window.length);
+		if (myInflatorId == -1) {
+			throw new ZipException("cannot start inflating");
+		}
+
+		myCompressedAvailable = myCompressedSize - checkpoint.In;
+		myAvailable = myUncompressedSize - checkpoint.Out;
+		myInflated = checkpoint.Out;
+		myInBufferOffset = IN_BUFFER_SIZE;
+		myInBufferLength = 0;
+		myOutBufferOffset = OUT_BUFFER_SIZE;
+		myOutBufferLength = 0;
+		// the checkpoint window is exactly WINDOW_SIZE bytes, so it can be used as is
+		System.arraycopy(checkpoint.Window, 0, myWindow, 0, checkpoint.Window.length);
+	}
+
+	private void addToWindow(int length) {
+		final int size = myWindow.length;
+		int start = myInflated % size;
+		for (int offset = 0; offset < length; ) {
+			final int chunk = Math.min(length - offset, size - start);
+			System.arraycopy(myOutBuffer, offset, myWindow, start, chunk);
+			offset += chunk;
+			start = 0;
+		}
+	}
+
+	private byte[] windowCopy() {
+		final int size = myWindow.length;
+		final byte[] copy = new byte[size];
+		final int start = myInflated % size;
+		System.arraycopy(myWindow, start, copy, 0, size - start);
+		System.arraycopy(myWindow, 0, copy, size - start, start);
+		return copy;
+	}
+
 	@Override
 	public int read(byte[] b, int off, int len) throws IOException {
 		if (myAvailable <= 0) {
@@ -130,8 +226,11 @@ class DeflatingDecompressor extends Decompressor {
 			if (myInBufferLength <= 0) {
 				break;
 			}
-			final long result = inflate(myInflatorId, myInBuffer, myInBufferOffset, myInBufferLength, myOutBuffer);
-			if (result <= 0) {
+			final boolean recording = myCheckpoints != null;
+			final long result = recording
+				? inflateBlock(myInflatorId, myInBuffer, myInBufferOffset, myInBufferLength, myOutBuffer)
+				: inflate(myInflatorId, myInBuffer, myInBufferOffset, myInBufferLength, myOutBuffer);
+			if (result < 0 || (result == 0 && !recording)) {
 				final StringBuilder extraInfo = new StringBuilder()
 					.append(myStream.offset()).append(":")
 					.append(myInBufferOffset).append(":")
@@ -151,6 +250,19 @@ class DeflatingDecompressor extends Decompressor {
 			myInBufferLength -= in;
 			myOutBufferOffset = 0;
 			myOutBufferLength = out;
+			if (recording) {
+				addToWindow(out);
+			}
+			myInflated += out;
+			if (recording &&
+				(result & (1L << 33)) != 0 &&
+				(result & (1L << 32)) == 0 &&
+				myInflated >= myCheckpoints.nextOut()) {
+				final int consumed = myStream.offset() - myInBufferLength - myDataStart;
+				myCheckpoints.add(new InflateCheckpoints.Checkpoint(
+					consumed, myInflated, (int)(result >> 40) & 7, windowCopy()
+				));
+			}
 			if ((result & (1L << 32)) != 0) {
 				endInflating(myInflatorId);
 				myInflatorId = -1;
@@ -161,6 +273,8 @@ class DeflatingDecompressor extends Decompressor {
 	}
 
 	private native int startInflating();
+	private native int startInflatingAt(int bits, int value, byte[] window, int windowLength);
 	private native void endInflating(int inflatorId);
 	private native long inflate(int inflatorId, byte[] in, int inOffset, int inLength, byte[] out);
+	private native long inflateBlock(int inflatorId, byte[] in, int inOffset, int inLength, byte[] out);
 }
@@ -0,0 +1,148 @@
+package org.amse.ys.zip;
+
+import java.util.*;
+
+import org.geometerplus.zlibrary.core.util.InputStreamHolder;
+
+/**
+ * Points inside a deflated entry where inflating can be restarted: compressed
+ * and uncompressed offsets, unused bits of the last compressed byte and the last
+ * 32K of uncompressed data. Checkpoints are recorded every SPAN bytes while an
+ * entry is read first time and are kept in memory for recently used entries.
+ */
+final class InflateCheckpoints {
+	static final int SPAN = 1 << 18;
+	static final int WINDOW_SIZE = 1 << 15;
+	private static final int MEMORY_LIMIT = 1 << 22;
+
+	static final class Checkpoint {
+		final int In;
+		final int Out;
+		final int Bits;
+		final byte[] Window;
+
+		Checkpoint(int in, int out, int bits, byte[] window) {
+			In = in;
+			Out = out;
+			Bits = bits;
+			Window = window;
+		}
+	}
+
+	private static final class Key {
+		private final InputStreamHolder myHolder;
+		private final int myDataOffset;
+		private final int myCRC32;
+		private final int myCompressedSize;
+
+		Key(InputStreamHolder holder, LocalFileHeader header) {
+			myHolder = holder;
+			myDataOffset = header.DataOffset;
+			myCRC32 = header.CRC32;
+			myCompressedSize = header.CompressedSize;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			final Key k = (Key)o;
+			return
+				myDataOffset == k.myDataOffset &&
+				myCRC32 == k.myCRC32 &&
+				myCompressedSize == k.myCompressedSize &&
+				myHolder.equals(k.myHolder);
+		}
+
+		@Override
+		public int hashCode() {
+			return myHolder.hashCode() + 31 * myDataOffset + myCRC32;
+		}
+	}
+
+	private static final LinkedHashMap<Key,InflateCheckpoints> ourCache =
+		new LinkedHashMap<Key,InflateCheckpoints>(16, .75f, true);
+	private static int ourMemoryUsed;
+
+	/**
+	 * @return checkpoints for given entry, or null if the entry is too small to use them
+	 */
+	static InflateCheckpoints get(InputStreamHolder holder, LocalFileHeader header) {
+		if (header.CompressionMethod != 8 ||
+			header.UncompressedSize < 2 * SPAN ||
+			header.CompressedSize <= 0) {
+			return null;
+		}
+		final Key key = new Key(holder, header);
+		synchronized (ourCache) {
+			InflateCheckpoints checkpoints = ourCache.get(key);
+			if (checkpoints == null) {
+				checkpoints = new InflateCheckpoints();
+				ourCache.put(key, checkpoints);
+			}
+			return checkpoints;
+		}
+	}
+
+	private final ArrayList<Checkpoint> myCheckpoints = new ArrayList<Checkpoint>();
+	private int myMemoryUsed;
+	// set when removed from the cache; a stream may still hold this instance,
+	// but its memory is not counted any more, so nothing is recorded
+	private boolean myEvicted;
+
+	private InflateCheckpoints() {
+	}
+
+	/**
+	 * @return uncompressed offset after which new checkpoints are recorded
+	 */
+	int nextOut() {
+		synchronized (ourCache) {
+			return myCheckpoints.isEmpty()
+				? SPAN : myCheckpoints.get(myCheckpoints.size() - 1).Out + SPAN;
+		}
+	}
+
+	void add(Checkpoint checkpoint) {
+		synchronized (ourCache) {
+			if (myEvicted || checkpoint.Out < nextOut()) {
+				return;
+			}
+			myCheckpoints.add(checkpoint);
+			myMemoryUsed += checkpoint.Window.length;
+			ourMemoryUsed += checkpoint.Window.length;
+			for (Iterator<InflateCheckpoints> it = ourCache.values().iterator();
+				 ourMemoryUsed > MEMORY_LIMIT && it.hasNext(); ) {
+				final InflateCheckpoints eldest = it.next();
+				if (eldest != this) {
+					ourMemoryUsed -= eldest.myMemoryUsed;
+					eldest.myEvicted = true;
+					it.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the last checkpoint with Out <= position, or null
+	 */
+	Checkpoint find(int position) {
+		synchronized (ourCache) {
+			int low = 0;
+			int high = myCheckpoints.size() - 1;
+			Checkpoint found = null;
+			while (low <= high) {
+				final int middle = (low + high) >>> 1;
+				final Checkpoint c = myCheckpoints.get(middle);
+				if (c.Out <= position) {
+					found = c;
+					low = middle + 1;
+				} else {
+					high = middle - 1;
+				}
+			}
+			return found;
+		}
+	}
+}
@@ -37,6 +37,20 @@ public final class NoCompressionDecompressor extends Decompressor {
 		}
 	}
 
+	@Override
+	public int skip(int n) throws IOException {
+		final int left = available();
+		if (n > left) {
+			n = left;
+		}
+		if (n <= 0) {
+			return 0;
+		}
+		final int skipped = (int)myStream.skip(n);
+		myCurrentPosition += skipped;
+		return skipped;
+	}
+
 	@Override
 	public int available() throws IOException {
 		return myHeader.UncompressedSize - myCurrentPosition;
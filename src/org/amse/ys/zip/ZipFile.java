@@ -23,6 +23,10 @@ public final class ZipFile {
 		myStreamHolder = streamHolder;
 	}
 
+	InputStreamHolder getStreamHolder() {
+		return myStreamHolder;
+	}
+
 	public Collection<LocalFileHeader> headers() {
 		try {
 			readAllHeaders();
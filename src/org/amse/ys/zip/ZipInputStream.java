@@ -13,6 +13,11 @@ class ZipInputStream extends InputStream {
 		myBaseStream = parent.getBaseStream();
 		myBaseStream.setPosition(header.DataOffset);
 		myDecompressor = Decompressor.init(myBaseStream, header);
+		if (myDecompressor instanceof DeflatingDecompressor) {
+			((DeflatingDecompressor)myDecompressor).setCheckpoints(
+				InflateCheckpoints.get(parent.getStreamHolder(), header)
+			);
+		}
 	}
 
 	@Override
@@ -33,6 +38,14 @@ class ZipInputStream extends InputStream {
 		return myDecompressor.read(b, off, len);
 	}
 
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+		return myDecompressor.skip((int)Math.min(n, Integer.MAX_VALUE));
+	}
+
 	@Override
 	public int read() throws IOException {
 		return myDecompressor.read();
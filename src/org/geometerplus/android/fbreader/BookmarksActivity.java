@@ -86,21 +86,23 @@ public class BookmarksActivity extends TabActivity implements MenuItem.OnMenuIte
 	private class Initializer implements Runnable {
 		public void run() {
 			if (myBook != null) {
-				for (BookmarkQuery query = new BookmarkQuery(myBook, 20); ; query = query.next()) {
+				for (BookmarkQuery query = new BookmarkQuery(myBook, 20); ; ) {
 					final List<Bookmark> thisBookBookmarks = myCollection.bookmarks(query);
 					if (thisBookBookmarks.isEmpty()) {
 						break;
 					}
 					myThisBookAdapter.addAll(thisBookBookmarks);
 					myAllBooksAdapter.addAll(thisBookBookmarks);
+					query = query.next(thisBookBookmarks);
 				}
 			}
-			for (BookmarkQuery query = new BookmarkQuery(20); ; query = query.next()) {
+			for (BookmarkQuery query = new BookmarkQuery(50); ; ) {
 				final List<Bookmark> allBookmarks = myCollection.bookmarks(query);
 				if (allBookmarks.isEmpty()) {
 					break;
 				}
 				myAllBooksAdapter.addAll(allBookmarks);
+				query = query.next(allBookmarks);
 			}
 			runOnUiThread(new Runnable() {
 				public void run() {
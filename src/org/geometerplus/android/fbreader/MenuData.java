@@ -57,6 +57,8 @@ public abstract class MenuData {
 			ourNodes.add(new MenuNode.Item(ActionCode.INCREASE_FONT));
 			ourNodes.add(new MenuNode.Item(ActionCode.DECREASE_FONT));
 			ourNodes.add(new MenuNode.Item(ActionCode.SHOW_NAVIGATION));
+			ourNodes.add(new MenuNode.Item(ActionCode.GOTO_PREVIOUS_TOC_SECTION));
+			ourNodes.add(new MenuNode.Item(ActionCode.GOTO_NEXT_TOC_SECTION));
 			ourNodes.add(new MenuNode.Item(ActionCode.INSTALL_PLUGINS));
 			ourNodes.add(new MenuNode.Item(ActionCode.OPEN_WEB_HELP));
 			ourNodes = Collections.unmodifiableList(ourNodes);
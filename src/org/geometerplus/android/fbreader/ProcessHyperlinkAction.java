@@ -85,7 +85,7 @@ class ProcessHyperlinkAction extends FBAndroidAction {
 			}
 		} else if (soul instanceof ZLTextWordRegionSoul) {
 			DictionaryUtil.openWordInDictionary(
-				BaseActivity, ((ZLTextWordRegionSoul)soul).Word, region
+				BaseActivity, ((ZLTextWordRegionSoul)soul).getWord(), region
 			);
 		}
 	}
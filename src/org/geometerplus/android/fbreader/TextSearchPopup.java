@@ -55,5 +55,6 @@ final class TextSearchPopup extends ButtonsPopupPanel {
 		addButton(ActionCode.FIND_PREVIOUS, false, R.drawable.text_search_previous);
 		addButton(ActionCode.CLEAR_FIND_RESULTS, true, R.drawable.text_search_close);
 		addButton(ActionCode.FIND_NEXT, false, R.drawable.text_search_next);
+		addButton(ActionCode.BOOKMARK_FIND_RESULTS, true, R.drawable.selection_bookmark);
 	}
 }
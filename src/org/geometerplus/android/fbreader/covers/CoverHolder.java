@@ -26,6 +26,7 @@ import android.graphics.Bitmap;
 
 import org.geometerplus.zlibrary.core.image.ZLImageProxy;
 
+import org.geometerplus.fbreader.book.Book;
 import org.geometerplus.fbreader.tree.FBTree;
 
 class CoverHolder {
@@ -53,6 +54,11 @@ class CoverHolder {
 				coverBitmapTask = null;
 			}
 			coverBitmapRunnable = null;
+			if (coverSyncRunnable != null) {
+				// the view is reused for another tree, no need to load the old image
+				myManager.cancelSynchronization(coverSyncRunnable.myImage, coverSyncRunnable);
+				coverSyncRunnable = null;
+			}
 		}
 		Key = key;
 	}
@@ -144,16 +150,55 @@ class CoverHolder {
 				}
 				*/
 				myManager.Cache.putBitmap(myKey, coverBitmap);
-				myManager.runOnUiThread(new Runnable() {
-					@Override
-					public void run() {
-						synchronized (CoverHolder.this) {
-							if (Key.equals(myKey)) {
-								CoverView.setImageBitmap(coverBitmap);
-							}
-						}
+				showBitmap(myKey, coverBitmap);
+			} finally {
+				synchronized (CoverHolder.this) {
+					if (coverBitmapRunnable == this) {
+						coverBitmapRunnable = null;
+						coverBitmapTask = null;
 					}
-				});
+				}
+			}
+		}
+	}
+
+	class ThumbnailRunnable implements Runnable {
+		private final Book myBook;
+		private final FBTree.Key myKey;
+
+		ThumbnailRunnable(Book book) {
+			myBook = book;
+			synchronized (CoverHolder.this) {
+				myKey = Key;
+				coverBitmapRunnable = this;
+			}
+		}
+
+		public void run() {
+			synchronized (CoverHolder.this) {
+				if (coverBitmapRunnable != this) {
+					return;
+				}
+			}
+			try {
+				Bitmap thumbnail;
+				try {
+					thumbnail = myManager.Thumbnails.read(myBook);
+					if (thumbnail == null && !Thread.currentThread().isInterrupted()) {
+						// not in the store yet (new book, or the library scan is not finished)
+						thumbnail = myManager.Thumbnails.create(myBook);
+					}
+				} catch (CoverCache.NullObjectException e) {
+					myManager.Cache.putBitmap(myKey, null);
+					return;
+				}
+				if (Thread.currentThread().isInterrupted()) {
+					return;
+				}
+				myManager.Cache.putBitmap(myKey, thumbnail);
+				if (thumbnail != null) {
+					showBitmap(myKey, thumbnail);
+				}
 			} finally {
 				synchronized (CoverHolder.this) {
 					if (coverBitmapRunnable == this) {
@@ -164,4 +209,17 @@ class CoverHolder {
 			}
 		}
 	}
+
+	private void showBitmap(final FBTree.Key key, final Bitmap bitmap) {
+		myManager.runOnUiThread(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (CoverHolder.this) {
+					if (Key.equals(key)) {
+						CoverView.setImageBitmap(bitmap);
+					}
+				}
+			}
+		});
+	}
 }
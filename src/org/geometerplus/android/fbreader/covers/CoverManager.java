@@ -31,10 +31,13 @@ import org.geometerplus.zlibrary.core.image.ZLImageProxy;
 import org.geometerplus.zlibrary.ui.android.image.ZLAndroidImageData;
 import org.geometerplus.zlibrary.ui.android.image.ZLAndroidImageManager;
 
+import org.geometerplus.fbreader.book.Book;
+import org.geometerplus.fbreader.library.LibraryTree;
 import org.geometerplus.fbreader.tree.FBTree;
 
 public class CoverManager {
 	final CoverCache Cache = new CoverCache();
+	final ThumbnailStore Thumbnails;
 
 	private static class MinPriorityThreadFactory implements ThreadFactory {
 		private final ThreadFactory myDefaultThreadFactory = Executors.defaultThreadFactory();
@@ -54,6 +57,7 @@ public class CoverManager {
 
 	public CoverManager(Activity activity, ZLImageProxy.Synchronizer synchronizer, int coverWidth, int coverHeight) {
 		myActivity = activity;
+		Thumbnails = new ThumbnailStore(activity);
 		myImageSynchronizer = synchronizer;
 		myCoverWidth = coverWidth;
 		myCoverHeight = coverHeight;
@@ -63,6 +67,10 @@ public class CoverManager {
 		myActivity.runOnUiThread(runnable);
 	}
 
+	void cancelSynchronization(ZLImageProxy image, Runnable postAction) {
+		((ZLAndroidImageManager)ZLAndroidImageManager.Instance()).cancelImageLoading(image, postAction);
+	}
+
 	void setupCoverView(ImageView coverView) {
 		coverView.getLayoutParams().width = myCoverWidth;
 		coverView.getLayoutParams().height = myCoverHeight;
@@ -93,6 +101,14 @@ public class CoverManager {
 		}
 	}
 
+	private void setThumbnailForView(CoverHolder holder, Book book) {
+		synchronized (holder) {
+			if (holder.coverBitmapTask == null) {
+				holder.coverBitmapTask = myPool.submit(holder.new ThumbnailRunnable(book));
+			}
+		}
+	}
+
 	private CoverHolder getHolder(ImageView coverView, FBTree tree) {
 		CoverHolder holder = (CoverHolder)coverView.getTag();
 		if (holder == null) {
@@ -114,7 +130,11 @@ public class CoverManager {
 			return false;
 		}
 
-		if (coverBitmap == null) {
+		final Book book = tree instanceof LibraryTree ? ((LibraryTree)tree).getBook() : null;
+		if (coverBitmap == null && book != null) {
+			// library books: the stored thumbnail is read (or created) in background
+			setThumbnailForView(holder, book);
+		} else if (coverBitmap == null) {
 			final ZLImage cover = tree.getCover();
 			if (cover instanceof ZLImageProxy) {
 				final ZLImageProxy img = (ZLImageProxy)cover;
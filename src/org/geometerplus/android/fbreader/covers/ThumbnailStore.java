@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.android.fbreader.covers;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import org.geometerplus.zlibrary.core.filesystem.ZLFile;
+import org.geometerplus.zlibrary.core.image.*;
+
+import org.geometerplus.zlibrary.ui.android.image.ZLAndroidImageData;
+import org.geometerplus.zlibrary.ui.android.image.ZLAndroidImageManager;
+
+import org.geometerplus.fbreader.book.Book;
+import org.geometerplus.fbreader.book.BookUtil;
+
+/**
+ * Persistent store of library cover thumbnails, shared by the library service
+ * (that fills it after the library scan) and the activities showing covers.
+ *
+ * Every thumbnail is a small compressed file scaled to fit into a fixed box,
+ * named after the identity of the book file (path, size and modification time),
+ * so a changed book file gets a new thumbnail and the old one ages out.
+ * An empty file means the book has no cover. When the store grows over
+ * MAX_SIZE bytes, the least recently used thumbnails are removed; the
+ * modification time of a thumbnail is updated when it is read.
+ */
+public final class ThumbnailStore {
+	private static final int WIDTH_DP = 80;
+	private static final int HEIGHT_DP = 120;
+
+	private static final long MAX_SIZE = 64L * 1024 * 1024;
+	// access time is not stored more often, to avoid a write on each read
+	private static final long TOUCH_INTERVAL = 60L * 60 * 1000;
+
+	private final File myDirectory;
+	private final int myWidth;
+	private final int myHeight;
+
+	public ThumbnailStore(Context context) {
+		myDirectory = new File(context.getCacheDir(), "thumbnails");
+		myDirectory.mkdirs();
+		final float density = context.getResources().getDisplayMetrics().density;
+		myWidth = (int)(WIDTH_DP * density + .5f);
+		myHeight = (int)(HEIGHT_DP * density + .5f);
+	}
+
+	private static String key(ZLFile file) {
+		final ZLFile physicalFile = file.getPhysicalFile();
+		final StringBuilder identity = new StringBuilder(file.getPath());
+		if (physicalFile != null) {
+			identity.append('\u0000').append(physicalFile.size());
+			identity.append('\u0000').append(physicalFile.lastModified());
+		}
+		try {
+			final byte[] hash = MessageDigest.getInstance("MD5").digest(identity.toString().getBytes("UTF-8"));
+			final Formatter f = new Formatter();
+			for (byte b : hash) {
+				f.format("%02x", b & 0xFF);
+			}
+			return f.toString();
+		} catch (NoSuchAlgorithmException e) {
+			return String.valueOf(identity.toString().hashCode());
+		} catch (UnsupportedEncodingException e) {
+			return String.valueOf(identity.toString().hashCode());
+		}
+	}
+
+	private File thumbnailFile(ZLFile bookFile) {
+		return new File(myDirectory, key(bookFile));
+	}
+
+	public boolean contains(Book book) {
+		return thumbnailFile(book.File).exists();
+	}
+
+	/**
+	 * @return stored thumbnail, or null if there is no thumbnail for the book yet
+	 * @throws CoverCache.NullObjectException if the book is known to have no cover
+	 */
+	Bitmap read(Book book) throws CoverCache.NullObjectException {
+		final File file = thumbnailFile(book.File);
+		final long length = file.length();
+		if (length == 0 && !file.exists()) {
+			return null;
+		}
+		touch(file);
+		if (length == 0) {
+			throw new CoverCache.NullObjectException();
+		}
+		return BitmapFactory.decodeFile(file.getPath());
+	}
+
+	private static void touch(File file) {
+		final long now = System.currentTimeMillis();
+		if (now - file.lastModified() > TOUCH_INTERVAL) {
+			file.setLastModified(now);
+		}
+	}
+
+	/**
+	 * Reads the cover from the book file, scales it and stores the result.
+	 * Opens the book, so never call it from the UI thread.
+	 * @return the thumbnail, or null if the book has no cover
+	 */
+	public Bitmap create(Book book) {
+		Bitmap bitmap = null;
+		final ZLImage cover = BookUtil.getCover(book);
+		if (cover instanceof ZLImageProxy) {
+			final ZLImageProxy proxy = (ZLImageProxy)cover;
+			if (!proxy.isSynchronized()) {
+				if (!(proxy instanceof ZLImageSelfSynchronizableProxy)) {
+					// the image lives somewhere else; do not store anything
+					return null;
+				}
+				((ZLImageSelfSynchronizableProxy)proxy).synchronize();
+			}
+		}
+		if (cover != null) {
+			final ZLAndroidImageData data =
+				((ZLAndroidImageManager)ZLAndroidImageManager.Instance()).getImageData(cover);
+			if (data != null) {
+				bitmap = data.getBitmap(myWidth, myHeight);
+			}
+		}
+		write(book.File, bitmap);
+		return bitmap;
+	}
+
+	private void write(ZLFile bookFile, Bitmap bitmap) {
+		final File file = thumbnailFile(bookFile);
+		// thumbnails are written by several processes; rename makes the write atomic
+		final File temp;
+		try {
+			temp = File.createTempFile(file.getName() + ".", ".tmp", myDirectory);
+		} catch (IOException e) {
+			return;
+		}
+		OutputStream stream = null;
+		try {
+			stream = new BufferedOutputStream(new FileOutputStream(temp));
+			if (bitmap != null) {
+				bitmap.compress(
+					bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG,
+					85, stream
+				);
+			}
+			stream.close();
+			stream = null;
+			if (!temp.renameTo(file)) {
+				temp.delete();
+			}
+		} catch (IOException e) {
+			temp.delete();
+		} finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+				}
+				temp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Creates missing thumbnails for the given books, then trims the store.
+	 * Stops early if the thread is interrupted.
+	 */
+	public void fill(List<Book> books) {
+		for (Book book : books) {
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			if (!contains(book)) {
+				create(book);
+			}
+		}
+		trim();
+	}
+
+	private void trim() {
+		final File[] files = myDirectory.listFiles();
+		if (files == null) {
+			return;
+		}
+		long size = 0;
+		for (File f : files) {
+			size += f.length();
+		}
+		if (size <= MAX_SIZE) {
+			return;
+		}
+
+		final long[] modified = new long[files.length];
+		final Integer[] order = new Integer[files.length];
+		for (int i = 0; i < files.length; ++i) {
+			modified[i] = files[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer i0, Integer i1) {
+				final long diff = modified[i0] - modified[i1];
+				return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+			}
+		});
+		// removes the least recently used ones down to 3/4 of the limit, so trimming is not run after each book
+		for (int i = 0; i < order.length && size > MAX_SIZE / 4 * 3; ++i) {
+			final File f = files[order[i]];
+			final long length = f.length();
+			if (f.delete()) {
+				size -= length;
+			}
+		}
+	}
+}
@@ -409,6 +409,20 @@ public class BookCollectionShadow extends AbstractBookCollection implements Serv
 		}
 	}
 
+	public synchronized void saveBookmarks(List<Bookmark> bookmarks) {
+		if (myInterface != null) {
+			try {
+				final List<Bookmark> saved = SerializerUtil.deserializeBookmarkList(
+					myInterface.saveBookmarks(SerializerUtil.serializeBookmarkList(bookmarks))
+				);
+				for (int i = 0; i < bookmarks.size() && i < saved.size(); ++i) {
+					bookmarks.get(i).update(saved.get(i));
+				}
+			} catch (RemoteException e) {
+			}
+		}
+	}
+
 	public synchronized void deleteBookmark(Bookmark bookmark) {
 		if (myInterface != null) {
 			try {
@@ -20,6 +20,7 @@
 package org.geometerplus.android.fbreader.libraryService;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import android.app.Service;
 import android.content.Intent;
@@ -41,6 +42,7 @@ import org.geometerplus.fbreader.Paths;
 import org.geometerplus.fbreader.book.*;
 
 import org.geometerplus.android.fbreader.api.TextPosition;
+import org.geometerplus.android.fbreader.covers.ThumbnailStore;
 
 public class LibraryService extends Service {
 	static final String BOOK_EVENT_ACTION = "fbreader.library_service.book_event";
@@ -92,9 +94,20 @@ public class LibraryService extends Service {
 		private final BooksDatabase myDatabase;
 		private final List<FileObserver> myFileObservers = new LinkedList<FileObserver>();
 		private BookCollection myCollection;
+		private final ThumbnailStore myThumbnails;
+		private final ExecutorService myThumbnailsExecutor =
+			Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					final Thread thread = new Thread(r, "Library.thumbnails");
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+		private Future<?> myThumbnailsTask;
 
 		LibraryImplementation() {
 			myDatabase = new SQLiteBooksDatabase(LibraryService.this);
+			myThumbnails = new ThumbnailStore(LibraryService.this);
 			myCollection = new BookCollection(myDatabase, Paths.bookPath());
 			reset(true);
 		}
@@ -120,6 +133,7 @@ public class LibraryService extends Service {
 			myFileObservers.clear();
 
 			myCollection = new BookCollection(myDatabase, bookDirectories);
+			final BookCollection collection = myCollection;
 			for (String dir : bookDirectories) {
 				final Observer observer = new Observer(dir, myCollection);
 				observer.startWatching();
@@ -132,17 +146,42 @@ public class LibraryService extends Service {
 					intent.putExtra("type", event.toString());
 					intent.putExtra("book", SerializerUtil.serialize(book));
 					sendBroadcast(intent);
+					if (event == BookEvent.Added && collection.status().IsCompleted) {
+						createThumbnails(Collections.singletonList(book));
+					}
 				}
 
 				public void onBuildEvent(BookCollection.Status status) {
 					final Intent intent = new Intent(BUILD_EVENT_ACTION);
 					intent.putExtra("type", status.toString());
 					sendBroadcast(intent);
+					if (status == BookCollection.Status.Succeeded) {
+						// background stage of the library scan
+						if (myThumbnailsTask != null) {
+							myThumbnailsTask.cancel(true);
+						}
+						myThumbnailsTask = createThumbnails(
+							collection.books(new BookQuery(new Filter.Empty(), Integer.MAX_VALUE))
+						);
+					}
 				}
 			});
 			myCollection.startBuild();
 		}
 
+		private Future<?> createThumbnails(final List<Book> books) {
+			try {
+				return myThumbnailsExecutor.submit(new Runnable() {
+					public void run() {
+						myThumbnails.fill(books);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				// the service is closed, book events can still arrive
+				return null;
+			}
+		}
+
 		public void deactivate() {
 			for (FileObserver observer : myFileObservers) {
 				observer.stopWatching();
@@ -150,6 +189,7 @@ public class LibraryService extends Service {
 		}
 
 		public void close() {
+			myThumbnailsExecutor.shutdownNow();
 			((SQLiteBooksDatabase)myDatabase).close();
 		}
 
@@ -294,6 +334,12 @@ public class LibraryService extends Service {
 			return SerializerUtil.serialize(bookmark);
 		}
 
+		public List<String> saveBookmarks(List<String> serialized) {
+			final List<Bookmark> bookmarks = SerializerUtil.deserializeBookmarkList(serialized);
+			myCollection.saveBookmarks(bookmarks);
+			return SerializerUtil.serializeBookmarkList(bookmarks);
+		}
+
 		public void deleteBookmark(String serialized) {
 			myCollection.deleteBookmark(SerializerUtil.deserializeBookmark(serialized));
 		}
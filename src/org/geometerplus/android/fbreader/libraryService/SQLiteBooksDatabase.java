@@ -38,6 +38,7 @@ import org.geometerplus.zlibrary.text.view.ZLTextPosition;
 import org.geometerplus.zlibrary.text.view.ZLTextFixedPosition;
 
 import org.geometerplus.fbreader.book.*;
+import org.geometerplus.fbreader.sort.CollationKeys;
 
 import org.geometerplus.android.util.SQLiteUtil;
 
@@ -74,7 +75,7 @@ final class SQLiteBooksDatabase extends BooksDatabase {
 
 	private void migrate() {
 		final int version = myDatabase.getVersion();
-		final int currentVersion = 27;
+		final int currentVersion = 29;
 		if (version >= currentVersion) {
 			return;
 		}
@@ -136,6 +137,10 @@ final class SQLiteBooksDatabase extends BooksDatabase {
 				updateTables25();
 			case 26:
 				updateTables26();
+			case 27:
+				updateTables27();
+			case 28:
+				updateTables28();
 		}
 		myDatabase.setTransactionSuccessful();
 		myDatabase.setVersion(currentVersion);
@@ -198,10 +203,12 @@ final class SQLiteBooksDatabase extends BooksDatabase {
 	@Override
 	protected Map<Long,Book> loadBooks(FileInfoSet infos, boolean existing) {
 		Cursor cursor = myDatabase.rawQuery(
-			"SELECT book_id,file_id,title,encoding,language FROM Books WHERE `exists` = " + (existing ? 1 : 0), null
+			"SELECT book_id,file_id,title,encoding,language,collation_locale,collation_key FROM Books WHERE `exists` = " + (existing ? 1 : 0), null
 		);
 		final HashMap<Long,Book> booksById = new HashMap<Long,Book>();
 		final HashMap<Long,Book> booksByFileId = new HashMap<Long,Book>();
+		final List<Book> booksWithNoCollationKey = new ArrayList<Book>();
+		final String collationTag = CollationKeys.tag();
 		while (cursor.moveToNext()) {
 			final long id = cursor.getLong(0);
 			final long fileId = cursor.getLong(1);
@@ -211,10 +218,25 @@ final class SQLiteBooksDatabase extends BooksDatabase {
 			if (book != null) {
 				booksById.put(id, book);
 				booksByFileId.put(fileId, book);
+				if (collationTag.equals(cursor.getString(5)) && !cursor.isNull(6)) {
+					setCollationKey(book, cursor.getBlob(6));
+				} else {
+					booksWithNoCollationKey.add(book);
+				}
 			}
 		}
 		cursor.close();
 
+		if (!booksWithNoCollationKey.isEmpty()) {
+			executeAsTransaction(new Runnable() {
+				public void run() {
+					for (Book book : booksWithNoCollationKey) {
+						saveBookCollationKey(book.getId(), collationTag, book.getCollationKey());
+					}
+				}
+			});
+		}
+
 		initTagCache();
 
 		cursor = myDatabase.rawQuery(
@@ -364,6 +386,24 @@ final class SQLiteBooksDatabase extends BooksDatabase {
 		return myInsertBookInfoStatement.executeInsert();
 	}
 
+	private SQLiteStatement mySaveBookCollationKeyStatement;
+	@Override
+	protected void saveBookCollationKey(long bookId, String tag, byte[] key) {
+		if (mySaveBookCollationKeyStatement == null) {
+			mySaveBookCollationKeyStatement = myDatabase.compileStatement(
+				"UPDATE OR IGNORE Books SET collation_locale = ?, collation_key = ? WHERE book_id = ?"
+			);
+		}
+		mySaveBookCollationKeyStatement.bindString(1, tag);
+		if (key != null) {
+			mySaveBookCollationKeyStatement.bindBlob(2, key);
+		} else {
+			mySaveBookCollationKeyStatement.bindNull(2);
+		}
+		mySaveBookCollationKeyStatement.bindLong(3, bookId);
+		mySaveBookCollationKeyStatement.execute();
+	}
+
 	private SQLiteStatement myDeleteBookAuthorsStatement;
 	protected void deleteAllBookAuthors(long bookId) {
 		if (myDeleteBookAuthorsStatement == null) {
@@ -839,7 +879,7 @@ final class SQLiteBooksDatabase extends BooksDatabase {
 
 	@Override
 	protected List<Bookmark> loadBookmarks(BookmarkQuery query) {
-		final LinkedList<Bookmark> list = new LinkedList<Bookmark>();
+		final ArrayList<Bookmark> list = new ArrayList<Bookmark>();
 		final StringBuilder sql = new StringBuilder("SELECT")
 			.append(" bm.bookmark_id,bm.book_id,b.title,bm.bookmark_text,")
 			.append("bm.creation_time,bm.modification_time,bm.access_time,bm.access_counter,")
@@ -850,12 +890,19 @@ final class SQLiteBooksDatabase extends BooksDatabase {
 			.append(" INNER JOIN Books AS b ON b.book_id = bm.book_id")
 			.append(" WHERE");
 		if (query.Book != null) {
-			sql.append(" b.book_id = " + query.Book.getId() +" AND");
+			sql.append(" bm.book_id = " + query.Book.getId() +" AND");
+		}
+		if (query.AfterId != -1) {
+			sql.append(" bm.bookmark_id > " + query.AfterId + " AND");
 		}
 		sql
 			.append(" bm.visible = " + (query.Visible ? 1 : 0))
-			.append(" ORDER BY bm.bookmark_id")
-			.append(" LIMIT " + query.Limit * query.Page + "," + query.Limit);
+			.append(" ORDER BY bm.bookmark_id");
+		if (query.AfterId != -1) {
+			sql.append(" LIMIT " + query.Limit);
+		} else {
+			sql.append(" LIMIT " + query.Limit * query.Page + "," + query.Limit);
+		}
 		Cursor cursor = myDatabase.rawQuery(sql.toString(), null);
 		while (cursor.moveToNext()) {
 			list.add(createBookmark(
@@ -1505,4 +1552,16 @@ final class SQLiteBooksDatabase extends BooksDatabase {
 				"synchronization_time INTEGER NOT NULL," +
 				"hash TEXT(40) NOT NULL)");
 	}
+
+	private void updateTables27() {
+		// collation_locale keeps CollationKeys.tag(), not just the locale name
+		myDatabase.execSQL("ALTER TABLE Books ADD COLUMN collation_locale TEXT");
+		myDatabase.execSQL("ALTER TABLE Books ADD COLUMN collation_key BLOB");
+	}
+
+	private void updateTables28() {
+		// bookmark_id is the rowid, so both indices are ordered by it
+		myDatabase.execSQL("CREATE INDEX Bookmarks_BookVisibleIndex ON Bookmarks (book_id,visible)");
+		myDatabase.execSQL("CREATE INDEX Bookmarks_VisibleIndex ON Bookmarks (visible)");
+	}
 }
@@ -63,6 +63,10 @@ public class BookDownloaderService extends Service {
 
 	private volatile int myServiceCounter;
 
+	private static final int MAX_DOWNLOAD_ATTEMPTS = 3;
+	// no constant in HttpURLConnection
+	private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
 	private void doStart() {
 		++myServiceCounter;
 	}
@@ -241,6 +245,47 @@ public class BookDownloaderService extends Service {
 		);
 	}
 
+	private ZLNetworkRequest createRequest(String urlString, final PartialDownload partial, final Handler progressHandler) {
+		final ZLNetworkRequest request = new ZLNetworkRequest.Get(urlString) {
+			public void handleStream(InputStream inputStream, int length) throws IOException, ZLNetworkException {
+				final int updateIntervalMillis = 1000; // FIXME: remove hardcoded time constant
+
+				final OutputStream outStream = partial.open(this, length);
+				// progress is counted by bytes on disk, including ones got before resuming
+				final long fullLength = partial.length();
+				long downloadedPart = partial.downloadedSize();
+				long progressTime = System.currentTimeMillis() + updateIntervalMillis;
+				if (fullLength <= 0) {
+					progressHandler.sendEmptyMessage(-1);
+				} else {
+					progressHandler.sendEmptyMessage((int)(downloadedPart * 100 / fullLength));
+				}
+				try {
+					final byte[] buffer = new byte[8192];
+					while (true) {
+						final int size = inputStream.read(buffer);
+						if (size <= 0) {
+							break;
+						}
+						outStream.write(buffer, 0, size);
+						downloadedPart += size;
+						if (fullLength > 0) {
+							final long currentTime = System.currentTimeMillis();
+							if (currentTime > progressTime) {
+								progressTime = currentTime + updateIntervalMillis;
+								progressHandler.sendEmptyMessage((int)(downloadedPart * 100 / fullLength));
+							}
+						}
+					}
+				} finally {
+					outStream.close();
+				}
+			}
+		};
+		partial.prepare(request);
+		return request;
+	}
+
 	private void startFileDownload(final String urlString, final File file, final String title) {
 		myDownloadingURLs.add(urlString);
 		sendDownloaderCallback();
@@ -284,45 +329,38 @@ public class BookDownloaderService extends Service {
 			}
 		};
 
-		final ZLNetworkRequest request = new ZLNetworkRequest.Get(urlString) {
-			public void handleStream(InputStream inputStream, int length) throws IOException, ZLNetworkException {
-				final int updateIntervalMillis = 1000; // FIXME: remove hardcoded time constant
+		final PartialDownload partial = new PartialDownload(file, urlString);
 
-				int downloadedPart = 0;
-				long progressTime = System.currentTimeMillis() + updateIntervalMillis;
-				if (length <= 0) {
-					progressHandler.sendEmptyMessage(-1);
-				}
-				final OutputStream outStream;
-				try {
-					outStream = new FileOutputStream(file);
-				} catch (FileNotFoundException ex) {
-					throw new ZLNetworkException(ZLNetworkException.ERROR_CREATE_FILE, file.getPath());
-				}
+		final Thread downloader = new Thread(new Runnable() {
+			public void run() {
+				boolean success = false;
 				try {
-					final byte[] buffer = new byte[8192];
-					while (true) {
-						final int size = inputStream.read(buffer);
-						if (size <= 0) {
+					for (int attempt = 1; ; ++attempt) {
+						if (partial.isComplete()) {
 							break;
 						}
-						downloadedPart += size;
-						if (length > 0) {
-							final long currentTime = System.currentTimeMillis();
-							if (currentTime > progressTime) {
-								progressTime = currentTime + updateIntervalMillis;
-								progressHandler.sendEmptyMessage(downloadedPart * 100 / length);
+						final long downloadedBefore = partial.downloadedSize();
+						final ZLNetworkRequest request = createRequest(urlString, partial, progressHandler);
+						try {
+							myNetworkContext.perform(request);
+							break;
+						} catch (ZLNetworkException e) {
+							if (request.getResponseCode() == HTTP_RANGE_NOT_SATISFIABLE &&
+								attempt < MAX_DOWNLOAD_ATTEMPTS) {
+								// the stored range is not valid for the file on the server
+								partial.delete();
+								continue;
+							}
+							// a broken connection is resumed while it makes progress
+							if (attempt >= MAX_DOWNLOAD_ATTEMPTS ||
+								!partial.isResumable() ||
+								partial.downloadedSize() <= downloadedBefore) {
+								throw e;
 							}
-							/*if (downloadedPart * 100 / length > 95) {
-								throw new IOException("debug exception");
-							}*/
 						}
-						outStream.write(buffer, 0, size);
-						/*try {
-							Thread.currentThread().sleep(200);
-						} catch (InterruptedException ex) {
-						}*/
 					}
+					partial.complete();
+					success = true;
 					final BookCollectionShadow collection = new BookCollectionShadow();
 					collection.bindToService(BookDownloaderService.this, new Runnable() {
 						@Override
@@ -331,22 +369,12 @@ public class BookDownloaderService extends Service {
 							collection.unbind();
 						}
 					});
-				} finally {
-					outStream.close();
-				}
-			}
-		};
-
-		final Thread downloader = new Thread(new Runnable() {
-			public void run() {
-				boolean success = false;
-				try {
-					myNetworkContext.perform(request);
-					success = true;
 				} catch (ZLNetworkException e) {
 					// TODO: show error message to User
 					e.printStackTrace();
-					file.delete();
+					if (!partial.isResumable()) {
+						partial.delete();
+					}
 				} finally {
 					downloadFinishHandler.sendEmptyMessage(success ? 1 : 0);
 				}
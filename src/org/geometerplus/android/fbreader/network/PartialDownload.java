@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+
+package org.geometerplus.android.fbreader.network;
+
+import java.io.*;
+import java.util.Properties;
+
+import org.geometerplus.zlibrary.core.network.ZLNetworkException;
+import org.geometerplus.zlibrary.core.network.ZLNetworkRequest;
+
+/**
+ * State of an unfinished download. Data are written to "<file>.part",
+ * the URL, the validators (ETag/Last-Modified) and the expected size are
+ * stored in "<file>.part.info"; the downloaded range is always [0, size of
+ * the .part file). The target file appears only when the download is
+ * complete and verified.
+ */
+class PartialDownload {
+	private static final String URL = "url";
+	private static final String ETAG = "etag";
+	private static final String LAST_MODIFIED = "lastModified";
+	private static final String LENGTH = "length";
+
+	final File Target;
+	private final File myDataFile;
+	private final File myInfoFile;
+	private final String myUrl;
+
+	private String myETag;
+	private String myLastModified;
+	private long myLength = -1;
+
+	PartialDownload(File file, String url) {
+		Target = file;
+		myDataFile = new File(file.getPath() + ".part");
+		myInfoFile = new File(file.getPath() + ".part.info");
+		myUrl = url;
+		load();
+	}
+
+	private void load() {
+		if (!myDataFile.exists() || !myInfoFile.exists()) {
+			return;
+		}
+		final Properties info = new Properties();
+		InputStream stream = null;
+		try {
+			stream = new FileInputStream(myInfoFile);
+			info.load(stream);
+		} catch (IOException e) {
+			return;
+		} finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+		if (!myUrl.equals(info.getProperty(URL))) {
+			return;
+		}
+		myETag = info.getProperty(ETAG);
+		myLastModified = info.getProperty(LAST_MODIFIED);
+		try {
+			myLength = Long.parseLong(info.getProperty(LENGTH, "-1"));
+		} catch (NumberFormatException e) {
+			myLength = -1;
+		}
+	}
+
+	private void save() throws IOException {
+		final Properties info = new Properties();
+		info.setProperty(URL, myUrl);
+		if (myETag != null) {
+			info.setProperty(ETAG, myETag);
+		}
+		if (myLastModified != null) {
+			info.setProperty(LAST_MODIFIED, myLastModified);
+		}
+		info.setProperty(LENGTH, String.valueOf(myLength));
+		final OutputStream stream = new FileOutputStream(myInfoFile);
+		try {
+			info.store(stream, null);
+		} finally {
+			stream.close();
+		}
+	}
+
+	private String validator() {
+		// If-Range accepts strong entity tags only
+		if (myETag != null && !myETag.startsWith("W/")) {
+			return myETag;
+		}
+		return myLastModified;
+	}
+
+	boolean isResumable() {
+		return validator() != null && myDataFile.length() > 0;
+	}
+
+	/**
+	 * @return true if the .part file has the expected size, i.e. there is
+	 * nothing to download and the file can be completed
+	 */
+	boolean isComplete() {
+		return myLength > 0 && downloadedSize() == myLength;
+	}
+
+	long downloadedSize() {
+		return myDataFile.exists() ? myDataFile.length() : 0;
+	}
+
+	/**
+	 * @return expected size of the complete file, or -1 if unknown
+	 */
+	long length() {
+		return myLength;
+	}
+
+	void prepare(ZLNetworkRequest request) {
+		// ranges of compressed content are useless for resuming
+		request.addHeader("Accept-Encoding", "identity");
+		if (myLength > 0 && downloadedSize() > myLength) {
+			// the stored data do not match the file anymore
+			delete();
+		}
+		if (isResumable()) {
+			request.addHeader("Range", "bytes=" + downloadedSize() + "-");
+			request.addHeader("If-Range", validator());
+		}
+	}
+
+	/**
+	 * Checks the response and opens the .part file for writing;
+	 * the data are appended if the server sent the requested range,
+	 * and written from the beginning otherwise.
+	 */
+	OutputStream open(ZLNetworkRequest request, int contentLength) throws ZLNetworkException {
+		final long offset = downloadedSize();
+		boolean append = false;
+		if (request.getResponseCode() == 206 && offset > 0) {
+			final long start = rangeStart(request.getResponseHeader("Content-Range"));
+			if (start != offset) {
+				throw new ZLNetworkException(true, "Unexpected Content-Range: " + request.getResponseHeader("Content-Range"));
+			}
+			append = true;
+		}
+
+		if (!append) {
+			myETag = request.getResponseHeader("ETag");
+			myLastModified = request.getResponseHeader("Last-Modified");
+			myLength = contentLength > 0 ? contentLength : -1;
+		} else if (myLength <= 0 && contentLength > 0) {
+			myLength = offset + contentLength;
+		}
+
+		try {
+			save();
+			return new FileOutputStream(myDataFile, append);
+		} catch (IOException e) {
+			throw new ZLNetworkException(ZLNetworkException.ERROR_CREATE_FILE, myDataFile.getPath());
+		}
+	}
+
+	private static long rangeStart(String contentRange) {
+		// bytes <first>-<last>/<length>
+		if (contentRange == null) {
+			return -1;
+		}
+		final int start = contentRange.indexOf(' ') + 1;
+		final int end = contentRange.indexOf('-', start);
+		if (end == -1) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(contentRange.substring(start, end).trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Checks that the whole file is downloaded and moves it to the target path.
+	 */
+	void complete() throws ZLNetworkException {
+		if (myLength > 0 && myDataFile.length() != myLength) {
+			throw new ZLNetworkException(
+				true, "Downloaded " + myDataFile.length() + " bytes of " + myLength
+			);
+		}
+		if (!myDataFile.renameTo(Target)) {
+			throw new ZLNetworkException(ZLNetworkException.ERROR_CREATE_FILE, Target.getPath());
+		}
+		myInfoFile.delete();
+	}
+
+	void delete() {
+		myDataFile.delete();
+		myInfoFile.delete();
+		myETag = null;
+		myLastModified = null;
+		myLength = -1;
+	}
+}
@@ -24,8 +24,13 @@ import java.util.ArrayList;
 import android.app.ListActivity;
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.*;
 
+import org.geometerplus.zlibrary.core.image.ZLImageManager;
+
+import org.geometerplus.zlibrary.ui.android.image.ZLAndroidImageManager;
+
 import org.geometerplus.android.util.UIUtil;
 
 import org.geometerplus.fbreader.tree.FBTree;
@@ -64,6 +69,13 @@ public abstract class TreeActivity<T extends FBTree> extends ListActivity {
 	@Override
 	protected void onDestroy() {
 		ImageSynchronizer.clear();
+		final ZLImageManager imageManager = ZLImageManager.Instance();
+		if (imageManager instanceof ZLAndroidImageManager) {
+			final String statistics = ((ZLAndroidImageManager)imageManager).getImageLoadingStatistics();
+			if (statistics.length() > 0) {
+				Log.d("FBReader", "Image loading: " + statistics);
+			}
+		}
 
 		super.onDestroy();
 	}
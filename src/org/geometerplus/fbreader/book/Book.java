@@ -29,6 +29,7 @@ import org.geometerplus.zlibrary.core.util.RationalNumber;
 
 import org.geometerplus.fbreader.bookmodel.BookReadingException;
 import org.geometerplus.fbreader.formats.*;
+import org.geometerplus.fbreader.sort.CollationKeys;
 import org.geometerplus.fbreader.sort.TitledEntity;
 
 public class Book extends TitledEntity {
@@ -308,6 +309,10 @@ public class Book extends TitledEntity {
 		mySeriesInfo = SeriesInfo.createSeriesInfo(name, index);
 	}
 
+	void setCollationKeyWithNoCheck(byte[] key) {
+		setCollationKey(key);
+	}
+
 	public void setSeriesInfo(String name, String index) {
 		setSeriesInfo(name, SeriesInfo.createIndex(index));
 	}
@@ -512,8 +517,12 @@ public class Book extends TitledEntity {
 				if (myId >= 0) {
 					final FileInfoSet fileInfos = new FileInfoSet(database, File);
 					database.updateBookInfo(myId, fileInfos.getId(File), myEncoding, myLanguage, getTitle());
+					database.saveBookCollationKey(myId, CollationKeys.tag(), getCollationKey());
 				} else {
 					myId = database.insertBookInfo(File, myEncoding, myLanguage, getTitle());
+					if (myId != -1) {
+						database.saveBookCollationKey(myId, CollationKeys.tag(), getCollationKey());
+					}
 					if (myId != -1 && myVisitedHyperlinks != null) {
 						for (String linkId : myVisitedHyperlinks) {
 							database.addVisitedHyperlink(myId, linkId);
@@ -42,6 +42,8 @@ public class BookCollection extends AbstractBookCollection {
 	private final List<String> myFilesToRescan =
 		Collections.synchronizedList(new LinkedList<String>());
 	private final DuplicateResolver myDuplicateResolver = new DuplicateResolver();
+	private final BookSearchIndex mySearchIndex = new BookSearchIndex();
+	private final BookmarksCache myBookmarksCache = new BookmarksCache();
 
 	private volatile Status myStatus = Status.NotStarted;
 
@@ -51,6 +53,7 @@ public class BookCollection extends AbstractBookCollection {
 	public BookCollection(BooksDatabase db, List<String> bookDirectories) {
 		myDatabase = db;
 		BookDirectories = Collections.unmodifiableList(new ArrayList<String>(bookDirectories));
+		addListener(mySearchIndex);
 	}
 
 	public int size() {
@@ -225,6 +228,7 @@ public class BookCollection extends AbstractBookCollection {
 			}
 			myDatabase.deleteBook(book.getId());
 		}
+		myBookmarksCache.invalidate(book.getId());
 		fireBookEvent(BookEvent.Removed, book);
 	}
 
@@ -239,6 +243,13 @@ public class BookCollection extends AbstractBookCollection {
 			allBooks = new ArrayList<Book>(myBooksByFile.values());
 		}
 		final int start = query.Page * query.Limit;
+		if (query.Filter instanceof Filter.ByPattern) {
+			final List<Book> found = mySearchIndex.find(((Filter.ByPattern)query.Filter).Pattern);
+			if (start >= found.size()) {
+				return Collections.emptyList();
+			}
+			return found.subList(start, Math.min(start + query.Limit, found.size()));
+		}
 		if (start >= allBooks.size()) {
 			return Collections.emptyList();
 		}
@@ -263,6 +274,9 @@ public class BookCollection extends AbstractBookCollection {
 	}
 
 	public boolean hasBooks(Filter filter) {
+		if (filter instanceof Filter.ByPattern) {
+			return mySearchIndex.contains(((Filter.ByPattern)filter).Pattern);
+		}
 		final List<Book> allBooks;
 		synchronized (myBooksByFile) {
 			allBooks = new ArrayList<Book>(myBooksByFile.values());
@@ -468,6 +482,7 @@ public class BookCollection extends AbstractBookCollection {
 					myDuplicateResolver.removeFile(f);
 					if (book != null) {
 						myBooksById.remove(book.getId());
+						myBookmarksCache.invalidate(book.getId());
 						fireBookEvent(BookEvent.Removed, book);
 					}
 				}
@@ -641,12 +656,26 @@ public class BookCollection extends AbstractBookCollection {
 	}
 
 	public List<Bookmark> bookmarks(BookmarkQuery query) {
-		return myDatabase.loadBookmarks(query);
+		if (query.Book == null) {
+			return myDatabase.loadBookmarks(query);
+		}
+		final long bookId = query.Book.getId();
+		synchronized (myBookmarksCache) {
+			List<Bookmark> all = myBookmarksCache.get(bookId, query.Visible);
+			if (all == null) {
+				all = myDatabase.loadBookmarks(
+					new BookmarkQuery(query.Book, query.Visible, Integer.MAX_VALUE)
+				);
+				myBookmarksCache.put(bookId, query.Visible, all);
+			}
+			return BookmarksCache.page(all, query);
+		}
 	}
 
 	public void saveBookmark(Bookmark bookmark) {
 		if (bookmark != null) {
 			bookmark.setId(myDatabase.saveBookmark(bookmark));
+			myBookmarksCache.invalidate(bookmark.getBookId());
 			if (bookmark.IsVisible) {
 				final Book book = getBookById(bookmark.getBookId());
 				if (book != null) {
@@ -657,9 +686,35 @@ public class BookCollection extends AbstractBookCollection {
 		}
 	}
 
+	public void saveBookmarks(final List<Bookmark> bookmarks) {
+		myDatabase.executeAsTransaction(new Runnable() {
+			public void run() {
+				for (Bookmark bookmark : bookmarks) {
+					bookmark.setId(myDatabase.saveBookmark(bookmark));
+				}
+			}
+		});
+		final Set<Long> updatedIds = new HashSet<Long>();
+		for (Bookmark bookmark : bookmarks) {
+			if (updatedIds.add(bookmark.getBookId())) {
+				myBookmarksCache.invalidate(bookmark.getBookId());
+			}
+		}
+		for (Bookmark bookmark : bookmarks) {
+			if (bookmark.IsVisible && updatedIds.remove(bookmark.getBookId())) {
+				final Book book = getBookById(bookmark.getBookId());
+				if (book != null) {
+					book.HasBookmark = true;
+					fireBookEvent(BookEvent.BookmarksUpdated, book);
+				}
+			}
+		}
+	}
+
 	public void deleteBookmark(Bookmark bookmark) {
 		if (bookmark != null && bookmark.getId() != -1) {
 			myDatabase.deleteBookmark(bookmark);
+			myBookmarksCache.invalidate(bookmark.getBookId());
 			if (bookmark.IsVisible) {
 				final Book book = getBookById(bookmark.getBookId());
 				if (book != null) {
@@ -100,7 +100,7 @@ class BookMergeHelper {
 
 	private List<Bookmark> allBookmarks(Book book, boolean visible) {
 		List<Bookmark> result = null;
-		for (BookmarkQuery query = new BookmarkQuery(book, visible, 20); ; query = query.next()) {
+		for (BookmarkQuery query = new BookmarkQuery(book, visible, 20); ; ) {
 			final List<Bookmark> portion = myCollection.bookmarks(query);
 			if (portion.isEmpty()) {
 				break;
@@ -110,6 +110,7 @@ class BookMergeHelper {
 			} else {
 				result.addAll(portion);
 			}
+			query = query.next(portion);
 		}
 		return result != null ? result : Collections.<Bookmark>emptyList();
 	}
@@ -129,16 +130,20 @@ class BookMergeHelper {
 			return false;
 		}
 		final List<Bookmark> baseBookmarks = allBookmarks(base, visible);
+		final List<Bookmark> clones = new ArrayList<Bookmark>();
 		boolean result = false;
 		for (Bookmark b : duplicateBookmarks) {
 			if (!hasSameBookmark(baseBookmarks, b)) {
 				final Bookmark clone = b.transferToBook(base);
 				if (clone != null) {
-					myCollection.saveBookmark(clone);
+					clones.add(clone);
 				}
 				result = true;
 			}
 		}
+		if (!clones.isEmpty()) {
+			myCollection.saveBookmarks(clones);
+		}
 
 		return result;
 	}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+
+package org.geometerplus.fbreader.book;
+
+import java.util.*;
+
+/**
+ * Trigram index over lower-cased book metadata, kept up to date by book events.
+ * A search returns the same books as Filter.ByPattern, ordered by the best
+ * matching field: title, series, author, tag, file name; books with equal rank
+ * keep the collection order.
+ */
+final class BookSearchIndex implements IBookCollection.Listener {
+	private interface Rank {
+		byte TITLE = 0;
+		byte SERIES = 1;
+		byte AUTHOR = 2;
+		byte TAG = 3;
+		byte FILE = 4;
+	}
+
+	private static final class Doc {
+		final int Id;
+		Book Book;
+		String[] Fields;
+		byte[] Ranks;
+
+		Doc(int id, Book book) {
+			Id = id;
+			Book = book;
+		}
+	}
+
+	// sorted array of document ids
+	private static final class Postings {
+		int[] Ids = new int[4];
+		int Size;
+
+		void add(int id) {
+			int index = Arrays.binarySearch(Ids, 0, Size, id);
+			if (index >= 0) {
+				return;
+			}
+			index = -index - 1;
+			if (Size == Ids.length) {
+				Ids = Arrays.copyOf(Ids, Size * 2);
+			}
+			System.arraycopy(Ids, index, Ids, index + 1, Size - index);
+			Ids[index] = id;
+			++Size;
+		}
+
+		void remove(int id) {
+			final int index = Arrays.binarySearch(Ids, 0, Size, id);
+			if (index >= 0) {
+				System.arraycopy(Ids, index + 1, Ids, index, Size - index - 1);
+				--Size;
+			}
+		}
+
+		boolean contains(int id) {
+			return Arrays.binarySearch(Ids, 0, Size, id) >= 0;
+		}
+	}
+
+	// keyed by file path: events can bring other instances of the same book
+	private final HashMap<String,Doc> myDocsByPath = new HashMap<String,Doc>();
+	private final TreeMap<Integer,Doc> myDocsById = new TreeMap<Integer,Doc>();
+	private final HashMap<Long,Postings> myPostings = new HashMap<Long,Postings>();
+	private int myNextId;
+
+	// search results are requested page by page, so the last one is kept
+	private String myLastPattern;
+	private List<Book> myLastResult;
+
+	private static long trigram(String text, int index) {
+		return
+			((long)text.charAt(index) << 32) |
+			((long)text.charAt(index + 1) << 16) |
+			text.charAt(index + 2);
+	}
+
+	public void onBookEvent(BookEvent event, Book book) {
+		switch (event) {
+			case Added:
+			case Updated:
+				add(book);
+				break;
+			case Removed:
+				remove(book);
+				break;
+			default:
+				break;
+		}
+	}
+
+	public void onBuildEvent(IBookCollection.Status status) {
+	}
+
+	synchronized void add(Book book) {
+		if (book == null) {
+			return;
+		}
+		myLastResult = null;
+		final String path = book.File.getPath();
+		Doc doc = myDocsByPath.get(path);
+		if (doc != null) {
+			// an updated book keeps its position
+			updatePostings(doc, false);
+			doc.Book = book;
+		} else {
+			doc = new Doc(myNextId++, book);
+			myDocsByPath.put(path, doc);
+			myDocsById.put(doc.Id, doc);
+		}
+		collectFields(doc);
+		updatePostings(doc, true);
+	}
+
+	synchronized void remove(Book book) {
+		if (book == null) {
+			return;
+		}
+		final Doc doc = myDocsByPath.remove(book.File.getPath());
+		if (doc != null) {
+			myLastResult = null;
+			myDocsById.remove(doc.Id);
+			updatePostings(doc, false);
+		}
+	}
+
+	private static void collectFields(Doc doc) {
+		final Book book = doc.Book;
+		final ArrayList<String> fields = new ArrayList<String>();
+		final ArrayList<Byte> ranks = new ArrayList<Byte>();
+
+		addField(fields, ranks, book.getTitle(), Rank.TITLE);
+		final SeriesInfo seriesInfo = book.getSeriesInfo();
+		if (seriesInfo != null) {
+			addField(fields, ranks, seriesInfo.Series.getTitle(), Rank.SERIES);
+		}
+		for (Author author : book.authors()) {
+			addField(fields, ranks, author.DisplayName, Rank.AUTHOR);
+		}
+		for (Tag tag : book.tags()) {
+			addField(fields, ranks, tag.Name, Rank.TAG);
+		}
+		addField(fields, ranks, book.File.getLongName(), Rank.FILE);
+
+		doc.Fields = fields.toArray(new String[fields.size()]);
+		doc.Ranks = new byte[ranks.size()];
+		for (int i = 0; i < doc.Ranks.length; ++i) {
+			doc.Ranks[i] = ranks.get(i);
+		}
+	}
+
+	private static void addField(List<String> fields, List<Byte> ranks, String text, byte rank) {
+		if (text != null && text.length() > 0) {
+			fields.add(text.toLowerCase());
+			ranks.add(rank);
+		}
+	}
+
+	private void updatePostings(Doc doc, boolean add) {
+		for (String field : doc.Fields) {
+			for (int i = 0; i + 3 <= field.length(); ++i) {
+				final Long key = trigram(field, i);
+				Postings postings = myPostings.get(key);
+				if (add) {
+					if (postings == null) {
+						postings = new Postings();
+						myPostings.put(key, postings);
+					}
+					postings.add(doc.Id);
+				} else if (postings != null) {
+					postings.remove(doc.Id);
+					if (postings.Size == 0) {
+						myPostings.remove(key);
+					}
+				}
+			}
+		}
+	}
+
+	// -1 if the book does not match
+	private static int rank(Doc doc, String pattern) {
+		for (int i = 0; i < doc.Fields.length; ++i) {
+			if (doc.Fields[i].indexOf(pattern) >= 0) {
+				return doc.Ranks[i];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return ids of documents that contain all trigrams of the pattern,
+	 * or null if every document is a candidate (the pattern is too short)
+	 */
+	private int[] candidates(String pattern) {
+		if (pattern.length() < 3) {
+			return null;
+		}
+		final ArrayList<Postings> lists = new ArrayList<Postings>();
+		Postings shortest = null;
+		for (int i = 0; i + 3 <= pattern.length(); ++i) {
+			final Postings postings = myPostings.get(trigram(pattern, i));
+			if (postings == null) {
+				return new int[0];
+			}
+			lists.add(postings);
+			if (shortest == null || postings.Size < shortest.Size) {
+				shortest = postings;
+			}
+		}
+		final int[] result = new int[shortest.Size];
+		int count = 0;
+		for (int i = 0; i < shortest.Size; ++i) {
+			final int id = shortest.Ids[i];
+			boolean found = true;
+			for (Postings postings : lists) {
+				if (postings != shortest && !postings.contains(id)) {
+					found = false;
+					break;
+				}
+			}
+			if (found) {
+				result[count++] = id;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	private Collection<Doc> candidateDocs(String pattern) {
+		final int[] ids = candidates(pattern);
+		if (ids == null) {
+			return myDocsById.values();
+		}
+		final ArrayList<Doc> docs = new ArrayList<Doc>(ids.length);
+		for (int id : ids) {
+			docs.add(myDocsById.get(id));
+		}
+		return docs;
+	}
+
+	/**
+	 * @param pattern lower-cased pattern, as in Filter.ByPattern
+	 */
+	synchronized List<Book> find(String pattern) {
+		if (pattern == null || pattern.length() == 0) {
+			return Collections.emptyList();
+		}
+		if (myLastResult != null && pattern.equals(myLastPattern)) {
+			return myLastResult;
+		}
+		final List<List<Book>> byRank = new ArrayList<List<Book>>(Rank.FILE + 1);
+		for (int i = 0; i <= Rank.FILE; ++i) {
+			byRank.add(null);
+		}
+		int count = 0;
+		for (Doc doc : candidateDocs(pattern)) {
+			final int rank = rank(doc, pattern);
+			if (rank >= 0) {
+				List<Book> books = byRank.get(rank);
+				if (books == null) {
+					books = new ArrayList<Book>();
+					byRank.set(rank, books);
+				}
+				books.add(doc.Book);
+				++count;
+			}
+		}
+		final List<Book> result = new ArrayList<Book>(count);
+		for (List<Book> books : byRank) {
+			if (books != null) {
+				result.addAll(books);
+			}
+		}
+		myLastPattern = pattern;
+		myLastResult = Collections.unmodifiableList(result);
+		return myLastResult;
+	}
+
+	synchronized boolean contains(String pattern) {
+		if (pattern == null || pattern.length() == 0) {
+			return false;
+		}
+		for (Doc doc : candidateDocs(pattern)) {
+			if (rank(doc, pattern) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
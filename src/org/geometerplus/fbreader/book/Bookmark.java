@@ -22,6 +22,7 @@ package org.geometerplus.fbreader.book;
 import java.util.*;
 
 import org.geometerplus.zlibrary.core.util.MiscUtil;
+import org.geometerplus.zlibrary.text.model.ZLTextModel;
 import org.geometerplus.zlibrary.text.view.*;
 
 public final class Bookmark extends ZLTextFixedPosition {
@@ -33,11 +34,29 @@ public final class Bookmark extends ZLTextFixedPosition {
 	}
 
 	public static Bookmark createBookmark(Book book, String modelId, ZLTextWordCursor startCursor, int maxWords, boolean isVisible) {
-		final ZLTextWordCursor cursor = new ZLTextWordCursor(startCursor);
+		return createBookmark(book, modelId, startCursor.getParagraphCursor().Model, startCursor, maxWords, isVisible);
+	}
+
+	/**
+	 * Creates bookmarks for several positions of the same model; the bookmarks
+	 * are not saved, use IBookCollection.saveBookmarks() to store all of them at once.
+	 */
+	public static List<Bookmark> createBookmarks(Book book, ZLTextModel model, List<? extends ZLTextPosition> starts, int maxWords, boolean isVisible) {
+		final List<Bookmark> bookmarks = new ArrayList<Bookmark>(starts.size());
+		for (ZLTextPosition start : starts) {
+			bookmarks.add(createBookmark(book, model.getId(), model, start, maxWords, isVisible));
+		}
+		return bookmarks;
+	}
 
-		final Buffer buffer = new Buffer(cursor);
-		final Buffer sentenceBuffer = new Buffer(cursor);
-		final Buffer phraseBuffer = new Buffer(cursor);
+	private static Bookmark createBookmark(Book book, String modelId, ZLTextModel model, ZLTextPosition start, int maxWords, boolean isVisible) {
+		final int paragraphsNumber = model.getParagraphsNumber();
+		ZLTextParagraphWords words = ZLTextParagraphWords.get(model, start.getParagraphIndex());
+		int wordIndex = words.wordIndex(start.getElementIndex());
+
+		final Buffer buffer = new Buffer(start);
+		final Buffer sentenceBuffer = new Buffer(start);
+		final Buffer phraseBuffer = new Buffer(start);
 
 		int wordCounter = 0;
 		int sentenceCounter = 0;
@@ -46,11 +65,13 @@ public final class Bookmark extends ZLTextFixedPosition {
 		boolean appendLineBreak = false;
 mainLoop:
 		while (wordCounter < maxWords && sentenceCounter < 3) {
-			while (cursor.isEndOfParagraph()) {
-				if (!cursor.nextParagraph()) {
+			while (wordIndex == words.Count) {
+				if (words.ParagraphIndex + 1 >= paragraphsNumber) {
 					break mainLoop;
 				}
-				if (!buffer.isEmpty() && cursor.getParagraphCursor().isEndOfSection()) {
+				words = ZLTextParagraphWords.get(model, words.ParagraphIndex + 1);
+				wordIndex = 0;
+				if (!buffer.isEmpty() && words.IsEndOfSection) {
 					break mainLoop;
 				}
 				if (!phraseBuffer.isEmpty()) {
@@ -69,39 +90,29 @@ mainLoop:
 					appendLineBreak = true;
 				}
 			}
-			final ZLTextElement element = cursor.getElement();
-			if (element instanceof ZLTextWord) {
-				final ZLTextWord word = (ZLTextWord)element;
-				if (lineIsNonEmpty) {
-					phraseBuffer.append(" ");
-				}
-				phraseBuffer.Builder.append(word.Data, word.Offset, word.Length);
-				phraseBuffer.Cursor.setCursor(cursor);
-				phraseBuffer.Cursor.setCharIndex(word.Length);
-				++wordCounter;
-				lineIsNonEmpty = true;
-				switch (word.Data[word.Offset + word.Length - 1]) {
-					case ',':
-					case ':':
-					case ';':
-					case ')':
-						sentenceBuffer.append(phraseBuffer);
-						break;
-					case '.':
-					case '!':
-					case '?':
-						++sentenceCounter;
-						if (appendLineBreak) {
-							buffer.append("\n");
-							appendLineBreak = false;
-						}
-						sentenceBuffer.append(phraseBuffer);
-						buffer.append(sentenceBuffer);
-						storedWordCounter = wordCounter;
-						break;
-				}
+			if (lineIsNonEmpty) {
+				phraseBuffer.append(" ");
 			}
-			cursor.nextWord();
+			words.appendWord(phraseBuffer.Builder, wordIndex);
+			phraseBuffer.setEnd(words, wordIndex);
+			++wordCounter;
+			lineIsNonEmpty = true;
+			switch (words.getBoundary(wordIndex)) {
+				case ZLTextParagraphWords.Boundary.PHRASE:
+					sentenceBuffer.append(phraseBuffer);
+					break;
+				case ZLTextParagraphWords.Boundary.SENTENCE:
+					++sentenceCounter;
+					if (appendLineBreak) {
+						buffer.append("\n");
+						appendLineBreak = false;
+					}
+					sentenceBuffer.append(phraseBuffer);
+					buffer.append(sentenceBuffer);
+					storedWordCounter = wordCounter;
+					break;
+			}
+			++wordIndex;
 		}
 		if (storedWordCounter < 4) {
 			if (sentenceBuffer.isEmpty()) {
@@ -112,7 +123,7 @@ mainLoop:
 			}
 			buffer.append(sentenceBuffer);
 		}
-		return new Bookmark(book, modelId, startCursor, buffer.Cursor, buffer.Builder.toString(), isVisible);
+		return new Bookmark(book, modelId, start, buffer.end(), buffer.Builder.toString(), isVisible);
 	}
 
 	private long myId;
@@ -342,10 +353,14 @@ mainLoop:
 
 	private static class Buffer {
 		final StringBuilder Builder = new StringBuilder();
-		final ZLTextWordCursor Cursor;
-
-		Buffer(ZLTextWordCursor cursor) {
-			Cursor = new ZLTextWordCursor(cursor);
+		private int myParagraphIndex;
+		private int myElementIndex;
+		private int myCharIndex;
+
+		Buffer(ZLTextPosition position) {
+			myParagraphIndex = position.getParagraphIndex();
+			myElementIndex = position.getElementIndex();
+			myCharIndex = position.getCharIndex();
 		}
 
 		boolean isEmpty() {
@@ -354,12 +369,24 @@ mainLoop:
 
 		void append(Buffer buffer) {
 			Builder.append(buffer.Builder);
-			Cursor.setCursor(buffer.Cursor);
+			myParagraphIndex = buffer.myParagraphIndex;
+			myElementIndex = buffer.myElementIndex;
+			myCharIndex = buffer.myCharIndex;
 			buffer.Builder.delete(0, buffer.Builder.length());
 		}
 
 		void append(CharSequence data) {
 			Builder.append(data);
 		}
+
+		void setEnd(ZLTextParagraphWords words, int wordIndex) {
+			myParagraphIndex = words.ParagraphIndex;
+			myElementIndex = words.getElementIndex(wordIndex);
+			myCharIndex = words.getLength(wordIndex);
+		}
+
+		ZLTextFixedPosition end() {
+			return new ZLTextFixedPosition(myParagraphIndex, myElementIndex, myCharIndex);
+		}
 	}
 }
@@ -19,11 +19,19 @@
 
 package org.geometerplus.fbreader.book;
 
+import java.util.List;
+
+/**
+ * Bookmarks are returned in bookmark id order. A query with AfterId != -1
+ * returns bookmarks with greater ids (keyset pagination); Page is used only
+ * for queries without AfterId.
+ */
 public final class BookmarkQuery {
 	public final Book Book;
 	public final boolean Visible;
 	public final int Limit;
 	public final int Page;
+	public final long AfterId;
 
 	public BookmarkQuery(int limit) {
 		this(null, limit);
@@ -34,17 +42,29 @@ public final class BookmarkQuery {
 	}
 
 	public BookmarkQuery(Book book, boolean visible, int limit) {
-		this(book, visible, limit, 0);
+		this(book, visible, limit, 0, -1);
 	}
 
-	BookmarkQuery(Book book, boolean visible, int limit, int page) {
+	BookmarkQuery(Book book, boolean visible, int limit, int page, long afterId) {
 		Book = book;
 		Visible = visible;
 		Limit = limit;
 		Page = page;
+		AfterId = afterId;
 	}
 
 	public BookmarkQuery next() {
-		return new BookmarkQuery(Book, Visible, Limit, Page + 1);
+		return new BookmarkQuery(Book, Visible, Limit, Page + 1, AfterId);
+	}
+
+	/**
+	 * @param page bookmarks returned for this query
+	 * @return query for the bookmarks following the given page
+	 */
+	public BookmarkQuery next(List<Bookmark> page) {
+		if (page.isEmpty()) {
+			return next();
+		}
+		return new BookmarkQuery(Book, Visible, Limit, Page + 1, page.get(page.size() - 1).getId());
 	}
 }
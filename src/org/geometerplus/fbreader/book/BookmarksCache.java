@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+
+package org.geometerplus.fbreader.book;
+
+import java.util.*;
+
+/**
+ * Bookmarks of recently used books, sorted by id. Lists are dropped when
+ * a bookmark of the book is saved or deleted.
+ */
+final class BookmarksCache {
+	private static final int MAX_BOOKS = 16;
+
+	private static final class Key {
+		final long BookId;
+		final boolean Visible;
+
+		Key(long bookId, boolean visible) {
+			BookId = bookId;
+			Visible = visible;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			final Key key = (Key)other;
+			return BookId == key.BookId && Visible == key.Visible;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int)(BookId ^ (BookId >>> 32)) * 2 + (Visible ? 1 : 0);
+		}
+	}
+
+	private final LinkedHashMap<Key,List<Bookmark>> myLists =
+		new LinkedHashMap<Key,List<Bookmark>>(MAX_BOOKS, .75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key,List<Bookmark>> eldest) {
+				return size() > MAX_BOOKS;
+			}
+		};
+
+	synchronized List<Bookmark> get(long bookId, boolean visible) {
+		return myLists.get(new Key(bookId, visible));
+	}
+
+	synchronized void put(long bookId, boolean visible, List<Bookmark> bookmarks) {
+		myLists.put(new Key(bookId, visible), bookmarks);
+	}
+
+	synchronized void invalidate(long bookId) {
+		myLists.remove(new Key(bookId, true));
+		myLists.remove(new Key(bookId, false));
+	}
+
+	/**
+	 * @param bookmarks list sorted by id
+	 * @return the part of the list requested by the query
+	 */
+	static List<Bookmark> page(List<Bookmark> bookmarks, BookmarkQuery query) {
+		int start;
+		if (query.AfterId != -1) {
+			int low = 0;
+			int high = bookmarks.size();
+			while (low < high) {
+				final int middle = (low + high) >>> 1;
+				if (bookmarks.get(middle).getId() <= query.AfterId) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			start = low;
+		} else {
+			start = query.Page * query.Limit;
+		}
+		if (start >= bookmarks.size()) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<Bookmark>(
+			bookmarks.subList(start, Math.min(start + query.Limit, bookmarks.size()))
+		);
+	}
+}
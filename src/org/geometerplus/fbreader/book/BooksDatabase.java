@@ -44,6 +44,9 @@ public abstract class BooksDatabase {
 	protected void setSeriesInfo(Book book, String series, String index) {
 		book.setSeriesInfoWithNoCheck(series, index);
 	}
+	protected void setCollationKey(Book book, byte[] key) {
+		book.setCollationKeyWithNoCheck(key);
+	}
 
 	protected abstract void executeAsTransaction(Runnable actions);
 
@@ -66,6 +69,7 @@ public abstract class BooksDatabase {
 
 	protected abstract void updateBookInfo(long bookId, long fileId, String encoding, String language, String title);
 	protected abstract long insertBookInfo(ZLFile file, String encoding, String language, String title);
+	protected abstract void saveBookCollationKey(long bookId, String tag, byte[] key);
 	protected abstract void deleteAllBookAuthors(long bookId);
 	protected abstract void saveBookAuthorInfo(long bookId, long index, Author author);
 	protected abstract void deleteAllBookTags(long bookId);
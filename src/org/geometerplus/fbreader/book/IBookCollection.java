@@ -83,6 +83,7 @@ public interface IBookCollection {
 
 	List<Bookmark> bookmarks(BookmarkQuery query);
 	void saveBookmark(Bookmark bookmark);
+	void saveBookmarks(List<Bookmark> bookmarks);
 	void deleteBookmark(Bookmark bookmark);
 
 	HighlightingStyle getHighlightingStyle(int styleId);
@@ -132,7 +132,8 @@ class XMLSerializer extends AbstractSerializer {
 		appendTag(buffer, "query", false,
 			"visible", String.valueOf(query.Visible),
 			"limit", String.valueOf(query.Limit),
-			"page", String.valueOf(query.Page)
+			"page", String.valueOf(query.Page),
+			"after", String.valueOf(query.AfterId)
 		);
 		if (query.Book != null) {
 			serialize(buffer, query.Book);
@@ -800,6 +801,7 @@ class XMLSerializer extends AbstractSerializer {
 		private boolean myVisible;
 		private int myLimit;
 		private int myPage;
+		private long myAfterId;
 		private final BookDeserializer myBookDeserializer = new BookDeserializer();
 		private BookmarkQuery myQuery;
 
@@ -816,7 +818,7 @@ class XMLSerializer extends AbstractSerializer {
 		@Override
 		public void endDocument() {
 			myBookDeserializer.endDocument();
-			myQuery = new BookmarkQuery(myBookDeserializer.getBook(), myVisible, myLimit, myPage);
+			myQuery = new BookmarkQuery(myBookDeserializer.getBook(), myVisible, myLimit, myPage, myAfterId);
 		}
 
 		@Override
@@ -825,6 +827,7 @@ class XMLSerializer extends AbstractSerializer {
 				myVisible = parseBoolean(attributes.getValue("visible"));
 				myLimit = parseInt(attributes.getValue("limit"));
 				myPage = parseInt(attributes.getValue("page"));
+				myAfterId = parseLongSafe(attributes.getValue("after"), -1);
 			} else {
 				myBookDeserializer.startElement(uri, localName, qName, attributes);
 			}
@@ -53,6 +53,31 @@ public abstract class BookModel {
 		return model;
 	}
 
+	public interface ProgressListener {
+		void onTextModelExtended(BookModel model);
+		void onModelCompleted(BookModel model);
+		void onReadingFailed(BookModel model, Exception exception);
+	}
+
+	/**
+	 * Books read by a native plugin are read in a background thread;
+	 * the model is returned as soon as its text model contains
+	 * the paragraph with given index (or the whole text is read).
+	 * The listener is called from the reading thread for such models only;
+	 * it is expected to pass the events to the UI thread and to call
+	 * onReadingCompleted() there when the model is completed.
+	 */
+	public static BookModel createModel(Book book, int paragraphIndex, ProgressListener listener) throws BookReadingException {
+		final FormatPlugin plugin = book.getPlugin();
+		if (plugin.type() != FormatPlugin.Type.NATIVE) {
+			return createModel(book);
+		}
+
+		final NativeBookModel model = new NativeBookModel(book);
+		model.readInBackground((BuiltinFormatPlugin)plugin, paragraphIndex, listener);
+		return model;
+	}
+
 	public final Book Book;
 	public final TOCTree TOCTree = new TOCTree();
 	public final FontManager FontManager = new FontManager();
@@ -71,6 +96,35 @@ public abstract class BookModel {
 		Book = book;
 	}
 
+	private volatile TOCIndex myTOCIndex;
+
+	/**
+	 * @return index of TOCTree; it is built on the first call
+	 * and rebuilt if the tree has been changed since
+	 */
+	public TOCIndex getTOCIndex() {
+		TOCIndex index = myTOCIndex;
+		if (index == null || index.TreeSize != TOCTree.getSize()) {
+			index = new TOCIndex(TOCTree);
+			myTOCIndex = index;
+		}
+		return index;
+	}
+
+	public boolean isCompleted() {
+		return true;
+	}
+
+	public void cancel() {
+	}
+
+	/**
+	 * Called from the UI thread when a model read in background
+	 * is completed; the TOC becomes available here.
+	 */
+	public void onReadingCompleted() {
+	}
+
 	public abstract ZLTextModel getTextModel();
 	public abstract ZLTextModel getFootnoteModel(String id);
 	protected abstract Label getLabelInternal(String id);
@@ -19,7 +19,7 @@
 
 package org.geometerplus.fbreader.bookmodel;
 
-import java.util.HashMap;
+import java.util.*;
 
 import org.geometerplus.zlibrary.core.image.*;
 
@@ -28,9 +28,12 @@ import org.geometerplus.zlibrary.text.model.*;
 import org.geometerplus.fbreader.book.Book;
 
 abstract class BookModelImpl extends BookModel {
-	protected CharStorage myInternalHyperlinks;
-	protected final HashMap<String,ZLImage> myImageMap = new HashMap<String,ZLImage>();
-	protected final HashMap<String,ZLTextModel> myFootnotes = new HashMap<String,ZLTextModel>();
+	protected volatile CharStorage myInternalHyperlinks;
+	// native models are filled in a background thread while being shown
+	protected final Map<String,ZLImage> myImageMap =
+		Collections.synchronizedMap(new HashMap<String,ZLImage>());
+	protected final Map<String,ZLTextModel> myFootnotes =
+		Collections.synchronizedMap(new HashMap<String,ZLTextModel>());
 
 	BookModelImpl(Book book) {
 		super(book);
@@ -38,11 +41,16 @@ abstract class BookModelImpl extends BookModel {
 
 	@Override
 	protected Label getLabelInternal(String id) {
+		final CharStorage hyperlinks = myInternalHyperlinks;
+		if (hyperlinks == null) {
+			// hyperlinks are published when the book is read completely
+			return null;
+		}
 		final int len = id.length();
-		final int size = myInternalHyperlinks.size();
+		final int size = hyperlinks.size();
 
 		for (int i = 0; i < size; ++i) {
-			final char[] block = myInternalHyperlinks.block(i);
+			final char[] block = hyperlinks.block(i);
 			for (int offset = 0; offset < block.length; ) {
 				final int labelLength = (int)block[offset++];
 				if (labelLength == 0) {
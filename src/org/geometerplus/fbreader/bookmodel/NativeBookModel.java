@@ -19,34 +19,172 @@
 
 package org.geometerplus.fbreader.bookmodel;
 
+import java.util.ArrayList;
+
 import org.geometerplus.zlibrary.text.model.*;
 
 import org.geometerplus.fbreader.book.Book;
+import org.geometerplus.fbreader.formats.BuiltinFormatPlugin;
 
 public class NativeBookModel extends BookModelImpl {
-	private ZLTextModel myBookTextModel;
+	private volatile ZLTextModel myBookTextModel;
+
+	private volatile boolean myIsCancelled;
+	private boolean myIsCompleted;
+	private Exception myException;
+	private int myParagraphIndex;
+	private ProgressListener myListener;
+	private volatile Thread myReader;
 
 	NativeBookModel(Book book) {
 		super(book);
 	}
 
+	void readInBackground(final BuiltinFormatPlugin plugin, int paragraphIndex, ProgressListener listener) throws BookReadingException {
+		myParagraphIndex = paragraphIndex;
+		myListener = listener;
+
+		myReader = new Thread("BookModel.read") {
+			public void run() {
+				Exception exception = null;
+				try {
+					plugin.readModel(NativeBookModel.this);
+				} catch (BookReadingException e) {
+					exception = e;
+				} catch (RuntimeException e) {
+					exception = e;
+				}
+				onReadingFinished(exception);
+				myReader = null;
+			}
+		};
+		myReader.start();
+
+		final boolean failed;
+		final boolean completed;
+		synchronized (this) {
+			while (!myIsCompleted && !isReady()) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+				}
+			}
+			failed = myBookTextModel == null || (myException != null && !isReady());
+			completed = myIsCompleted;
+		}
+		if (failed) {
+			// cannot be called with the lock held: the reading thread needs it to finish
+			cancel();
+			if (myException instanceof BookReadingException) {
+				throw (BookReadingException)myException;
+			} else if (myException instanceof RuntimeException) {
+				throw (RuntimeException)myException;
+			}
+			throw new BookReadingException("nativeCodeFailure", Book.File);
+		}
+		if (completed) {
+			// the model is not visible to anybody else yet
+			onReadingCompleted();
+		}
+	}
+
+	private boolean isReady() {
+		final ZLTextModel model = myBookTextModel;
+		return model != null && model.getParagraphsNumber() > myParagraphIndex;
+	}
+
+	private void onReadingFinished(Exception exception) {
+		final boolean wasReady;
+		synchronized (this) {
+			wasReady = isReady();
+			myIsCompleted = true;
+			myException = exception;
+			notifyAll();
+		}
+		if (!wasReady || myIsCancelled) {
+			// the opening thread gets the result itself
+			return;
+		}
+		if (myListener == null) {
+			onReadingCompleted();
+			return;
+		}
+		if (exception != null) {
+			myListener.onReadingFailed(this, exception);
+		} else {
+			myListener.onModelCompleted(this);
+		}
+	}
+
+	@Override
+	public synchronized boolean isCompleted() {
+		return myIsCompleted;
+	}
+
+	@Override
+	public void cancel() {
+		myIsCancelled = true;
+		// the native reader writes the same cache files for every book,
+		// so the next book cannot be read until this thread is finished
+		final Thread reader = myReader;
+		if (reader != null && reader != Thread.currentThread()) {
+			try {
+				reader.join();
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+
+	public boolean isCancelled() {
+		return myIsCancelled;
+	}
+
 	public void initInternalHyperlinks(String directoryName, String fileExtension, int blocksNumber) {
 		myInternalHyperlinks = new CachedCharStorageRO(directoryName, fileExtension, blocksNumber);
 	}
 
-	private TOCTree myCurrentTree = TOCTree;
+	private static final class TOCItem {
+		final String Text;
+		final int Reference;
+
+		TOCItem(String text, int reference) {
+			Text = text;
+			Reference = reference;
+		}
+	}
+
+	// TOC items are sent from the reading thread, TOCTree is used
+	// by the UI, so the tree is built in onReadingCompleted();
+	// null stands for leaveTOCItem()
+	private ArrayList<TOCItem> myTOCItems = new ArrayList<TOCItem>();
+
+	public synchronized void addTOCItem(String text, int reference) {
+		myTOCItems.add(new TOCItem(text, reference));
+	}
 
-	public void addTOCItem(String text, int reference) {
-		myCurrentTree = new TOCTree(myCurrentTree);
-		myCurrentTree.setText(text);
-		myCurrentTree.setReference(myBookTextModel, reference);
+	public synchronized void leaveTOCItem() {
+		myTOCItems.add(null);
 	}
 
-	public void leaveTOCItem() {
-		myCurrentTree = myCurrentTree.Parent;
-		if (myCurrentTree == null) {
-			myCurrentTree = TOCTree;
+	@Override
+	public synchronized void onReadingCompleted() {
+		if (myTOCItems == null) {
+			return;
+		}
+		TOCTree current = TOCTree;
+		for (TOCItem item : myTOCItems) {
+			if (item != null) {
+				current = new TOCTree(current);
+				current.setText(item.Text);
+				current.setReference(myBookTextModel, item.Reference);
+			} else {
+				current = current.Parent;
+				if (current == null) {
+					current = TOCTree;
+				}
+			}
 		}
+		myTOCItems = null;
 	}
 
 	public ZLTextModel createTextModel(
@@ -63,8 +201,34 @@ public class NativeBookModel extends BookModelImpl {
 		);
 	}
 
+	public boolean extendTextModel(
+		ZLTextModel model, int paragraphsNumber,
+		int[] entryIndices, int[] entryOffsets,
+		int[] paragraphLenghts, int[] textSizes, byte[] paragraphKinds,
+		int blocksNumber
+	) {
+		((ZLTextNativeModel)model).extend(
+			paragraphsNumber,
+			entryIndices, entryOffsets,
+			paragraphLenghts, textSizes, paragraphKinds,
+			blocksNumber
+		);
+		onTextModelExtended();
+		return !myIsCancelled;
+	}
+
 	public void setBookTextModel(ZLTextModel model) {
 		myBookTextModel = model;
+		onTextModelExtended();
+	}
+
+	private void onTextModelExtended() {
+		synchronized (this) {
+			notifyAll();
+		}
+		if (myListener != null && !myIsCancelled) {
+			myListener.onTextModelExtended(this);
+		}
 	}
 
 	public void setFootnoteModel(ZLTextModel model) {
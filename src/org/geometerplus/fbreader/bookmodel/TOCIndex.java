@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.fbreader.bookmodel;
+
+import java.util.ArrayList;
+
+/**
+ * Flattened TOC: entries with references in document order and their
+ * paragraph indices, for binary searches instead of tree walks.
+ */
+public final class TOCIndex {
+	private static final int MAX_LEVEL = 10;
+
+	private static int ourVersionCounter;
+
+	private static synchronized int nextVersion() {
+		return ++ourVersionCounter;
+	}
+
+	// unique for every index ever built
+	public final int Version = nextVersion();
+	final int TreeSize;
+
+	private final TOCTree[] myEntries;
+	private final int[] myParagraphIndices;
+	// myLimits[i] = max(myParagraphIndices[0..i]); a TOC is not
+	// always sorted, so the searches run over this array
+	private final int[] myLimits;
+	// number of tree nodes with level <= i, for i < MAX_LEVEL
+	private final int[] myLevelSizes = new int[MAX_LEVEL];
+
+	TOCIndex(TOCTree root) {
+		TreeSize = root.getSize();
+
+		final ArrayList<TOCTree> entries = new ArrayList<TOCTree>();
+		for (TOCTree tree : root) {
+			if (tree.Level < MAX_LEVEL) {
+				++myLevelSizes[tree.Level];
+			}
+			if (tree.getReference() != null) {
+				entries.add(tree);
+			}
+		}
+		for (int i = 1; i < MAX_LEVEL; ++i) {
+			myLevelSizes[i] += myLevelSizes[i - 1];
+		}
+
+		final int size = entries.size();
+		myEntries = entries.toArray(new TOCTree[size]);
+		myParagraphIndices = new int[size];
+		myLimits = new int[size];
+		int limit = Integer.MIN_VALUE;
+		for (int i = 0; i < size; ++i) {
+			final int index = myEntries[i].getReference().ParagraphIndex;
+			myParagraphIndices[i] = index;
+			limit = Math.max(limit, index);
+			myLimits[i] = limit;
+		}
+	}
+
+	public int size() {
+		return myEntries.length;
+	}
+
+	public TOCTree get(int position) {
+		return myEntries[position];
+	}
+
+	public int paragraphIndex(int position) {
+		return myParagraphIndices[position];
+	}
+
+	/**
+	 * @return position of the last entry preceding the first one
+	 * that starts after the paragraph, -1 if there is no such entry;
+	 * i.e. the entry containing the paragraph
+	 */
+	public int find(int paragraphIndex) {
+		int low = 0;
+		int high = myLimits.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (myLimits[middle] > paragraphIndex) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return low - 1;
+	}
+
+	/**
+	 * @return paragraph indices of the entries of the top levels,
+	 * no more than maxNumber (if the tree is large enough), in document order
+	 */
+	public int[] marks(int maxNumber) {
+		int maxLevel = Integer.MAX_VALUE;
+		if (TreeSize >= maxNumber) {
+			for (maxLevel = MAX_LEVEL - 1; maxLevel >= 0; --maxLevel) {
+				if (myLevelSizes[maxLevel] < maxNumber) {
+					break;
+				}
+			}
+		}
+
+		int count = 0;
+		for (TOCTree entry : myEntries) {
+			if (entry.Level <= maxLevel) {
+				++count;
+			}
+		}
+		final int[] marks = new int[count];
+		count = 0;
+		for (int i = 0; i < myEntries.length; ++i) {
+			if (myEntries[i].Level <= maxLevel) {
+				marks[count++] = myParagraphIndices[i];
+			}
+		}
+		return marks;
+	}
+}
@@ -36,12 +36,15 @@ public interface ActionCode {
 	String FIND_PREVIOUS = "findPrevious";
 	String FIND_NEXT = "findNext";
 	String CLEAR_FIND_RESULTS = "clearFindResults";
+	String BOOKMARK_FIND_RESULTS = "bookmarkFindResults";
 
 	String SET_TEXT_VIEW_MODE_VISIT_HYPERLINKS = "hyperlinksOnlyMode";
 	String SET_TEXT_VIEW_MODE_VISIT_ALL_WORDS = "dictionaryMode";
 
 	String TURN_PAGE_BACK = "previousPage";
 	String TURN_PAGE_FORWARD = "nextPage";
+	String GOTO_PREVIOUS_TOC_SECTION = "previousTOCSection";
+	String GOTO_NEXT_TOC_SECTION = "nextTOCSection";
 
 	String MOVE_CURSOR_UP = "moveCursorUp";
 	String MOVE_CURSOR_DOWN = "moveCursorDown";
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+
+package org.geometerplus.fbreader.fbreader;
+
+import java.util.List;
+
+import org.geometerplus.zlibrary.text.view.ZLTextPosition;
+
+import org.geometerplus.fbreader.book.Bookmark;
+
+// bookmarks every find result; all the bookmarks are saved in one transaction
+class BookmarkFindResultsAction extends FBAction {
+	BookmarkFindResultsAction(FBReaderApp fbreader) {
+		super(fbreader);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		final FBView view = Reader.getTextView();
+		return
+			view == Reader.BookTextView &&
+			Reader.Model != null &&
+			Reader.Model.Book != null &&
+			!view.findResultsAreEmpty();
+	}
+
+	@Override
+	protected void run(Object ... params) {
+		final FBView view = Reader.getTextView();
+		final List<ZLTextPosition> positions = view.getFindResultPositions();
+		if (!positions.isEmpty()) {
+			Reader.Collection.saveBookmarks(Bookmark.createBookmarks(
+				Reader.Model.Book, view.getModel(), positions, 20, true
+			));
+		}
+	}
+}
@@ -28,6 +28,7 @@ import org.geometerplus.zlibrary.core.library.ZLibrary;
 import org.geometerplus.zlibrary.core.options.*;
 import org.geometerplus.zlibrary.core.resources.ZLResource;
 import org.geometerplus.zlibrary.core.util.*;
+import org.geometerplus.zlibrary.core.view.ZLViewWidget;
 
 import org.geometerplus.zlibrary.text.hyphenation.ZLTextHyphenator;
 import org.geometerplus.zlibrary.text.model.ZLTextModel;
@@ -90,6 +91,7 @@ public final class FBReaderApp extends ZLApplication {
 		addAction(ActionCode.FIND_NEXT, new FindNextAction(this));
 		addAction(ActionCode.FIND_PREVIOUS, new FindPreviousAction(this));
 		addAction(ActionCode.CLEAR_FIND_RESULTS, new ClearFindResultsAction(this));
+		addAction(ActionCode.BOOKMARK_FIND_RESULTS, new BookmarkFindResultsAction(this));
 
 		addAction(ActionCode.SELECTION_CLEAR, new SelectionClearAction(this));
 
@@ -101,6 +103,9 @@ public final class FBReaderApp extends ZLApplication {
 		addAction(ActionCode.MOVE_CURSOR_LEFT, new MoveCursorAction(this, FBView.Direction.rightToLeft));
 		addAction(ActionCode.MOVE_CURSOR_RIGHT, new MoveCursorAction(this, FBView.Direction.leftToRight));
 
+		addAction(ActionCode.GOTO_NEXT_TOC_SECTION, new GotoTOCSectionAction(this, true));
+		addAction(ActionCode.GOTO_PREVIOUS_TOC_SECTION, new GotoTOCSectionAction(this, false));
+
 		addAction(ActionCode.VOLUME_KEY_SCROLL_FORWARD, new VolumeKeyTurnPageAction(this, true));
 		addAction(ActionCode.VOLUME_KEY_SCROLL_BACK, new VolumeKeyTurnPageAction(this, false));
 
@@ -199,7 +204,7 @@ public final class FBReaderApp extends ZLApplication {
 
 	private void setBookmarkHighlightings(ZLTextView view, String modelId) {
 		view.removeHighlightings(BookmarkHighlighting.class);
-		for (BookmarkQuery query = new BookmarkQuery(Model.Book, 20); ; query = query.next()) {
+		for (BookmarkQuery query = new BookmarkQuery(Model.Book, 20); ; ) {
 			final List<Bookmark> bookmarks = Collection.bookmarks(query);
 			if (bookmarks.isEmpty()) {
 				break;
@@ -212,6 +217,7 @@ public final class FBReaderApp extends ZLApplication {
 					view.addHighlighting(new BookmarkHighlighting(view, Collection, b));
 				}
 			}
+			query = query.next(bookmarks);
 		}
 	}
 
@@ -224,6 +230,49 @@ public final class FBReaderApp extends ZLApplication {
 		}
 	}
 
+	// called from the reading thread
+	private final BookModel.ProgressListener myModelListener = new BookModel.ProgressListener() {
+		public void onTextModelExtended(final BookModel model) {
+			runOnUiThread(new Runnable() {
+				public void run() {
+					if (model == Model && BookTextView.getModel() == model.getTextModel()) {
+						BookTextView.onModelExtended();
+						repaint();
+					}
+				}
+			});
+		}
+
+		public void onModelCompleted(final BookModel model) {
+			runOnUiThread(new Runnable() {
+				public void run() {
+					model.onReadingCompleted();
+					if (model == Model) {
+						repaint();
+					}
+				}
+			});
+		}
+
+		public void onReadingFailed(final BookModel model, final Exception exception) {
+			runOnUiThread(new Runnable() {
+				public void run() {
+					if (model == Model) {
+						processException(exception);
+					}
+				}
+			});
+		}
+
+		private void repaint() {
+			final ZLViewWidget widget = getViewWidget();
+			if (widget != null) {
+				widget.reset();
+				widget.repaint();
+			}
+		}
+	};
+
 	private synchronized void openBookInternal(Book book, Bookmark bookmark, boolean force) {
 		if (book == null) {
 			book = Collection.getRecentBook(0);
@@ -251,16 +300,24 @@ public final class FBReaderApp extends ZLApplication {
 		FootnoteView.setModel(null);
 		clearTextCaches();
 
+		if (Model != null) {
+			Model.cancel();
+		}
 		Model = null;
 		System.gc();
 		System.gc();
 		try {
-			Model = BookModel.createModel(book);
+			final ZLTextPosition position = Collection.getStoredPosition(book.getId());
+			int paragraphIndex = position != null ? position.getParagraphIndex() : 0;
+			if (bookmark != null && bookmark.ModelId == null) {
+				paragraphIndex = Math.max(paragraphIndex, bookmark.getParagraphIndex());
+			}
+			Model = BookModel.createModel(book, paragraphIndex, myModelListener);
 			Collection.saveBook(book);
 			ZLTextHyphenator.Instance().load(book.getLanguage());
 			BookTextView.setModel(Model.getTextModel());
 			setBookmarkHighlightings(BookTextView, null);
-			BookTextView.gotoPosition(Collection.getStoredPosition(book.getId()));
+			BookTextView.gotoPosition(position);
 			if (bookmark == null) {
 				setView(BookTextView);
 			} else {
@@ -504,28 +561,28 @@ public final class FBReaderApp extends ZLApplication {
 		);
 	}
 
-	public TOCTree getCurrentTOCElement() {
+	// index of the paragraph the TOC position is computed for; -1 if there is no text
+	int getTOCParagraphIndex() {
 		final ZLTextWordCursor cursor = BookTextView.getStartCursor();
-		if (Model == null || cursor == null) {
-			return null;
+		if (Model == null || cursor == null || cursor.isNull()) {
+			return -1;
 		}
-
 		int index = cursor.getParagraphIndex();
 		if (cursor.isEndOfParagraph()) {
 			++index;
 		}
-		TOCTree treeToSelect = null;
-		for (TOCTree tree : Model.TOCTree) {
-			final TOCTree.Reference reference = tree.getReference();
-			if (reference == null) {
-				continue;
-			}
-			if (reference.ParagraphIndex > index) {
-				break;
-			}
-			treeToSelect = tree;
+		return index;
+	}
+
+	public TOCTree getCurrentTOCElement() {
+		final BookModel model = Model;
+		final int index = getTOCParagraphIndex();
+		if (model == null || index == -1) {
+			return null;
 		}
-		return treeToSelect;
+		final TOCIndex toc = model.getTOCIndex();
+		final int position = toc.find(index);
+		return position >= 0 ? toc.get(position) : null;
 	}
 
 	public void onBookUpdated(Book book) {
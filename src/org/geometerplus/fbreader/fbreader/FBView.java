@@ -34,7 +34,7 @@ import org.geometerplus.zlibrary.text.view.style.ZLTextStyleCollection;
 
 import org.geometerplus.fbreader.bookmodel.BookModel;
 import org.geometerplus.fbreader.bookmodel.FBHyperlinkType;
-import org.geometerplus.fbreader.bookmodel.TOCTree;
+import org.geometerplus.fbreader.bookmodel.TOCIndex;
 import org.geometerplus.fbreader.fbreader.options.*;
 
 public final class FBView extends ZLTextView {
@@ -454,43 +454,80 @@ public final class FBView extends ZLTextView {
 			}
 		};
 
-		private ArrayList<TOCTree> myTOCMarks;
+		private TOCIndex myTOCIndex;
+		private int[] myTOCMarks;
 
 		public int getHeight() {
 			return myViewOptions.FooterHeight.getValue();
 		}
 
 		public synchronized void resetTOCMarks() {
+			myTOCIndex = null;
 			myTOCMarks = null;
 		}
 
 		private final int MAX_TOC_MARKS_NUMBER = 100;
-		private synchronized void updateTOCMarks(BookModel model) {
-			myTOCMarks = new ArrayList<TOCTree>();
-			TOCTree toc = model.TOCTree;
-			if (toc == null) {
-				return;
+		private synchronized int[] tocMarks(BookModel model) {
+			final TOCIndex index = model.getTOCIndex();
+			if (myTOCMarks == null || index != myTOCIndex) {
+				myTOCIndex = index;
+				myTOCMarks = index.marks(MAX_TOC_MARKS_NUMBER);
 			}
-			int maxLevel = Integer.MAX_VALUE;
-			if (toc.getSize() >= MAX_TOC_MARKS_NUMBER) {
-				final int[] sizes = new int[10];
-				for (TOCTree tocItem : toc) {
-					if (tocItem.Level < 10) {
-						++sizes[tocItem.Level];
-					}
-				}
-				for (int i = 1; i < sizes.length; ++i) {
-					sizes[i] += sizes[i - 1];
+			return myTOCMarks;
+		}
+
+		private String infoString(FooterOptions footerOptions, PagePosition pagePosition) {
+			final StringBuilder info = new StringBuilder();
+			if (footerOptions.ShowProgress.getValue()) {
+				info.append(pagePosition.Current);
+				info.append("/");
+				info.append(pagePosition.Total);
+			}
+			if (footerOptions.ShowClock.getValue()) {
+				if (info.length() > 0) {
+					info.append(" ");
 				}
-				for (maxLevel = sizes.length - 1; maxLevel >= 0; --maxLevel) {
-					if (sizes[maxLevel] < MAX_TOC_MARKS_NUMBER) {
-						break;
-					}
+				info.append(ZLibrary.Instance().getCurrentTimeString());
+			}
+			if (footerOptions.ShowBattery.getValue()) {
+				if (info.length() > 0) {
+					info.append(" ");
 				}
+				info.append(myReader.getBatteryLevel());
+				info.append("%");
 			}
-			for (TOCTree tocItem : toc.allSubtrees(maxLevel)) {
-				myTOCMarks.add(tocItem);
+			return info.toString();
+		}
+
+		public synchronized String getPaintSignature() {
+			final StringBuilder signature = new StringBuilder();
+			final ZLFile wallpaper = getWallpaperFile();
+			if (wallpaper != null) {
+				signature.append(wallpaper.getPath()).append(getWallpaperMode());
+			} else {
+				signature.append(getBackgroundColor().intValue());
 			}
+			final BookModel model = myReader.Model;
+			if (model == null) {
+				return signature.toString();
+			}
+
+			final FooterOptions footerOptions = myViewOptions.getFooterOptions();
+			final PagePosition pagePosition = FBView.this.pagePosition();
+			signature
+				.append('|').append(getTextColor(ZLTextHyperlink.NO_LINK).intValue())
+				.append('|').append(myViewOptions.getColorProfile().FooterFillOption.getValue().intValue())
+				.append('|').append(getLeftMargin()).append(',').append(getRightMargin())
+				.append('|').append(getHeight())
+				.append('|').append(footerOptions.Font.getValue())
+				.append('|').append(infoString(footerOptions, pagePosition))
+				.append('|').append(pagePosition.Current).append('/').append(pagePosition.Total);
+			if (footerOptions.ShowTOCMarks.getValue()) {
+				signature
+					.append('|').append(model.getTOCIndex().Version)
+					.append('|').append(sizeOfFullText());
+			}
+			return signature.toString();
 		}
 
 		private List<FontEntry> myFontEntry;
@@ -530,26 +567,7 @@ public final class FBView extends ZLTextView {
 
 			final PagePosition pagePosition = FBView.this.pagePosition();
 
-			final StringBuilder info = new StringBuilder();
-			if (footerOptions.ShowProgress.getValue()) {
-				info.append(pagePosition.Current);
-				info.append("/");
-				info.append(pagePosition.Total);
-			}
-			if (footerOptions.ShowClock.getValue()) {
-				if (info.length() > 0) {
-					info.append(" ");
-				}
-				info.append(ZLibrary.Instance().getCurrentTimeString());
-			}
-			if (footerOptions.ShowBattery.getValue()) {
-				if (info.length() > 0) {
-					info.append(" ");
-				}
-				info.append(myReader.getBatteryLevel());
-				info.append("%");
-			}
-			final String infoString = info.toString();
+			final String infoString = infoString(footerOptions, pagePosition);
 
 			final int infoWidth = context.getStringWidth(infoString);
 
@@ -575,18 +593,12 @@ public final class FBView extends ZLTextView {
 			context.fillRectangle(left + 1, height - 2 * lineWidth, gaugeInternalRight, lineWidth + 1);
 
 			if (footerOptions.ShowTOCMarks.getValue()) {
-				if (myTOCMarks == null) {
-					updateTOCMarks(model);
-				}
 				final int fullLength = sizeOfFullText();
-				for (TOCTree tocItem : myTOCMarks) {
-					TOCTree.Reference reference = tocItem.getReference();
-					if (reference != null) {
-						final int refCoord = sizeOfTextBeforeParagraph(reference.ParagraphIndex);
-						final int xCoord =
-							left + 2 * lineWidth + (int)(1.0 * myGaugeWidth * refCoord / fullLength);
-						context.drawLine(xCoord, height - lineWidth, xCoord, lineWidth);
-					}
+				for (int paragraphIndex : tocMarks(model)) {
+					final int refCoord = sizeOfTextBeforeParagraph(paragraphIndex);
+					final int xCoord =
+						left + 2 * lineWidth + (int)(1.0 * myGaugeWidth * refCoord / fullLength);
+					context.drawLine(xCoord, height - lineWidth, xCoord, lineWidth);
 				}
 			}
 		}
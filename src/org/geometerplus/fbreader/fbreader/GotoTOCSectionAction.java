@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.fbreader.fbreader;
+
+import org.geometerplus.fbreader.bookmodel.BookModel;
+import org.geometerplus.fbreader.bookmodel.TOCIndex;
+
+class GotoTOCSectionAction extends FBAction {
+	private final boolean myForward;
+
+	GotoTOCSectionAction(FBReaderApp fbreader, boolean forward) {
+		super(fbreader);
+		myForward = forward;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return targetParagraphIndex() != -1;
+	}
+
+	private int targetParagraphIndex() {
+		final BookModel model = Reader.Model;
+		final int index = Reader.getTOCParagraphIndex();
+		if (model == null || index == -1) {
+			return -1;
+		}
+		final TOCIndex toc = model.getTOCIndex();
+		int position = toc.find(index);
+		if (myForward) {
+			++position;
+		} else if (position >= 0 && toc.paragraphIndex(position) >= index) {
+			--position;
+		}
+		return position >= 0 && position < toc.size() ? toc.paragraphIndex(position) : -1;
+	}
+
+	@Override
+	protected void run(Object ... params) {
+		final int paragraphIndex = targetParagraphIndex();
+		if (paragraphIndex == -1) {
+			return;
+		}
+		Reader.addInvisibleBookmark();
+		Reader.BookTextView.gotoPosition(paragraphIndex, 0, 0);
+		Reader.showBookTextView();
+		Reader.storePosition();
+	}
+}
@@ -17,97 +17,187 @@
  * 02110-1301, USA.
  */
 
+
 package org.geometerplus.fbreader.formats.pdb;
 
-import java.io.*;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * HUFF/CDIC decompression used by Mobipocket books (compression type 17480).
+ * The HUFF record gives canonical Huffman code tables, CDIC records give the
+ * phrases indexed by the decoded symbols; phrases can be compressed themselves.
+ *
+ * All phrases are expanded in the constructor, so after construction the object
+ * is immutable and can be used from several threads at once.
+ */
+final class HuffdicDecompressor {
+	private static final int HUFF = 0x48554646;
+	private static final int CDIC = 0x43444943;
+
+	// lookup tables indexed by the top 8 bits of the code
+	private final int[] myCodeLength = new int[256];
+	private final boolean[] myTerminal = new boolean[256];
+	private final long[] myMaxCode1 = new long[256];
+	// indexed by code length
+	private final long[] myMinCode = new long[33];
+	private final long[] myMaxCode = new long[33];
+
+	private final byte[][] myPhrases;
+	// used during construction only
+	private byte[][] myPackedPhrases;
+	private byte[] myPhraseState;
+
+	private static final class Output {
+		byte[] Data;
+		int Length;
+
+		Output(int capacity) {
+			Data = new byte[capacity];
+		}
+
+		void append(byte[] bytes) {
+			if (Length + bytes.length > Data.length) {
+				Data = Arrays.copyOf(Data, Math.max(Data.length * 2, Length + bytes.length));
+			}
+			System.arraycopy(bytes, 0, Data, Length, bytes.length);
+			Length += bytes.length;
+		}
+	}
+
+	HuffdicDecompressor(byte[] huff, byte[][] cdics) throws IOException {
+		if (huff.length < 24 || PdbUtil.readInt(huff, 0) != HUFF) {
+			throw new IOException("Invalid HUFF record");
+		}
+		final int offset1 = (int)PdbUtil.readInt(huff, 8);
+		final int offset2 = (int)PdbUtil.readInt(huff, 12);
+		if (offset1 < 0 || offset1 + 256 * 4 > huff.length ||
+			offset2 < 0 || offset2 + 64 * 4 > huff.length) {
+			throw new IOException("Invalid HUFF record");
+		}
+
+		for (int i = 0; i < 256; ++i) {
+			final long value = PdbUtil.readInt(huff, offset1 + 4 * i);
+			final int codeLength = (int)(value & 0x1F);
+			if (codeLength == 0) {
+				throw new IOException("Invalid HUFF code length");
+			}
+			myCodeLength[i] = codeLength;
+			myTerminal[i] = (value & 0x80) != 0;
+			myMaxCode1[i] = (((value >>> 8) + 1) << (32 - codeLength)) - 1;
+		}
+		for (int codeLength = 1; codeLength <= 32; ++codeLength) {
+			final int base = offset2 + 8 * (codeLength - 1);
+			myMinCode[codeLength] = PdbUtil.readInt(huff, base) << (32 - codeLength);
+			myMaxCode[codeLength] = ((PdbUtil.readInt(huff, base + 4) + 1) << (32 - codeLength)) - 1;
+		}
+
+		int count = 0;
+		byte[][] packed = new byte[0][];
+		boolean[] literal = new boolean[0];
+		for (byte[] cdic : cdics) {
+			if (cdic.length < 16 || PdbUtil.readInt(cdic, 0) != CDIC) {
+				throw new IOException("Invalid CDIC record");
+			}
+			final int total = (int)PdbUtil.readInt(cdic, 8);
+			final int bits = (int)PdbUtil.readInt(cdic, 12);
+			if (packed.length < total) {
+				packed = Arrays.copyOf(packed, total);
+				literal = Arrays.copyOf(literal, total);
+			}
+			final int number = Math.min(1 << bits, total - count);
+			for (int i = 0; i < number; ++i) {
+				final int start = 16 + PdbUtil.readShort(cdic, 16 + 2 * i);
+				final int header = PdbUtil.readShort(cdic, start);
+				final int length = header & 0x7FFF;
+				if (start + 2 + length > cdic.length) {
+					throw new IOException("Invalid CDIC record");
+				}
+				packed[count] = Arrays.copyOfRange(cdic, start + 2, start + 2 + length);
+				literal[count] = (header & 0x8000) != 0;
+				++count;
+			}
+		}
 
-public abstract class HuffdicDecompressor {
-	public static int decompress(InputStream stream, byte[] targetBuffer, int compressedSize) throws IOException {
-		final byte[] sourceBuffer = new byte[compressedSize];
+		myPhrases = new byte[count][];
+		myPackedPhrases = packed;
+		myPhraseState = new byte[count];
+		for (int i = 0; i < count; ++i) {
+			if (literal[i]) {
+				myPhrases[i] = packed[i];
+				myPhraseState[i] = 2;
+			}
+		}
+		for (int i = 0; i < count; ++i) {
+			phrase(i);
+		}
+		myPackedPhrases = null;
+		myPhraseState = null;
+	}
 
-		if (stream.read(sourceBuffer) != compressedSize) {
-			return 0;
+	private byte[] phrase(int index) throws IOException {
+		if (index < 0 || index >= myPhrases.length) {
+			throw new IOException("Invalid HUFF/CDIC phrase index " + index);
+		}
+		if (myPhraseState == null || myPhraseState[index] == 2) {
+			return myPhrases[index];
+		}
+		if (myPhraseState[index] == 1) {
+			throw new IOException("Recursive HUFF/CDIC phrase " + index);
 		}
+		myPhraseState[index] = 1;
+		final byte[] packed = myPackedPhrases[index];
+		final Output output = new Output(packed.length * 2 + 16);
+		unpack(packed, packed.length, output);
+		myPhrases[index] = Arrays.copyOf(output.Data, output.Length);
+		myPhraseState[index] = 2;
+		return myPhrases[index];
+	}
 
-		int sourceIndex = 0;
-		int targetIndex = 0;
-
-		int count0 = 0;
-		int count1 = 0;
-		int count2 = 0;
-		int count3 = 0;
-		try {
-			while (true) {
-				final byte token = sourceBuffer[sourceIndex++];
-				switch (token) {
-					default:
-						++count0;
-						targetBuffer[targetIndex++] = token;
-						break;
-					case 1: case 2: case 3: case 4:
-					case 5: case 6: case 7: case 8:
-						++count1;
-						System.arraycopy(sourceBuffer, sourceIndex, targetBuffer, targetIndex, token);
-						sourceIndex += token;
-						targetIndex += token;
-						break;
-					case -64: case -63: case -62: case -61:
-					case -60: case -59: case -58: case -57:
-					case -56: case -55: case -54: case -53:
-					case -52: case -51: case -50: case -49:
-					case -48: case -47: case -46: case -45:
-					case -44: case -43: case -42: case -41:
-					case -40: case -39: case -38: case -37:
-					case -36: case -35: case -34: case -33:
-					case -32: case -31: case -30: case -29:
-					case -28: case -27: case -26: case -25:
-					case -24: case -23: case -22: case -21:
-					case -20: case -19: case -18: case -17:
-					case -16: case -15: case -14: case -13:
-					case -12: case -11: case -10: case -9:
-					case -8: case -7: case -6: case -5:
-					case -4: case -3: case -2: case -1:
-						++count2;
-						targetBuffer[targetIndex++] = ' ';
-						targetBuffer[targetIndex++] = (byte)(token ^ 0x80);
-						break;
-					case -128: case -127: case -126: case -125:
-					case -124: case -123: case -122: case -121:
-					case -120: case -119: case -118: case -117:
-					case -116: case -115: case -114: case -113:
-					case -112: case -111: case -110: case -109:
-					case -108: case -107: case -106: case -105:
-					case -104: case -103: case -102: case -101:
-					case -100: case -99: case -98: case -97:
-					case -96: case -95: case -94: case -93:
-					case -92: case -91: case -90: case -89:
-					case -88: case -87: case -86: case -85:
-					case -84: case -83: case -82: case -81:
-					case -80: case -79: case -78: case -77:
-					case -76: case -75: case -74: case -73:
-					case -72: case -71: case -70: case -69:
-					case -68: case -67: case -66: case -65:
-						++count3;
-						final int N = ((token & 0x3F) << 8) + (sourceBuffer[sourceIndex++] & 0xFF);
-						int copyLength = (N & 7) + 3;
-						int srcIndex = targetIndex - (N >> 3);
-						if (targetIndex >= srcIndex + copyLength) {
-							System.arraycopy(targetBuffer, srcIndex, targetBuffer, targetIndex, copyLength);
-							targetIndex += copyLength;
-						} else {
-							while (copyLength-- > 0) {
-								targetBuffer[targetIndex++] = targetBuffer[srcIndex++];
-							}
-						}
-						break;
+	private static long read64(byte[] data, int length, int offset) {
+		long result = 0;
+		for (int i = offset; i < offset + 8; ++i) {
+			result = (result << 8) | (i < length ? data[i] & 0xFF : 0);
+		}
+		return result;
+	}
+
+	private void unpack(byte[] data, int length, Output output) throws IOException {
+		long bitsLeft = length * 8L;
+		int offset = 0;
+		long bits = read64(data, length, offset);
+		int shift = 32;
+		while (true) {
+			if (shift <= 0) {
+				offset += 4;
+				bits = read64(data, length, offset);
+				shift += 32;
+			}
+			final long code = (bits >>> shift) & 0xFFFFFFFFL;
+			final int top = (int)(code >>> 24);
+			int codeLength = myCodeLength[top];
+			long maxCode = myMaxCode1[top];
+			if (!myTerminal[top]) {
+				while (codeLength < 32 && code < myMinCode[codeLength]) {
+					++codeLength;
 				}
+				maxCode = myMaxCode[codeLength];
 			}
-		} catch (Exception e) {
-			if (targetIndex > targetBuffer.length) {
-				targetIndex = targetBuffer.length;
+			shift -= codeLength;
+			bitsLeft -= codeLength;
+			if (bitsLeft < 0) {
+				break;
 			}
+			output.append(phrase((int)((maxCode - code) >>> (32 - codeLength))));
 		}
+	}
 
-		return targetIndex;
+	/**
+	 * @return decompressed content of the first compressedSize bytes of the record
+	 */
+	byte[] decompress(byte[] record, int compressedSize, int maxSize) throws IOException {
+		final Output output = new Output(maxSize);
+		unpack(record, compressedSize, output);
+		return output.Length == output.Data.length ? output.Data : Arrays.copyOf(output.Data, output.Length);
 	}
 }
@@ -218,15 +218,19 @@ public class MobipocketPlugin extends JavaFormatPlugin {
 				coverIndex = thumbIndex;
 			}
 
-			MobipocketStream myMobipocketStream = new MobipocketStream(file);
-			int start = myMobipocketStream.getImageOffset(coverIndex);
-			if (start >= 0) {
-				int len = myMobipocketStream.getImageLength(coverIndex);
-				if (len > 0) {
-					return new ZLFileImage(file, ZLFileImage.ENCODING_NONE, start, len);
+			final MobipocketStream myMobipocketStream = new MobipocketStream(file);
+			try {
+				int start = myMobipocketStream.getImageOffset(coverIndex);
+				if (start >= 0) {
+					int len = myMobipocketStream.getImageLength(coverIndex);
+					if (len > 0) {
+						return new ZLFileImage(file, ZLFileImage.ENCODING_NONE, start, len);
+					}
 				}
+				return null;
+			} finally {
+				myMobipocketStream.close();
 			}
-			return null;
 		} catch (IOException e) {
 			return null;
 		} finally {
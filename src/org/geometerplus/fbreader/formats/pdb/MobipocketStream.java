@@ -31,18 +31,35 @@ class MobipocketStream extends PalmDocLikeStream {
 		super(file);
 		myFileSize = (int)file.size();
 
-		myCompressionType = PdbUtil.readShort(myBase);
-		PdbUtil.skip(myBase, 6);
-		myMaxRecordIndex = Math.min(PdbUtil.readShort(myBase), myHeader.Offsets.length - 1);
-		final int maxRecordSize = PdbUtil.readShort(myBase);
-		if (maxRecordSize == 0) {
+		final byte[] header = readRecord(0);
+		if (header.length < 16) {
+			throw new IOException("The first record is too short");
+		}
+		myCompressionType = PdbUtil.readShort(header, 0);
+		myMaxRecordIndex = Math.min(PdbUtil.readShort(header, 8), myHeader.Offsets.length - 1);
+		myRecordSize = PdbUtil.readShort(header, 10);
+		if (myRecordSize == 0) {
 			throw new IOException("The records are too short");
 		}
-		myBuffer = new byte[maxRecordSize];
 		myRecordIndex = 0;
 
-		PdbUtil.skip(myBase, 96);
-		myImageStartIndex = (int)PdbUtil.readInt(myBase);
+		final boolean isMobi = header.length >= 120 && PdbUtil.readInt(header, 16) == 0x4D4F4249; /* "MOBI" */
+		myImageStartIndex = header.length >= 112 ? (int)PdbUtil.readInt(header, 108) : 0;
+		if (isMobi) {
+			final int mobiHeaderLength = (int)PdbUtil.readInt(header, 20);
+			if (mobiHeaderLength >= 0xE4 && header.length >= 0xF4) {
+				myExtraFlags = PdbUtil.readShort(header, 0xF2);
+			}
+		}
+
+		if (myCompressionType == CompressionType.HUFFDIC) {
+			if (!isMobi) {
+				throw new IOException("HUFF/CDIC compression without MOBI header");
+			}
+			// HUFF and CDIC records are read when the text is read first time
+			myHuffRecordIndex = (int)PdbUtil.readInt(header, 112);
+			myHuffRecordCount = (int)PdbUtil.readInt(header, 116);
+		}
 	}
 
 	int getImageOffset(int index) {
@@ -20,10 +20,21 @@
 package org.geometerplus.fbreader.formats.pdb;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.*;
 
 import org.geometerplus.zlibrary.core.filesystem.ZLFile;
 
+/**
+ * Text records are read from the file sequentially, but decompressed on
+ * a worker pool, READ_AHEAD records in advance; decompressed records are
+ * returned in order. Records are independent, so the stream can be moved
+ * to any record without decompressing the previous ones.
+ */
 abstract class PalmDocLikeStream extends PdbStream {
+	private static final int READ_AHEAD = 8;
+
 	protected int myMaxRecordIndex;
 	protected int myRecordIndex;
 	protected interface CompressionType {
@@ -32,12 +43,41 @@ abstract class PalmDocLikeStream extends PdbStream {
 		int HUFFDIC = 17480;
 	}
 	protected int myCompressionType;
+	// maximal size of a decompressed text record
+	protected int myRecordSize;
+	// flags of trailing entries appended to every text record
+	protected int myExtraFlags;
+	protected int myHuffRecordIndex;
+	protected int myHuffRecordCount;
+	private HuffdicDecompressor myHuffdicDecompressor;
+
+	private int myNextRecordIndex = 1;
+	private final LinkedList<Future<byte[]>> myQueue = new LinkedList<Future<byte[]>>();
 
-	private final long myFileSize;
+	private static ExecutorService ourDecodingPool;
+	private static boolean ourDecodingPoolCreated;
+
+	private static synchronized ExecutorService decodingPool() {
+		if (!ourDecodingPoolCreated) {
+			ourDecodingPoolCreated = true;
+			final int threadsNumber = Math.min(4, Runtime.getRuntime().availableProcessors());
+			if (threadsNumber > 1) {
+				ourDecodingPool = Executors.newFixedThreadPool(threadsNumber, new ThreadFactory() {
+					private final ThreadFactory myDefaultThreadFactory = Executors.defaultThreadFactory();
+
+					public Thread newThread(Runnable r) {
+						final Thread th = myDefaultThreadFactory.newThread(r);
+						th.setDaemon(true);
+						return th;
+					}
+				});
+			}
+		}
+		return ourDecodingPool;
+	}
 
 	PalmDocLikeStream(ZLFile file) throws IOException {
 		super(file);
-		myFileSize = file.size();
 	}
 
 	protected final boolean fillBuffer() {
@@ -45,36 +85,13 @@ abstract class PalmDocLikeStream extends PdbStream {
 			if (myRecordIndex + 1 > myMaxRecordIndex) {
 				return false;
 			}
-			++myRecordIndex;
-			final int currentOffset = myHeader.Offsets[myRecordIndex];
-
 			try {
-				myBase.skip(currentOffset - myBase.offset());
-				final int nextOffset =
-					(myRecordIndex + 1 < myHeader.Offsets.length) ?
-						myHeader.Offsets[myRecordIndex + 1] :
-						(int)myFileSize;
-				if (nextOffset < currentOffset) {
-					return false;
-				}
-				final short recordSize = (short)Math.min(nextOffset - currentOffset, myBuffer.length);
-
-				switch (myCompressionType) {
-					case CompressionType.NONE:
-						myBase.read(myBuffer, 0, recordSize);
-						myBufferLength = recordSize;
-						break;
-					case CompressionType.DOC:
-						myBufferLength = (short)DocDecompressor.decompress(myBase, myBuffer, recordSize);
-						break;
-					//case CompressionType.HUFFDIC:
-					//	myBufferLength = (short)HuffdicDecompressor.decompress(myBase, myBuffer, recordSize);
-					//	break;
-					default:
-						// Unsupported compression type
-						return false;
-				}
-			} catch (IOException e) {
+				scheduleRecords();
+				final byte[] data = myQueue.removeFirst().get();
+				++myRecordIndex;
+				myBuffer = data;
+				myBufferLength = (short)data.length;
+			} catch (Exception e) {
 				return false;
 			}
 			myBufferOffset = 0;
@@ -82,4 +99,128 @@ abstract class PalmDocLikeStream extends PdbStream {
 
 		return true;
 	}
+
+	private void scheduleRecords() throws IOException {
+		if (myCompressionType == CompressionType.HUFFDIC && myHuffdicDecompressor == null) {
+			myHuffdicDecompressor = createHuffdicDecompressor();
+		}
+		final ExecutorService pool = myCompressionType != CompressionType.NONE ? decodingPool() : null;
+		while (myQueue.size() < READ_AHEAD && myNextRecordIndex <= myMaxRecordIndex) {
+			final byte[] record = readRecord(myNextRecordIndex++);
+			final FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+				public byte[] call() throws IOException {
+					return decompress(record);
+				}
+			});
+			if (pool != null) {
+				pool.execute(task);
+			} else {
+				task.run();
+			}
+			myQueue.add(task);
+		}
+	}
+
+	private HuffdicDecompressor createHuffdicDecompressor() throws IOException {
+		if (myHuffRecordCount < 2 || myHuffRecordIndex <= 0 ||
+			myHuffRecordIndex + myHuffRecordCount > myHeader.Offsets.length) {
+			throw new IOException("Invalid HUFF/CDIC record range");
+		}
+		final byte[] huff = readRecord(myHuffRecordIndex);
+		final byte[][] cdics = new byte[myHuffRecordCount - 1][];
+		for (int i = 1; i < myHuffRecordCount; ++i) {
+			cdics[i - 1] = readRecord(myHuffRecordIndex + i);
+		}
+		return new HuffdicDecompressor(huff, cdics);
+	}
+
+	private byte[] decompress(byte[] record) throws IOException {
+		final int size = Math.max(record.length - trailingEntriesSize(record, myExtraFlags), 0);
+		switch (myCompressionType) {
+			case CompressionType.NONE:
+				return Arrays.copyOf(record, Math.min(size, myRecordSize));
+			case CompressionType.DOC:
+			{
+				final byte[] data = new byte[myRecordSize];
+				final int length = DocDecompressor.decompress(record, size, data);
+				return length == data.length ? data : Arrays.copyOf(data, length);
+			}
+			case CompressionType.HUFFDIC:
+				return myHuffdicDecompressor.decompress(record, size, myRecordSize);
+			default:
+				throw new IOException("Unsupported compression type " + myCompressionType);
+		}
+	}
+
+	private static int trailingEntriesSize(byte[] record, int flags) {
+		final int size = record.length;
+		int num = 0;
+		for (int f = flags >> 1; f != 0; f >>= 1) {
+			if ((f & 1) != 0) {
+				// the entry size is a backward-encoded variable-width integer
+				int entrySize = 0;
+				for (int i = Math.max(size - num - 4, 0); i < size - num; ++i) {
+					final int b = record[i] & 0xFF;
+					if ((b & 0x80) != 0) {
+						entrySize = 0;
+					}
+					entrySize = (entrySize << 7) | (b & 0x7F);
+				}
+				num += entrySize;
+			}
+		}
+		if ((flags & 1) != 0 && size - num > 0) {
+			// multibyte character overlap
+			num += (record[size - num - 1] & 0x3) + 1;
+		}
+		return num;
+	}
+
+	/**
+	 * Moves the stream to the beginning of the given text record
+	 * (the first text record index is 1).
+	 */
+	void seekRecord(int index) {
+		cancelQueue();
+		myRecordIndex = index - 1;
+		myNextRecordIndex = index;
+		myBufferOffset = 0;
+		myBufferLength = 0;
+	}
+
+	@Override
+	public void skip(int offset) throws IOException {
+		if (offset <= 0) {
+			throw new IOException("Cannot skip: " + offset + " bytes");
+		}
+		final int inBuffer = myBufferLength - myBufferOffset;
+		if (offset <= inBuffer) {
+			myBufferOffset += offset;
+			return;
+		}
+		offset -= inBuffer;
+		myBufferOffset = myBufferLength;
+		// every text record but the last one is decompressed to exactly myRecordSize bytes
+		final int records = offset / myRecordSize;
+		if (records > 0) {
+			seekRecord(myRecordIndex + 1 + records);
+			offset -= records * myRecordSize;
+		}
+		if (offset > 0) {
+			read(null, 0, offset);
+		}
+	}
+
+	private void cancelQueue() {
+		for (Future<byte[]> future : myQueue) {
+			future.cancel(false);
+		}
+		myQueue.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		cancelQueue();
+		super.close();
+	}
 }
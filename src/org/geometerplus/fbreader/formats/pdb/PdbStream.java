@@ -26,7 +26,8 @@ import org.geometerplus.zlibrary.core.filesystem.ZLFile;
 import org.geometerplus.zlibrary.core.util.InputStreamWithOffset;
 
 public abstract class PdbStream extends InputStream {
-	protected final InputStreamWithOffset myBase;
+	private final ZLFile myFile;
+	protected InputStreamWithOffset myBase;
 	public PdbHeader myHeader;
 	protected byte[] myBuffer;
 
@@ -34,6 +35,7 @@ public abstract class PdbStream extends InputStream {
 	protected short myBufferOffset;
 
 	public PdbStream(ZLFile file) throws IOException {
+		myFile = file;
 		myBase = new InputStreamWithOffset(file.getInputStream());
 
 		myHeader = new PdbHeader(myBase);
@@ -78,6 +80,40 @@ public abstract class PdbStream extends InputStream {
 		}
 	}
 
+	/**
+	 * Moves the base stream to given offset; the file is reopened
+	 * if the offset is before the current position.
+	 */
+	protected final void seek(int offset) throws IOException {
+		if (offset < myBase.offset()) {
+			myBase.close();
+			myBase = new InputStreamWithOffset(myFile.getInputStream());
+		}
+		PdbUtil.skip(myBase, offset - myBase.offset());
+	}
+
+	/**
+	 * @return raw (not decompressed) content of the record
+	 */
+	protected final byte[] readRecord(int index) throws IOException {
+		final int start = myHeader.Offsets[index];
+		final int end = index + 1 < myHeader.Offsets.length
+			? myHeader.Offsets[index + 1] : (int)myFile.size();
+		if (end < start) {
+			throw new IOException("Invalid record " + index);
+		}
+		seek(start);
+		final byte[] data = new byte[end - start];
+		for (int offset = 0; offset < data.length; ) {
+			final int size = myBase.read(data, offset, data.length - offset);
+			if (size <= 0) {
+				throw new IOException("Unexpected end of record " + index);
+			}
+			offset += size;
+		}
+		return data;
+	}
+
 	public void skip(int offset) throws IOException {
 		if (offset > 0) {
 			read(null, 0, offset);
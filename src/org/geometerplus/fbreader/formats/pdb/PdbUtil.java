@@ -45,4 +45,15 @@ public abstract class PdbUtil {
 			  + ((tmp[2] & 0xFF) << 8) +
 			  + (tmp[3] & 0xFF);
 	}
+
+	public static int readShort(byte[] data, int offset) {
+		return ((data[offset] & 0xFF) << 8) + (data[offset + 1] & 0xFF);
+	}
+
+	public static long readInt(byte[] data, int offset) {
+		return (((long)(data[offset] & 0xFF)) << 24) +
+			((data[offset + 1] & 0xFF) << 16) +
+			((data[offset + 2] & 0xFF) << 8) +
+			(data[offset + 3] & 0xFF);
+	}
 }
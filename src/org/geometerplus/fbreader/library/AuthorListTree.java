@@ -19,7 +19,6 @@
 
 package org.geometerplus.fbreader.library;
 
-import java.util.Collections;
 import java.util.List;
 
 import org.geometerplus.fbreader.book.*;
@@ -68,7 +67,7 @@ public class AuthorListTree extends FirstLevelTree {
 
 	private boolean createAuthorSubtree(Author author) {
 		final AuthorTree temp = new AuthorTree(Collection, author);
-		int position = Collections.binarySearch(subtrees(), temp);
+		int position = binarySearchSubtrees(temp);
 		if (position >= 0) {
 			return false;
 		} else {
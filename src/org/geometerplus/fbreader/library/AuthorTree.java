@@ -19,8 +19,6 @@
 
 package org.geometerplus.fbreader.library;
 
-import java.util.Collections;
-
 import org.geometerplus.fbreader.book.*;
 
 public class AuthorTree extends FilteredTree {
@@ -62,9 +60,9 @@ public class AuthorTree extends FilteredTree {
 
 	private SeriesTree getSeriesSubtree(Series series) {
 		final SeriesTree temp = new SeriesTree(Collection, series, Author);
-		int position = Collections.binarySearch(subtrees(), temp);
+		int position = binarySearchSubtrees(temp);
 		if (position >= 0) {
-			return (SeriesTree)subtrees().get(position);
+			return (SeriesTree)subtreeAt(position);
 		} else {
 			return new SeriesTree(this, series, Author, - position - 1);
 		}
@@ -78,7 +76,7 @@ public class AuthorTree extends FilteredTree {
 		}
 
 		final BookTree temp = new BookTree(Collection, book);
-		int position = Collections.binarySearch(subtrees(), temp);
+		int position = binarySearchSubtrees(temp);
 		if (position >= 0) {
 			return false;
 		} else {
@@ -77,6 +77,11 @@ public class BookTree extends LibraryTree {
 		return Book.getSortKey();
 	}
 
+	@Override
+	protected byte[] getCollationKey() {
+		return Book.getCollationKey();
+	}
+
 	@Override
 	public int compareTo(FBTree tree) {
 		final int cmp = super.compareTo(tree);
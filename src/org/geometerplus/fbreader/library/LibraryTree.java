@@ -71,7 +71,7 @@ public abstract class LibraryTree extends FBTree {
 
 	boolean createTagSubtree(Tag tag) {
 		final TagTree temp = new TagTree(Collection, tag);
-		int position = Collections.binarySearch(subtrees(), temp);
+		int position = binarySearchSubtrees(temp);
 		if (position >= 0) {
 			return false;
 		} else {
@@ -82,7 +82,7 @@ public abstract class LibraryTree extends FBTree {
 
 	boolean createBookWithAuthorsSubtree(Book book) {
 		final BookWithAuthorsTree temp = new BookWithAuthorsTree(Collection, book);
-		int position = Collections.binarySearch(subtrees(), temp);
+		int position = binarySearchSubtrees(temp);
 		if (position >= 0) {
 			return false;
 		} else {
@@ -19,8 +19,6 @@
 
 package org.geometerplus.fbreader.library;
 
-import java.util.Collections;
-
 import org.geometerplus.fbreader.book.*;
 
 public class SeriesListTree extends FirstLevelTree {
@@ -73,7 +71,7 @@ public class SeriesListTree extends FirstLevelTree {
 		// TODO: pass series as parameter
 		final Series series = new Series(seriesTitle);
 		final SeriesTree temp = new SeriesTree(Collection, series, null);
-		int position = Collections.binarySearch(subtrees(), temp);
+		int position = binarySearchSubtrees(temp);
 		if (position >= 0) {
 			return false;
 		} else {
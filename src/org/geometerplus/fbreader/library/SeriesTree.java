@@ -19,8 +19,6 @@
 
 package org.geometerplus.fbreader.library;
 
-import java.util.Collections;
-
 import org.geometerplus.fbreader.book.*;
 
 public final class SeriesTree extends FilteredTree {
@@ -56,10 +54,15 @@ public final class SeriesTree extends FilteredTree {
 		return Series.getSortKey();
 	}
 
+	@Override
+	protected byte[] getCollationKey() {
+		return Series.getCollationKey();
+	}
+
 	@Override
 	protected boolean createSubtree(Book book) {
 		final BookInSeriesTree temp = new BookInSeriesTree(Collection, book);
-		int position = Collections.binarySearch(subtrees(), temp);
+		int position = binarySearchSubtrees(temp);
 		if (position >= 0) {
 			return false;
 		} else {
@@ -101,7 +101,7 @@ public class TitleListTree extends FirstLevelTree {
 			return false;
 		}
 		final TitleTree temp = new TitleTree(Collection, prefix);
-		int position = Collections.binarySearch(subtrees(), temp);
+		int position = binarySearchSubtrees(temp);
 		if (position >= 0) {
 			return false;
 		} else {
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2009-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.fbreader.sort;
+
+import java.text.Collator;
+import java.text.RuleBasedCollator;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Collation keys are byte arrays built by the collator of the current locale;
+ * keys built for the same locale can be compared byte by byte.
+ */
+public abstract class CollationKeys {
+	private static Locale ourLocale;
+	private static Collator ourCollator;
+	private static String ourTag;
+
+	private static Collator collator() {
+		final Locale locale = Locale.getDefault();
+		if (ourCollator == null || !locale.equals(ourLocale)) {
+			ourLocale = locale;
+			ourCollator = Collator.getInstance(locale);
+			ourCollator.setStrength(Collator.SECONDARY);
+			ourTag = null;
+		}
+		return ourCollator;
+	}
+
+	// keys of this text change with (almost) any change of collation rules
+	private static final String PROBE =
+		"aA\u00e4\u00c4\u00e5\u00f8\u00df\u0131\u0130\u011f\u0161 -'.,0129 \u0430\u0435\u0451\u0438\u0439\u044c\u03b1\u05d0\u0627\u3042\u4e00";
+
+	/**
+	 * @return tag of the keys, i.e. name of the locale they are built for plus
+	 * a hash of the collator's behaviour, so it changes after ICU updates;
+	 * stored keys with another tag must be rebuilt
+	 */
+	public static synchronized String tag() {
+		final Collator collator = collator();
+		if (ourTag == null) {
+			int hash = Arrays.hashCode(collator.getCollationKey(PROBE).toByteArray());
+			if (collator instanceof RuleBasedCollator) {
+				hash = 31 * hash + ((RuleBasedCollator)collator).getRules().hashCode();
+			}
+			final String icuVersion = System.getProperty("android.icu.library.version");
+			if (icuVersion != null) {
+				hash = 31 * hash + icuVersion.hashCode();
+			}
+			ourTag = ourLocale + ":" + Integer.toHexString(hash);
+		}
+		return ourTag;
+	}
+
+	public static synchronized byte[] create(String sortKey) {
+		return sortKey != null ? collator().getCollationKey(sortKey).toByteArray() : null;
+	}
+
+	public static int compare(byte[] key0, byte[] key1) {
+		if (key0 == null) {
+			return key1 == null ? 0 : -1;
+		}
+		if (key1 == null) {
+			return 1;
+		}
+		final int len = Math.min(key0.length, key1.length);
+		for (int i = 0; i < len; ++i) {
+			final int diff = (key0[i] & 0xFF) - (key1[i] & 0xFF);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return key0.length - key1.length;
+	}
+}
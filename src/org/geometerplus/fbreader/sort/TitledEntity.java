@@ -29,6 +29,7 @@ import android.os.Build;
 public abstract class TitledEntity {
 	private String myTitle;
 	private String mySortKey;
+	private byte[] myCollationKey;
 
 	public TitledEntity(String title) {
 		myTitle = title;
@@ -45,10 +46,12 @@ public abstract class TitledEntity {
 	public void setTitle(String title) {
 		myTitle = title;
 		mySortKey = null;
+		myCollationKey = null;
 	}
 
 	protected void resetSortKey() {
 		mySortKey = null;
+		myCollationKey = null;
 	}
 
 	public abstract String getLanguage();
@@ -64,6 +67,17 @@ public abstract class TitledEntity {
 		return mySortKey;
 	}
 
+	public byte[] getCollationKey() {
+		if (myCollationKey == null) {
+			myCollationKey = CollationKeys.create(getSortKey());
+		}
+		return myCollationKey;
+	}
+
+	protected void setCollationKey(byte[] key) {
+		myCollationKey = key;
+	}
+
 	private final static Map<String, String[]> ARTICLES = new HashMap<String, String[]>();
 	// English articles
 	private final static String[] EN_ARTICLES = new String[] {
@@ -25,6 +25,8 @@ import org.geometerplus.zlibrary.core.image.ZLImage;
 import org.geometerplus.zlibrary.core.tree.ZLTree;
 import org.geometerplus.zlibrary.core.util.MiscUtil;
 
+import org.geometerplus.fbreader.sort.CollationKeys;
+
 public abstract class FBTree extends ZLTree<FBTree> implements Comparable<FBTree> {
 	public static class Key implements Serializable {
 		private static final long serialVersionUID = -6500763093522202052L;
@@ -73,6 +75,8 @@ public abstract class FBTree extends ZLTree<FBTree> implements Comparable<FBTree
 	private ZLImage myCover;
 	private boolean myCoverRequested;
 	private Key myKey;
+	private byte[] myCollationKey;
+	private boolean myCollationKeyIsInitialized;
 
 	protected FBTree() {
 		super();
@@ -112,6 +116,27 @@ public abstract class FBTree extends ZLTree<FBTree> implements Comparable<FBTree
 		return subtrees().indexOf(tree);
 	}
 
+	/**
+	 * Searches sorted subtrees for the key without making a subtrees snapshot.
+	 * Return value has the same meaning as for Collections.binarySearch().
+	 */
+	protected synchronized final int binarySearchSubtrees(FBTree key) {
+		int low = 0;
+		int high = subtreesCount() - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int cmp = subtreeAt(mid).compareTo(key);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return - low - 1;
+	}
+
 	public abstract String getName();
 
 	public String getTreeTitle() {
@@ -134,41 +159,29 @@ public abstract class FBTree extends ZLTree<FBTree> implements Comparable<FBTree
 		return sortKey;
 	}
 
-	private static int compareStringsIgnoreCase(String s0, String s1) {
-	  	final int len = Math.min(s0.length(), s1.length());
-		for (int i = 0; i < len; ++i) {
-		  	char c0 = s0.charAt(i);
-		  	char c1 = s1.charAt(i);
-			if (c0 == c1) {
-			  	continue;
-			}
-			c0 = Character.toLowerCase(c0);
-			c1 = Character.toLowerCase(c1);
-			if (c0 == c1) {
-			  	continue;
-			}
-			return c0 - c1;
-		}
-		if (s0.length() > len) {
-		  	return 1;
-		}
-		if (s0.length() > len) {
-		  	return -1;
+	/**
+	 * Collation key built from getSortKey() value; subclasses that get
+	 * sort key from a library entity should return the entity's key.
+	 */
+	protected byte[] getCollationKey() {
+		if (!myCollationKeyIsInitialized) {
+			myCollationKey = CollationKeys.create(getSortKey());
+			myCollationKeyIsInitialized = true;
 		}
-		return 0;
+		return myCollationKey;
 	}
 
 	public int compareTo(FBTree tree) {
-		final String key0 = getSortKey();
-		final String key1 = tree.getSortKey();
-		if (key0 == null) {
-			return (key1 == null) ? 0 : -1;
+		final int diff = CollationKeys.compare(getCollationKey(), tree.getCollationKey());
+		if (diff != 0) {
+			return diff;
 		}
-		if (key1 == null) {
-			return 1;
+		final String name0 = getName();
+		final String name1 = tree.getName();
+		if (name0 == null) {
+			return name1 == null ? 0 : -1;
 		}
-		final int diff = compareStringsIgnoreCase(key0, key1);
-		return diff != 0 ? diff : getName().compareTo(tree.getName());
+		return name1 == null ? 1 : name0.compareTo(name1);
 	}
 
 	public abstract String getSummary();
@@ -114,6 +114,14 @@ public abstract class ZLApplication {
 		}
 	}
 
+	protected void runOnUiThread(Runnable action) {
+		if (myWindow != null) {
+			myWindow.runOnUiThread(action);
+		} else {
+			action.run();
+		}
+	}
+
 	public final ZLViewWidget getViewWidget() {
 		return myWindow != null ? myWindow.getViewWidget() : null;
 	}
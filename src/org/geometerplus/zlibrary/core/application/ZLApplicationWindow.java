@@ -27,6 +27,7 @@ public interface ZLApplicationWindow {
 	void showErrorMessage(String resourceKey, String parameter);
 	ZLApplication.SynchronousExecutor createExecutor(String key);
 	void processException(Exception e);
+	void runOnUiThread(Runnable action);
 
 	void refresh();
 
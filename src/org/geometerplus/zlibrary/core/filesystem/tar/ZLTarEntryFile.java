@@ -23,30 +23,17 @@ import java.util.*;
 import java.io.*;
 
 import org.geometerplus.zlibrary.core.filesystem.*;
+import org.geometerplus.zlibrary.core.util.SliceInputStream;
 
 public final class ZLTarEntryFile extends ZLArchiveEntryFile {
 	public static List<ZLFile> archiveEntries(ZLFile archive) {
 		try {
-			InputStream stream = archive.getInputStream();
-			if (stream != null) {
-				LinkedList<ZLFile> entries = new LinkedList<ZLFile>();
-				ZLTarHeader header = new ZLTarHeader();
-				while (header.read(stream)) {
-					if (header.IsRegularFile) {
-						entries.add(new ZLTarEntryFile(archive, header.Name));
-					}
-					final int lenToSkip = (header.Size + 0x1ff) & -0x200;
-					if (lenToSkip < 0) {
-						break;
-					}
-					if (stream.skip(lenToSkip) != lenToSkip) {
-						break;
-					}
-					header.erase();
-				}
-				stream.close();
-				return entries;
+			final Collection<String> names = ZLTarIndex.get(archive).names();
+			final List<ZLFile> entries = new ArrayList<ZLFile>(names.size());
+			for (String name : names) {
+				entries.add(new ZLTarEntryFile(archive, name));
 			}
+			return entries;
 		} catch (IOException e) {
 		}
 		return Collections.emptyList();
@@ -56,19 +43,32 @@ public final class ZLTarEntryFile extends ZLArchiveEntryFile {
 		super(parent, name);
 	}
 
+	private ZLTarIndex.Entry entry() {
+		try {
+			return ZLTarIndex.get(myParent).entry(myName);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
 	@Override
 	public boolean exists() {
-		// TODO: optimize
-		return myParent.exists() && archiveEntries(myParent).contains(this);
+		return myParent.exists() && entry() != null;
 	}
 
 	@Override
 	public long size() {
-		throw new RuntimeException("Not implemented yet.");
+		final ZLTarIndex.Entry entry = entry();
+		return entry != null ? entry.Size : 0;
 	}
 
 	@Override
 	public InputStream getInputStream() throws IOException {
-		return new ZLTarInputStream(myParent.getInputStream(), myName);
+		final ZLTarIndex.Entry entry = ZLTarIndex.get(myParent).entry(myName);
+		if (entry == null) {
+			throw new IOException("Item " + myName + " not found in tar archive");
+		}
+		// skip() of a physical file stream is a seek, so the entry is read directly
+		return new SliceInputStream(myParent.getInputStream(), entry.Offset, entry.Size);
 	}
 }
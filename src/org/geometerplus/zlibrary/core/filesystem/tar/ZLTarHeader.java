@@ -81,9 +81,14 @@ class ZLTarHeader {
             	&& "././@LongLink".equals(Name) && Size < 10240) {
 			final byte[] nameBuffer = new byte[Size - 1];
 			stream.read(nameBuffer);
-			Name = getStringFromByteArray(nameBuffer);
+			final String longName = getStringFromByteArray(nameBuffer);
 			final int skip = 512 - (Size & 0x1ff);
 			stream.skip(skip + 1);
+			// the long name belongs to the next header
+			if (!read(stream)) {
+				return false;
+			}
+			Name = longName;
 		}
 		return true;
 	}
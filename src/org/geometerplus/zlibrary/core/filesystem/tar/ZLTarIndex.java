@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+
+package org.geometerplus.zlibrary.core.filesystem.tar;
+
+import java.io.*;
+import java.util.*;
+
+import org.geometerplus.zlibrary.core.filesystem.ZLFile;
+import org.geometerplus.zlibrary.core.util.InputStreamWithOffset;
+
+/**
+ * Names, data offsets and sizes of regular files in a tar archive, collected in
+ * a single pass. Indices of recently used archives are cached; a cached index is
+ * dropped when the archive size or modification time changes.
+ */
+final class ZLTarIndex {
+	static final class Entry {
+		final int Offset;
+		final int Size;
+
+		Entry(int offset, int size) {
+			Offset = offset;
+			Size = size;
+		}
+	}
+
+	private static final int CACHE_SIZE = 8;
+	private static final LinkedHashMap<String,ZLTarIndex> ourCache =
+		new LinkedHashMap<String,ZLTarIndex>(CACHE_SIZE, .75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String,ZLTarIndex> eldest) {
+				return size() > CACHE_SIZE;
+			}
+		};
+
+	static ZLTarIndex get(ZLFile archive) throws IOException {
+		final String path = archive.getPath();
+		final long size = archive.size();
+		final long modified = archive.lastModified();
+		synchronized (ourCache) {
+			final ZLTarIndex index = ourCache.get(path);
+			if (index != null && index.myArchiveSize == size && index.myModified == modified) {
+				return index;
+			}
+		}
+		final ZLTarIndex index = new ZLTarIndex(archive, size, modified);
+		synchronized (ourCache) {
+			ourCache.put(path, index);
+		}
+		return index;
+	}
+
+	private final long myArchiveSize;
+	private final long myModified;
+	// in archive order
+	private final LinkedHashMap<String,Entry> myEntries = new LinkedHashMap<String,Entry>();
+
+	private ZLTarIndex(ZLFile archive, long size, long modified) throws IOException {
+		myArchiveSize = size;
+		myModified = modified;
+
+		final InputStream base = archive.getInputStream();
+		if (base == null) {
+			throw new IOException("Cannot open " + archive.getPath());
+		}
+		final InputStreamWithOffset stream = new InputStreamWithOffset(base);
+		try {
+			final ZLTarHeader header = new ZLTarHeader();
+			while (header.read(stream)) {
+				if (header.IsRegularFile && !myEntries.containsKey(header.Name)) {
+					myEntries.put(header.Name, new Entry(stream.offset(), header.Size));
+				}
+				final int lenToSkip = (header.Size + 0x1ff) & -0x200;
+				if (lenToSkip < 0) {
+					break;
+				}
+				if (stream.skip(lenToSkip) != lenToSkip) {
+					break;
+				}
+				header.erase();
+			}
+		} finally {
+			stream.close();
+		}
+	}
+
+	Entry entry(String name) {
+		return myEntries.get(name);
+	}
+
+	Collection<String> names() {
+		return Collections.unmodifiableSet(myEntries.keySet());
+	}
+}
@@ -381,6 +381,10 @@ public class ZLNetworkManager {
 				}
 			}
 			final int responseCode = response.getStatusLine().getStatusCode();
+			request.setResponseCode(responseCode);
+			for (Header header : response.getAllHeaders()) {
+				request.addResponseHeader(header.getName(), header.getValue());
+			}
 
 			InputStream stream = null;
 			if (entity != null &&
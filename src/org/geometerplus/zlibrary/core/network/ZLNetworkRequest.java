@@ -73,6 +73,9 @@ public abstract class ZLNetworkRequest {
 
 	private final boolean myIsQuiet;
 
+	private int myResponseCode;
+	private final Map<String,String> myResponseHeaders = new HashMap<String,String>();
+
 	private ZLNetworkRequest(String url) {
 		this(url, false);
 	}
@@ -94,6 +97,30 @@ public abstract class ZLNetworkRequest {
 		return myIsQuiet;
 	}
 
+	void setResponseCode(int code) {
+		myResponseCode = code;
+		myResponseHeaders.clear();
+	}
+
+	void addResponseHeader(String name, String value) {
+		myResponseHeaders.put(name.toLowerCase(), value);
+	}
+
+	/**
+	 * @return HTTP status code of the response; valid in handleStream() only
+	 */
+	public int getResponseCode() {
+		return myResponseCode;
+	}
+
+	/**
+	 * @return value of the response header (name is case-insensitive), or null;
+	 * valid in handleStream() only
+	 */
+	public String getResponseHeader(String name) {
+		return myResponseHeaders.get(name.toLowerCase());
+	}
+
 	public void doBefore() throws ZLNetworkException {
 	}
 
@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2009-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.core.tree;
+
+import java.util.*;
+
+/**
+ * Children of a ZLTree stored as an implicit treap. Every node keeps the number
+ * of nodes and the number of paragraphs (sum of ZLTree.getSize()) in its subtree,
+ * so positional access, insertion, removal and paragraph lookup are O(log n).
+ *
+ * All mutating methods must be called with the owner tree locked.
+ */
+final class SubtreeList<T extends ZLTree<T>> {
+	static final class Node<T extends ZLTree<T>> {
+		final T Tree;
+		private final int myPriority;
+		private Node<T> myLeft;
+		private Node<T> myRight;
+		private Node<T> myUp;
+		private int myCount = 1;
+		private int myWeight;
+
+		private Node(T tree, int priority) {
+			Tree = tree;
+			myPriority = priority;
+			myWeight = tree.getSize();
+		}
+
+		private void setLeft(Node<T> node) {
+			myLeft = node;
+			if (node != null) {
+				node.myUp = this;
+			}
+		}
+
+		private void setRight(Node<T> node) {
+			myRight = node;
+			if (node != null) {
+				node.myUp = this;
+			}
+		}
+
+		private void update() {
+			myCount = 1 + count(myLeft) + count(myRight);
+			myWeight = Tree.getSize() + weight(myLeft) + weight(myRight);
+		}
+
+		void addWeight(int delta) {
+			for (Node<T> node = this; node != null; node = node.myUp) {
+				node.myWeight += delta;
+			}
+		}
+
+		Node<T> next() {
+			if (myRight != null) {
+				return leftmost(myRight);
+			}
+			Node<T> node = this;
+			while (node.myUp != null && node.myUp.myRight == node) {
+				node = node.myUp;
+			}
+			return node.myUp;
+		}
+	}
+
+	private static final Random ourRandom = new Random();
+
+	private Node<T> myRoot;
+	private volatile List<T> mySnapshot;
+
+	// results of the last split() call
+	private Node<T> myLeftPart;
+	private Node<T> myRightPart;
+
+	private static int count(Node<?> node) {
+		return node != null ? node.myCount : 0;
+	}
+
+	private static int weight(Node<?> node) {
+		return node != null ? node.myWeight : 0;
+	}
+
+	private static <T extends ZLTree<T>> Node<T> leftmost(Node<T> node) {
+		while (node.myLeft != null) {
+			node = node.myLeft;
+		}
+		return node;
+	}
+
+	int size() {
+		return count(myRoot);
+	}
+
+	Node<T> first() {
+		return myRoot != null ? leftmost(myRoot) : null;
+	}
+
+	T get(int index) {
+		Node<T> node = myRoot;
+		while (node != null) {
+			final int leftCount = count(node.myLeft);
+			if (index < leftCount) {
+				node = node.myLeft;
+			} else if (index == leftCount) {
+				return node.Tree;
+			} else {
+				index -= leftCount + 1;
+				node = node.myRight;
+			}
+		}
+		throw new IndexOutOfBoundsException();
+	}
+
+	/**
+	 * @return the tree containing given paragraph; index is counted from
+	 * the first paragraph of the first subtree
+	 */
+	T getTreeByParagraphNumber(int index) {
+		Node<T> node = myRoot;
+		while (node != null) {
+			final int leftWeight = weight(node.myLeft);
+			if (index < leftWeight) {
+				node = node.myLeft;
+				continue;
+			}
+			index -= leftWeight;
+			final int size = node.Tree.getSize();
+			if (index < size) {
+				return node.Tree.getTreeByParagraphNumber(index);
+			}
+			index -= size;
+			node = node.myRight;
+		}
+		return null;
+	}
+
+	/**
+	 * @return position of the node in this list, or -1 if the node does not belong to the list
+	 */
+	int indexOf(Node<T> node) {
+		int index = count(node.myLeft);
+		for (; node.myUp != null; node = node.myUp) {
+			if (node.myUp.myRight == node) {
+				index += count(node.myUp.myLeft) + 1;
+			}
+		}
+		return node == myRoot ? index : -1;
+	}
+
+	Node<T> insert(T tree, int position) {
+		final Node<T> node = new Node<T>(tree, ourRandom.nextInt());
+		split(myRoot, position);
+		final Node<T> right = myRightPart;
+		setRoot(merge(merge(myLeftPart, node), right));
+		return node;
+	}
+
+	boolean remove(Node<T> node) {
+		final int index = indexOf(node);
+		if (index == -1) {
+			return false;
+		}
+		split(myRoot, index);
+		final Node<T> left = myLeftPart;
+		split(myRightPart, 1);
+		setRoot(merge(left, myRightPart));
+		node.myUp = null;
+		return true;
+	}
+
+	void clear() {
+		setRoot(null);
+	}
+
+	List<T> snapshot() {
+		List<T> snapshot = mySnapshot;
+		if (snapshot == null) {
+			final List<T> list = new ArrayList<T>(size());
+			for (Node<T> node = first(); node != null; node = node.next()) {
+				list.add(node.Tree);
+			}
+			snapshot = Collections.unmodifiableList(list);
+			mySnapshot = snapshot;
+		}
+		return snapshot;
+	}
+
+	private void setRoot(Node<T> root) {
+		if (root != null) {
+			root.myUp = null;
+		}
+		myRoot = root;
+		mySnapshot = null;
+		myLeftPart = null;
+		myRightPart = null;
+	}
+
+	// splits the treap into first k nodes (myLeftPart) and all the others (myRightPart)
+	private void split(Node<T> node, int k) {
+		if (node == null) {
+			myLeftPart = null;
+			myRightPart = null;
+			return;
+		}
+		final int leftCount = count(node.myLeft);
+		if (leftCount < k) {
+			split(node.myRight, k - leftCount - 1);
+			node.setRight(myLeftPart);
+			myLeftPart = node;
+		} else {
+			split(node.myLeft, k);
+			node.setLeft(myRightPart);
+			myRightPart = node;
+		}
+		node.update();
+		node.myUp = null;
+	}
+
+	private Node<T> merge(Node<T> left, Node<T> right) {
+		if (left == null) {
+			return right;
+		}
+		if (right == null) {
+			return left;
+		}
+		if (left.myPriority > right.myPriority) {
+			left.setRight(merge(left.myRight, right));
+			left.update();
+			return left;
+		} else {
+			right.setLeft(merge(left, right.myLeft));
+			right.update();
+			return right;
+		}
+	}
+}
@@ -25,7 +25,9 @@ public abstract class ZLTree<T extends ZLTree<T>> implements Iterable<T> {
 	private int mySize = 1;
 	public final T Parent;
 	public final int Level;
-	private volatile List<T> mySubtrees;
+	private volatile SubtreeList<T> mySubtrees;
+	// node of this tree in the Parent's subtree list
+	private volatile SubtreeList.Node<T> myNode;
 
 	protected ZLTree() {
 		this(null);
@@ -37,10 +39,10 @@ public abstract class ZLTree<T extends ZLTree<T>> implements Iterable<T> {
 
 	protected ZLTree(T parent, int position) {
 		if (position == -1) {
-			position = parent == null ? 0 : parent.subtrees().size();
+			position = parent == null ? 0 : parent.subtreesCount();
 		}
-		if (parent != null && (position < 0 || position > parent.subtrees().size())) {
-			throw new IndexOutOfBoundsException("`position` value equals " + position + " but must be in range [0; " + parent.subtrees().size() + "]");
+		if (parent != null && (position < 0 || position > parent.subtreesCount())) {
+			throw new IndexOutOfBoundsException("`position` value equals " + position + " but must be in range [0; " + parent.subtreesCount() + "]");
 		}
 		Parent = parent;
 		if (parent != null) {
@@ -56,15 +58,37 @@ public abstract class ZLTree<T extends ZLTree<T>> implements Iterable<T> {
 	}
 
 	public final boolean hasChildren() {
-		return mySubtrees != null && !mySubtrees.isEmpty();
+		return subtreesCount() > 0;
 	}
 
-	public List<T> subtrees() {
+	public final int subtreesCount() {
+		final SubtreeList<T> subtrees = mySubtrees;
+		if (subtrees == null) {
+			return 0;
+		}
+		synchronized (this) {
+			return subtrees.size();
+		}
+	}
+
+	public synchronized final T subtreeAt(int index) {
 		if (mySubtrees == null) {
+			throw new IndexOutOfBoundsException("Index " + index + " in a tree without subtrees");
+		}
+		return mySubtrees.get(index);
+	}
+
+	/**
+	 * @return read-only snapshot of subtrees list; the snapshot is shared
+	 * by all callers until the next change of subtrees
+	 */
+	public List<T> subtrees() {
+		final SubtreeList<T> subtrees = mySubtrees;
+		if (subtrees == null) {
 			return Collections.emptyList();
 		}
-		synchronized (mySubtrees) {
-			return new ArrayList<T>(mySubtrees);
+		synchronized (this) {
+			return subtrees.snapshot();
 		}
 	}
 
@@ -76,56 +100,42 @@ public abstract class ZLTree<T extends ZLTree<T>> implements Iterable<T> {
 		if (index == 0) {
 			return (T)this;
 		}
-		--index;
-		if (mySubtrees != null) {
-			synchronized (mySubtrees) {
-				for (T subtree : mySubtrees) {
-					if (((ZLTree<?>)subtree).mySize <= index) {
-						index -= ((ZLTree<?>)subtree).mySize;
-					} else {
-						return (T)subtree.getTreeByParagraphNumber(index);
-					}
-				}
-			}
+		final T subtree = mySubtrees != null ? mySubtrees.getTreeByParagraphNumber(index - 1) : null;
+		if (subtree == null) {
+			throw new RuntimeException("That's impossible!!!");
 		}
-		throw new RuntimeException("That's impossible!!!");
+		return subtree;
 	}
 
 	synchronized final void addSubtree(T subtree, int position) {
 		if (mySubtrees == null) {
-			mySubtrees = Collections.synchronizedList(new ArrayList<T>());
-		}
-		final int subtreeSize = subtree.getSize();
-		synchronized (mySubtrees) {
-			final int thisSubtreesSize = mySubtrees.size();
-			while (position < thisSubtreesSize) {
-				subtree = mySubtrees.set(position++, subtree);
-			}
-			mySubtrees.add(subtree);
-			for (ZLTree<?> parent = this; parent != null; parent = parent.Parent) {
-				parent.mySize += subtreeSize;
-			}
+			mySubtrees = new SubtreeList<T>();
 		}
+		((ZLTree<T>)subtree).myNode = mySubtrees.insert(subtree, position);
+		changeSize(subtree.getSize());
 	}
 
 	synchronized public final void moveSubtree(T subtree, int index) {
-		if (mySubtrees == null || !mySubtrees.contains(subtree)) {
+		final SubtreeList.Node<T> node = ((ZLTree<T>)subtree).myNode;
+		if (mySubtrees == null || node == null || subtree.Parent != this) {
 			return;
 		}
 		if (index < 0 || index >= mySubtrees.size()) {
 			return;
 		}
-		mySubtrees.remove(subtree);
-		mySubtrees.add(index, subtree);
+		if (mySubtrees.remove(node)) {
+			((ZLTree<T>)subtree).myNode = mySubtrees.insert(subtree, index);
+		}
 	}
 
 	public void removeSelf() {
-		final int subtreeSize = getSize();
-		ZLTree<?> parent = Parent;
+		final ZLTree<T> parent = Parent;
 		if (parent != null) {
-			parent.mySubtrees.remove(this);
-			for (; parent != null; parent = parent.Parent) {
-				parent.mySize -= subtreeSize;
+			synchronized (parent) {
+				if (myNode != null && parent.mySubtrees.remove(myNode)) {
+					myNode = null;
+					parent.changeSize(-getSize());
+				}
 			}
 		}
 	}
@@ -133,12 +143,25 @@ public abstract class ZLTree<T extends ZLTree<T>> implements Iterable<T> {
 	public final void clear() {
 		final int subtreesSize = mySize - 1;
 		if (mySubtrees != null) {
-			mySubtrees.clear();
+			synchronized (this) {
+				for (SubtreeList.Node<T> node = mySubtrees.first(); node != null; node = node.next()) {
+					((ZLTree<T>)node.Tree).myNode = null;
+				}
+				mySubtrees.clear();
+			}
 		}
-		mySize = 1;
 		if (subtreesSize > 0) {
-			for (ZLTree<?> parent = Parent; parent != null; parent = parent.Parent) {
-				parent.mySize -= subtreesSize;
+			changeSize(-subtreesSize);
+		}
+	}
+
+	// adds delta to sizes of this tree and all its ancestors
+	private void changeSize(int delta) {
+		for (ZLTree<?> tree = this; tree != null; tree = tree.Parent) {
+			tree.mySize += delta;
+			final SubtreeList.Node<?> node = tree.myNode;
+			if (node != null) {
+				node.addWeight(delta);
 			}
 		}
 	}
@@ -157,7 +180,6 @@ public abstract class ZLTree<T extends ZLTree<T>> implements Iterable<T> {
 
 	private class TreeIterator implements Iterator<T> {
 		private T myCurrentElement = (T)ZLTree.this;
-		private final LinkedList<Integer> myIndexStack = new LinkedList<Integer>();
 		private final int myMaxLevel;
 
 		TreeIterator(int maxLevel) {
@@ -170,24 +192,25 @@ public abstract class ZLTree<T extends ZLTree<T>> implements Iterable<T> {
 
 		public T next() {
 			final T element = myCurrentElement;
-			if (element.hasChildren() && element.Level < myMaxLevel) {
-				myCurrentElement = (T)((ZLTree<?>)element).mySubtrees.get(0);
-				myIndexStack.add(0);
-			} else {
-				ZLTree<T> parent = element;
-				while (!myIndexStack.isEmpty()) {
-					final int index = myIndexStack.removeLast() + 1;
-					parent = parent.Parent;
-					synchronized (parent.mySubtrees) {
-						if (parent.mySubtrees.size() > index) {
-							myCurrentElement = parent.mySubtrees.get(index);
-							myIndexStack.add(index);
-							break;
-						}
+			myCurrentElement = null;
+			final SubtreeList<T> subtrees = ((ZLTree<T>)element).mySubtrees;
+			if (element.Level < myMaxLevel && subtrees != null) {
+				synchronized (element) {
+					final SubtreeList.Node<T> first = subtrees.first();
+					if (first != null) {
+						myCurrentElement = first.Tree;
+						return element;
 					}
 				}
-				if (myIndexStack.isEmpty()) {
-					myCurrentElement = null;
+			}
+			for (ZLTree<T> tree = element; tree != ZLTree.this; tree = tree.Parent) {
+				synchronized (tree.Parent) {
+					final SubtreeList.Node<T> node = tree.myNode;
+					final SubtreeList.Node<T> next = node != null ? node.next() : null;
+					if (next != null) {
+						myCurrentElement = next.Tree;
+						break;
+					}
 				}
 			}
 			return element;
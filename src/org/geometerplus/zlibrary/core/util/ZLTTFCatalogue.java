@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+
+package org.geometerplus.zlibrary.core.util;
+
+import java.util.*;
+import java.io.*;
+
+/**
+ * Family and style names of font files, stored in a file and keyed by
+ * path, size and modification time, so only new or changed files are parsed.
+ */
+public final class ZLTTFCatalogue {
+	private static final class Entry {
+		final long Size;
+		final long Modified;
+		// null if the file is not a readable font
+		final String FamilyName;
+		final String SubFamilyName;
+
+		Entry(long size, long modified, String familyName, String subFamilyName) {
+			Size = size;
+			Modified = modified;
+			FamilyName = familyName;
+			SubFamilyName = subFamilyName;
+		}
+
+		boolean matches(File file) {
+			return Size == file.length() && Modified == file.lastModified();
+		}
+	}
+
+	private final File myStorage;
+	private HashMap<String,Entry> myEntries;
+
+	public ZLTTFCatalogue(File storage) {
+		myStorage = storage;
+	}
+
+	/**
+	 * @return true if the catalogue has been stored at least once
+	 */
+	public boolean exists() {
+		return myStorage.exists();
+	}
+
+	/**
+	 * @param outdated receives files that are not in the catalogue or changed since
+	 * they were parsed; may be null
+	 * @return font tables (as ZLTTFInfoDetector.collectFonts) for up-to-date files
+	 */
+	public synchronized Map<String,File[]> collectFonts(Collection<File> files, List<File> outdated) {
+		final Map<String,File[]> fonts = new HashMap<String,File[]>();
+		final HashMap<String,Entry> entries = entries();
+		for (File f : files) {
+			final Entry entry = entries.get(f.getPath());
+			if (entry == null || !entry.matches(f)) {
+				if (outdated != null) {
+					outdated.add(f);
+				}
+			} else if (entry.FamilyName != null) {
+				ZLTTFInfoDetector.addFont(fonts, f, entry.FamilyName, entry.SubFamilyName);
+			}
+		}
+		return fonts;
+	}
+
+	/**
+	 * Parses given files and stores the results; entries for files
+	 * that are not in the existing set are dropped.
+	 */
+	public void update(Collection<File> files, Collection<File> existing) {
+		final HashMap<String,Entry> parsed = new HashMap<String,Entry>();
+		final ZLTTFInfoDetector detector = new ZLTTFInfoDetector();
+		for (File f : files) {
+			final long size = f.length();
+			final long modified = f.lastModified();
+			ZLTTFInfo info = null;
+			InputStream stream = null;
+			try {
+				stream = new FileInputStream(f);
+				info = detector.detectInfo(stream);
+			} catch (IOException e) {
+			} finally {
+				if (stream != null) {
+					try {
+						stream.close();
+					} catch (IOException e) {
+					}
+				}
+			}
+			parsed.put(f.getPath(), info != null && info.FamilyName != null
+				? new Entry(size, modified, info.FamilyName, info.SubFamilyName)
+				: new Entry(size, modified, null, null)
+			);
+		}
+
+		synchronized (this) {
+			final HashMap<String,Entry> entries = entries();
+			final HashSet<String> paths = new HashSet<String>();
+			for (File f : existing) {
+				paths.add(f.getPath());
+			}
+			entries.keySet().retainAll(paths);
+			entries.putAll(parsed);
+			save(entries);
+		}
+	}
+
+	private HashMap<String,Entry> entries() {
+		if (myEntries == null) {
+			myEntries = load();
+		}
+		return myEntries;
+	}
+
+	// line format: path, size, modification time, family, subfamily separated by tabs
+	private HashMap<String,Entry> load() {
+		final HashMap<String,Entry> entries = new HashMap<String,Entry>();
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(myStorage), "UTF-8"));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				final String[] fields = line.split("\t", -1);
+				if (fields.length != 5) {
+					continue;
+				}
+				try {
+					entries.put(fields[0], new Entry(
+						Long.parseLong(fields[1]),
+						Long.parseLong(fields[2]),
+						fields[3].length() > 0 ? fields[3] : null,
+						fields[4].length() > 0 ? fields[4] : null
+					));
+				} catch (NumberFormatException e) {
+				}
+			}
+		} catch (IOException e) {
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+		return entries;
+	}
+
+	private static String field(String value) {
+		return value != null ? value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ') : "";
+	}
+
+	private void save(HashMap<String,Entry> entries) {
+		final File tmp = new File(myStorage.getPath() + ".tmp");
+		Writer writer = null;
+		try {
+			myStorage.getParentFile().mkdirs();
+			writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8"));
+			for (Map.Entry<String,Entry> e : entries.entrySet()) {
+				final Entry entry = e.getValue();
+				writer.write(field(e.getKey()));
+				writer.write('\t');
+				writer.write(String.valueOf(entry.Size));
+				writer.write('\t');
+				writer.write(String.valueOf(entry.Modified));
+				writer.write('\t');
+				writer.write(field(entry.FamilyName));
+				writer.write('\t');
+				writer.write(field(entry.SubFamilyName));
+				writer.write('\n');
+			}
+			writer.close();
+			writer = null;
+			if (!tmp.renameTo(myStorage)) {
+				tmp.delete();
+			}
+		} catch (IOException e) {
+			tmp.delete();
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+				}
+				tmp.delete();
+			}
+		}
+	}
+}
@@ -35,22 +35,7 @@ public class ZLTTFInfoDetector {
 				stream = new FileInputStream(f);
 				final ZLTTFInfo info = detectInfo(stream);
 				if (info != null && info.FamilyName != null) {
-					File[] table = fonts.get(info.FamilyName);
-					if (table == null) {
-						table = new File[4];
-						fonts.put(info.FamilyName, table);
-					}
-					if ("bold".equalsIgnoreCase(info.SubFamilyName)) {
-						table[1] = f;
-					} else if ("italic".equalsIgnoreCase(info.SubFamilyName) ||
-							   "oblique".equalsIgnoreCase(info.SubFamilyName)) {
-						table[2] = f;
-					} else if ("bold italic".equalsIgnoreCase(info.SubFamilyName) ||
-							   "bold oblique".equalsIgnoreCase(info.SubFamilyName)) {
-						table[3] = f;
-					} else {
-						table[0] = f;
-					}
+					addFont(fonts, f, info.FamilyName, info.SubFamilyName);
 				}
 			} catch (IOException e) {
 			} finally {
@@ -65,6 +50,25 @@ public class ZLTTFInfoDetector {
 		return fonts;
 	}
 
+	static void addFont(Map<String,File[]> fonts, File file, String familyName, String subFamilyName) {
+		File[] table = fonts.get(familyName);
+		if (table == null) {
+			table = new File[4];
+			fonts.put(familyName, table);
+		}
+		if ("bold".equalsIgnoreCase(subFamilyName)) {
+			table[1] = file;
+		} else if ("italic".equalsIgnoreCase(subFamilyName) ||
+				   "oblique".equalsIgnoreCase(subFamilyName)) {
+			table[2] = file;
+		} else if ("bold italic".equalsIgnoreCase(subFamilyName) ||
+				   "bold oblique".equalsIgnoreCase(subFamilyName)) {
+			table[3] = file;
+		} else {
+			table[0] = file;
+		}
+	}
+
 	public ZLTTFInfo detectInfo(InputStream stream) throws IOException {
 		myPosition = 0;
 
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.core.view;
+
+import java.util.Arrays;
+
+/**
+ * String widths shared by all the paint contexts of a platform, kept per font.
+ * Every width is measured once and remembered for the string; widths are never
+ * summed from parts, since kerning and ligatures make them differ.
+ */
+public final class ZLStringWidthCache {
+	public interface Measurer {
+		float measure(char[] data, int offset, int length);
+	}
+
+	private final Font[] myFonts;
+	private int myFontCount;
+
+	public ZLStringWidthCache(int maxFonts) {
+		myFonts = new Font[maxFonts];
+	}
+
+	/**
+	 * @param face   platform font object, compared by identity
+	 * @param flags  platform rendering flags affecting glyph advances
+	 */
+	public synchronized Font font(Object face, int size, int flags) {
+		// most recently used fonts are at the beginning
+		for (int i = 0; i < myFontCount; ++i) {
+			final Font font = myFonts[i];
+			if (font.Face == face && font.Size == size && font.Flags == flags) {
+				System.arraycopy(myFonts, 0, myFonts, 1, i);
+				myFonts[0] = font;
+				return font;
+			}
+		}
+		if (myFontCount < myFonts.length) {
+			++myFontCount;
+		}
+		System.arraycopy(myFonts, 0, myFonts, 1, myFontCount - 1);
+		final Font font = new Font(face, size, flags);
+		myFonts[0] = font;
+		return font;
+	}
+
+	public static final class Font {
+		private static final int MAX_CAPACITY = 8192;
+
+		final Object Face;
+		final int Size;
+		final int Flags;
+
+		// open addressing table; myStrings[i] == null for free slots
+		private char[][] myStrings = new char[64][];
+		private int[] myHashes = new int[64];
+		private int[] myWidths = new int[64];
+		private int myCount;
+
+		private Font(Object face, int size, int flags) {
+			Face = face;
+			Size = size;
+			Flags = flags;
+		}
+
+		public synchronized int width(char[] data, int offset, int length, Measurer measurer) {
+			if (length <= 0) {
+				return 0;
+			}
+
+			final int hash = hash(data, offset, length);
+			final int mask = myStrings.length - 1;
+			int index = hash & mask;
+			for (char[] s = myStrings[index]; s != null; s = myStrings[index]) {
+				if (myHashes[index] == hash && equal(s, data, offset, length)) {
+					return myWidths[index];
+				}
+				index = (index + 1) & mask;
+			}
+
+			final int width = (int)(measurer.measure(data, offset, length) + 0.5f);
+
+			final char[] copy = new char[length];
+			System.arraycopy(data, offset, copy, 0, length);
+			if (2 * (myCount + 1) > myStrings.length) {
+				if (myStrings.length < MAX_CAPACITY) {
+					rehash(2 * myStrings.length);
+				} else {
+					Arrays.fill(myStrings, null);
+					myCount = 0;
+				}
+			}
+			insert(copy, hash, width);
+			return width;
+		}
+
+		private void insert(char[] string, int hash, int width) {
+			final int mask = myStrings.length - 1;
+			int index = hash & mask;
+			while (myStrings[index] != null) {
+				index = (index + 1) & mask;
+			}
+			myStrings[index] = string;
+			myHashes[index] = hash;
+			myWidths[index] = width;
+			++myCount;
+		}
+
+		private void rehash(int capacity) {
+			final char[][] strings = myStrings;
+			final int[] hashes = myHashes;
+			final int[] widths = myWidths;
+			myStrings = new char[capacity][];
+			myHashes = new int[capacity];
+			myWidths = new int[capacity];
+			myCount = 0;
+			for (int i = 0; i < strings.length; ++i) {
+				if (strings[i] != null) {
+					insert(strings[i], hashes[i], widths[i]);
+				}
+			}
+		}
+
+		private static int hash(char[] data, int offset, int length) {
+			int hash = 0;
+			for (int i = offset; i < offset + length; ++i) {
+				hash = 31 * hash + data[i];
+			}
+			return hash ^ (hash >>> 16);
+		}
+
+		private static boolean equal(char[] string, char[] data, int offset, int length) {
+			if (string.length != length) {
+				return false;
+			}
+			for (int i = 0; i < length; ++i) {
+				if (string[i] != data[offset + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
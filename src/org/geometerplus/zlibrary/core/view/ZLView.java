@@ -48,6 +48,8 @@ abstract public class ZLView {
 	abstract public interface FooterArea {
 		int getHeight();
 		void paint(ZLPaintContext context);
+		// footer is repainted only if the signature has been changed
+		String getPaintSignature();
 	}
 
 	abstract public FooterArea getFooterArea();
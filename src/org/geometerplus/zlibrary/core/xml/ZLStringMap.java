@@ -25,43 +25,104 @@ import org.geometerplus.zlibrary.core.util.ZLArrayUtils;
 // key must be interned
 // there is no remove() in this implementation
 // put with the same key does not remove old entry
+//
+// values are stored as char ranges in a shared buffer;
+// a string is created only when the value is requested
 
 public final class ZLStringMap {
 	private String[] myKeys;
 	private String[] myValues;
+	private int[] myValueOffsets;
+	private int[] myValueLengths;
+	private char[] myValueData;
+	private int myValueDataLength;
 	private int mySize;
 
+	// when set, created value strings are shared within a parser
+	private ZLSymbolTable mySymbolTable;
+
 	public ZLStringMap() {
 		myKeys = new String[8];
 		myValues = new String[8];
+		myValueOffsets = new int[8];
+		myValueLengths = new int[8];
+		myValueData = new char[256];
 	}
 
-	public void put(String key, String value) {
+	ZLStringMap(ZLSymbolTable symbolTable) {
+		this();
+		mySymbolTable = symbolTable;
+	}
+
+	private int reserve() {
 		final int size = mySize++;
-		String[] keys = myKeys;
-		if (keys.length == size) {
-			keys = ZLArrayUtils.createCopy(keys, size, size << 1);
-			myKeys = keys;
+		if (myKeys.length == size) {
+			myKeys = ZLArrayUtils.createCopy(myKeys, size, size << 1);
 			myValues = ZLArrayUtils.createCopy(myValues, size, size << 1);
+			myValueOffsets = ZLArrayUtils.createCopy(myValueOffsets, size, size << 1);
+			myValueLengths = ZLArrayUtils.createCopy(myValueLengths, size, size << 1);
+		}
+		return size;
+	}
+
+	private int appendValueData(int length) {
+		final int offset = myValueDataLength;
+		final int newLength = offset + length;
+		if (myValueData.length < newLength) {
+			myValueData = ZLArrayUtils.createCopy(myValueData, offset, Math.max(newLength, offset << 1));
+		}
+		myValueDataLength = newLength;
+		return offset;
+	}
+
+	public void put(String key, String value) {
+		final int index = reserve();
+		myKeys[index] = key;
+		myValues[index] = value;
+		if (value != null) {
+			final int length = value.length();
+			final int offset = appendValueData(length);
+			value.getChars(0, length, myValueData, offset);
+			myValueOffsets[index] = offset;
+			myValueLengths[index] = length;
+		} else {
+			myValueOffsets[index] = 0;
+			myValueLengths[index] = -1;
 		}
-		keys[size] = key;
-		myValues[size] = value;
+	}
+
+	void put(String key, char[] data, int offset, int length) {
+		final int index = reserve();
+		myKeys[index] = key;
+		myValues[index] = null;
+		final int valueOffset = appendValueData(length);
+		System.arraycopy(data, offset, myValueData, valueOffset, length);
+		myValueOffsets[index] = valueOffset;
+		myValueLengths[index] = length;
 	}
 
 	/*
 	 * Parameter `key` must be an interned string.
 	 */
-	public String getValue(String key) {
+	public int indexOf(String key) {
 		int index = mySize;
 		if (index > 0) {
 			final String[] keys = myKeys;
 			while (--index >= 0) {
 				if (keys[index] == key) {
-					return myValues[index];
+					return index;
 				}
 			}
 		}
-		return null;
+		return -1;
+	}
+
+	/*
+	 * Parameter `key` must be an interned string.
+	 */
+	public String getValue(String key) {
+		final int index = indexOf(key);
+		return index >= 0 ? getValue(index) : null;
 	}
 
 	public int getSize() {
@@ -73,10 +134,61 @@ public final class ZLStringMap {
 	}
 
 	String getValue(int index) {
-		return myValues[index];
+		String value = myValues[index];
+		if (value == null && myValueLengths[index] != -1) {
+			final int offset = myValueOffsets[index];
+			final int length = myValueLengths[index];
+			if (mySymbolTable != null) {
+				value = mySymbolTable.intern(myValueData, offset, length);
+			} else {
+				value = new String(myValueData, offset, length).intern();
+			}
+			myValues[index] = value;
+		}
+		return value;
+	}
+
+	/**
+	 * Char range view of a value; the returned array is shared and is valid
+	 * until the map is cleared. Value chars are in the range
+	 * [getValueOffset(index), getValueOffset(index) + getValueLength(index)).
+	 */
+	public char[] getValueData() {
+		return myValueData;
+	}
+
+	public int getValueOffset(int index) {
+		return myValueOffsets[index];
+	}
+
+	/**
+	 * @return value length, or -1 for null value
+	 */
+	public int getValueLength(int index) {
+		return myValueLengths[index];
+	}
+
+	public boolean valueEquals(String key, String value) {
+		final int index = indexOf(key);
+		if (index < 0 || myValueLengths[index] == -1) {
+			return value == null;
+		}
+		final int length = myValueLengths[index];
+		if (value == null || value.length() != length) {
+			return false;
+		}
+		final char[] data = myValueData;
+		final int offset = myValueOffsets[index];
+		for (int i = 0; i < length; ++i) {
+			if (data[offset + i] != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	public void clear() {
 		mySize = 0;
+		myValueDataLength = 0;
 	}
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.core.xml;
+
+// open addressing hash set of interned strings;
+// lookup by char range does not allocate anything for known strings
+
+final class ZLSymbolTable {
+	private String[] myStrings;
+	private int[] myHashCodes;
+	private int mySize;
+
+	ZLSymbolTable() {
+		myStrings = new String[256];
+		myHashCodes = new int[256];
+	}
+
+	String intern(char[] data, int offset, int length) {
+		int hashCode = 0;
+		final int end = offset + length;
+		for (int i = offset; i < end; ++i) {
+			hashCode = hashCode * 31 + data[i];
+		}
+
+		final String[] strings = myStrings;
+		final int[] hashCodes = myHashCodes;
+		final int mask = strings.length - 1;
+		int index = hashCode & mask;
+		while (true) {
+			final String s = strings[index];
+			if (s == null) {
+				break;
+			}
+			if (hashCodes[index] == hashCode && matches(s, data, offset, length)) {
+				return s;
+			}
+			index = (index + 1) & mask;
+		}
+
+		final String s = new String(data, offset, length).intern();
+		strings[index] = s;
+		hashCodes[index] = hashCode;
+		if (++mySize * 2 > strings.length) {
+			rehash();
+		}
+		return s;
+	}
+
+	private static boolean matches(String s, char[] data, int offset, int length) {
+		if (s.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; ++i) {
+			if (s.charAt(i) != data[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash() {
+		final String[] oldStrings = myStrings;
+		final int[] oldHashCodes = myHashCodes;
+		final int newLength = oldStrings.length << 1;
+		final String[] strings = new String[newLength];
+		final int[] hashCodes = new int[newLength];
+		final int mask = newLength - 1;
+		for (int i = 0; i < oldStrings.length; ++i) {
+			if (oldStrings[i] != null) {
+				int index = oldHashCodes[i] & mask;
+				while (strings[index] != null) {
+					index = (index + 1) & mask;
+				}
+				strings[index] = oldStrings[i];
+				hashCodes[index] = oldHashCodes[i];
+			}
+		}
+		myStrings = strings;
+		myHashCodes = hashCodes;
+	}
+}
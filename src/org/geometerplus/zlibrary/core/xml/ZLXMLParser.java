@@ -57,12 +57,8 @@ final class ZLXMLParser {
 	private static final byte END_OF_CDATA1 = 25;
 	private static final byte END_OF_CDATA2 = 26;
 
-	private static String convertToString(Map<ZLMutableString,String> strings, ZLMutableString container) {
-		String s = strings.get(container);
-		if (s == null) {
-			s = container.toString();
-			strings.put(new ZLMutableString(container), s);
-		}
+	private static String convertToString(ZLSymbolTable symbols, ZLMutableString container) {
+		final String s = symbols.intern(container.myData, 0, container.myLength);
 		container.clear();
 		return s;
 	}
@@ -71,36 +67,45 @@ final class ZLXMLParser {
 	private final ZLXMLReader myXMLReader;
 	private final boolean myProcessNamespaces;
 
-	private static HashMap<Integer,Queue<char[]>> ourBufferPool = new HashMap<Integer,Queue<char[]>>();
-	private static Queue<ZLMutableString> ourStringPool = new LinkedList<ZLMutableString>();
+	// pools are per thread, so parsers running in different threads do not share locks
+	private static final class Pool {
+		final HashMap<Integer,ArrayList<char[]>> Buffers = new HashMap<Integer,ArrayList<char[]>>();
+		final ArrayList<ZLMutableString> Strings = new ArrayList<ZLMutableString>();
+	}
 
-	private static synchronized char[] getBuffer(int bufferSize) {
-		Queue<char[]> queue = ourBufferPool.get(bufferSize);
-		if (queue != null) {
-			char[] buffer = queue.poll();
-			if (buffer != null) {
-				return buffer;
-			}
+	private static final ThreadLocal<Pool> ourPool = new ThreadLocal<Pool>() {
+		@Override
+		protected Pool initialValue() {
+			return new Pool();
+		}
+	};
+
+	private static char[] getBuffer(int bufferSize) {
+		final ArrayList<char[]> buffers = ourPool.get().Buffers.get(bufferSize);
+		if (buffers != null && !buffers.isEmpty()) {
+			return buffers.remove(buffers.size() - 1);
 		}
 		return new char[bufferSize];
 	}
 
-	private static synchronized void storeBuffer(char[] buffer) {
-		Queue<char[]> queue = ourBufferPool.get(buffer.length);
-		if (queue == null) {
-			queue = new LinkedList<char[]>();
-			ourBufferPool.put(buffer.length, queue);
+	private static void storeBuffer(char[] buffer) {
+		final HashMap<Integer,ArrayList<char[]>> pool = ourPool.get().Buffers;
+		ArrayList<char[]> buffers = pool.get(buffer.length);
+		if (buffers == null) {
+			buffers = new ArrayList<char[]>();
+			pool.put(buffer.length, buffers);
 		}
-		queue.add(buffer);
+		buffers.add(buffer);
 	}
 
-	private static synchronized ZLMutableString getMutableString() {
-		ZLMutableString string = ourStringPool.poll();
-		return (string != null) ? string : new ZLMutableString();
+	private static ZLMutableString getMutableString() {
+		final ArrayList<ZLMutableString> strings = ourPool.get().Strings;
+		return strings.isEmpty() ? new ZLMutableString() : strings.remove(strings.size() - 1);
 	}
 
-	private static synchronized void storeString(ZLMutableString string) {
-		ourStringPool.add(string);
+	private static void storeString(ZLMutableString string) {
+		string.clear();
+		ourPool.get().Strings.add(string);
 	}
 
 	private final char[] myBuffer;
@@ -114,6 +119,7 @@ final class ZLXMLParser {
 	void finish() {
 		storeBuffer(myBuffer);
 		storeString(myTagName);
+		storeString(myCData);
 		storeString(myAttributeName);
 		storeString(myAttributeValue);
 		storeString(myEntityName);
@@ -224,8 +230,8 @@ final class ZLXMLParser {
 		final ZLMutableString attributeValue = myAttributeValue;
 		final boolean dontCacheAttributeValues = xmlReader.dontCacheAttributeValues();
 		final ZLMutableString entityName = myEntityName;
-		final Map<ZLMutableString,String> strings = new HashMap<ZLMutableString,String>();
-		final ZLStringMap attributes = new ZLStringMap();
+		final ZLSymbolTable strings = new ZLSymbolTable();
+		final ZLStringMap attributes = new ZLStringMap(dontCacheAttributeValues ? null : strings);
 		String[] tagStack = new String[10];
 		int tagStackSize = 0;
 
@@ -563,11 +569,9 @@ mainSwitchLabel:
 								}
 								currentNamespaceMap.put(aName.substring(6), attributeValue.toString());
 								attributeValue.clear();
-							} else if (dontCacheAttributeValues) {
-								attributes.put(aName, attributeValue.toString());
-								attributeValue.clear();
 							} else {
-								attributes.put(aName, convertToString(strings, attributeValue));
+								attributes.put(aName, attributeValue.myData, 0, attributeValue.myLength);
+								attributeValue.clear();
 							}
 							break;
 						case ATTRIBUTE_VALUE_QUOT:
@@ -48,12 +48,14 @@ public abstract class ZLTextHyphenator {
 	public abstract void unload();
 
 	public ZLTextHyphenationInfo getInfo(final ZLTextWord word) {
-		final int len = word.Length;
+		return getInfo(word.Data, word.Offset, word.Length);
+	}
+
+	public ZLTextHyphenationInfo getInfo(final char[] data, final int offset, final int len) {
 		final boolean[] isLetter = new boolean[len];
 		final char[] pattern = new char[len + 2];
-		final char[] data = word.Data;
 		pattern[0] = ' ';
-		for (int i = 0, j = word.Offset; i < len; ++i, ++j) {
+		for (int i = 0, j = offset; i < len; ++i, ++j) {
 			char character = data[j];
 			if (character == '\'' || character == '^' || Character.isLetter(character)) {
 				isLetter[i] = true;
@@ -67,7 +69,7 @@ public abstract class ZLTextHyphenator {
 		final ZLTextHyphenationInfo info = new ZLTextHyphenationInfo(len + 2);
 		final boolean[] mask = info.Mask;
 		hyphenate(pattern, mask, len + 2);
-		for (int i = 0, j = word.Offset - 1; i <= len; ++i, ++j) {
+		for (int i = 0, j = offset - 1; i <= len; ++i, ++j) {
 			if ((i < 2) || (i > len - 2)) {
 				mask[i] = false;
 			} else {
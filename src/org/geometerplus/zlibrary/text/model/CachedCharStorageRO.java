@@ -28,6 +28,18 @@ public final class CachedCharStorageRO extends CachedCharStorageBase {
 		myArray.addAll(Collections.nCopies(blocksNumber, new WeakReference<char[]>(null)));
 	}
 
+	@Override
+	public synchronized char[] block(int index) {
+		return super.block(index);
+	}
+
+	// the native reader publishes finished blocks only, so known blocks never change
+	synchronized void extend(int blocksNumber) {
+		while (myArray.size() < blocksNumber) {
+			myArray.add(new WeakReference<char[]>(null));
+		}
+	}
+
 	public char[] createNewBlock(int minimumLength) {
 		throw new UnsupportedOperationException("CachedCharStorageRO is a read-only storage.");
 	}
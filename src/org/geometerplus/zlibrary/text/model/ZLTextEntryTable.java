@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.model;
+
+// Decoded non-text entries (ids, images, styles, video) keyed by their
+// encoded chars: equal entries of a model share one decoded object, and
+// a lookup by a char range allocates nothing; the table is cleared
+// when full, since a model has an entry for every distinct hyperlink id
+final class ZLTextEntryTable {
+	private static final int MAX_SIZE = 4096;
+
+	private char[][] myKeys = new char[64][];
+	private Object[] myValues = new Object[64];
+	private int mySize;
+
+	private static int hash(char[] data, int start, int end) {
+		int hash = end - start;
+		for (int i = start; i < end; ++i) {
+			hash = 31 * hash + data[i];
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean equals(char[] key, char[] data, int start, int end) {
+		if (key.length != end - start) {
+			return false;
+		}
+		for (int i = 0; i < key.length; ++i) {
+			if (key[i] != data[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	synchronized Object get(char[] data, int start, int end) {
+		final int mask = myKeys.length - 1;
+		for (int i = hash(data, start, end) & mask; myKeys[i] != null; i = (i + 1) & mask) {
+			if (equals(myKeys[i], data, start, end)) {
+				return myValues[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the value stored for the key before, if any; the given value otherwise
+	 */
+	synchronized Object put(char[] data, int start, int end, Object value) {
+		final Object existing = get(data, start, end);
+		if (existing != null) {
+			return existing;
+		}
+		if (mySize >= MAX_SIZE) {
+			clear();
+		} else if (4 * (mySize + 1) > 3 * myKeys.length) {
+			rehash(myKeys.length << 1);
+		}
+		final char[] key = new char[end - start];
+		System.arraycopy(data, start, key, 0, key.length);
+		insert(key, value);
+		++mySize;
+		return value;
+	}
+
+	synchronized void clear() {
+		myKeys = new char[64][];
+		myValues = new Object[64];
+		mySize = 0;
+	}
+
+	private void insert(char[] key, Object value) {
+		final int mask = myKeys.length - 1;
+		int i = hash(key, 0, key.length) & mask;
+		while (myKeys[i] != null) {
+			i = (i + 1) & mask;
+		}
+		myKeys[i] = key;
+		myValues[i] = value;
+	}
+
+	private void rehash(int capacity) {
+		final char[][] keys = myKeys;
+		final Object[] values = myValues;
+		myKeys = new char[capacity][];
+		myValues = new Object[capacity];
+		for (int i = 0; i < keys.length; ++i) {
+			if (keys[i] != null) {
+				insert(keys[i], values[i]);
+			}
+		}
+	}
+}
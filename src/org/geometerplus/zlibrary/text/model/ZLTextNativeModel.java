@@ -23,6 +23,7 @@ import java.util.Map;
 
 import org.geometerplus.zlibrary.core.fonts.FontManager;
 import org.geometerplus.zlibrary.core.image.ZLImage;
+import org.geometerplus.zlibrary.core.util.ZLArrayUtils;
 
 public class ZLTextNativeModel extends ZLTextPlainModel {
 	public ZLTextNativeModel(
@@ -43,4 +44,52 @@ public class ZLTextNativeModel extends ZLTextPlainModel {
 		);
 		myParagraphsNumber = paragraphsNumber;
 	}
+
+	/**
+	 * Appends paragraphs published by the native reader after the model
+	 * creation; arrays contain the new paragraphs only. Called from
+	 * the reading thread, the model can be in use at the same time.
+	 */
+	public void extend(
+		int paragraphsNumber,
+		int[] entryIndices, int[] entryOffsets,
+		int[] paragraphLengths, int[] textSizes,
+		byte[] paragraphKinds,
+		int blocksNumber
+	) {
+		final int from = myParagraphsNumber;
+		final int count = paragraphsNumber - from;
+
+		int[] startEntryIndices = myStartEntryIndices;
+		int[] startEntryOffsets = myStartEntryOffsets;
+		int[] lengths = myParagraphLengths;
+		int[] sizes = myTextSizes;
+		byte[] kinds = myParagraphKinds;
+		if (paragraphsNumber > startEntryIndices.length) {
+			final int size = Math.max(paragraphsNumber, startEntryIndices.length << 1);
+			startEntryIndices = ZLArrayUtils.createCopy(startEntryIndices, from, size);
+			startEntryOffsets = ZLArrayUtils.createCopy(startEntryOffsets, from, size);
+			lengths = ZLArrayUtils.createCopy(lengths, from, size);
+			sizes = ZLArrayUtils.createCopy(sizes, from, size);
+			kinds = ZLArrayUtils.createCopy(kinds, from, size);
+		}
+		// readers never look beyond myParagraphsNumber,
+		// so the tails can be filled in place
+		System.arraycopy(entryIndices, 0, startEntryIndices, from, count);
+		System.arraycopy(entryOffsets, 0, startEntryOffsets, from, count);
+		System.arraycopy(paragraphLengths, 0, lengths, from, count);
+		System.arraycopy(textSizes, 0, sizes, from, count);
+		System.arraycopy(paragraphKinds, 0, kinds, from, count);
+		myStartEntryIndices = startEntryIndices;
+		myStartEntryOffsets = startEntryOffsets;
+		myParagraphLengths = lengths;
+		myTextSizes = sizes;
+		myParagraphKinds = kinds;
+
+		((CachedCharStorageRO)myStorage).extend(blocksNumber);
+		// font entries registered with the new segment can change
+		// font families of the style entries decoded before
+		myEntryTable.clear();
+		myParagraphsNumber = paragraphsNumber;
+	}
 }
@@ -35,7 +35,9 @@ public class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Feature {
 	protected int[] myTextSizes;
 	protected byte[] myParagraphKinds;
 
-	protected int myParagraphsNumber;
+	// volatile: a native model can be extended while it is being shown;
+	// the arrays are always assigned before the number is increased
+	protected volatile int myParagraphsNumber;
 
 	protected final CharStorage myStorage;
 	protected final Map<String,ZLImage> myImageMap;
@@ -43,6 +45,8 @@ public class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Feature {
 	private ArrayList<ZLTextMark> myMarks;
 
 	private final FontManager myFontManager;
+	// shared decoded non-text entries, see EntryIteratorImpl
+	final ZLTextEntryTable myEntryTable = new ZLTextEntryTable();
 
 	final class EntryIteratorImpl implements ZLTextParagraph.EntryIterator {
 		private int myCounter;
@@ -62,16 +66,14 @@ public class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Feature {
 		private boolean myControlIsStart;
 		// HyperlinkControlEntry data
 		private byte myHyperlinkType;
-		private String myHyperlinkId;
 
-		// ImageEntry
-		private ZLImageEntry myImageEntry;
-
-		// VideoEntry
-		private ZLVideoEntry myVideoEntry;
-
-		// StyleEntry
-		private ZLTextStyleEntry myStyleEntry;
+		// HyperlinkControlEntry, ImageEntry, StyleEntry, VideoEntry:
+		// encoded chars (including the type) are only located by next(),
+		// decoded objects are taken from myEntryTable on demand
+		private char[] myEntryData;
+		private int myEntryStart;
+		private int myEntryEnd;
+		private Object myDecodedEntry;
 
 		// FixedHSpaceEntry data
 		private short myFixedHSpaceLength;
@@ -111,25 +113,108 @@ public class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Feature {
 			return myHyperlinkType;
 		}
 		public String getHyperlinkId() {
-			return myHyperlinkId;
+			return myType == ZLTextParagraph.Entry.HYPERLINK_CONTROL ? (String)decodedEntry() : null;
 		}
 
 		public ZLImageEntry getImageEntry() {
-			return myImageEntry;
+			return myType == ZLTextParagraph.Entry.IMAGE ? (ZLImageEntry)decodedEntry() : null;
 		}
 
 		public ZLVideoEntry getVideoEntry() {
-			return myVideoEntry;
+			return myType == ZLTextParagraph.Entry.VIDEO ? (ZLVideoEntry)decodedEntry() : null;
 		}
 
 		public ZLTextStyleEntry getStyleEntry() {
-			return myStyleEntry;
+			return
+				myType == ZLTextParagraph.Entry.STYLE_CSS ||
+				myType == ZLTextParagraph.Entry.STYLE_OTHER
+					? (ZLTextStyleEntry)decodedEntry() : null;
 		}
 
 		public short getFixedHSpaceLength() {
 			return myFixedHSpaceLength;
 		}
 
+		private Object decodedEntry() {
+			if (myDecodedEntry == null) {
+				final char[] data = myEntryData;
+				Object entry = myEntryTable.get(data, myEntryStart, myEntryEnd);
+				if (entry == null) {
+					entry = myEntryTable.put(data, myEntryStart, myEntryEnd, decodeEntry());
+				}
+				myDecodedEntry = entry;
+			}
+			return myDecodedEntry;
+		}
+
+		private Object decodeEntry() {
+			final char[] data = myEntryData;
+			int dataOffset = myEntryStart + 1;
+			switch (myType) {
+				case ZLTextParagraph.Entry.HYPERLINK_CONTROL:
+				{
+					++dataOffset;
+					final short labelLength = (short)data[dataOffset++];
+					return new String(data, dataOffset, labelLength);
+				}
+				case ZLTextParagraph.Entry.IMAGE:
+				{
+					final short vOffset = (short)data[dataOffset++];
+					final short len = (short)data[dataOffset++];
+					final String id = new String(data, dataOffset, len);
+					dataOffset += len;
+					final boolean isCover = data[dataOffset++] != 0;
+					return new ZLImageEntry(myImageMap, id, vOffset, isCover);
+				}
+				case ZLTextParagraph.Entry.STYLE_CSS:
+				case ZLTextParagraph.Entry.STYLE_OTHER:
+				{
+					final ZLTextStyleEntry entry =
+						myType == ZLTextParagraph.Entry.STYLE_CSS
+							? new ZLTextCSSStyleEntry()
+							: new ZLTextOtherStyleEntry();
+
+					final short mask = (short)data[dataOffset++];
+					for (int i = 0; i < NUMBER_OF_LENGTHS; ++i) {
+						if (ZLTextStyleEntry.isFeatureSupported(mask, i)) {
+							final short size = (short)data[dataOffset++];
+							final byte unit = (byte)data[dataOffset++];
+							entry.setLength(i, size, unit);
+						}
+					}
+					if (ZLTextStyleEntry.isFeatureSupported(mask, ALIGNMENT_TYPE)) {
+						final short value = (short)data[dataOffset++];
+						entry.setAlignmentType((byte)(value & 0xFF));
+					}
+					if (ZLTextStyleEntry.isFeatureSupported(mask, FONT_FAMILY)) {
+						entry.setFontFamilies(myFontManager, (short)data[dataOffset++]);
+					}
+					if (ZLTextStyleEntry.isFeatureSupported(mask, FONT_STYLE_MODIFIER)) {
+						final short value = (short)data[dataOffset++];
+						entry.setFontModifiers((byte)(value & 0xFF), (byte)((value >> 8) & 0xFF));
+					}
+					return entry;
+				}
+				case ZLTextParagraph.Entry.VIDEO:
+				{
+					final ZLVideoEntry entry = new ZLVideoEntry();
+					final short mapSize = (short)data[dataOffset++];
+					for (short i = 0; i < mapSize; ++i) {
+						short len = (short)data[dataOffset++];
+						final String mime = new String(data, dataOffset, len);
+						dataOffset += len;
+						len = (short)data[dataOffset++];
+						final String src = new String(data, dataOffset, len);
+						dataOffset += len;
+						entry.addSource(mime, src);
+					}
+					return entry;
+				}
+				default:
+					return null;
+			}
+		}
+
 		public boolean next() {
 			if (myCounter >= myLength) {
 				return false;
@@ -157,6 +242,9 @@ public class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Feature {
 				type = (byte)data[0];
 			}
 			myType = type;
+			myEntryData = data;
+			myEntryStart = dataOffset;
+			myDecodedEntry = null;
 			++dataOffset;
 			switch (type) {
 				case ZLTextParagraph.Entry.TEXT:
@@ -185,18 +273,14 @@ public class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Feature {
 					myControlIsStart = true;
 					myHyperlinkType = (byte)(kind >> 8);
 					final short labelLength = (short)data[dataOffset++];
-					myHyperlinkId = new String(data, dataOffset, labelLength);
 					dataOffset += labelLength;
 					break;
 				}
 				case ZLTextParagraph.Entry.IMAGE:
 				{
-					final short vOffset = (short)data[dataOffset++];
+					++dataOffset;
 					final short len = (short)data[dataOffset++];
-					final String id = new String(data, dataOffset, len);
-					dataOffset += len;
-					final boolean isCover = data[dataOffset++] != 0;
-					myImageEntry = new ZLImageEntry(myImageMap, id, vOffset, isCover);
+					dataOffset += len + 1;
 					break;
 				}
 				case ZLTextParagraph.Entry.FIXED_HSPACE:
@@ -205,32 +289,22 @@ public class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Feature {
 				case ZLTextParagraph.Entry.STYLE_CSS:
 				case ZLTextParagraph.Entry.STYLE_OTHER:
 				{
-					final ZLTextStyleEntry entry =
-						type == ZLTextParagraph.Entry.STYLE_CSS
-							? new ZLTextCSSStyleEntry()
-							: new ZLTextOtherStyleEntry();
-
 					final short mask = (short)data[dataOffset++];
 					for (int i = 0; i < NUMBER_OF_LENGTHS; ++i) {
 						if (ZLTextStyleEntry.isFeatureSupported(mask, i)) {
-							final short size = (short)data[dataOffset++];
-							final byte unit = (byte)data[dataOffset++];
-							entry.setLength(i, size, unit);
+							dataOffset += 2;
 						}
 					}
 					if (ZLTextStyleEntry.isFeatureSupported(mask, ALIGNMENT_TYPE)) {
-						final short value = (short)data[dataOffset++];
-						entry.setAlignmentType((byte)(value & 0xFF));
+						++dataOffset;
 					}
 					if (ZLTextStyleEntry.isFeatureSupported(mask, FONT_FAMILY)) {
-						entry.setFontFamilies(myFontManager, (short)data[dataOffset++]);
+						++dataOffset;
 					}
 					if (ZLTextStyleEntry.isFeatureSupported(mask, FONT_STYLE_MODIFIER)) {
-						final short value = (short)data[dataOffset++];
-						entry.setFontModifiers((byte)(value & 0xFF), (byte)((value >> 8) & 0xFF));
+						++dataOffset;
 					}
-
-					myStyleEntry = entry;
+					break;
 				}
 				case ZLTextParagraph.Entry.STYLE_CLOSE:
 					// No data
@@ -243,20 +317,15 @@ public class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Feature {
 					break;
 				case ZLTextParagraph.Entry.VIDEO:
 				{
-					myVideoEntry = new ZLVideoEntry();
 					final short mapSize = (short)data[dataOffset++];
-					for (short i = 0; i < mapSize; ++i) {
-						short len = (short)data[dataOffset++];
-						final String mime = new String(data, dataOffset, len);
-						dataOffset += len;
-						len = (short)data[dataOffset++];
-						final String src = new String(data, dataOffset, len);
+					for (short i = 0; i < 2 * mapSize; ++i) {
+						final short len = (short)data[dataOffset++];
 						dataOffset += len;
-						myVideoEntry.addSource(mime, src);
 					}
 					break;
 				}
 			}
+			myEntryEnd = dataOffset;
 			++myCounter;
 			myDataOffset = dataOffset;
 			return true;
@@ -29,6 +29,7 @@ final class ZLTextElementArea extends ZLTextFixedPosition {
 	final boolean AddHyphenationSign;
 	final boolean ChangeStyle;
 	final ZLTextStyle Style;
+	// null for words: they are read from the paragraph cursor
 	final ZLTextElement Element;
 
 	private final boolean myIsLastInElement;
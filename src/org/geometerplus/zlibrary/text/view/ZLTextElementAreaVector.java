@@ -27,8 +27,10 @@ final class ZLTextElementAreaVector {
 	private final List<ZLTextRegion> myElementRegions =
 		Collections.synchronizedList(new ArrayList<ZLTextRegion>());
 	private ZLTextRegion myCurrentElementRegion;
+	private volatile Index myIndex;
 
 	void clear() {
+		myIndex = null;
 		myElementRegions.clear();
 		myCurrentElementRegion = null;
 		myAreas.clear();
@@ -55,8 +57,9 @@ final class ZLTextElementAreaVector {
 		}
 	}
 
-	public boolean add(ZLTextElementArea area) {
+	public boolean add(ZLTextElementArea area, ZLTextParagraphCursor paragraph) {
 		synchronized (myAreas) {
+			myIndex = null;
 			if (myCurrentElementRegion != null
 				&& myCurrentElementRegion.getSoul().accepts(area)) {
 				myCurrentElementRegion.extend();
@@ -69,8 +72,8 @@ final class ZLTextElementAreaVector {
 					soul = new ZLTextImageRegionSoul(area, (ZLTextImageElement)area.Element);
 				} else if (area.Element instanceof ZLTextVideoElement) {
 					soul = new ZLTextVideoRegionSoul(area, (ZLTextVideoElement)area.Element);
-				} else if (area.Element instanceof ZLTextWord && !((ZLTextWord)area.Element).isASpace()) {
-					soul = new ZLTextWordRegionSoul(area, (ZLTextWord)area.Element);
+				} else if (area.Element == null && !paragraph.isWordASpace(area.ElementIndex)) {
+					soul = new ZLTextWordRegionSoul(area, paragraph);
 				}
 				if (soul != null) {
 					myCurrentElementRegion = new ZLTextRegion(soul, myAreas, myAreas.size());
@@ -83,175 +86,372 @@ final class ZLTextElementAreaVector {
 		}
 	}
 
+	private Index index() {
+		Index index = myIndex;
+		if (index == null) {
+			synchronized (myAreas) {
+				index = myIndex;
+				if (index == null) {
+					synchronized (myElementRegions) {
+						index = new Index(
+							myAreas.toArray(new ZLTextElementArea[myAreas.size()]),
+							myElementRegions.toArray(new ZLTextRegion[myElementRegions.size()])
+						);
+					}
+					myIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	// called when the page layout is complete; builds the index
+	// before the first query, queries after that take no lock
+	void buildIndex() {
+		index();
+	}
+
 	ZLTextElementArea getFirstAfter(ZLTextPosition position) {
 		if (position == null) {
 			return null;
 		}
-		synchronized (myAreas) {
-			for (ZLTextElementArea area : myAreas) {
-				if (position.compareTo(area) <= 0) {
-					return area;
-				}
+		final ZLTextElementArea[] areas = index().Areas;
+		int left = 0;
+		int right = areas.length;
+		while (left < right) {
+			final int middle = (left + right) >>> 1;
+			if (position.compareTo(areas[middle]) <= 0) {
+				right = middle;
+			} else {
+				left = middle + 1;
 			}
 		}
-		return null;
+		return left < areas.length ? areas[left] : null;
 	}
 
 	ZLTextElementArea getLastBefore(ZLTextPosition position) {
 		if (position == null) {
 			return null;
 		}
-		synchronized (myAreas) {
-			for (int i = myAreas.size() - 1; i >= 0; --i) {
-				final ZLTextElementArea area = myAreas.get(i);
-				if (position.compareTo(area) > 0) {
-					return area;
-				}
+		final ZLTextElementArea[] areas = index().Areas;
+		int left = 0;
+		int right = areas.length;
+		while (left < right) {
+			final int middle = (left + right) >>> 1;
+			if (position.compareTo(areas[middle]) > 0) {
+				left = middle + 1;
+			} else {
+				right = middle;
 			}
 		}
-		return null;
+		return left > 0 ? areas[left - 1] : null;
 	}
 
 	ZLTextElementArea binarySearch(int x, int y) {
-		synchronized (myAreas) {
-			int left = 0;
-			int right = myAreas.size();
-			while (left < right) {
-				final int middle = (left + right) / 2;
-				final ZLTextElementArea candidate = myAreas.get(middle);
-				if (candidate.YStart > y) {
-					right = middle;
-				} else if (candidate.YEnd < y) {
-					left = middle + 1;
-				} else if (candidate.XStart > x) {
-					right = middle;
-				} else if (candidate.XEnd < x) {
-					left = middle + 1;
-				} else {
-					return candidate;
-				}
-			}
-			return null;
-		}
+		return index().areaAt(x, y);
 	}
 
 	ZLTextRegion getRegion(ZLTextRegion.Soul soul) {
 		if (soul == null) {
 			return null;
 		}
-		synchronized (myElementRegions) {
-			for (ZLTextRegion region : myElementRegions) {
-				if (soul.equals(region.getSoul())) {
-					return region;
-				}
-			}
-		}
-		return null;
+		final Index index = index();
+		final int position = index.find(soul);
+		return position != -1 ? index.Regions[position] : null;
 	}
 
 	ZLTextRegion findRegion(int x, int y, int maxDistance, ZLTextRegion.Filter filter) {
-		ZLTextRegion bestRegion = null;
-		int distance = maxDistance + 1;
-		synchronized (myElementRegions) {
-			for (ZLTextRegion region : myElementRegions) {
-				if (filter.accepts(region)) {
-					final int d = region.distanceTo(x, y);
-					if (d < distance) {
-						bestRegion = region;
-						distance = d;
+		return index().findRegion(x, y, maxDistance, filter);
+	}
+
+	protected ZLTextRegion nextRegion(ZLTextRegion currentRegion, ZLTextView.Direction direction, ZLTextRegion.Filter filter) {
+		final Index snapshot = index();
+		final ZLTextRegion[] regions = snapshot.Regions;
+		if (regions.length == 0) {
+			return null;
+		}
+
+		int index = currentRegion != null ? snapshot.indexOf(currentRegion) : -1;
+
+		switch (direction) {
+			case rightToLeft:
+			case up:
+				if (index == -1) {
+					index = regions.length - 1;
+				} else if (index == 0) {
+					return null;
+				} else {
+					--index;
+				}
+				break;
+			case leftToRight:
+			case down:
+				if (index == regions.length - 1) {
+					return null;
+				} else {
+					++index;
+				}
+				break;
+		}
+
+		switch (direction) {
+			case rightToLeft:
+				for (; index >= 0; --index) {
+					final ZLTextRegion candidate = regions[index];
+					if (filter.accepts(candidate) && candidate.isAtLeftOf(currentRegion)) {
+						return candidate;
+					}
+				}
+				break;
+			case leftToRight:
+				for (; index < regions.length; ++index) {
+					final ZLTextRegion candidate = regions[index];
+					if (filter.accepts(candidate) && candidate.isAtRightOf(currentRegion)) {
+						return candidate;
+					}
+				}
+				break;
+			case down:
+			{
+				ZLTextRegion firstCandidate = null;
+				for (; index < regions.length; ++index) {
+					final ZLTextRegion candidate = regions[index];
+					if (!filter.accepts(candidate)) {
+						continue;
+					}
+					if (candidate.isExactlyUnder(currentRegion)) {
+						return candidate;
+					}
+					if (firstCandidate == null && candidate.isUnder(currentRegion)) {
+						firstCandidate = candidate;
 					}
 				}
+				if (firstCandidate != null) {
+					return firstCandidate;
+				}
+				break;
 			}
+			case up:
+				ZLTextRegion firstCandidate = null;
+				for (; index >= 0; --index) {
+					final ZLTextRegion candidate = regions[index];
+					if (!filter.accepts(candidate)) {
+						continue;
+					}
+					if (candidate.isExactlyOver(currentRegion)) {
+						return candidate;
+					}
+					if (firstCandidate == null && candidate.isOver(currentRegion)) {
+						firstCandidate = candidate;
+					}
+				}
+				if (firstCandidate != null) {
+					return firstCandidate;
+				}
+				break;
 		}
-		return bestRegion;
+		return null;
 	}
 
-	protected ZLTextRegion nextRegion(ZLTextRegion currentRegion, ZLTextView.Direction direction, ZLTextRegion.Filter filter) {
-		synchronized (myElementRegions) {
-			if (myElementRegions.isEmpty()) {
-				return null;
+	// Immutable snapshot of the page areas and regions. Areas are grouped into
+	// runs with increasing XStart (normally, the text lines); runs and regions
+	// are searched by their vertical extents, areas in a run by x.
+	private static final class Index {
+		final ZLTextElementArea[] Areas;
+		final ZLTextRegion[] Regions;
+
+		// run i covers Areas[myRunStarts[i] .. myRunStarts[i + 1] - 1]
+		private final int[] myRunStarts;
+		private final Intervals myRuns;
+
+		private final int[] myRegionLefts;
+		private final int[] myRegionRights;
+		private final Intervals myRegionsByY;
+
+		Index(ZLTextElementArea[] areas, ZLTextRegion[] regions) {
+			Areas = areas;
+			Regions = regions;
+
+			int runsNumber = 0;
+			final int[] runStarts = new int[areas.length + 1];
+			for (int i = 0; i < areas.length; ++i) {
+				if (i == 0 || areas[i].XStart <= areas[i - 1].XStart) {
+					runStarts[runsNumber++] = i;
+				}
+			}
+			runStarts[runsNumber] = areas.length;
+			myRunStarts = runStarts;
+			final int[] runTops = new int[runsNumber];
+			final int[] runBottoms = new int[runsNumber];
+			for (int i = 0; i < runsNumber; ++i) {
+				int top = Integer.MAX_VALUE;
+				int bottom = Integer.MIN_VALUE;
+				for (int j = runStarts[i]; j < runStarts[i + 1]; ++j) {
+					top = Math.min(top, areas[j].YStart);
+					bottom = Math.max(bottom, areas[j].YEnd);
+				}
+				runTops[i] = top;
+				runBottoms[i] = bottom;
 			}
+			myRuns = new Intervals(runTops, runBottoms);
 
-			int index = currentRegion != null ? myElementRegions.indexOf(currentRegion) : -1;
+			myRegionLefts = new int[regions.length];
+			myRegionRights = new int[regions.length];
+			final int[] regionTops = new int[regions.length];
+			final int[] regionBottoms = new int[regions.length];
+			for (int i = 0; i < regions.length; ++i) {
+				int left = Integer.MAX_VALUE;
+				int right = Integer.MIN_VALUE;
+				int top = Integer.MAX_VALUE;
+				int bottom = Integer.MIN_VALUE;
+				for (ZLTextElementArea area : regions[i].textAreas()) {
+					left = Math.min(left, area.XStart);
+					right = Math.max(right, area.XEnd);
+					top = Math.min(top, area.YStart);
+					bottom = Math.max(bottom, area.YEnd);
+				}
+				myRegionLefts[i] = left;
+				myRegionRights[i] = right;
+				regionTops[i] = top;
+				regionBottoms[i] = bottom;
+			}
+			myRegionsByY = new Intervals(regionTops, regionBottoms);
+		}
 
-			switch (direction) {
-				case rightToLeft:
-				case up:
-					if (index == -1) {
-						index = myElementRegions.size() - 1;
-					} else if (index == 0) {
-						return null;
+		ZLTextElementArea areaAt(int x, int y) {
+			for (int i = myRuns.lastStartingAt(y); i >= 0 && myRuns.MaxBottoms[i] >= y; --i) {
+				final int run = myRuns.Order[i];
+				if (myRuns.Bottoms[run] < y) {
+					continue;
+				}
+				int left = myRunStarts[run];
+				int right = myRunStarts[run + 1];
+				while (left < right) {
+					final int middle = (left + right) >>> 1;
+					if (Areas[middle].XStart > x) {
+						right = middle;
 					} else {
-						--index;
+						left = middle + 1;
 					}
-					break;
-				case leftToRight:
-				case down:
-					if (index == myElementRegions.size() - 1) {
-						return null;
-					} else {
-						++index;
+				}
+				// neighbour areas can share a boundary pixel
+				for (int j = left - 1; j >= Math.max(left - 2, myRunStarts[run]); --j) {
+					if (Areas[j].contains(x, y)) {
+						return Areas[j];
 					}
-					break;
+				}
 			}
+			return null;
+		}
 
-			switch (direction) {
-				case rightToLeft:
-					for (; index >= 0; --index) {
-						final ZLTextRegion candidate = myElementRegions.get(index);
-						if (filter.accepts(candidate) && candidate.isAtLeftOf(currentRegion)) {
-							return candidate;
-						}
-					}
-					break;
-				case leftToRight:
-					for (; index < myElementRegions.size(); ++index) {
-						final ZLTextRegion candidate = myElementRegions.get(index);
-						if (filter.accepts(candidate) && candidate.isAtRightOf(currentRegion)) {
-							return candidate;
-						}
-					}
-					break;
-				case down:
-				{
-					ZLTextRegion firstCandidate = null;
-					for (; index < myElementRegions.size(); ++index) {
-						final ZLTextRegion candidate = myElementRegions.get(index);
-						if (!filter.accepts(candidate)) {
-							continue;
-						}
-						if (candidate.isExactlyUnder(currentRegion)) {
-							return candidate;
-						}
-						if (firstCandidate == null && candidate.isUnder(currentRegion)) {
-							firstCandidate = candidate;
-						}
-					}
-					if (firstCandidate != null) {
-						return firstCandidate;
-					}
-					break;
+		int find(ZLTextRegion.Soul soul) {
+			int left = 0;
+			int right = Regions.length;
+			while (left < right) {
+				final int middle = (left + right) >>> 1;
+				final ZLTextRegion.Soul candidate = Regions[middle].getSoul();
+				final int diff = candidate.compareTo(soul);
+				if (diff < 0) {
+					left = middle + 1;
+				} else if (diff > 0) {
+					right = middle;
+				} else {
+					return soul.equals(candidate) ? middle : -1;
 				}
-				case up:
-					ZLTextRegion firstCandidate = null;
-					for (; index >= 0; --index) {
-						final ZLTextRegion candidate = myElementRegions.get(index);
-						if (!filter.accepts(candidate)) {
-							continue;
-						}
-						if (candidate.isExactlyOver(currentRegion)) {
-							return candidate;
-						}
-						if (firstCandidate == null && candidate.isOver(currentRegion)) {
-							firstCandidate = candidate;
-						}
-					}
-					if (firstCandidate != null) {
-						return firstCandidate;
-					}
-					break;
 			}
+			return -1;
+		}
+
+		int indexOf(ZLTextRegion region) {
+			final int position = find(region.getSoul());
+			return position != -1 && Regions[position] == region ? position : -1;
+		}
+
+		ZLTextRegion findRegion(int x, int y, int maxDistance, ZLTextRegion.Filter filter) {
+			// the distance to a region is not less than the distance to its
+			// bounding box; so the nearest region within a radius is the nearest
+			// one at all, and the radius grows until something is found
+			for (int radius = Math.min(32, maxDistance); ; radius = (int)Math.min(2L * radius, maxDistance)) {
+				final int index = nearestRegion(x, y, radius, filter);
+				if (index != -1) {
+					return Regions[index];
+				}
+				if (radius >= maxDistance) {
+					return null;
+				}
+			}
+		}
+
+		private int nearestRegion(int x, int y, int radius, ZLTextRegion.Filter filter) {
+			final int yMin = (int)Math.max((long)y - radius, Integer.MIN_VALUE);
+			final int yMax = (int)Math.min((long)y + radius, Integer.MAX_VALUE);
+			int best = -1;
+			int distance = radius + 1;
+			for (int i = myRegionsByY.lastStartingAt(yMax); i >= 0 && myRegionsByY.MaxBottoms[i] >= yMin; --i) {
+				final int index = myRegionsByY.Order[i];
+				if (myRegionsByY.Bottoms[index] < yMin ||
+					(long)myRegionLefts[index] - x > radius ||
+					(long)x - myRegionRights[index] > radius) {
+					continue;
+				}
+				final ZLTextRegion region = Regions[index];
+				if (!filter.accepts(region)) {
+					continue;
+				}
+				final int d = region.distanceTo(x, y);
+				// the first region in the text order wins if distances are equal
+				if (d < distance || (d == distance && index < best)) {
+					best = index;
+					distance = d;
+				}
+			}
+			return best;
+		}
+	}
+
+	// Vertical extents sorted by top, with running maximum of bottoms:
+	// the intervals containing y are found by a binary search and a short
+	// backward walk, also when the extents overlap (e.g., for two columns)
+	private static final class Intervals {
+		final int[] Bottoms;
+		final int[] Order;
+		final int[] MaxBottoms;
+		private final int[] mySortedTops;
+
+		Intervals(int[] tops, int[] bottoms) {
+			final int size = tops.length;
+			Bottoms = bottoms;
+			final long[] keys = new long[size];
+			for (int i = 0; i < size; ++i) {
+				keys[i] = ((long)tops[i] << 32) | i;
+			}
+			Arrays.sort(keys);
+			Order = new int[size];
+			MaxBottoms = new int[size];
+			mySortedTops = new int[size];
+			int maxBottom = Integer.MIN_VALUE;
+			for (int i = 0; i < size; ++i) {
+				final int index = (int)keys[i];
+				Order[i] = index;
+				mySortedTops[i] = tops[index];
+				maxBottom = Math.max(maxBottom, bottoms[index]);
+				MaxBottoms[i] = maxBottom;
+			}
+		}
+
+		// position (in Order) of the last interval with top <= y, -1 if none
+		int lastStartingAt(int y) {
+			int left = 0;
+			int right = mySortedTops.length;
+			while (left < right) {
+				final int middle = (left + right) >>> 1;
+				if (mySortedTops[middle] > y) {
+					right = middle;
+				} else {
+					left = middle + 1;
+				}
+			}
+			return left - 1;
 		}
-		return null;
 	}
 }
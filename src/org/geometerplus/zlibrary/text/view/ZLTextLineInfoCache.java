@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+
+package org.geometerplus.zlibrary.text.view;
+
+import java.util.*;
+
+/**
+ * Line infos split into partitions by layout signature (text area size, base style
+ * and font settings). Lines are evicted in LRU order; the total number of lines
+ * kept in all partitions is limited by MAX_LINES, and only MAX_PARTITIONS least
+ * recently used layouts are kept at all.
+ *
+ * Line infos are matched by paragraph cursor identity, so every partition keeps
+ * the cursors its lines were built for; these cursors are registered in the
+ * paragraph cursor cache again when the partition becomes active.
+ */
+final class ZLTextLineInfoCache {
+	private static final int MAX_PARTITIONS = 4;
+	private static final int MAX_LINES = 4096;
+
+	private static final class Partition {
+		final String Signature;
+		final LinkedHashMap<ZLTextLineInfo,ZLTextLineInfo> Infos =
+			new LinkedHashMap<ZLTextLineInfo,ZLTextLineInfo>(256, .75f, true);
+
+		Partition(String signature) {
+			Signature = signature;
+		}
+	}
+
+	// access-ordered: the least recently used partition comes first
+	private final LinkedHashMap<String,Partition> myPartitions =
+		new LinkedHashMap<String,Partition>(MAX_PARTITIONS * 2, .75f, true);
+	private Partition myCurrent;
+	private int mySize;
+
+	String signature() {
+		return myCurrent != null ? myCurrent.Signature : null;
+	}
+
+	/**
+	 * Makes the partition for given signature current.
+	 * @return true if the current partition has been changed
+	 */
+	boolean activate(String signature) {
+		if (myCurrent != null && myCurrent.Signature.equals(signature)) {
+			return false;
+		}
+
+		Partition partition = myPartitions.get(signature);
+		if (partition == null) {
+			partition = new Partition(signature);
+			myPartitions.put(signature, partition);
+			if (myPartitions.size() > MAX_PARTITIONS) {
+				final Iterator<Partition> it = myPartitions.values().iterator();
+				mySize -= it.next().Infos.size();
+				it.remove();
+			}
+		} else {
+			for (ZLTextLineInfo info : partition.Infos.keySet()) {
+				final ZLTextParagraphCursor cursor = info.ParagraphCursor;
+				ZLTextParagraphCursorCache.put(cursor.Model, cursor.Index, cursor);
+			}
+		}
+		myCurrent = partition;
+		return true;
+	}
+
+	ZLTextLineInfo get(ZLTextLineInfo info) {
+		return myCurrent != null ? myCurrent.Infos.get(info) : null;
+	}
+
+	void put(ZLTextLineInfo info) {
+		if (myCurrent == null) {
+			return;
+		}
+		if (myCurrent.Infos.put(info, info) == null) {
+			++mySize;
+			if (mySize > MAX_LINES) {
+				evict();
+			}
+		}
+	}
+
+	// drops the least recently used lines, starting from the least recently used partition
+	private void evict() {
+		final int target = MAX_LINES * 3 / 4;
+		for (Iterator<Partition> pit = myPartitions.values().iterator(); pit.hasNext(); ) {
+			final Partition partition = pit.next();
+			final Iterator<ZLTextLineInfo> it = partition.Infos.keySet().iterator();
+			while (mySize > target && it.hasNext()) {
+				it.next();
+				it.remove();
+				--mySize;
+			}
+			if (partition.Infos.isEmpty() && partition != myCurrent) {
+				pit.remove();
+			}
+			if (mySize <= target) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Drops lines of all the partitions
+	 */
+	void clear() {
+		myPartitions.clear();
+		myCurrent = null;
+		mySize = 0;
+	}
+}
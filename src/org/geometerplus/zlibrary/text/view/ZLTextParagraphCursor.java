@@ -24,22 +24,24 @@ import org.vimgadgets.linebreak.LineBreaker;
 
 import org.geometerplus.zlibrary.core.image.*;
 import org.geometerplus.zlibrary.core.resources.ZLResource;
+import org.geometerplus.zlibrary.core.util.ZLArrayUtils;
+import org.geometerplus.zlibrary.core.view.ZLPaintContext;
 import org.geometerplus.zlibrary.text.model.*;
 
 public final class ZLTextParagraphCursor {
 	private static final class Processor {
 		private final ZLTextParagraph myParagraph;
 		private final LineBreaker myLineBreaker;
-		private final ArrayList<ZLTextElement> myElements;
+		private final Storage myStorage;
 		private int myOffset;
 		private int myFirstMark;
 		private int myLastMark;
 		private final List<ZLTextMark> myMarks;
 
-		private Processor(ZLTextParagraph paragraph, LineBreaker lineBreaker, List<ZLTextMark> marks, int paragraphIndex, ArrayList<ZLTextElement> elements) {
+		private Processor(ZLTextParagraph paragraph, LineBreaker lineBreaker, List<ZLTextMark> marks, int paragraphIndex, Storage storage) {
 			myParagraph = paragraph;
 			myLineBreaker = lineBreaker;
-			myElements = elements;
+			myStorage = storage;
 			myMarks = marks;
 			final ZLTextMark mark = new ZLTextMark(paragraphIndex, 0, 0);
 			int i;
@@ -58,7 +60,7 @@ public final class ZLTextParagraphCursor {
 			int hyperlinkDepth = 0;
 			ZLTextHyperlink hyperlink = null;
 
-			final ArrayList<ZLTextElement> elements = myElements;
+			final Storage elements = myStorage;
 			for (ZLTextParagraph.EntryIterator it = myParagraph.iterator(); it.next(); ) {
 				switch (it.getType()) {
 					case ZLTextParagraph.Entry.TEXT:
@@ -71,7 +73,7 @@ public final class ZLTextParagraphCursor {
 								hyperlink = null;
 							}
 						}
-						elements.add(ZLTextControlElement.get(it.getControlKind(), it.getControlIsStart()));
+						elements.add(ZLTextControlElement.get(it.getControlKind(), it.getControlIsStart()), myOffset);
 						break;
 					case ZLTextParagraph.Entry.HYPERLINK_CONTROL:
 					{
@@ -81,7 +83,7 @@ public final class ZLTextParagraphCursor {
 								new ZLTextHyperlinkControlElement(
 									it.getControlKind(), hyperlinkType, it.getHyperlinkId()
 								);
-							elements.add(control);
+							elements.add(control, myOffset);
 							hyperlink = control.Hyperlink;
 							hyperlinkDepth = 1;
 						}
@@ -94,29 +96,30 @@ public final class ZLTextParagraphCursor {
 							ZLImageData data = ZLImageManager.Instance().getImageData(image);
 							if (data != null) {
 								if (hyperlink != null) {
-									hyperlink.addElementIndex(elements.size());
+									hyperlink.addElementIndex(elements.Size);
 								}
-								elements.add(new ZLTextImageElement(imageEntry.Id, data, image.getURI(), imageEntry.IsCover));
+								elements.add(new ZLTextImageElement(imageEntry.Id, data, image.getURI(), imageEntry.IsCover), myOffset);
 							}
 						}
 						break;
 					case ZLTextParagraph.Entry.AUDIO:
 						break;
 					case ZLTextParagraph.Entry.VIDEO:
-						elements.add(new ZLTextVideoElement(it.getVideoEntry().sources()));
+						elements.add(new ZLTextVideoElement(it.getVideoEntry().sources()), myOffset);
 						break;
 					case ZLTextParagraph.Entry.STYLE_CSS:
 					case ZLTextParagraph.Entry.STYLE_OTHER:
-						elements.add(new ZLTextStyleElement(it.getStyleEntry()));
+						elements.add(new ZLTextStyleElement(it.getStyleEntry()), myOffset);
 						break;
 					case ZLTextParagraph.Entry.STYLE_CLOSE:
-						elements.add(ZLTextElement.StyleClose);
+						elements.add(ZLTextElement.StyleClose, myOffset);
 						break;
 					case ZLTextParagraph.Entry.FIXED_HSPACE:
-						elements.add(ZLTextFixedHSpaceElement.getElement(it.getFixedHSpaceLength()));
+						elements.add(ZLTextFixedHSpaceElement.getElement(it.getFixedHSpaceLength()), myOffset);
 						break;
 				}
 			}
+			elements.TextLength = myOffset;
 		}
 
 		private static byte[] ourBreaks = new byte[1024];
@@ -132,17 +135,21 @@ public final class ZLTextParagraphCursor {
 				myLineBreaker.setLineBreaks(data, offset, length, breaks);
 
 				final ZLTextElement hSpace = ZLTextElement.HSpace;
-				final ArrayList<ZLTextElement> elements = myElements;
+				final Storage elements = myStorage;
 				char ch = 0;
 				char previousChar = 0;
 				int spaceState = NO_SPACE;
 				int wordStart = 0;
+				int spaceStart = 0;
 				for (int index = 0; index < length; ++index) {
 					previousChar = ch;
 					ch = data[offset + index];
 					if (Character.isSpace(ch)) {
-						if (index > 0 && spaceState == NO_SPACE) {
-							addWord(data, offset + wordStart, index - wordStart, myOffset + wordStart, hyperlink);
+						if (spaceState == NO_SPACE) {
+							if (index > 0) {
+								addWord(data, offset + wordStart, index - wordStart, myOffset + wordStart, hyperlink);
+							}
+							spaceStart = index;
 						}
 						spaceState = SPACE;
 					} else {
@@ -150,7 +157,7 @@ public final class ZLTextParagraphCursor {
 							case SPACE:
 								//if (breaks[index - 1] == LineBreak.NOBREAK || previousChar == '-') {
 								//}
-								elements.add(hSpace);
+								elements.add(hSpace, myOffset + spaceStart);
 								wordStart = index;
 								break;
 							//case NON_BREAKABLE_SPACE:
@@ -170,7 +177,7 @@ public final class ZLTextParagraphCursor {
 				}
 				switch (spaceState) {
 					case SPACE:
-						elements.add(hSpace);
+						elements.add(hSpace, myOffset + spaceStart);
 						break;
 					//case NON_BREAKABLE_SPACE:
 						//break;
@@ -183,23 +190,114 @@ public final class ZLTextParagraphCursor {
 		}
 
 		private final void addWord(char[] data, int offset, int len, int paragraphOffset, ZLTextHyperlink hyperlink) {
-			ZLTextWord word = new ZLTextWord(data, offset, len, paragraphOffset);
+			if (hyperlink != null) {
+				hyperlink.addElementIndex(myStorage.Size);
+			}
+			ZLTextWord word = null;
 			for (int i = myFirstMark; i < myLastMark; ++i) {
 				final ZLTextMark mark = (ZLTextMark)myMarks.get(i);
 				if ((mark.Offset < paragraphOffset + len) && (mark.Offset + mark.Length > paragraphOffset)) {
+					if (word == null) {
+						word = new ZLTextWord(data, offset, len, paragraphOffset);
+					}
 					word.addMark(mark.Offset - paragraphOffset, mark.Length);
 				}
 			}
-			if (hyperlink != null) {
-				hyperlink.addElementIndex(myElements.size());
+			if (word != null) {
+				myStorage.add(word, paragraphOffset);
+			} else {
+				myStorage.addWord(data, offset, len, paragraphOffset);
 			}
-			myElements.add(word);
 		}
 	}
 
 	public final int Index;
 	public final ZLTextModel Model;
-	private final ArrayList<ZLTextElement> myElements = new ArrayList<ZLTextElement>();
+
+	// Elements are stored in two arrays: a word is kept as a reference to its
+	// text data plus four ints, and gets a ZLTextWord object on the first
+	// getElement() call only; layout and paint use the arrays, so this is
+	// left for selection, bookmarks, dictionary lookups and the like;
+	// other elements are mostly shared instances
+	private static final class Storage {
+		// data offset, length, paragraph offset and width (-1 for not measured yet);
+		// paragraph offset is set for all the elements, it is the text position
+		// the element starts at, so the offsets do not decrease
+		static final int WORD_INFO_SIZE = 4;
+
+		int Size;
+		int TextLength;
+		// ZLTextElement, or char[] for a word without ZLTextWord object
+		Object[] Elements;
+		int[] WordInfo;
+
+		Storage(int capacity) {
+			Elements = new Object[capacity];
+			WordInfo = new int[WORD_INFO_SIZE * capacity];
+		}
+
+		private void ensureCapacity() {
+			final int length = Elements.length;
+			if (Size == length) {
+				final Object[] elements = new Object[length << 1];
+				System.arraycopy(Elements, 0, elements, 0, length);
+				Elements = elements;
+				WordInfo = ZLArrayUtils.createCopy(WordInfo, WORD_INFO_SIZE * length, WORD_INFO_SIZE * (length << 1));
+			}
+		}
+
+		void add(ZLTextElement element, int paragraphOffset) {
+			ensureCapacity();
+			Elements[Size] = element;
+			if (element instanceof ZLTextWord) {
+				final ZLTextWord word = (ZLTextWord)element;
+				setWordInfo(word.Offset, word.Length, paragraphOffset);
+			} else {
+				setWordInfo(0, 0, paragraphOffset);
+			}
+			++Size;
+		}
+
+		void addWord(char[] data, int offset, int length, int paragraphOffset) {
+			ensureCapacity();
+			Elements[Size] = data;
+			setWordInfo(offset, length, paragraphOffset);
+			++Size;
+		}
+
+		private void setWordInfo(int offset, int length, int paragraphOffset) {
+			final int base = WORD_INFO_SIZE * Size;
+			WordInfo[base] = offset;
+			WordInfo[base + 1] = length;
+			WordInfo[base + 2] = paragraphOffset;
+			WordInfo[base + 3] = -1;
+		}
+
+		// copy of exact size; references in this storage are released
+		Storage release() {
+			final Storage copy = new Storage(Size);
+			copy.Size = Size;
+			copy.TextLength = TextLength;
+			System.arraycopy(Elements, 0, copy.Elements, 0, Size);
+			System.arraycopy(WordInfo, 0, copy.WordInfo, 0, WORD_INFO_SIZE * Size);
+			Arrays.fill(Elements, 0, Size, null);
+			Size = 0;
+			TextLength = 0;
+			return copy;
+		}
+	}
+
+	private static final Storage EMPTY_STORAGE = new Storage(0);
+	// fill() collects elements here, so growing arrays are reused
+	private static final ThreadLocal<Storage> ourBuffer = new ThreadLocal<Storage>() {
+		@Override
+		protected Storage initialValue() {
+			return new Storage(256);
+		}
+	};
+
+	private volatile Storage myStorage = EMPTY_STORAGE;
+	private volatile ZLTextParagraphWords myWords;
 
 	private ZLTextParagraphCursor(ZLTextModel model, int index) {
 		Model = model;
@@ -218,29 +316,35 @@ public final class ZLTextParagraphCursor {
 
 	private static final char[] SPACE_ARRAY = { ' ' };
 	void fill() {
+		final Storage buffer = ourBuffer.get();
 		ZLTextParagraph	paragraph = Model.getParagraph(Index);
-		switch (paragraph.getKind()) {
-			case ZLTextParagraph.Kind.TEXT_PARAGRAPH:
-				new Processor(paragraph, new LineBreaker(Model.getLanguage()), Model.getMarks(), Index, myElements).fill();
-				break;
-			case ZLTextParagraph.Kind.EMPTY_LINE_PARAGRAPH:
-				myElements.add(new ZLTextWord(SPACE_ARRAY, 0, 1, 0));
-				break;
-			case ZLTextParagraph.Kind.ENCRYPTED_SECTION_PARAGRAPH:
-			{
-				final ZLTextStyleEntry entry = new ZLTextOtherStyleEntry();
-				entry.setFontModifier(ZLTextStyleEntry.FontModifier.FONT_MODIFIER_BOLD, true);
-				myElements.add(new ZLTextStyleElement(entry));
-				myElements.add(new ZLTextWord(ZLResource.resource("drm").getResource("encryptedSection").getValue(), 0));
-				break;
+		try {
+			switch (paragraph.getKind()) {
+				case ZLTextParagraph.Kind.TEXT_PARAGRAPH:
+					new Processor(paragraph, new LineBreaker(Model.getLanguage()), Model.getMarks(), Index, buffer).fill();
+					break;
+				case ZLTextParagraph.Kind.EMPTY_LINE_PARAGRAPH:
+					buffer.add(new ZLTextWord(SPACE_ARRAY, 0, 1, 0), 0);
+					break;
+				case ZLTextParagraph.Kind.ENCRYPTED_SECTION_PARAGRAPH:
+				{
+					final ZLTextStyleEntry entry = new ZLTextOtherStyleEntry();
+					entry.setFontModifier(ZLTextStyleEntry.FontModifier.FONT_MODIFIER_BOLD, true);
+					buffer.add(new ZLTextStyleElement(entry), 0);
+					buffer.add(new ZLTextWord(ZLResource.resource("drm").getResource("encryptedSection").getValue(), 0), 0);
+					break;
+				}
+				default:
+					break;
 			}
-			default:
-				break;
+		} finally {
+			myStorage = buffer.release();
 		}
 	}
 
 	void clear() {
-		myElements.clear();
+		myStorage = EMPTY_STORAGE;
+		myWords = null;
 	}
 
 	public boolean isFirst() {
@@ -256,7 +360,7 @@ public final class ZLTextParagraphCursor {
 	}
 
 	int getParagraphLength() {
-		return myElements.size();
+		return myStorage.Size;
 	}
 
 	public ZLTextParagraphCursor previous() {
@@ -268,11 +372,145 @@ public final class ZLTextParagraphCursor {
 	}
 
 	ZLTextElement getElement(int index) {
-		try {
-			return myElements.get(index);
-		} catch (IndexOutOfBoundsException e) {
+		final Storage storage = myStorage;
+		if (index < 0 || index >= storage.Size) {
 			return null;
 		}
+		final Object element = storage.Elements[index];
+		return element instanceof ZLTextElement
+			? (ZLTextElement)element : createWord(storage, index);
+	}
+
+	// synchronized: the same word object must be returned to all the threads
+	private synchronized ZLTextElement createWord(Storage storage, int index) {
+		final Object element = storage.Elements[index];
+		if (element instanceof ZLTextElement) {
+			return (ZLTextElement)element;
+		}
+		final int[] info = storage.WordInfo;
+		final int base = Storage.WORD_INFO_SIZE * index;
+		final ZLTextWord word = new ZLTextWord(
+			(char[])element, info[base], info[base + 1], info[base + 2], info[base + 3]
+		);
+		storage.Elements[index] = word;
+		return word;
+	}
+
+	boolean isWord(int index) {
+		final Storage storage = myStorage;
+		if (index < 0 || index >= storage.Size) {
+			return false;
+		}
+		final Object element = storage.Elements[index];
+		return element instanceof char[] || element instanceof ZLTextWord;
+	}
+
+	char[] getWordData(int index) {
+		final Object element = myStorage.Elements[index];
+		return element instanceof char[] ? (char[])element : ((ZLTextWord)element).Data;
+	}
+
+	int getWordOffset(int index) {
+		return myStorage.WordInfo[Storage.WORD_INFO_SIZE * index];
+	}
+
+	int getWordLength(int index) {
+		return myStorage.WordInfo[Storage.WORD_INFO_SIZE * index + 1];
+	}
+
+	int getWordParagraphOffset(int index) {
+		return myStorage.WordInfo[Storage.WORD_INFO_SIZE * index + 2];
+	}
+
+	// only words with marks are kept as ZLTextWord objects from the start
+	ZLTextWord.Mark getWordMark(int index) {
+		final Object element = myStorage.Elements[index];
+		return element instanceof ZLTextWord ? ((ZLTextWord)element).getMark() : null;
+	}
+
+	boolean isWordASpace(int index) {
+		final Storage storage = myStorage;
+		final Object element = storage.Elements[index];
+		if (element instanceof ZLTextWord) {
+			return ((ZLTextWord)element).isASpace();
+		}
+		final char[] data = (char[])element;
+		final int base = Storage.WORD_INFO_SIZE * index;
+		final int end = storage.WordInfo[base] + storage.WordInfo[base + 1];
+		for (int i = storage.WordInfo[base]; i < end; ++i) {
+			if (!Character.isWhitespace(data[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// number of paragraph text characters before the element;
+	// paragraph text length for index == getParagraphLength()
+	int getTextOffset(int index) {
+		final Storage storage = myStorage;
+		if (index >= storage.Size) {
+			return storage.TextLength;
+		}
+		return storage.WordInfo[Storage.WORD_INFO_SIZE * index + 2];
+	}
+
+	// index of the first element starting at the last text offset <= textOffset
+	int findElementByTextOffset(int textOffset) {
+		final Storage storage = myStorage;
+		final int[] info = storage.WordInfo;
+		// first element with offset > textOffset
+		int low = 0;
+		int high = storage.Size;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (info[Storage.WORD_INFO_SIZE * middle + 2] > textOffset) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		if (low == 0) {
+			return 0;
+		}
+		final int found = info[Storage.WORD_INFO_SIZE * (low - 1) + 2];
+		// first element with offset == found
+		high = low - 1;
+		low = 0;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (info[Storage.WORD_INFO_SIZE * middle + 2] < found) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	int getWordWidth(int index, ZLPaintContext context) {
+		final Storage storage = myStorage;
+		final Object element = storage.Elements[index];
+		if (element instanceof ZLTextWord) {
+			return ((ZLTextWord)element).getWidth(context);
+		}
+		final int[] info = storage.WordInfo;
+		final int base = Storage.WORD_INFO_SIZE * index;
+		int width = info[base + 3];
+		if (width < 0) {
+			width = context.getStringWidth((char[])element, info[base], info[base + 1]);
+			info[base + 3] = width;
+		}
+		return width;
+	}
+
+	ZLTextParagraphWords getWords() {
+		ZLTextParagraphWords words = myWords;
+		if (words == null) {
+			words = new ZLTextParagraphWords(this);
+			myWords = words;
+		}
+		return words;
 	}
 
 	ZLTextParagraph getParagraph() {
@@ -281,6 +519,6 @@ public final class ZLTextParagraphCursor {
 
 	@Override
 	public String toString() {
-		return "ZLTextParagraphCursor [" + Index + " (0.." + myElements.size() + ")]";
+		return "ZLTextParagraphCursor [" + Index + " (0.." + myStorage.Size + ")]";
 	}
 }
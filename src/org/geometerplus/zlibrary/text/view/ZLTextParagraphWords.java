@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2007-2014 Geometer Plus <contact@geometerplus.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+
+package org.geometerplus.zlibrary.text.view;
+
+import org.geometerplus.zlibrary.text.model.ZLTextModel;
+
+/**
+ * Words of a paragraph cursor collected into flat arrays, with the kind of
+ * boundary every word ends with. Built once per paragraph cursor, so text
+ * snippets can be extracted without walking elements.
+ */
+public final class ZLTextParagraphWords {
+	public interface Boundary {
+		byte NONE = 0;
+		// , : ; )
+		byte PHRASE = 1;
+		// . ! ?
+		byte SENTENCE = 2;
+	}
+
+	public static ZLTextParagraphWords get(ZLTextModel model, int paragraphIndex) {
+		return ZLTextParagraphCursor.cursor(model, paragraphIndex).getWords();
+	}
+
+	public final int ParagraphIndex;
+	public final int ElementsNumber;
+	public final boolean IsEndOfSection;
+	public final int Count;
+
+	private final char[] myText;
+	// Count + 1 offsets in myText
+	private final int[] myOffsets;
+	private final int[] myElementIndices;
+	private final byte[] myBoundaries;
+
+	ZLTextParagraphWords(ZLTextParagraphCursor cursor) {
+		ParagraphIndex = cursor.Index;
+		ElementsNumber = cursor.getParagraphLength();
+		IsEndOfSection = cursor.isEndOfSection();
+
+		int count = 0;
+		int length = 0;
+		for (int i = 0; i < ElementsNumber; ++i) {
+			if (cursor.isWord(i)) {
+				++count;
+				length += cursor.getWordLength(i);
+			}
+		}
+		Count = count;
+		myText = new char[length];
+		myOffsets = new int[count + 1];
+		myElementIndices = new int[count];
+		myBoundaries = new byte[count];
+
+		int index = 0;
+		int offset = 0;
+		for (int i = 0; i < ElementsNumber; ++i) {
+			if (!cursor.isWord(i)) {
+				continue;
+			}
+			final char[] data = cursor.getWordData(i);
+			final int wordOffset = cursor.getWordOffset(i);
+			final int wordLength = cursor.getWordLength(i);
+			System.arraycopy(data, wordOffset, myText, offset, wordLength);
+			myOffsets[index] = offset;
+			myElementIndices[index] = i;
+			myBoundaries[index] = wordLength > 0
+				? boundary(data[wordOffset + wordLength - 1]) : Boundary.NONE;
+			offset += wordLength;
+			++index;
+		}
+		myOffsets[count] = offset;
+	}
+
+	private static byte boundary(char ch) {
+		switch (ch) {
+			case ',':
+			case ':':
+			case ';':
+			case ')':
+				return Boundary.PHRASE;
+			case '.':
+			case '!':
+			case '?':
+				return Boundary.SENTENCE;
+			default:
+				return Boundary.NONE;
+		}
+	}
+
+	/**
+	 * @return index of the first word with element index >= given one
+	 */
+	public int wordIndex(int elementIndex) {
+		int low = 0;
+		int high = Count;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (myElementIndices[middle] < elementIndex) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	public int getElementIndex(int wordIndex) {
+		return myElementIndices[wordIndex];
+	}
+
+	public int getLength(int wordIndex) {
+		return myOffsets[wordIndex + 1] - myOffsets[wordIndex];
+	}
+
+	public byte getBoundary(int wordIndex) {
+		return myBoundaries[wordIndex];
+	}
+
+	public void appendWord(StringBuilder builder, int wordIndex) {
+		builder.append(myText, myOffsets[wordIndex], getLength(wordIndex));
+	}
+}
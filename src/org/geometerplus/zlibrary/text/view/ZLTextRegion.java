@@ -151,7 +151,7 @@ public final class ZLTextRegion {
 		return mySoul;
 	}
 
-	private ZLTextElementArea[] textAreas() {
+	ZLTextElementArea[] textAreas() {
 		if (myAreas == null || myAreas.length != myToIndex - myFromIndex) {
 			synchronized (myAreaList) {
 				myAreas = new ZLTextElementArea[myToIndex - myFromIndex];
@@ -29,6 +29,7 @@ import org.geometerplus.zlibrary.core.view.ZLPaintContext;
 
 import org.geometerplus.zlibrary.text.model.*;
 import org.geometerplus.zlibrary.text.hyphenation.*;
+import org.geometerplus.zlibrary.text.view.style.ZLTextBaseStyle;
 import org.geometerplus.zlibrary.text.view.style.ZLTextStyleCollection;
 
 public abstract class ZLTextView extends ZLTextViewBase {
@@ -55,7 +56,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
 	private ZLTextPage myCurrentPage = new ZLTextPage();
 	private ZLTextPage myNextPage = new ZLTextPage();
 
-	private final HashMap<ZLTextLineInfo,ZLTextLineInfo> myLineInfoCache = new HashMap<ZLTextLineInfo,ZLTextLineInfo>();
+	private final ZLTextLineInfoCache myLineInfoCache = new ZLTextLineInfoCache();
 
 	private ZLTextRegion.Soul mySelectedRegionSoul;
 	private boolean myHighlightSelectedRegion = true;
@@ -70,6 +71,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
 
 	public synchronized void setModel(ZLTextModel model) {
 		ZLTextParagraphCursorCache.clear();
+		myLineInfoCache.clear();
 
 		mySelection.clear();
 		myHighlightings.clear();
@@ -238,6 +240,35 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		return myModel == null || myModel.getMarks().isEmpty();
 	}
 
+	// positions the find results start at, in the text order
+	public synchronized List<ZLTextPosition> getFindResultPositions() {
+		if (findResultsAreEmpty()) {
+			return Collections.emptyList();
+		}
+		final List<ZLTextMark> marks = myModel.getMarks();
+		final List<ZLTextPosition> positions = new ArrayList<ZLTextPosition>(marks.size());
+		for (ZLTextMark mark : marks) {
+			final ZLTextParagraphCursor paragraph = ZLTextParagraphCursor.cursor(myModel, mark.ParagraphIndex);
+			int wordIndex = -1;
+			for (int i = 0; i < paragraph.getParagraphLength(); ++i) {
+				if (paragraph.isWord(i)) {
+					if (paragraph.getWordParagraphOffset(i) > mark.Offset) {
+						break;
+					}
+					wordIndex = i;
+				}
+			}
+			if (wordIndex != -1) {
+				final int charIndex = Math.min(
+					mark.Offset - paragraph.getWordParagraphOffset(wordIndex),
+					paragraph.getWordLength(wordIndex) - 1
+				);
+				positions.add(new ZLTextFixedPosition(mark.ParagraphIndex, wordIndex, charIndex));
+			}
+		}
+		return positions;
+	}
+
 	@Override
 	public synchronized void onScrollingFinished(PageIndex pageIndex) {
 		switch (pageIndex) {
@@ -507,6 +538,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
 			}
 			previousInfo = info;
 		}
+		page.TextElementMap.buildIndex();
 
 		x = getLeftMargin();
 		y = getTopMargin();
@@ -566,8 +598,9 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		return scrollbarType() == SCROLLBAR_SHOW || scrollbarType() == SCROLLBAR_SHOW_AS_PROGRESS;
 	}
 
+	// getTextLength(-1) is the length of paragraph 0, not 0
 	protected final synchronized int sizeOfTextBeforeParagraph(int paragraphIndex) {
-		return myModel != null ? myModel.getTextLength(paragraphIndex - 1) : 0;
+		return myModel != null && paragraphIndex > 0 ? myModel.getTextLength(paragraphIndex - 1) : 0;
 	}
 
 	protected final synchronized int sizeOfFullText() {
@@ -618,15 +651,13 @@ public abstract class ZLTextView extends ZLTextViewBase {
 			return -1;
 		}
 		final int paragraphIndex = paragraphCursor.Index;
-		int sizeOfText = myModel.getTextLength(paragraphIndex - 1);
-		final int paragraphLength = paragraphCursor.getParagraphLength();
-		if (paragraphLength > 0) {
-			sizeOfText +=
-				(myModel.getTextLength(paragraphIndex) - sizeOfText)
-				* wordCursor.getElementIndex()
-				/ paragraphLength;
+		final int sizeOfTextBefore = sizeOfTextBeforeParagraph(paragraphIndex);
+		final int elementIndex = wordCursor.getElementIndex();
+		int sizeOfText = sizeOfTextBefore + paragraphCursor.getTextOffset(elementIndex);
+		if (paragraphCursor.isWord(elementIndex)) {
+			sizeOfText += wordCursor.getCharIndex();
 		}
-		return sizeOfText;
+		return Math.min(sizeOfText, Math.max(sizeOfTextBefore, myModel.getTextLength(paragraphIndex)));
 	}
 
 	// Can be called only when (myModel.getParagraphsNumber() != 0)
@@ -787,16 +818,30 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		int intTextSize = (int) textSize;
 		int paragraphIndex = myModel.findParagraphByTextLength(intTextSize);
 
-		if (paragraphIndex > 0 && myModel.getTextLength(paragraphIndex) > intTextSize) {
-			--paragraphIndex;
+		if (myModel.getTextLength(paragraphIndex) > intTextSize) {
+			// the page ends inside the paragraph
+			final int offset = intTextSize - sizeOfTextBeforeParagraph(paragraphIndex);
+			if (offset > 0) {
+				preparePaintInfo(myCurrentPage);
+				final ZLTextWordCursor cursor = new ZLTextWordCursor(myCurrentPage.EndCursor);
+				cursor.moveToParagraph(paragraphIndex);
+				final ZLTextParagraphCursor paragraphCursor = cursor.getParagraphCursor();
+				if (paragraphCursor != null) {
+					gotoPositionByEnd(paragraphIndex, paragraphCursor.findElementByTextOffset(offset), 0);
+					return;
+				}
+			}
+			if (paragraphIndex > 0) {
+				--paragraphIndex;
+			}
 		}
 		intTextSize = myModel.getTextLength(paragraphIndex);
 
-		int sizeOfTextBefore = myModel.getTextLength(paragraphIndex - 1);
+		int sizeOfTextBefore = sizeOfTextBeforeParagraph(paragraphIndex);
 		while (paragraphIndex > 0 && intTextSize == sizeOfTextBefore) {
 			--paragraphIndex;
 			intTextSize = sizeOfTextBefore;
-			sizeOfTextBefore = myModel.getTextLength(paragraphIndex - 1);
+			sizeOfTextBefore = sizeOfTextBeforeParagraph(paragraphIndex);
 		}
 
 		final int paragraphLength = intTextSize - sizeOfTextBefore;
@@ -887,18 +932,21 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		final int endElementIndex = info.EndElementIndex;
 		int charIndex = info.RealStartCharIndex;
 		for (int wordIndex = info.RealStartElementIndex; wordIndex != endElementIndex && index < to; ++wordIndex, charIndex = 0) {
-			final ZLTextElement element = paragraph.getElement(wordIndex);
 			final ZLTextElementArea area = page.TextElementMap.get(index);
-			if (element == area.Element) {
+			if (area.ElementIndex == wordIndex) {
 				++index;
 				if (area.ChangeStyle) {
 					setTextStyle(area.Style);
 				}
+				final boolean isWord = paragraph.isWord(wordIndex);
+				final ZLTextElement element = isWord ? null : paragraph.getElement(wordIndex);
 				final int areaX = area.XStart;
-				final int areaY = area.YEnd - getElementDescent(element) - getTextStyle().getVerticalAlign(metrics());
-				if (element instanceof ZLTextWord) {
+				final int areaY = area.YEnd
+					- (isWord ? context.getDescent() : getElementDescent(element))
+					- getTextStyle().getVerticalAlign(metrics());
+				if (isWord) {
 					drawWord(
-						areaX, areaY, (ZLTextWord)element, charIndex, -1, false,
+						areaX, areaY, paragraph, wordIndex, charIndex, -1, false,
 						mySelection.isAreaSelected(area)
 							? getSelectionForegroundColor() : getTextColor(getTextStyle().Hyperlink)
 					);
@@ -954,10 +1002,9 @@ public abstract class ZLTextView extends ZLTextViewBase {
 			final int start = info.StartElementIndex == info.EndElementIndex
 				? info.StartCharIndex : 0;
 			final int len = info.EndCharIndex - start;
-			final ZLTextWord word = (ZLTextWord)paragraph.getElement(info.EndElementIndex);
 			drawWord(
 				area.XStart, area.YEnd - context.getDescent() - getTextStyle().getVerticalAlign(metrics()),
-				word, start, len, area.AddHyphenationSign,
+				paragraph, info.EndElementIndex, start, len, area.AddHyphenationSign,
 				mySelection.isAreaSelected(area)
 					? getSelectionForegroundColor() : getTextColor(getTextStyle().Hyperlink)
 			);
@@ -1044,15 +1091,17 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		final boolean isFirstLine = startIndex == 0 && startCharIndex == 0;
 
 		if (isFirstLine) {
-			ZLTextElement element = paragraphCursor.getElement(currentElementIndex);
-			while (isStyleChangeElement(element)) {
+			while (!paragraphCursor.isWord(currentElementIndex)) {
+				final ZLTextElement element = paragraphCursor.getElement(currentElementIndex);
+				if (!isStyleChangeElement(element)) {
+					break;
+				}
 				applyStyleChangeElement(element);
 				++currentElementIndex;
 				currentCharIndex = 0;
 				if (currentElementIndex == endIndex) {
 					break;
 				}
-				element = paragraphCursor.getElement(currentElementIndex);
 			}
 			info.StartStyle = getTextStyle();
 			info.RealStartElementIndex = currentElementIndex;
@@ -1084,21 +1133,32 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		int internalSpaceCounter = 0;
 		boolean removeLastSpace = false;
 
+		// words are measured through the paragraph cursor arrays,
+		// so no ZLTextWord objects are created for the lines out of the page
+		boolean isWord = paragraphCursor.isWord(currentElementIndex);
 		do {
-			ZLTextElement element = paragraphCursor.getElement(currentElementIndex);
-			newWidth += getElementWidth(element, currentCharIndex);
-			newHeight = Math.max(newHeight, getElementHeight(element));
-			newDescent = Math.max(newDescent, getElementDescent(element));
-			if (element == ZLTextElement.HSpace) {
+			final ZLTextElement element;
+			if (isWord) {
+				element = null;
+				newWidth += getWordWidth(paragraphCursor, currentElementIndex, currentCharIndex);
+				newHeight = Math.max(newHeight, getWordHeight());
+				newDescent = Math.max(newDescent, context.getDescent());
+			} else {
+				element = paragraphCursor.getElement(currentElementIndex);
+				newWidth += getElementWidth(element, currentCharIndex);
+				newHeight = Math.max(newHeight, getElementHeight(element));
+				newDescent = Math.max(newDescent, getElementDescent(element));
+			}
+			if (isWord) {
+				wordOccurred = true;
+				isVisible = true;
+			} else if (element == ZLTextElement.HSpace) {
 				if (wordOccurred) {
 					wordOccurred = false;
 					internalSpaceCounter++;
 					lastSpaceWidth = context.getSpaceWidth();
 					newWidth += lastSpaceWidth;
 				}
-			} else if (element instanceof ZLTextWord) {
-				wordOccurred = true;
-				isVisible = true;
 			} else if (element instanceof ZLTextImageElement) {
 				wordOccurred = true;
 				isVisible = true;
@@ -1109,19 +1169,24 @@ public abstract class ZLTextView extends ZLTextViewBase {
 				applyStyleChangeElement(element);
 			}
 			if (newWidth > maxWidth) {
-				if (info.EndElementIndex != startIndex || element instanceof ZLTextWord) {
+				if (info.EndElementIndex != startIndex || isWord) {
 					break;
 				}
 			}
-			ZLTextElement previousElement = element;
+			final boolean previousIsWord = isWord;
 			++currentElementIndex;
 			currentCharIndex = 0;
 			boolean allowBreak = currentElementIndex == endIndex;
+			isWord = !allowBreak && paragraphCursor.isWord(currentElementIndex);
 			if (!allowBreak) {
-				element = paragraphCursor.getElement(currentElementIndex);
-				allowBreak = ((!(element instanceof ZLTextWord) || previousElement instanceof ZLTextWord) &&
-						!(element instanceof ZLTextImageElement) &&
-						!(element instanceof ZLTextControlElement));
+				if (isWord) {
+					allowBreak = previousIsWord;
+				} else {
+					final ZLTextElement next = paragraphCursor.getElement(currentElementIndex);
+					allowBreak =
+						!(next instanceof ZLTextImageElement) &&
+						!(next instanceof ZLTextControlElement);
+				}
 			}
 			if (allowBreak) {
 				info.IsVisible = isVisible;
@@ -1142,23 +1207,25 @@ public abstract class ZLTextView extends ZLTextViewBase {
 
 		if (currentElementIndex != endIndex &&
 			(isHyphenationPossible() || info.EndElementIndex == startIndex)) {
-			ZLTextElement element = paragraphCursor.getElement(currentElementIndex);
-			if (element instanceof ZLTextWord) {
-				final ZLTextWord word = (ZLTextWord)element;
-				newWidth -= getWordWidth(word, currentCharIndex);
+			if (paragraphCursor.isWord(currentElementIndex)) {
+				final char[] wordData = paragraphCursor.getWordData(currentElementIndex);
+				final int wordOffset = paragraphCursor.getWordOffset(currentElementIndex);
+				final int wordLength = paragraphCursor.getWordLength(currentElementIndex);
+				newWidth -= getWordWidth(paragraphCursor, currentElementIndex, currentCharIndex);
 				int spaceLeft = maxWidth - newWidth;
-				if ((word.Length > 3 && spaceLeft > 2 * context.getSpaceWidth())
+				if ((wordLength > 3 && spaceLeft > 2 * context.getSpaceWidth())
 					|| info.EndElementIndex == startIndex) {
-					ZLTextHyphenationInfo hyphenationInfo = ZLTextHyphenator.Instance().getInfo(word);
-					int hyphenationPosition = word.Length - 1;
+					ZLTextHyphenationInfo hyphenationInfo =
+						ZLTextHyphenator.Instance().getInfo(wordData, wordOffset, wordLength);
+					int hyphenationPosition = wordLength - 1;
 					int subwordWidth = 0;
 					for (; hyphenationPosition > currentCharIndex; hyphenationPosition--) {
 						if (hyphenationInfo.isHyphenationPossible(hyphenationPosition)) {
 							subwordWidth = getWordWidth(
-								word,
+								paragraphCursor, currentElementIndex,
 								currentCharIndex,
 								hyphenationPosition - currentCharIndex,
-								word.Data[word.Offset + hyphenationPosition - 1] != '-'
+								wordData[wordOffset + hyphenationPosition - 1] != '-'
 							);
 							if (subwordWidth <= spaceLeft) {
 								break;
@@ -1166,14 +1233,17 @@ public abstract class ZLTextView extends ZLTextViewBase {
 						}
 					}
 					if (hyphenationPosition == currentCharIndex && info.EndElementIndex == startIndex) {
-						hyphenationPosition = word.Length == currentCharIndex + 1 ? word.Length : word.Length - 1;
-						subwordWidth = getWordWidth(word, currentCharIndex, word.Length - currentCharIndex, false);
+						hyphenationPosition = wordLength == currentCharIndex + 1 ? wordLength : wordLength - 1;
+						subwordWidth = getWordWidth(
+							paragraphCursor, currentElementIndex,
+							currentCharIndex, wordLength - currentCharIndex, false
+						);
 						for (; hyphenationPosition > currentCharIndex + 1; hyphenationPosition--) {
 							subwordWidth = getWordWidth(
-								word,
+								paragraphCursor, currentElementIndex,
 								currentCharIndex,
 								hyphenationPosition - currentCharIndex,
-								word.Data[word.Offset + hyphenationPosition - 1] != '-'
+								wordData[wordOffset + hyphenationPosition - 1] != '-'
 							);
 							if (subwordWidth <= spaceLeft) {
 								break;
@@ -1221,7 +1291,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		}
 
 		if (info.EndElementIndex != endIndex || endIndex == info.ParagraphCursorLength) {
-			myLineInfoCache.put(info, info);
+			myLineInfoCache.put(info);
 		}
 
 		return info;
@@ -1265,8 +1335,12 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		int charIndex = info.RealStartCharIndex;
 		ZLTextElementArea spaceElement = null;
 		for (int wordIndex = info.RealStartElementIndex; wordIndex != endElementIndex; ++wordIndex, charIndex = 0) {
-			final ZLTextElement element = paragraph.getElement(wordIndex);
-			final int width = getElementWidth(element, charIndex);
+			// words are taken from the paragraph cursor arrays, their areas have no element
+			final boolean isWord = paragraph.isWord(wordIndex);
+			final ZLTextElement element = isWord ? null : paragraph.getElement(wordIndex);
+			final int width = isWord
+				? getWordWidth(paragraph, wordIndex, charIndex)
+				: getElementWidth(element, charIndex);
 			if (element == ZLTextElement.HSpace) {
 				if (wordOccurred && (spaceCounter > 0)) {
 					final int correction = fullCorrection / spaceCounter;
@@ -1288,12 +1362,12 @@ public abstract class ZLTextView extends ZLTextViewBase {
 					wordOccurred = false;
 					--spaceCounter;
 				}
-			} else if (element instanceof ZLTextWord || element instanceof ZLTextImageElement || element instanceof ZLTextVideoElement) {
-				final int height = getElementHeight(element);
-				final int descent = getElementDescent(element);
-				final int length = element instanceof ZLTextWord ? ((ZLTextWord)element).Length : 0;
+			} else if (isWord || element instanceof ZLTextImageElement || element instanceof ZLTextVideoElement) {
+				final int height = isWord ? getWordHeight() : getElementHeight(element);
+				final int descent = isWord ? context.getDescent() : getElementDescent(element);
+				final int length = isWord ? paragraph.getWordLength(wordIndex) : 0;
 				if (spaceElement != null) {
-					page.TextElementMap.add(spaceElement);
+					page.TextElementMap.add(spaceElement, paragraph);
 					spaceElement = null;
 				}
 				page.TextElementMap.add(new ZLTextElementArea(
@@ -1303,7 +1377,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
 					false, // add hyphenation sign
 					changeStyle, getTextStyle(), element,
 					x, x + width - 1, y - height + 1, y + descent
-				));
+				), paragraph);
 				changeStyle = false;
 				wordOccurred = true;
 			} else if (isStyleChangeElement(element)) {
@@ -1316,10 +1390,10 @@ public abstract class ZLTextView extends ZLTextViewBase {
 			final int len = info.EndCharIndex;
 			if (len > 0) {
 				final int wordIndex = info.EndElementIndex;
-				final ZLTextWord word = (ZLTextWord)paragraph.getElement(wordIndex);
-				final boolean addHyphenationSign = word.Data[word.Offset + len - 1] != '-';
-				final int width = getWordWidth(word, 0, len, addHyphenationSign);
-				final int height = getElementHeight(word);
+				final boolean addHyphenationSign =
+					paragraph.getWordData(wordIndex)[paragraph.getWordOffset(wordIndex) + len - 1] != '-';
+				final int width = getWordWidth(paragraph, wordIndex, 0, len, addHyphenationSign);
+				final int height = getWordHeight();
 				final int descent = context.getDescent();
 				page.TextElementMap.add(
 					new ZLTextElementArea(
@@ -1327,9 +1401,10 @@ public abstract class ZLTextView extends ZLTextViewBase {
 						len,
 						false, // is last in element
 						addHyphenationSign,
-						changeStyle, getTextStyle(), word,
+						changeStyle, getTextStyle(), null,
 						x, x + width - 1, y - height + 1, y + descent
-					)
+					),
+					paragraph
 				);
 			}
 		}
@@ -1391,9 +1466,9 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		}
 		final int oldState = page.PaintState;
 
-		final HashMap<ZLTextLineInfo,ZLTextLineInfo> cache = myLineInfoCache;
+		myLineInfoCache.activate(layoutSignature());
 		for (ZLTextLineInfo info : page.LineInfos) {
-			cache.put(info, info);
+			myLineInfoCache.put(info);
 		}
 
 		switch (page.PaintState) {
@@ -1489,8 +1564,6 @@ public abstract class ZLTextView extends ZLTextViewBase {
 				break;
 		}
 		page.PaintState = PaintStateEnum.READY;
-		// TODO: cache?
-		myLineInfoCache.clear();
 
 		if (page == myCurrentPage) {
 			if (oldState != PaintStateEnum.START_IS_KNOWN) {
@@ -1502,6 +1575,18 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		}
 	}
 
+	/**
+	 * Called when paragraphs were appended to the model of the view
+	 */
+	public synchronized void onModelExtended() {
+		myNextPage.reset();
+		final ZLTextWordCursor end = myCurrentPage.EndCursor;
+		if (!end.isNull() && end.isEndOfParagraph()) {
+			// the page could stop at the former end of the text
+			rebuildPaintInfo();
+		}
+	}
+
 	public void clearCaches() {
 		resetMetrics();
 		rebuildPaintInfo();
@@ -1513,6 +1598,14 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		myPreviousPage.reset();
 		myNextPage.reset();
 		ZLTextParagraphCursorCache.clear();
+		final String signature = layoutSignature();
+		if (!myLineInfoCache.activate(signature)) {
+			// the signature is the same, but something not covered by it
+			// (style options, CSS, hyphenation language) has been changed;
+			// line infos in the other partitions are not valid too
+			myLineInfoCache.clear();
+			myLineInfoCache.activate(signature);
+		}
 
 		if (myCurrentPage.PaintState != PaintStateEnum.NOTHING_TO_PAINT) {
 			myCurrentPage.LineInfos.clear();
@@ -1526,8 +1619,27 @@ public abstract class ZLTextView extends ZLTextViewBase {
 				myCurrentPage.PaintState = PaintStateEnum.END_IS_KNOWN;
 			}
 		}
+	}
 
-		myLineInfoCache.clear();
+	private String layoutSignature() {
+		final ZLTextBaseStyle base = getTextStyleCollection().getBaseStyle();
+		return new StringBuilder()
+			.append(getTextColumnWidth()).append('x').append(getTextAreaHeight())
+			.append(twoColumnView() ? ":2:" : ":1:")
+			.append(metrics().DPI).append(':')
+			.append(base.FontFamilyOption.getValue()).append(':')
+			.append(base.FontSizeOption.getValue()).append(':')
+			.append(base.LineSpaceOption.getValue()).append(':')
+			.append(base.AlignmentOption.getValue()).append(':')
+			.append(base.BoldOption.getValue() ? 'b' : '-')
+			.append(base.ItalicOption.getValue() ? 'i' : '-')
+			.append(base.AutoHyphenationOption.getValue() ? 'h' : '-')
+			.append(base.UseCSSFontFamilyOption.getValue() ? 'f' : '-')
+			.append(base.UseCSSFontSizeOption.getValue() ? 's' : '-')
+			.append(base.UseCSSMarginsOption.getValue() ? 'm' : '-')
+			.append(base.UseCSSTextAlignmentOption.getValue() ? 'a' : '-')
+			.append(':').append(getImageFitting())
+			.toString();
 	}
 
 	private int infoSize(ZLTextLineInfo info, int unit) {
@@ -1555,7 +1667,8 @@ public abstract class ZLTextView extends ZLTextViewBase {
 		int wordIndex = 0;
 		int charIndex = 0;
 		ZLTextLineInfo info = null;
-		while (wordIndex != endElementIndex) {
+		// a cached line can end after endElementIndex if the position is inside a line
+		while (wordIndex < endElementIndex) {
 			final ZLTextLineInfo prev = info;
 			info = processTextLine(page, paragraphCursor, wordIndex, charIndex, endElementIndex, prev);
 			wordIndex = info.EndElementIndex;
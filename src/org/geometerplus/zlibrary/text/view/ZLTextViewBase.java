@@ -144,7 +144,9 @@ abstract class ZLTextViewBase extends ZLView {
 
 	void applyStyleChanges(ZLTextParagraphCursor cursor, int index, int end) {
 		for (; index != end; ++index) {
-			applyStyleChangeElement(cursor.getElement(index));
+			if (!cursor.isWord(index)) {
+				applyStyleChangeElement(cursor.getElement(index));
+			}
 		}
 	}
 
@@ -235,6 +237,19 @@ abstract class ZLTextViewBase extends ZLView {
 				getContext().getStringWidth(word.Data, word.Offset + start, word.Length - start);
 	}
 
+	// the same as getWordWidth((ZLTextWord)paragraph.getElement(index), start),
+	// but does not create the word object
+	final int getWordWidth(ZLTextParagraphCursor paragraph, int index, int start) {
+		return
+			start == 0 ?
+				paragraph.getWordWidth(index, getContext()) :
+				getContext().getStringWidth(
+					paragraph.getWordData(index),
+					paragraph.getWordOffset(index) + start,
+					paragraph.getWordLength(index) - start
+				);
+	}
+
 	final int getWordWidth(ZLTextWord word, int start, int length) {
 		return getContext().getStringWidth(word.Data, word.Offset + start, length);
 	}
@@ -248,22 +263,38 @@ abstract class ZLTextViewBase extends ZLView {
 			}
 			length = word.Length - start;
 		}
+		return getWordPartWidth(word.Data, word.Offset + start, length, addHyphenationSign);
+	}
+
+	// the same as getWordWidth((ZLTextWord)paragraph.getElement(index), start, length, addHyphenationSign)
+	final int getWordWidth(ZLTextParagraphCursor paragraph, int index, int start, int length, boolean addHyphenationSign) {
+		if (length == -1) {
+			if (start == 0) {
+				return paragraph.getWordWidth(index, getContext());
+			}
+			length = paragraph.getWordLength(index) - start;
+		}
+		return getWordPartWidth(
+			paragraph.getWordData(index), paragraph.getWordOffset(index) + start, length, addHyphenationSign
+		);
+	}
+
+	private int getWordPartWidth(char[] data, int offset, int length, boolean addHyphenationSign) {
 		if (!addHyphenationSign) {
-			return getContext().getStringWidth(word.Data, word.Offset + start, length);
+			return getContext().getStringWidth(data, offset, length);
 		}
 		char[] part = myWordPartArray;
 		if (length + 1 > part.length) {
 			part = new char[length + 1];
 			myWordPartArray = part;
 		}
-		System.arraycopy(word.Data, word.Offset + start, part, 0, length);
+		System.arraycopy(data, offset, part, 0, length);
 		part[length] = '-';
 		return getContext().getStringWidth(part, 0, length + 1);
 	}
 
 	int getAreaLength(ZLTextParagraphCursor paragraph, ZLTextElementArea area, int toCharIndex) {
 		setTextStyle(area.Style);
-		final ZLTextWord word = (ZLTextWord)paragraph.getElement(area.ElementIndex);
 		int length = toCharIndex - area.CharIndex;
 		boolean selectHyphenationSign = false;
 		if (length >= area.Length) {
@@ -271,31 +302,45 @@ abstract class ZLTextViewBase extends ZLView {
 			length = area.Length;
 		}
 		if (length > 0) {
-			return getWordWidth(word, area.CharIndex, length, selectHyphenationSign);
+			return getWordWidth(paragraph, area.ElementIndex, area.CharIndex, length, selectHyphenationSign);
 		}
 		return 0;
 	}
 
 	final void drawWord(int x, int y, ZLTextWord word, int start, int length, boolean addHyphenationSign, ZLColor color) {
+		drawWord(x, y, word.Data, word.Offset, word.Length, word.getMark(), start, length, addHyphenationSign, color);
+	}
+
+	// the same as drawWord(x, y, (ZLTextWord)paragraph.getElement(index), ...)
+	final void drawWord(int x, int y, ZLTextParagraphCursor paragraph, int index, int start, int length, boolean addHyphenationSign, ZLColor color) {
+		drawWord(
+			x, y,
+			paragraph.getWordData(index), paragraph.getWordOffset(index), paragraph.getWordLength(index),
+			paragraph.getWordMark(index),
+			start, length, addHyphenationSign, color
+		);
+	}
+
+	private void drawWord(int x, int y, char[] data, int offset, int wordLength, ZLTextWord.Mark mark, int start, int length, boolean addHyphenationSign, ZLColor color) {
 		final ZLPaintContext context = getContext();
 		context.setTextColor(color);
 		if (start == 0 && length == -1) {
-			drawString(x, y, word.Data, word.Offset, word.Length, word.getMark(), 0);
+			drawString(x, y, data, offset, wordLength, mark, 0);
 		} else {
 			if (length == -1) {
-				length = word.Length - start;
+				length = wordLength - start;
 			}
 			if (!addHyphenationSign) {
-				drawString(x, y, word.Data, word.Offset + start, length, word.getMark(), start);
+				drawString(x, y, data, offset + start, length, mark, start);
 			} else {
 				char[] part = myWordPartArray;
 				if (length + 1 > part.length) {
 					part = new char[length + 1];
 					myWordPartArray = part;
 				}
-				System.arraycopy(word.Data, word.Offset + start, part, 0, length);
+				System.arraycopy(data, offset + start, part, 0, length);
 				part[length] = '-';
-				drawString(x, y, part, 0, length + 1, word.getMark(), start);
+				drawString(x, y, part, 0, length + 1, mark, start);
 			}
 		}
 	}
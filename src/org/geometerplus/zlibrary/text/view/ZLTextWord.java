@@ -27,7 +27,7 @@ public final class ZLTextWord extends ZLTextElement {
 	public final int Length;
 	private int myWidth = -1;
 	private Mark myMark;
-	private int myParagraphOffset;
+	private final int myParagraphOffset;
 
 	class Mark {
 		public final int Start;
@@ -54,10 +54,15 @@ public final class ZLTextWord extends ZLTextElement {
 	}
 
 	ZLTextWord(char[] data, int offset, int length, int paragraphOffset) {
+		this(data, offset, length, paragraphOffset, -1);
+	}
+
+	ZLTextWord(char[] data, int offset, int length, int paragraphOffset, int width) {
 		Data = data;
 		Offset = offset;
 		Length = length;
 		myParagraphOffset = paragraphOffset;
+		myWidth = width;
 	}
 
 	public boolean isASpace() {
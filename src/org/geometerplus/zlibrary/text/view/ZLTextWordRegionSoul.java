@@ -20,10 +20,15 @@
 package org.geometerplus.zlibrary.text.view;
 
 public class ZLTextWordRegionSoul extends ZLTextRegion.Soul {
-	public final ZLTextWord Word;
+	private final ZLTextParagraphCursor myParagraphCursor;
 
-	ZLTextWordRegionSoul(ZLTextPosition position, ZLTextWord word) {
+	ZLTextWordRegionSoul(ZLTextPosition position, ZLTextParagraphCursor paragraph) {
 		super(position.getParagraphIndex(), position.getElementIndex(), position.getElementIndex());
-		Word = word;
+		myParagraphCursor = paragraph;
+	}
+
+	// the word object is created on demand: page layout does not need it
+	public ZLTextWord getWord() {
+		return (ZLTextWord)myParagraphCursor.getElement(StartElementIndex);
 	}
 }
@@ -21,9 +21,7 @@ package org.geometerplus.zlibrary.ui.android.image;
 
 import java.util.HashMap;
 import java.util.LinkedList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.*;
 
 import android.os.Handler;
 import android.os.Message;
@@ -38,6 +36,12 @@ class ZLAndroidImageLoader {
 				if (postAction != null && !runnables.contains(postAction)) {
 					runnables.add(postAction);
 				}
+				// requested again, i.e. the image is (again) visible
+				final Job job = myJobs.get(image.getId());
+				if (job != null && job.Executor.remove(job)) {
+					job.Order = ++myOrder;
+					job.Executor.execute(job);
+				}
 				return;
 			}
 
@@ -46,20 +50,48 @@ class ZLAndroidImageLoader {
 				runnables.add(postAction);
 			}
 			myOnImageSyncRunnables.put(image.getId(), runnables);
+
+			final Job job = new Job(synchronizer, image, pool(image.sourceType()));
+			job.Order = ++myOrder;
+			myJobs.put(image.getId(), job);
+			job.Executor.execute(job);
 		}
+	}
 
-		final ExecutorService pool =
-			image.sourceType() == ZLImageProxy.SourceType.FILE
-				? mySinglePool : myPool;
-		pool.execute(new Runnable() {
-			public void run() {
-				synchronizer.synchronize(image, new Runnable() {
-					public void run() {
-						myImageSynchronizedHandler.fireMessage(image.getId());
-					}
-				});
+	// removes postAction; the loading is cancelled if it is not started yet
+	// and no other actions wait for the image
+	void cancelImageLoading(ZLImageProxy image, Runnable postAction) {
+		synchronized (myOnImageSyncRunnables) {
+			final String id = image.getId();
+			final LinkedList<Runnable> runnables = myOnImageSyncRunnables.get(id);
+			if (runnables == null || !runnables.remove(postAction) || !runnables.isEmpty()) {
+				return;
+			}
+			final Job job = myJobs.get(id);
+			if (job != null && job.Executor.remove(job)) {
+				myJobs.remove(id);
+				myOnImageSyncRunnables.remove(id);
+				job.Executor.jobCancelled();
 			}
-		});
+		}
+	}
+
+	String getStatistics() {
+		return
+			"file: " + myFilePool.getStatistics() +
+			"; network: " + myNetworkPool.getStatistics() +
+			"; service: " + myServicePool.getStatistics();
+	}
+
+	private Pool pool(ZLImageProxy.SourceType type) {
+		switch (type) {
+			case FILE:
+				return myFilePool;
+			case SERVICE:
+				return myServicePool;
+			default:
+				return myNetworkPool;
+		}
 	}
 
 	private static class MinPriorityThreadFactory implements ThreadFactory {
@@ -72,12 +104,112 @@ class ZLAndroidImageLoader {
 		}
 	}
 
-	private static final int IMAGE_LOADING_THREADS_NUMBER = 3; // TODO: how many threads ???
+	private final class Job implements Runnable, Comparable<Job> {
+		final ZLImageProxy.Synchronizer Synchronizer;
+		final ZLImageProxy Image;
+		final Pool Executor;
+		// the last requested image is loaded first
+		volatile long Order;
+		private final long myQueuedTime = System.currentTimeMillis();
+
+		Job(ZLImageProxy.Synchronizer synchronizer, ZLImageProxy image, Pool pool) {
+			Synchronizer = synchronizer;
+			Image = image;
+			Executor = pool;
+		}
+
+		public int compareTo(Job other) {
+			return Order > other.Order ? -1 : (Order < other.Order ? 1 : 0);
+		}
+
+		public void run() {
+			synchronized (myOnImageSyncRunnables) {
+				myJobs.remove(Image.getId());
+			}
+			final long startTime = System.currentTimeMillis();
+			try {
+				Synchronizer.synchronize(Image, new Runnable() {
+					public void run() {
+						myImageSynchronizedHandler.fireMessage(Image.getId());
+					}
+				});
+			} finally {
+				final long endTime = System.currentTimeMillis();
+				Executor.jobFinished(startTime - myQueuedTime, endTime - startTime);
+			}
+		}
+	}
+
+	// jobs are taken in the Job order; the number of threads is adjusted
+	// by average loading time: slow (network-bound) loads run in parallel
+	private static final class Pool extends ThreadPoolExecutor {
+		private static final long SLOW_LOADING_TIME = 500;
+		private static final long FAST_LOADING_TIME = 150;
 
-	private final ExecutorService myPool = Executors.newFixedThreadPool(IMAGE_LOADING_THREADS_NUMBER, new MinPriorityThreadFactory());
-	private final ExecutorService mySinglePool = Executors.newFixedThreadPool(1, new MinPriorityThreadFactory());
+		private final int myMinThreads;
+		private final int myMaxThreads;
+
+		private long myAverageLoadingTime = -1;
+		private int myLoaded;
+		private int myCancelled;
+		private long myWaitingTime;
+		private long myLoadingTime;
+
+		Pool(int minThreads, int maxThreads) {
+			super(
+				minThreads, maxThreads, 60, TimeUnit.SECONDS,
+				new PriorityBlockingQueue<Runnable>(), new MinPriorityThreadFactory()
+			);
+			myMinThreads = minThreads;
+			myMaxThreads = maxThreads;
+		}
+
+		synchronized void jobFinished(long waitingTime, long loadingTime) {
+			++myLoaded;
+			myWaitingTime += waitingTime;
+			myLoadingTime += loadingTime;
+			myAverageLoadingTime = myAverageLoadingTime < 0
+				? loadingTime : (7 * myAverageLoadingTime + loadingTime) / 8;
+
+			final int threads = getCorePoolSize();
+			if (myAverageLoadingTime > SLOW_LOADING_TIME) {
+				if (threads < myMaxThreads && !getQueue().isEmpty()) {
+					setCorePoolSize(threads + 1);
+				}
+			} else if (myAverageLoadingTime < FAST_LOADING_TIME) {
+				if (threads > myMinThreads) {
+					setCorePoolSize(threads - 1);
+				}
+			}
+		}
+
+		synchronized void jobCancelled() {
+			++myCancelled;
+		}
+
+		synchronized String getStatistics() {
+			final StringBuilder builder = new StringBuilder()
+				.append(myLoaded).append(" loaded, ")
+				.append(myCancelled).append(" cancelled, ")
+				.append(getQueue().size()).append(" queued, ")
+				.append(getCorePoolSize()).append(" threads");
+			if (myLoaded > 0) {
+				builder
+					.append(", average wait ").append(myWaitingTime / myLoaded).append(" ms")
+					.append(", average loading ").append(myLoadingTime / myLoaded).append(" ms");
+			}
+			return builder.toString();
+		}
+	}
+
+	private final Pool myFilePool = new Pool(1, 1);
+	private final Pool myNetworkPool = new Pool(2, 6);
+	private final Pool myServicePool = new Pool(1, 1);
+	private long myOrder;
 
 	private final HashMap<String,LinkedList<Runnable>> myOnImageSyncRunnables = new HashMap<String,LinkedList<Runnable>>();
+	// jobs that are not started yet
+	private final HashMap<String,Job> myJobs = new HashMap<String,Job>();
 
 	private class ImageSynchronizedHandler extends Handler {
 		@Override
@@ -87,8 +219,10 @@ class ZLAndroidImageLoader {
 			synchronized (myOnImageSyncRunnables) {
 				runables = myOnImageSyncRunnables.remove(imageUrl);
 			}
-			for (Runnable runnable : runables) {
-				runnable.run();
+			if (runables != null) {
+				for (Runnable runnable : runables) {
+					runnable.run();
+				}
 			}
 		}
 
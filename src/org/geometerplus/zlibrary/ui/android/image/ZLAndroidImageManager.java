@@ -44,4 +44,14 @@ public final class ZLAndroidImageManager extends ZLImageManager {
 		}
 		myLoader.startImageLoading(syncronizer, image, postLoadingRunnable);
 	}
+
+	public void cancelImageLoading(ZLImageProxy image, Runnable postLoadingRunnable) {
+		if (myLoader != null) {
+			myLoader.cancelImageLoading(image, postLoadingRunnable);
+		}
+	}
+
+	public String getImageLoadingStatistics() {
+		return myLoader != null ? myLoader.getStatistics() : "";
+	}
 }
@@ -28,7 +28,7 @@ import android.graphics.Typeface;
 import org.geometerplus.zlibrary.core.filesystem.ZLFile;
 import org.geometerplus.zlibrary.core.fonts.FileInfo;
 import org.geometerplus.zlibrary.core.fonts.FontEntry;
-import org.geometerplus.zlibrary.core.util.ZLTTFInfoDetector;
+import org.geometerplus.zlibrary.core.util.ZLTTFCatalogue;
 import org.geometerplus.zlibrary.core.xml.ZLStringMap;
 import org.geometerplus.zlibrary.core.xml.ZLXMLReaderAdapter;
 
@@ -38,10 +38,14 @@ import org.geometerplus.fbreader.Paths;
 
 public final class AndroidFontUtil {
 	private static Map<String,String[]> ourFontAssetMap;
-	private static Map<String,File[]> ourFontFileMap;
+	private static volatile Map<String,File[]> ourFontFileMap;
 	private static Set<File> ourFileSet;
 	private static long ourTimeStamp;
 
+	private static ZLTTFCatalogue ourCatalogue;
+	private static volatile boolean ourCatalogueUpdateInProgress;
+	private static volatile boolean ourTypefacesAreOutdated;
+
 	private static Map<String,String[]> getFontAssetMap() {
 		if (ourFontAssetMap == null) {
 			ourFontAssetMap = new HashMap<String,String[]>();
@@ -86,14 +90,46 @@ public final class AndroidFontUtil {
 					fileSet.addAll(Arrays.asList(fileList));
 				}
 			}
-			if (!fileSet.equals(ourFileSet)) {
-				ourFileSet = fileSet;
-				ourFontFileMap = new ZLTTFInfoDetector().collectFonts(fileSet);
+			ourFileSet = fileSet;
+			if (ourCatalogue == null) {
+				ourCatalogue = new ZLTTFCatalogue(new File(Paths.tempDirectory(), "fonts.catalogue"));
+			}
+			final List<File> outdated = new ArrayList<File>();
+			ourFontFileMap = ourCatalogue.collectFonts(fileSet, outdated);
+			if (!outdated.isEmpty()) {
+				if (!ourCatalogue.exists()) {
+					// nothing to show yet, so the first scan is not postponed
+					ourCatalogue.update(outdated, fileSet);
+					ourFontFileMap = ourCatalogue.collectFonts(fileSet, null);
+				} else {
+					updateCatalogueInBackground(ourCatalogue, outdated, fileSet);
+				}
 			}
 		}
 		return ourFontFileMap;
 	}
 
+	private static void updateCatalogueInBackground(final ZLTTFCatalogue catalogue, final List<File> outdated, final Set<File> fileSet) {
+		if (ourCatalogueUpdateInProgress) {
+			return;
+		}
+		ourCatalogueUpdateInProgress = true;
+		final Thread thread = new Thread("FontCatalogue") {
+			@Override
+			public void run() {
+				try {
+					catalogue.update(outdated, fileSet);
+					ourFontFileMap = catalogue.collectFonts(fileSet, null);
+					ourTypefacesAreOutdated = true;
+				} finally {
+					ourCatalogueUpdateInProgress = false;
+				}
+			}
+		};
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
 	public static String realFontFamilyName(String fontFamily) {
 		for (String name : getFontAssetMap().keySet()) {
 			if (name.equalsIgnoreCase(fontFamily)) {
@@ -126,7 +162,19 @@ public final class AndroidFontUtil {
 		families.addAll(familySet);
 	}
 
-	private static final HashMap<String,Typeface[]> ourTypefaces = new HashMap<String,Typeface[]>();
+	private static final int MAX_CACHED_FAMILIES = 16;
+	private static final int MAX_CACHED_EMBEDDED_TYPEFACES = 32;
+
+	private static <K,V> Map<K,V> lruMap(final int maxSize) {
+		return new LinkedHashMap<K,V>(maxSize, .75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K,V> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	private static final Map<String,Typeface[]> ourTypefaces = lruMap(MAX_CACHED_FAMILIES);
 
 	private static Typeface createTypefaceFromAsset(Typeface[] typefaces, String family, int style) {
 		final String[] assets = getFontAssetMap().get(family);
@@ -175,23 +223,30 @@ public final class AndroidFontUtil {
 	private static Typeface systemTypeface(String family, boolean bold, boolean italic) {
 		family = realFontFamilyName(family);
 		final int style = (bold ? Typeface.BOLD : 0) | (italic ? Typeface.ITALIC : 0);
-		Typeface[] typefaces = ourTypefaces.get(family);
-		if (typefaces == null) {
-			typefaces = new Typeface[4];
-			ourTypefaces.put(family, typefaces);
-		}
-		Typeface tf = typefaces[style];
-		if (tf == null) {
-			tf = createTypefaceFromFile(typefaces, family, style);
-		}
-		if (tf == null) {
-			tf = createTypefaceFromAsset(typefaces, family, style);
-		}
-		if (tf == null) {
-			tf = Typeface.create(family, style);
+		// access-order maps are modified by get(), so all the access is synchronized
+		synchronized (ourTypefaces) {
+			if (ourTypefacesAreOutdated) {
+				ourTypefacesAreOutdated = false;
+				ourTypefaces.clear();
+			}
+			Typeface[] typefaces = ourTypefaces.get(family);
+			if (typefaces == null) {
+				typefaces = new Typeface[4];
+				ourTypefaces.put(family, typefaces);
+			}
+			Typeface tf = typefaces[style];
+			if (tf == null) {
+				tf = createTypefaceFromFile(typefaces, family, style);
+			}
+			if (tf == null) {
+				tf = createTypefaceFromAsset(typefaces, family, style);
+			}
+			if (tf == null) {
+				tf = Typeface.create(family, style);
+			}
+			typefaces[style] = tf;
+			return tf;
 		}
-		typefaces[style] = tf;
-		return tf;
 	}
 
 	private static final class Spec {
@@ -225,7 +280,7 @@ public final class AndroidFontUtil {
 		}
 	}
 
-	private static final Map<Spec,Object> ourCachedEmbeddedTypefaces = new HashMap<Spec,Object>();
+	private static final Map<Spec,Object> ourCachedEmbeddedTypefaces = lruMap(MAX_CACHED_EMBEDDED_TYPEFACES);
 	private static final Object NULL_OBJECT = new Object();
 
 	private static String alias(String family, boolean bold, boolean italic) {
@@ -274,23 +329,25 @@ public final class AndroidFontUtil {
 
 	private static Typeface getOrCreateEmbeddedTypeface(FontEntry entry, boolean bold, boolean italic) {
 		final Spec spec = new Spec(entry, bold, italic);
-		Object cached = ourCachedEmbeddedTypefaces.get(spec);
-		if (cached == null) {
-			final FileInfo fileInfo = entry.fileInfo(bold, italic);
-			if (fileInfo != null) {
-				final String realFileName = alias(entry.Family, bold, italic);
-				if (copy(fileInfo, realFileName)) {
-					try {
-						cached = Typeface.createFromFile(realFileName);
-					} catch (Throwable t) {
-						// ignore
+		synchronized (ourCachedEmbeddedTypefaces) {
+			Object cached = ourCachedEmbeddedTypefaces.get(spec);
+			if (cached == null) {
+				final FileInfo fileInfo = entry.fileInfo(bold, italic);
+				if (fileInfo != null) {
+					final String realFileName = alias(entry.Family, bold, italic);
+					if (copy(fileInfo, realFileName)) {
+						try {
+							cached = Typeface.createFromFile(realFileName);
+						} catch (Throwable t) {
+							// ignore
+						}
 					}
+					new File(realFileName).delete();
 				}
-				new File(realFileName).delete();
+				ourCachedEmbeddedTypefaces.put(spec, cached != null ? cached : NULL_OBJECT);
 			}
-			ourCachedEmbeddedTypefaces.put(spec, cached != null ? cached : NULL_OBJECT);
+			return cached instanceof Typeface ? (Typeface)cached : null;
 		}
-		return cached instanceof Typeface ? (Typeface)cached : null;
 	}
 
 	private static Typeface embeddedTypeface(FontEntry entry, boolean bold, boolean italic) {
@@ -311,8 +368,12 @@ public final class AndroidFontUtil {
 	}
 
 	public static void clearFontCache() {
-		ourTypefaces.clear();
+		synchronized (ourTypefaces) {
+			ourTypefaces.clear();
+		}
 		ourFileSet = null;
-		ourCachedEmbeddedTypefaces.clear();
+		synchronized (ourCachedEmbeddedTypefaces) {
+			ourCachedEmbeddedTypefaces.clear();
+		}
 	}
 }
@@ -29,6 +29,7 @@ import org.geometerplus.zlibrary.core.image.ZLImageData;
 import org.geometerplus.zlibrary.core.options.ZLBooleanOption;
 import org.geometerplus.zlibrary.core.util.ZLColor;
 import org.geometerplus.zlibrary.core.view.ZLPaintContext;
+import org.geometerplus.zlibrary.core.view.ZLStringWidthCache;
 
 import org.geometerplus.zlibrary.ui.android.image.ZLAndroidImageData;
 import org.geometerplus.zlibrary.ui.android.util.ZLAndroidColorUtil;
@@ -51,6 +52,37 @@ public final class ZLAndroidPaintContext extends ZLPaintContext {
 
 	private ZLColor myBackgroundColor = new ZLColor(0, 0, 0);
 
+	private static final ZLStringWidthCache ourWidthCache = new ZLStringWidthCache(16);
+	private ZLStringWidthCache.Font myWidthCacheFont;
+	private final ZLStringWidthCache.Measurer myMeasurer = new ZLStringWidthCache.Measurer() {
+		private char[] myBuffer = new char[20];
+
+		public float measure(char[] string, int offset, int length) {
+			boolean containsSoftHyphen = false;
+			for (int i = offset; i < offset + length; ++i) {
+				if (string[i] == (char)0xAD) {
+					containsSoftHyphen = true;
+					break;
+				}
+			}
+			if (!containsSoftHyphen) {
+				return myTextPaint.measureText(string, offset, length);
+			}
+			if (myBuffer.length < length) {
+				myBuffer = new char[length];
+			}
+			final char[] corrected = myBuffer;
+			int len = 0;
+			for (int o = offset; o < offset + length; ++o) {
+				final char chr = string[o];
+				if (chr != (char)0xAD) {
+					corrected[len++] = chr;
+				}
+			}
+			return myTextPaint.measureText(corrected, 0, len);
+		}
+	};
+
 	ZLAndroidPaintContext(Canvas canvas, int width, int height, int scrollbarWidth) {
 		myCanvas = canvas;
 		myWidth = width - scrollbarWidth;
@@ -211,6 +243,11 @@ public final class ZLAndroidPaintContext extends ZLPaintContext {
 		myTextPaint.setTextSize(size);
 		myTextPaint.setUnderlineText(underline);
 		myTextPaint.setStrikeThruText(strikeThrought);
+		myWidthCacheFont = ourWidthCache.font(
+			typeface,
+			size,
+			myTextPaint.getFlags() & ~(Paint.UNDERLINE_TEXT_FLAG | Paint.STRIKE_THRU_TEXT_FLAG)
+		);
 	}
 
 	@Override
@@ -241,26 +278,10 @@ public final class ZLAndroidPaintContext extends ZLPaintContext {
 
 	@Override
 	public int getStringWidth(char[] string, int offset, int length) {
-		boolean containsSoftHyphen = false;
-		for (int i = offset; i < offset + length; ++i) {
-			if (string[i] == (char)0xAD) {
-				containsSoftHyphen = true;
-				break;
-			}
-		}
-		if (!containsSoftHyphen) {
-			return (int)(myTextPaint.measureText(new String(string, offset, length)) + 0.5f);
-		} else {
-			final char[] corrected = new char[length];
-			int len = 0;
-			for (int o = offset; o < offset + length; ++o) {
-				final char chr = string[o];
-				if (chr != (char)0xAD) {
-					corrected[len++] = chr;
-				}
-			}
-			return (int)(myTextPaint.measureText(corrected, 0, len) + 0.5f);
-		}
+		final ZLStringWidthCache.Font font = myWidthCacheFont;
+		return font != null
+			? font.width(string, offset, length, myMeasurer)
+			: (int)(myMeasurer.measure(string, offset, length) + 0.5f);
 	}
 	@Override
 	protected int getSpaceWidthInternal() {
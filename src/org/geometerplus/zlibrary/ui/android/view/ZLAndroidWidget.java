@@ -35,6 +35,7 @@ public class ZLAndroidWidget extends View implements ZLViewWidget, View.OnLongCl
 	private final Paint myPaint = new Paint();
 	private final BitmapManager myBitmapManager = new BitmapManager(this);
 	private Bitmap myFooterBitmap;
+	private String myFooterSignature;
 
 	public ZLAndroidWidget(Context context, AttributeSet attrs, int defStyle) {
 		super(context, attrs, defStyle);
@@ -246,14 +247,20 @@ public class ZLAndroidWidget extends View implements ZLViewWidget, View.OnLongCl
 		}
 		if (myFooterBitmap == null) {
 			myFooterBitmap = Bitmap.createBitmap(getWidth(), footer.getHeight(), Bitmap.Config.RGB_565);
+			myFooterSignature = null;
+		}
+		final int scrollbarWidth = view.isScrollbarShown() ? getVerticalScrollbarWidth() : 0;
+		final String signature = scrollbarWidth + ":" + footer.getPaintSignature();
+		if (!signature.equals(myFooterSignature)) {
+			final ZLAndroidPaintContext context = new ZLAndroidPaintContext(
+				new Canvas(myFooterBitmap),
+				getWidth(),
+				footer.getHeight(),
+				scrollbarWidth
+			);
+			footer.paint(context);
+			myFooterSignature = signature;
 		}
-		final ZLAndroidPaintContext context = new ZLAndroidPaintContext(
-			new Canvas(myFooterBitmap),
-			getWidth(),
-			footer.getHeight(),
-			view.isScrollbarShown() ? getVerticalScrollbarWidth() : 0
-		);
-		footer.paint(context);
 		canvas.drawBitmap(myFooterBitmap, 0, getHeight() - footer.getHeight(), myPaint);
 	}
 